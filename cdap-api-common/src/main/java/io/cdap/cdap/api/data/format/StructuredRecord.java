@@ -22,6 +22,10 @@ import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.api.data.schema.Schema.LogicalType;
 import io.cdap.cdap.api.data.schema.SchemaCache;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -37,9 +41,11 @@ import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -48,24 +54,32 @@ import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 /**
- * Instance of a record structured by a {@link Schema}. Fields are accessible by name.
+ * Instance of a record structured by a {@link Schema}. Fields are accessible by name, or by their position in the
+ * record schema.
  */
 @Beta
 public class StructuredRecord implements Serializable {
   private static final SimpleDateFormat DEFAULT_FORMAT = new SimpleDateFormat("YYYY-MM-DD'T'HH:mm:ss z");
 
-  private final Schema schema;
-  private final Map<String, Object> fields;
+  private Schema schema;
+  // Field values, in the same order as the fields in the schema
+  private Object[] values;
 
   private static final long serialVersionUID = -6547770456592865613L;
 
+  // Keep the serialized form of a map of field values, which is independent of the field positions
+  private static final ObjectStreamField[] serialPersistentFields = {
+    new ObjectStreamField("schema", Schema.class),
+    new ObjectStreamField("fields", Map.class)
+  };
+
   static {
     DEFAULT_FORMAT.setTimeZone(TimeZone.getTimeZone("UTC"));
   }
 
-  private StructuredRecord(Schema schema, Map<String, Object> fields) {
+  private StructuredRecord(Schema schema, Object[] values) {
     this.schema = SchemaCache.intern(schema);
-    this.fields = fields;
+    this.values = values;
   }
 
   /**
@@ -87,7 +101,22 @@ public class StructuredRecord implements Serializable {
   @SuppressWarnings("unchecked")
   @Nullable
   public <T> T get(String fieldName) {
-    return (T) fields.get(fieldName);
+    return (T) getValue(fieldName);
+  }
+
+  /**
+   * Get the value of a field in the record by its position in the record schema. This avoids the lookup of the
+   * field by name, which makes it faster when iterating over the fields of the schema.
+   *
+   * @param index position of the field in {@link Schema#getFields()}.
+   * @param <T> type of object of the field value.
+   * @return value of the field.
+   * @throws IndexOutOfBoundsException if the index is not a valid field position.
+   */
+  @SuppressWarnings("unchecked")
+  @Nullable
+  public <T> T get(int index) {
+    return (T) values[index];
   }
 
   /**
@@ -101,7 +130,7 @@ public class StructuredRecord implements Serializable {
   public LocalDate getDate(String fieldName) {
     Schema logicalTypeSchema = validateAndGetLogicalTypeSchema(schema.getField(fieldName),
                                                                EnumSet.of(LogicalType.DATE));
-    Object val = fields.get(fieldName);
+    Object val = getValue(fieldName);
     try {
       Integer value = (Integer) val;
       return (value == null || logicalTypeSchema == null) ? null : LocalDate.ofEpochDay(value.longValue());
@@ -125,7 +154,7 @@ public class StructuredRecord implements Serializable {
     Schema logicalTypeSchema = validateAndGetLogicalTypeSchema(schema.getField(fieldName),
                                                                EnumSet.of(LogicalType.TIME_MILLIS,
                                                                           LogicalType.TIME_MICROS));
-    Object val = fields.get(fieldName);
+    Object val = getValue(fieldName);
     if (val == null || logicalTypeSchema == null) {
       return null;
     }
@@ -182,7 +211,7 @@ public class StructuredRecord implements Serializable {
     Schema logicalTypeSchema = validateAndGetLogicalTypeSchema(schema.getField(fieldName),
                                                                EnumSet.of(LogicalType.TIMESTAMP_MILLIS,
                                                                           LogicalType.TIMESTAMP_MICROS));
-    Object val = fields.get(fieldName);
+    Object val = getValue(fieldName);
     if (val == null || logicalTypeSchema == null) {
       return null;
     }
@@ -213,7 +242,7 @@ public class StructuredRecord implements Serializable {
   public BigDecimal getDecimal(String fieldName) {
     Schema logicalTypeSchema = validateAndGetLogicalTypeSchema(schema.getField(fieldName),
                                                                EnumSet.of(LogicalType.DECIMAL));
-    Object value = fields.get(fieldName);
+    Object value = getValue(fieldName);
     if (value == null || logicalTypeSchema == null) {
       return null;
     }
@@ -242,7 +271,7 @@ public class StructuredRecord implements Serializable {
   public LocalDateTime getDateTime(String fieldName) {
     Schema logicalTypeSchema = validateAndGetLogicalTypeSchema(schema.getField(fieldName),
                                                                EnumSet.of(LogicalType.DATETIME));
-    Object value = fields.get(fieldName);
+    Object value = getValue(fieldName);
     if (value == null || logicalTypeSchema == null) {
       return null;
     }
@@ -255,6 +284,15 @@ public class StructuredRecord implements Serializable {
     }
   }
 
+  /**
+   * Returns the value of the given field, or {@code null} if the field is not in the schema.
+   */
+  @Nullable
+  private Object getValue(String fieldName) {
+    int index = schema.getFieldIndex(fieldName);
+    return index < 0 ? null : values[index];
+  }
+
   /**
    * Get zoned date and time represented by the field.
    *
@@ -351,11 +389,14 @@ public class StructuredRecord implements Serializable {
    */
   public static class Builder {
     private final Schema schema;
-    private Map<String, Object> fields;
+    private final Object[] values;
+    // Whether a value was set for each field, to tell unset fields apart from fields set to null
+    private final boolean[] valueSet;
 
     private Builder(Schema schema) {
       this.schema = schema;
-      this.fields = new HashMap<>();
+      this.values = new Object[schema.getFields().size()];
+      this.valueSet = new boolean[values.length];
     }
 
     /**
@@ -368,8 +409,26 @@ public class StructuredRecord implements Serializable {
      *                                   value is given
      */
     public Builder set(String fieldName, @Nullable Object value) {
-      validateAndGetField(fieldName, value);
-      fields.put(fieldName, value);
+      int index = schema.getFieldIndex(fieldName);
+      if (index < 0) {
+        throw new UnexpectedFormatException("field " + fieldName + " is not in the schema.");
+      }
+      return set(index, value);
+    }
+
+    /**
+     * Set the field at the given position in the record schema to the given value.
+     *
+     * @param index position of the field in {@link Schema#getFields()}
+     * @param value value for the field
+     * @return this builder
+     * @throws IndexOutOfBoundsException if the index is not a valid field position
+     * @throws UnexpectedFormatException if the field is not nullable but a null value is given
+     */
+    public Builder set(int index, @Nullable Object value) {
+      validateField(schema.getFields().get(index), value);
+      values[index] = value;
+      valueSet[index] = true;
       return this;
     }
 
@@ -385,11 +444,11 @@ public class StructuredRecord implements Serializable {
     public Builder setDate(String fieldName, @Nullable LocalDate localDate) {
       validateAndGetLogicalTypeSchema(validateAndGetField(fieldName, localDate), EnumSet.of(LogicalType.DATE));
       if (localDate == null) {
-        fields.put(fieldName, null);
+        put(fieldName, null);
         return this;
       }
       try {
-        fields.put(fieldName, Math.toIntExact(localDate.toEpochDay()));
+        put(fieldName, Math.toIntExact(localDate.toEpochDay()));
       } catch (ArithmeticException e) {
         // Highest integer is 2,147,483,647 which is Jan 1 2038.
         throw new UnexpectedFormatException(String.format("Field %s was set to a date that is too large." +
@@ -413,7 +472,7 @@ public class StructuredRecord implements Serializable {
                                                                             LogicalType.TIME_MICROS));
 
       if (localTime == null) {
-        fields.put(fieldName, null);
+        put(fieldName, null);
         return this;
       }
 
@@ -422,7 +481,7 @@ public class StructuredRecord implements Serializable {
       if (logicalTypeSchema.getLogicalType() == LogicalType.TIME_MILLIS) {
         try {
           int millis = Math.toIntExact(TimeUnit.NANOSECONDS.toMillis(nanos));
-          fields.put(fieldName, millis);
+          put(fieldName, millis);
         } catch (ArithmeticException e) {
           throw new UnexpectedFormatException(String.format("Field %s was set to a time that is too large.",
                                                             fieldName));
@@ -431,7 +490,7 @@ public class StructuredRecord implements Serializable {
       }
 
       long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
-      fields.put(fieldName, micros);
+      put(fieldName, micros);
       return this;
     }
 
@@ -451,7 +510,7 @@ public class StructuredRecord implements Serializable {
                                                                             LogicalType.TIMESTAMP_MICROS));
 
       if (zonedDateTime == null) {
-        fields.put(fieldName, null);
+        put(fieldName, null);
         return this;
       }
 
@@ -460,13 +519,13 @@ public class StructuredRecord implements Serializable {
         if (logicalTypeSchema.getLogicalType() == LogicalType.TIMESTAMP_MILLIS) {
           long millis = TimeUnit.SECONDS.toMillis(instant.getEpochSecond());
           long tsMillis = Math.addExact(millis, TimeUnit.NANOSECONDS.toMillis(instant.getNano()));
-          fields.put(fieldName, tsMillis);
+          put(fieldName, tsMillis);
           return this;
         }
 
         long micros = TimeUnit.SECONDS.toMicros(instant.getEpochSecond());
         long tsMicros = Math.addExact(micros, TimeUnit.NANOSECONDS.toMicros(instant.getNano()));
-        fields.put(fieldName, tsMicros);
+        put(fieldName, tsMicros);
         return this;
       } catch (ArithmeticException e) {
         throw new UnexpectedFormatException(String.format("Field %s was set to a timestamp that is too large.",
@@ -488,7 +547,7 @@ public class StructuredRecord implements Serializable {
       Schema logicalSchema = validateAndGetLogicalTypeSchema(validateAndGetField(fieldName, decimal),
                                                              EnumSet.of(LogicalType.DECIMAL));
       if (decimal == null) {
-        fields.put(fieldName, null);
+        put(fieldName, null);
         return this;
       }
 
@@ -504,7 +563,7 @@ public class StructuredRecord implements Serializable {
                         fieldName, decimal.scale(), logicalSchema.getScale()));
       }
 
-      fields.put(fieldName, decimal.unscaledValue().toByteArray());
+      put(fieldName, decimal.unscaledValue().toByteArray());
       return this;
     }
 
@@ -520,11 +579,11 @@ public class StructuredRecord implements Serializable {
       validateAndGetLogicalTypeSchema(validateAndGetField(fieldName, localDateTime),
                                                              EnumSet.of(LogicalType.DATETIME));
       if (localDateTime == null) {
-        fields.put(fieldName, null);
+        put(fieldName, null);
         return this;
       }
       // Save as ISO-8601 format without the offset
-      fields.put(fieldName, localDateTime.format(DateTimeFormatter.ISO_DATE_TIME));
+      put(fieldName, localDateTime.format(DateTimeFormatter.ISO_DATE_TIME));
       return this;
     }
 
@@ -567,16 +626,16 @@ public class StructuredRecord implements Serializable {
       Schema.Field field = validateAndGetField(fieldName, date);
       boolean isNullable = field.getSchema().isNullable();
       if (isNullable && date == null) {
-        fields.put(fieldName, null);
+        put(fieldName, null);
         return this;
       }
 
       Schema.Type fieldType = isNullable ? field.getSchema().getNonNullable().getType() : field.getSchema().getType();
       if (fieldType == Schema.Type.LONG) {
-        fields.put(fieldName, date.getTime());
+        put(fieldName, date.getTime());
       } else if (fieldType == Schema.Type.STRING) {
         DateFormat format = dateFormat == null ? DEFAULT_FORMAT : dateFormat;
-        fields.put(fieldName, format.format(date));
+        put(fieldName, format.format(date));
       } else {
         throw new UnexpectedFormatException("Date must be either a long or a string, not a " + fieldType);
       }
@@ -595,7 +654,7 @@ public class StructuredRecord implements Serializable {
      */
     public Builder convertAndSet(String fieldName, @Nullable String strVal) throws UnexpectedFormatException {
       Schema.Field field = validateAndGetField(fieldName, strVal);
-      fields.put(fieldName, convertString(field.getSchema(), strVal));
+      put(fieldName, convertString(field.getSchema(), strVal));
       return this;
     }
 
@@ -606,20 +665,24 @@ public class StructuredRecord implements Serializable {
      * @throws UnexpectedFormatException if there is at least one non-nullable field without a value
      */
     public StructuredRecord build() throws UnexpectedFormatException {
-      // check that all non-nullable fields have a value.
-      for (Schema.Field field : schema.getFields()) {
-        String fieldName = field.getName();
-        if (!fields.containsKey(fieldName)) {
-          // if the field is not nullable and there is no value set for the field, this is invalid.
-          if (!field.getSchema().isNullable()) {
-            throw new UnexpectedFormatException("Field " + fieldName + " must contain a value.");
-          } else {
-            // otherwise, set the value for the field to null
-            fields.put(fieldName, null);
-          }
+      // check that all non-nullable fields have a value. Nullable fields without a value are left as null.
+      List<Schema.Field> fields = schema.getFields();
+      for (int i = 0; i < values.length; i++) {
+        // if the field is not nullable and there is no value set for the field, this is invalid.
+        if (!valueSet[i] && !fields.get(i).getSchema().isNullable()) {
+          throw new UnexpectedFormatException("Field " + fields.get(i).getName() + " must contain a value.");
         }
       }
-      return new StructuredRecord(schema, fields);
+      return new StructuredRecord(schema, values);
+    }
+
+    /**
+     * Sets the value of a field that is known to be in the schema.
+     */
+    private void put(String fieldName, @Nullable Object value) {
+      int index = schema.getFieldIndex(fieldName);
+      values[index] = value;
+      valueSet[index] = true;
     }
 
     private Object convertString(Schema schema, String strVal) throws UnexpectedFormatException {
@@ -666,22 +729,27 @@ public class StructuredRecord implements Serializable {
       if (field == null) {
         throw new UnexpectedFormatException("field " + fieldName + " is not in the schema.");
       }
+      validateField(field, val);
+      return field;
+    }
+
+    private void validateField(Schema.Field field, Object val) {
+      if (val != null) {
+        return;
+      }
       Schema fieldSchema = field.getSchema();
-      if (val == null) {
-        if (fieldSchema.getType() == Schema.Type.NULL) {
-          return field;
-        }
-        if (fieldSchema.getType() != Schema.Type.UNION) {
-          throw new UnexpectedFormatException("field " + fieldName + " cannot be set to a null value.");
-        }
-        for (Schema unionSchema : fieldSchema.getUnionSchemas()) {
-          if (unionSchema.getType() == Schema.Type.NULL) {
-            return field;
-          }
+      if (fieldSchema.getType() == Schema.Type.NULL) {
+        return;
+      }
+      if (fieldSchema.getType() != Schema.Type.UNION) {
+        throw new UnexpectedFormatException("field " + field.getName() + " cannot be set to a null value.");
+      }
+      for (Schema unionSchema : fieldSchema.getUnionSchemas()) {
+        if (unionSchema.getType() == Schema.Type.NULL) {
+          return;
         }
-        throw new UnexpectedFormatException("field " + fieldName + " cannot be set to a null value.");
       }
-      return field;
+      throw new UnexpectedFormatException("field " + field.getName() + " cannot be set to a null value.");
     }
   }
 
@@ -696,12 +764,44 @@ public class StructuredRecord implements Serializable {
 
     StructuredRecord that = (StructuredRecord) o;
 
-    return Objects.equals(schema, that.schema) && Objects.equals(fields, that.fields);
+    return Objects.equals(schema, that.schema) && Arrays.equals(values, that.values);
 
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(schema, fields);
+    // Same as the hash code of the map of field values, to keep it unchanged from the map based representation
+    int fieldsHashCode = 0;
+    List<Schema.Field> fields = schema.getFields();
+    for (int i = 0; i < values.length; i++) {
+      fieldsHashCode += fields.get(i).getName().hashCode() ^ Objects.hashCode(values[i]);
+    }
+    return Objects.hash(schema, fieldsHashCode);
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    Map<String, Object> fields = new HashMap<>();
+    List<Schema.Field> schemaFields = schema.getFields();
+    for (int i = 0; i < values.length; i++) {
+      fields.put(schemaFields.get(i).getName(), values[i]);
+    }
+    ObjectOutputStream.PutField putField = out.putFields();
+    putField.put("schema", schema);
+    putField.put("fields", fields);
+    out.writeFields();
+  }
+
+  @SuppressWarnings("unchecked")
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    ObjectInputStream.GetField getField = in.readFields();
+    schema = (Schema) getField.get("schema", null);
+    Map<String, Object> fields = (Map<String, Object>) getField.get("fields", null);
+    values = new Object[schema.getFields().size()];
+    for (Map.Entry<String, Object> entry : fields.entrySet()) {
+      int index = schema.getFieldIndex(entry.getKey());
+      if (index >= 0) {
+        values[index] = entry.getValue();
+      }
+    }
   }
 }
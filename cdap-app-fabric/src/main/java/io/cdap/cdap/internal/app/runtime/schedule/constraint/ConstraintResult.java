@@ -41,7 +41,7 @@ public class ConstraintResult {
     this(satisfiedState, null);
   }
 
-  ConstraintResult(SatisfiedState satisfiedState, Long nextCheckTime) {
+  public ConstraintResult(SatisfiedState satisfiedState, Long nextCheckTime) {
     if (satisfiedState == SatisfiedState.NOT_SATISFIED) {
       // if a constraint is NOT_SATISFIED, there must be a duration specified for the next retry
       Preconditions.checkNotNull(nextCheckTime);
@@ -22,6 +22,7 @@ import io.cdap.cdap.proto.Notification;
 import io.cdap.cdap.proto.id.ScheduleId;
 
 import java.io.IOException;
+import java.util.List;
 import javax.annotation.Nullable;
 
 /**
@@ -62,6 +63,16 @@ public interface JobQueue {
    */
   void addNotification(ProgramScheduleRecord schedule, Notification notification) throws IOException;
 
+  /**
+   * Adds the given notifications to jobs for the given schedule, in the given order. This is the same as calling
+   * {@link #addNotification(ProgramScheduleRecord, Notification)} for each notification, but only reads the jobs of
+   * the schedule once.
+   *
+   * @param schedule the schedule for which jobs will be update
+   * @param notifications the new notifications to update the schedule jobs with
+   */
+  void addNotifications(ProgramScheduleRecord schedule, List<Notification> notifications) throws IOException;
+
   /**
    * Marks all jobs associated with the given schedule Id for deletion, recording the time of deletion.
    *
@@ -82,6 +82,9 @@ import javax.annotation.Nullable;
 public class JobQueueTable implements JobQueue {
 
   private static final String TMS_SUBSCRIBER_ID = "job.queue.subscriber";
+  // Notifications added to an existing job are stored in separate rows, with the JSON in the job column and the row
+  // type suffixed by the zero padded index of the notification, so that they are sorted in the order they were added
+  private static final String NOTIFICATION_ROW_TYPE_PREFIX = StoreDefinition.JobQueueStore.RowType.NOTIFICATION + ".";
   private static final Gson GSON =
     new GsonBuilder()
       .registerTypeAdapter(Trigger.class, new TriggerCodec())
@@ -135,27 +138,37 @@ public class JobQueueTable implements JobQueue {
     Job newJob = new SimpleJob(job.getSchedule(), job.getGenerationId(), job.getCreationTime(), job.getNotifications(),
                                state, job.getScheduleLastUpdatedTime());
     writeJob(newJob);
+    if (job.getState() == Job.State.PENDING_TRIGGER) {
+      // the notifications are all in the job row now
+      deleteNotifications(job);
+    }
     return newJob;
   }
 
   @Override
   public void addNotification(ProgramScheduleRecord record, Notification notification) throws IOException {
-    boolean jobExists = false;
+    addNotifications(record, Collections.singletonList(notification));
+  }
+
+  @Override
+  public void addNotifications(ProgramScheduleRecord record, List<Notification> notifications) throws IOException {
     ProgramSchedule schedule = record.getSchedule();
 
     // Only add notifications for enabled schedules
-    if (record.getMeta().getStatus() != ProgramScheduleStatus.SCHEDULED) {
+    if (notifications.isEmpty() || record.getMeta().getStatus() != ProgramScheduleStatus.SCHEDULED) {
       return;
     }
 
     int nextGenerationId = 0;
+    Job pendingJob = null;
     try (CloseableIterator<Job> jobs = getJobsForSchedule(schedule.getScheduleId())) {
       while (jobs.hasNext()) {
         Job job = jobs.next();
         if (job.getGenerationId() >= nextGenerationId) {
           nextGenerationId = job.getGenerationId() + 1;
         }
-        if (job.getState() == Job.State.PENDING_TRIGGER) {
+        // keep scanning after a pending job is found, since a new job needs a new generation id
+        if (pendingJob == null && job.getState() == Job.State.PENDING_TRIGGER) {
           // only update the job's notifications if it is in PENDING_TRIGGER, so as to avoid conflict with the
           // ConstraintCheckerService
           if (job.isToBeDeleted()) {
@@ -170,24 +183,40 @@ public class JobQueueTable implements JobQueue {
             // job has timed out; mark it obsolete
             writeJobObsolete(job, System.currentTimeMillis());
           } else {
-            jobExists = true;
-            addNotification(job, notification);
-            break;
+            pendingJob = job;
           }
         }
       }
     }
-    // if no job exists for the scheduleId, add a new job with the first notification
-    if (!jobExists) {
-      List<Notification> notifications = Collections.singletonList(notification);
-      Job.State jobState = isTriggerSatisfied(schedule, notifications)
+
+    for (Notification notification : notifications) {
+      if (pendingJob != null) {
+        pendingJob = addNotification(pendingJob, notification);
+        if (pendingJob.getState() != Job.State.PENDING_TRIGGER) {
+          pendingJob = null;
+        }
+        continue;
+      }
+      // if no pending job exists for the scheduleId, add a new job with the first notification
+      List<Notification> jobNotifications = Collections.singletonList(notification);
+      Job.State jobState = isTriggerSatisfied(schedule, jobNotifications)
         ? Job.State.PENDING_CONSTRAINT : Job.State.PENDING_TRIGGER;
-      writeJob(new SimpleJob(schedule, nextGenerationId, System.currentTimeMillis(), notifications, jobState,
-                        record.getMeta().getLastUpdated()));
+      Job job = new SimpleJob(schedule, nextGenerationId++, System.currentTimeMillis(), jobNotifications, jobState,
+                              record.getMeta().getLastUpdated());
+      writeJob(job);
+      if (jobState == Job.State.PENDING_TRIGGER) {
+        pendingJob = job;
+      }
     }
   }
 
-  private void addNotification(Job job, Notification notification) throws IOException {
+  /**
+   * Adds a notification to a job in {@link Job.State#PENDING_TRIGGER}. The notification is written as a separate row,
+   * and the job row is only rewritten if the trigger is satisfied by the new notification.
+   *
+   * @return the updated job
+   */
+  private Job addNotification(Job job, Notification notification) throws IOException {
     List<Notification> notifications = new ArrayList<>(job.getNotifications());
     notifications.add(notification);
 
@@ -198,7 +227,13 @@ public class JobQueueTable implements JobQueue {
     }
     Job newJob = new SimpleJob(job.getSchedule(), job.getGenerationId(), job.getCreationTime(), notifications, newState,
                                job.getScheduleLastUpdatedTime());
-    writeJob(newJob);
+    if (newState == job.getState()) {
+      writeNotification(job, job.getNotifications().size(), notification);
+    } else {
+      writeJob(newJob);
+      deleteNotifications(job);
+    }
+    return newJob;
   }
 
   private boolean isTriggerSatisfied(ProgramSchedule schedule, List<Notification> notifications) {
@@ -282,8 +317,9 @@ public class JobQueueTable implements JobQueue {
    *   <li>Row JOB - the row containing the job data, required</li>
    *   <li>Row DELETE - the row containing the time when the job was marked for deletion, optional</li>
    *   <li>Row OBSOLETE - the row containing the time when the job was marked as obsolete, optional</li>
+   *   <li>Rows NOTIFICATION - rows containing notifications added after the job was written, optional</li>
    * </ul>
-   * The above three rows will always be next to each other due to sorting.
+   * The above rows will always be next to each other due to sorting.
    *
    * @param peekingIterator should have at least one element
    * @return a Job object for the first schedule in the iterator
@@ -292,6 +328,7 @@ public class JobQueueTable implements JobQueue {
     SimpleJob job = null;
     Long toBeDeletedTime = null;
     Long isObsoleteTime = null;
+    List<Notification> notifications = new ArrayList<>();
 
     // Get the schedule id for the job from the first element
     String scheduleId = getScheduleId(peekingIterator.peek());
@@ -312,6 +349,9 @@ public class JobQueueTable implements JobQueue {
         case OBSOLETE:
           isObsoleteTime = row.getLong(StoreDefinition.JobQueueStore.OBSOLETE_TIME);
           break;
+        case NOTIFICATION:
+          notifications.add(GSON.fromJson(row.getString(StoreDefinition.JobQueueStore.JOB), Notification.class));
+          break;
         default:
           // Should not happen unless a new value is added to the RowType enum
           throw new IllegalStateException(String.format("Unknown row type encountered in job queue: %s", rowType));
@@ -322,6 +362,12 @@ public class JobQueueTable implements JobQueue {
       // Should not happen since we always write delete time or obsolete time only after reading the job from store
       throw new IllegalStateException(String.format("Cannot find job for schedule id: %s", scheduleId));
     }
+    if (!notifications.isEmpty()) {
+      // Notification rows are sorted in the order they were added, after the ones in the job row
+      notifications.addAll(0, job.getNotifications());
+      job = new SimpleJob(job.getSchedule(), job.getGenerationId(), job.getCreationTime(), notifications,
+                          job.getState(), job.getScheduleLastUpdatedTime());
+    }
 
     Long timeToSet = toBeDeletedTime == null ? isObsoleteTime :
       isObsoleteTime == null ? toBeDeletedTime : new Long(Math.min(isObsoleteTime, toBeDeletedTime));
@@ -338,6 +384,10 @@ public class JobQueueTable implements JobQueue {
   private StoreDefinition.JobQueueStore.RowType getRowType(StructuredRow row) {
     String rowType = row.getString(StoreDefinition.JobQueueStore.ROW_TYPE);
     // the type cannot be null since it is part of the primary key
+    //noinspection ConstantConditions
+    if (rowType.startsWith(NOTIFICATION_ROW_TYPE_PREFIX)) {
+      return StoreDefinition.JobQueueStore.RowType.NOTIFICATION;
+    }
     return StoreDefinition.JobQueueStore.RowType.valueOf(rowType);
   }
 
@@ -360,6 +410,32 @@ public class JobQueueTable implements JobQueue {
     }
   }
 
+  private void writeNotification(Job job, int index, Notification notification) throws IOException {
+    Collection<Field<?>> fields = getNotificationKeys(job, index);
+    fields.add(Fields.stringField(StoreDefinition.JobQueueStore.JOB, GSON.toJson(notification)));
+    jobQueueTable.upsert(fields);
+  }
+
+  private void deleteNotifications(Job job) throws IOException {
+    Collection<Field<?>> begin = getJobScanKeys(job.getSchedule().getScheduleId(), job.getGenerationId());
+    Collection<Field<?>> end = getJobScanKeys(job.getSchedule().getScheduleId(), job.getGenerationId());
+    begin.add(Fields.stringField(StoreDefinition.JobQueueStore.ROW_TYPE, NOTIFICATION_ROW_TYPE_PREFIX));
+    // '/' is the character after '.' used in the prefix
+    end.add(Fields.stringField(StoreDefinition.JobQueueStore.ROW_TYPE,
+                               StoreDefinition.JobQueueStore.RowType.NOTIFICATION + "/"));
+    jobQueueTable.deleteAll(Range.create(begin, Range.Bound.INCLUSIVE, end, Range.Bound.EXCLUSIVE));
+    // Also delete the row of the next notification, so that this conflicts with any concurrent transaction
+    // that adds a notification to the same job
+    jobQueueTable.delete(getNotificationKeys(job, job.getNotifications().size()));
+  }
+
+  private Collection<Field<?>> getNotificationKeys(Job job, int index) {
+    Collection<Field<?>> keys = getJobScanKeys(job.getSchedule().getScheduleId(), job.getGenerationId());
+    keys.add(Fields.stringField(StoreDefinition.JobQueueStore.ROW_TYPE,
+                                String.format("%s%010d", NOTIFICATION_ROW_TYPE_PREFIX, index)));
+    return keys;
+  }
+
   private void writeJobDelete(Job job, Long deleteTime) throws IOException {
     Collection<Field<?>> fields = getJobKeys(job.getSchedule().getScheduleId(), job.getGenerationId(),
                                              StoreDefinition.JobQueueStore.RowType.DELETE);
@@ -402,6 +478,16 @@ public class JobQueueTable implements JobQueue {
 
   @VisibleForTesting
   int getPartition(ScheduleId scheduleId) {
+    return getPartition(scheduleId, numPartitions);
+  }
+
+  /**
+   * Returns the partition of the job queue that the jobs of the given schedule are stored in.
+   *
+   * @param scheduleId the schedule id
+   * @param numPartitions the number of partitions of the job queue
+   */
+  public static int getPartition(ScheduleId scheduleId, int numPartitions) {
     // Similar to ScheduleId#hashCode, but that is not consistent across runtimes due to how Enum#hashCode works.
     // Ensure that the hash won't change across runtimes:
     int hash = Hashing.murmur3_32().newHasher()
@@ -16,35 +16,31 @@
 
 package io.cdap.cdap.internal.app.runtime.schedule.store;
 
-import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Preconditions;
-import com.google.common.base.Throwables;
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Lists;
 import com.google.inject.Inject;
-import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
-import io.cdap.cdap.spi.data.StructuredRow;
+import io.cdap.cdap.common.utils.ImmutablePair;
 import io.cdap.cdap.spi.data.StructuredTable;
-import io.cdap.cdap.spi.data.StructuredTableContext;
-import io.cdap.cdap.spi.data.table.field.Field;
-import io.cdap.cdap.spi.data.table.field.Fields;
-import io.cdap.cdap.spi.data.table.field.Range;
 import io.cdap.cdap.spi.data.transaction.TransactionRunner;
 import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+import io.cdap.cdap.spi.data.transaction.TxCallable;
 import io.cdap.cdap.store.StoreDefinition;
-import org.apache.commons.lang.SerializationUtils;
+import org.quartz.Calendar;
 import org.quartz.JobDetail;
 import org.quartz.JobKey;
 import org.quartz.JobPersistenceException;
 import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.SchedulerConfigException;
 import org.quartz.Trigger;
 import org.quartz.TriggerKey;
-import org.quartz.simpl.RAMJobStore;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.impl.matchers.StringMatcher;
 import org.quartz.spi.ClassLoadHelper;
+import org.quartz.spi.JobStore;
 import org.quartz.spi.OperableTrigger;
 import org.quartz.spi.SchedulerSignaler;
+import org.quartz.spi.TriggerFiredBundle;
+import org.quartz.spi.TriggerFiredResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,291 +49,913 @@ import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
-import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * ScheduleStore extends from RAMJobStore and persists the trigger and schedule information into datasets.
+ * A Quartz {@link JobStore} that keeps the jobs and triggers only in the {@link StructuredTable}s defined in
+ * {@link StoreDefinition.TimeScheduleStore}, instead of loading all of them into memory.
+ *
+ * Triggers that are waiting to fire are indexed by their next fire time, so that acquiring the triggers to fire
+ * only reads the triggers that are due within the time window requested by the Quartz scheduler thread. Triggers
+ * are also indexed by their group, so that pausing and resuming a trigger group only reads the triggers in that
+ * group. Other operations only read the jobs and triggers they need, hence the memory usage and the time to start
+ * the scheduler don't depend on the number of schedules. The paused groups are persisted and cached in memory,
+ * so that pausing a group that is already paused doesn't access the tables. The acquired triggers are only kept
+ * in memory.
+ *
+ * Operations that match groups with an operator other than {@link StringMatcher.StringOperatorName#EQUALS}, as well
+ * as {@link #pauseAll()}, {@link #resumeAll()}, {@link #getJobKeys(GroupMatcher)} and {@link #getJobGroupNames()},
+ * scan all the triggers or jobs. They are only used by administrative tools and not by the time scheduler.
+ *
+ * Calendars, jobs that disallow concurrent execution and persisting job data after execution are not supported.
  */
-public class DatasetBasedTimeScheduleStore extends RAMJobStore {
+public class DatasetBasedTimeScheduleStore implements JobStore {
   private static final Logger LOG = LoggerFactory.getLogger(DatasetBasedTimeScheduleStore.class);
-  private static final String JOB_KEY = "job";
-  private static final String TRIGGER_KEY = "trigger";
+  // Number of triggers to index in one transaction when building the index tables for existing triggers
+  private static final int INDEX_BATCH_SIZE = 1000;
 
   private final TransactionRunner transactionRunner;
-
   private final CConfiguration cConf;
+  private final Object lock;
+  private final Set<String> pausedTriggerGroups;
+  private final Set<String> pausedJobGroups;
+  // Triggers that are acquired by the scheduler thread but not fired or released yet
+  private final Set<TriggerKey> acquiredTriggers;
+  private final AtomicLong firedTriggerCounter;
+
+  private SchedulerSignaler signaler;
+  private long misfireThreshold;
 
   @Inject
   DatasetBasedTimeScheduleStore(TransactionRunner transactionRunner, CConfiguration cConf) {
     this.transactionRunner = transactionRunner;
     this.cConf = cConf;
+    this.lock = new Object();
+    this.pausedTriggerGroups = new HashSet<>();
+    this.pausedJobGroups = new HashSet<>();
+    this.acquiredTriggers = new HashSet<>();
+    this.firedTriggerCounter = new AtomicLong(System.currentTimeMillis());
   }
 
   @Override
-  public void initialize(ClassLoadHelper loadHelper, SchedulerSignaler schedSignaler) {
-    super.initialize(loadHelper, schedSignaler);
+  public void initialize(ClassLoadHelper loadHelper, SchedulerSignaler schedSignaler) throws SchedulerConfigException {
+    this.signaler = schedSignaler;
+    // See CDAP-7116
+    this.misfireThreshold = cConf.getLong(Constants.Scheduler.CFG_SCHEDULER_MISFIRE_THRESHOLD_MS);
     try {
-      // See CDAP-7116
-      setMisfireThreshold(cConf.getLong(Constants.Scheduler.CFG_SCHEDULER_MISFIRE_THRESHOLD_MS));
-      readSchedulesFromPersistentStore();
-    } catch (Throwable th) {
-      throw Throwables.propagate(th);
+      buildIndexes();
+    } catch (JobPersistenceException e) {
+      throw new SchedulerConfigException("Failed to build the index of time schedules", e);
+    }
+    try {
+      synchronized (lock) {
+        pausedTriggerGroups.addAll(execute(TimeScheduleTable::getPausedTriggerGroups));
+        pausedJobGroups.addAll(execute(TimeScheduleTable::getPausedJobGroups));
+      }
+    } catch (JobPersistenceException e) {
+      throw new SchedulerConfigException("Failed to read the paused groups of time schedules", e);
     }
   }
 
   @Override
-  public void storeJob(JobDetail newJob, boolean replaceExisting) throws ObjectAlreadyExistsException {
-    super.storeJob(newJob, replaceExisting);
-    persistJobAndTrigger(newJob, null);
+  public void schedulerStarted() {
+    // no-op
   }
 
   @Override
-  public void storeTrigger(OperableTrigger newTrigger, boolean replaceExisting) throws JobPersistenceException {
-    super.storeTrigger(newTrigger, replaceExisting);
-    persistJobAndTrigger(null, newTrigger);
+  public void schedulerPaused() {
+    // no-op
+  }
+
+  @Override
+  public void schedulerResumed() {
+    // no-op
+  }
+
+  @Override
+  public void shutdown() {
+    // no-op
+  }
+
+  @Override
+  public boolean supportsPersistence() {
+    return true;
+  }
+
+  @Override
+  public long getEstimatedTimeToReleaseAndAcquireTrigger() {
+    return 70;
+  }
+
+  @Override
+  public boolean isClustered() {
+    return false;
+  }
+
+  @Override
+  public void storeJobAndTrigger(JobDetail newJob, OperableTrigger newTrigger) throws JobPersistenceException {
+    synchronized (lock) {
+      execute(table -> {
+        storeJob(table, newJob, true);
+        storeTrigger(table, newTrigger, true);
+        return null;
+      });
+      acquiredTriggers.remove(newTrigger.getKey());
+    }
+  }
+
+  @Override
+  public void storeJob(JobDetail newJob, boolean replaceExisting) throws JobPersistenceException {
+    synchronized (lock) {
+      execute(table -> {
+        storeJob(table, newJob, replaceExisting);
+        return null;
+      });
+    }
   }
 
   @Override
   public void storeJobsAndTriggers(Map<JobDetail, Set<? extends Trigger>> triggersAndJobs,
                                    boolean replace) throws JobPersistenceException {
-    super.storeJobsAndTriggers(triggersAndJobs, replace);
-    for (Map.Entry<JobDetail, Set<? extends Trigger>> e : triggersAndJobs.entrySet()) {
-      persistJobAndTrigger(e.getKey(), null);
-      for (Trigger trigger : e.getValue()) {
-        persistJobAndTrigger(null, (OperableTrigger) trigger);
+    synchronized (lock) {
+      execute(table -> {
+        for (Map.Entry<JobDetail, Set<? extends Trigger>> entry : triggersAndJobs.entrySet()) {
+          storeJob(table, entry.getKey(), replace);
+          for (Trigger trigger : entry.getValue()) {
+            storeTrigger(table, (OperableTrigger) trigger, replace);
+          }
+        }
+        return null;
+      });
+      for (Set<? extends Trigger> triggers : triggersAndJobs.values()) {
+        triggers.forEach(trigger -> acquiredTriggers.remove(trigger.getKey()));
       }
     }
   }
 
   @Override
-  public void storeJobAndTrigger(JobDetail newJob, OperableTrigger newTrigger)
-                                 throws JobPersistenceException {
-    storeJob(newJob, true);
-    storeTrigger(newTrigger, true);
+  public boolean removeJob(JobKey jobKey) throws JobPersistenceException {
+    synchronized (lock) {
+      return execute(table -> removeJob(table, jobKey));
+    }
   }
 
   @Override
-  public void pauseTrigger(TriggerKey triggerKey) {
-    super.pauseTrigger(triggerKey);
-    persistChangeOfState(triggerKey, Trigger.TriggerState.PAUSED);
+  public boolean removeJobs(List<JobKey> jobKeys) throws JobPersistenceException {
+    synchronized (lock) {
+      return execute(table -> {
+        boolean allFound = true;
+        for (JobKey jobKey : jobKeys) {
+          allFound = removeJob(table, jobKey) && allFound;
+        }
+        return allFound;
+      });
+    }
   }
 
   @Override
-  public void resumeTrigger(TriggerKey triggerKey) {
-    super.resumeTrigger(triggerKey);
-    persistChangeOfState(triggerKey, Trigger.TriggerState.NORMAL);
+  public JobDetail retrieveJob(JobKey jobKey) throws JobPersistenceException {
+    return execute(table -> table.readJob(jobKey));
   }
 
   @Override
-  public boolean removeTrigger(TriggerKey triggerKey) {
-    try {
-      super.removeTrigger(triggerKey);
-      executeDelete(triggerKey);
-      return true;
-    } catch (Throwable t) {
-      throw Throwables.propagate(t);
+  public void storeTrigger(OperableTrigger newTrigger, boolean replaceExisting) throws JobPersistenceException {
+    synchronized (lock) {
+      execute(table -> {
+        storeTrigger(table, newTrigger, replaceExisting);
+        return null;
+      });
+      acquiredTriggers.remove(newTrigger.getKey());
     }
   }
 
   @Override
-  public boolean removeJob(JobKey jobKey) {
-    try {
-      super.removeJob(jobKey);
-      executeDelete(jobKey);
-      return true;
-    } catch (Throwable t) {
-      throw Throwables.propagate(t);
+  public boolean removeTrigger(TriggerKey triggerKey) throws JobPersistenceException {
+    synchronized (lock) {
+      acquiredTriggers.remove(triggerKey);
+      return execute(table -> removeTrigger(table, triggerKey));
     }
   }
 
-  @VisibleForTesting
-  static StructuredTable getTimeScheduleStructuredTable(StructuredTableContext context) {
-    return context.getTable(StoreDefinition.TimeScheduleStore.SCHEDULES);
+  @Override
+  public boolean removeTriggers(List<TriggerKey> triggerKeys) throws JobPersistenceException {
+    synchronized (lock) {
+      acquiredTriggers.removeAll(triggerKeys);
+      return execute(table -> {
+        boolean allFound = true;
+        for (TriggerKey triggerKey : triggerKeys) {
+          allFound = removeTrigger(table, triggerKey) && allFound;
+        }
+        return allFound;
+      });
+    }
   }
 
-  private void executeDelete(final TriggerKey triggerKey) {
-    try {
-      TransactionRunners.run(transactionRunner, context -> {
-        delete(getTimeScheduleStructuredTable(context), TRIGGER_KEY, triggerKey.getName());
+  @Override
+  public boolean replaceTrigger(TriggerKey triggerKey, OperableTrigger newTrigger) throws JobPersistenceException {
+    synchronized (lock) {
+      acquiredTriggers.remove(triggerKey);
+      acquiredTriggers.remove(newTrigger.getKey());
+      return execute(table -> {
+        TriggerStatusV2 status = table.readTrigger(triggerKey);
+        if (status == null) {
+          return false;
+        }
+        if (!status.getTrigger().getJobKey().equals(newTrigger.getJobKey())) {
+          throw new JobPersistenceException("New trigger is not related to the same job as the old trigger.");
+        }
+        table.deleteTrigger(triggerKey);
+        storeTrigger(table, newTrigger, false);
+        return true;
       });
-    } catch (Throwable th) {
-      throw Throwables.propagate(th);
     }
   }
 
-  private void executeDelete(final JobKey jobKey) {
-    try {
-      TransactionRunners.run(transactionRunner, context -> {
-        delete(getTimeScheduleStructuredTable(context), JOB_KEY, jobKey.getName());
+  @Override
+  public OperableTrigger retrieveTrigger(TriggerKey triggerKey) throws JobPersistenceException {
+    TriggerStatusV2 status = execute(table -> table.readTrigger(triggerKey));
+    return status == null ? null : status.getTrigger();
+  }
+
+  @Override
+  public boolean checkExists(JobKey jobKey) throws JobPersistenceException {
+    return retrieveJob(jobKey) != null;
+  }
+
+  @Override
+  public boolean checkExists(TriggerKey triggerKey) throws JobPersistenceException {
+    return retrieveTrigger(triggerKey) != null;
+  }
+
+  @Override
+  public void clearAllSchedulingData() throws JobPersistenceException {
+    synchronized (lock) {
+      execute(table -> {
+        table.deleteAll();
+        table.setIndexed();
+        return null;
       });
-    } catch (Throwable t) {
-      throw Throwables.propagate(t);
+      pausedTriggerGroups.clear();
+      pausedJobGroups.clear();
+      acquiredTriggers.clear();
     }
   }
 
-  private void persistChangeOfState(final TriggerKey triggerKey, final Trigger.TriggerState newTriggerState) {
-    try {
-      Preconditions.checkNotNull(triggerKey);
-      TransactionRunners.run(transactionRunner, context -> {
-        StructuredTable table = getTimeScheduleStructuredTable(context);
-        TriggerStatusV2 storedTriggerStatus = readTrigger(table, triggerKey);
-        if (storedTriggerStatus != null) {
-          // its okay to persist the same trigger back again since during pause/resume
-          // operation the trigger does not change. We persist it here with just the new trigger state
-          persistTrigger(table, storedTriggerStatus.trigger, newTriggerState);
-        } else {
-          LOG.warn("Trigger key {} was not found while trying to persist its state to {}.",
-                   triggerKey, newTriggerState);
-        }
+  @Override
+  public void storeCalendar(String name, Calendar calendar,
+                            boolean replaceExisting, boolean updateTriggers) throws JobPersistenceException {
+    throw new JobPersistenceException("Calendars are not supported by " + getClass().getSimpleName());
+  }
+
+  @Override
+  public boolean removeCalendar(String calName) {
+    return false;
+  }
+
+  @Override
+  public Calendar retrieveCalendar(String calName) {
+    return null;
+  }
+
+  @Override
+  public int getNumberOfJobs() throws JobPersistenceException {
+    return execute(TimeScheduleTable::getJobCount);
+  }
+
+  @Override
+  public int getNumberOfTriggers() throws JobPersistenceException {
+    return execute(TimeScheduleTable::getTriggerCount);
+  }
+
+  @Override
+  public int getNumberOfCalendars() {
+    return 0;
+  }
+
+  @Override
+  public Set<JobKey> getJobKeys(GroupMatcher<JobKey> matcher) throws JobPersistenceException {
+    Set<JobKey> jobKeys = new HashSet<>();
+    for (JobDetail job : execute(TimeScheduleTable::scanJobs)) {
+      if (matcher.isMatch(job.getKey())) {
+        jobKeys.add(job.getKey());
+      }
+    }
+    return jobKeys;
+  }
+
+  @Override
+  public Set<TriggerKey> getTriggerKeys(GroupMatcher<TriggerKey> matcher) throws JobPersistenceException {
+    if (matcher.getCompareWithOperator() == StringMatcher.StringOperatorName.EQUALS) {
+      return new HashSet<>(execute(table -> table.getTriggerKeys(matcher.getCompareToValue())));
+    }
+    Set<TriggerKey> triggerKeys = new HashSet<>();
+    for (TriggerKey triggerKey : execute(TimeScheduleTable::scanTriggerKeys)) {
+      if (matcher.isMatch(triggerKey)) {
+        triggerKeys.add(triggerKey);
+      }
+    }
+    return triggerKeys;
+  }
+
+  @Override
+  public List<String> getJobGroupNames() throws JobPersistenceException {
+    Set<String> groups = new LinkedHashSet<>();
+    for (JobDetail job : execute(TimeScheduleTable::scanJobs)) {
+      groups.add(job.getKey().getGroup());
+    }
+    return new ArrayList<>(groups);
+  }
+
+  @Override
+  public List<String> getTriggerGroupNames() throws JobPersistenceException {
+    Set<String> groups = new LinkedHashSet<>();
+    for (TriggerKey triggerKey : execute(TimeScheduleTable::scanTriggerKeys)) {
+      groups.add(triggerKey.getGroup());
+    }
+    return new ArrayList<>(groups);
+  }
+
+  @Override
+  public List<String> getCalendarNames() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public List<OperableTrigger> getTriggersForJob(JobKey jobKey) throws JobPersistenceException {
+    List<OperableTrigger> triggers = new ArrayList<>();
+    for (TriggerStatusV2 status : execute(table -> table.getTriggers(jobKey))) {
+      triggers.add(status.getTrigger());
+    }
+    return triggers;
+  }
+
+  @Override
+  public Trigger.TriggerState getTriggerState(TriggerKey triggerKey) throws JobPersistenceException {
+    TriggerStatusV2 status = execute(table -> table.readTrigger(triggerKey));
+    return status == null ? Trigger.TriggerState.NONE : status.getState();
+  }
+
+  @Override
+  public void pauseTrigger(TriggerKey triggerKey) throws JobPersistenceException {
+    synchronized (lock) {
+      acquiredTriggers.remove(triggerKey);
+      execute(table -> {
+        pauseTrigger(table, triggerKey);
+        return null;
       });
-    } catch (Throwable th) {
-      throw Throwables.propagate(th);
     }
   }
 
-  private void persistJobAndTrigger(final JobDetail newJob, final OperableTrigger newTrigger) {
-    try {
-      Trigger.TriggerState triggerState = Trigger.TriggerState.NONE;
-      if (newTrigger != null) {
-        triggerState = super.getTriggerState(newTrigger.getKey());
+  @Override
+  public Collection<String> pauseTriggers(GroupMatcher<TriggerKey> matcher) throws JobPersistenceException {
+    synchronized (lock) {
+      Set<String> groups = new HashSet<>();
+      if (matcher.getCompareWithOperator() == StringMatcher.StringOperatorName.EQUALS) {
+        groups.add(matcher.getCompareToValue());
+      } else {
+        for (String group : getTriggerGroupNames()) {
+          if (matcher.getCompareWithOperator().evaluate(group, matcher.getCompareToValue())) {
+            groups.add(group);
+          }
+        }
+      }
+      // Triggers in a group that is already paused were paused when the group was paused or when they were added
+      groups.removeAll(pausedTriggerGroups);
+      if (groups.isEmpty()) {
+        return groups;
       }
-      final Trigger.TriggerState finalTriggerState = triggerState;
-      TransactionRunners.run(transactionRunner, context -> {
-        StructuredTable table = getTimeScheduleStructuredTable(context);
-        if (newJob != null) {
-          persistJob(table, newJob);
-          LOG.debug("Schedule: stored job with key {}", newJob.getKey());
+
+      execute(table -> {
+        for (String group : groups) {
+          table.addPausedTriggerGroup(group);
+          for (TriggerKey triggerKey : table.getTriggerKeys(group)) {
+            pauseTrigger(table, triggerKey);
+          }
         }
-        if (newTrigger != null) {
-          persistTrigger(table, newTrigger, finalTriggerState);
-          LOG.debug("Schedule: stored trigger with key {}", newTrigger.getKey());
+        return null;
+      });
+      pausedTriggerGroups.addAll(groups);
+      acquiredTriggers.removeIf(key -> groups.contains(key.getGroup()));
+      return groups;
+    }
+  }
+
+  @Override
+  public void pauseJob(JobKey jobKey) throws JobPersistenceException {
+    synchronized (lock) {
+      List<TriggerKey> triggerKeys = execute(table -> {
+        List<TriggerKey> keys = new ArrayList<>();
+        for (TriggerStatusV2 status : table.getTriggers(jobKey)) {
+          keys.add(status.getTrigger().getKey());
+          pauseTrigger(table, status.getTrigger().getKey());
         }
+        return keys;
       });
-    } catch (Throwable th) {
-      throw Throwables.propagate(th);
+      acquiredTriggers.removeAll(triggerKeys);
     }
   }
 
-  // Persist the job information to dataset
-  private void persistJob(StructuredTable table, JobDetail job) throws IOException {
-    upsert(table, JOB_KEY, job.getKey().getName(), SerializationUtils.serialize(job));
+  @Override
+  public Collection<String> pauseJobs(GroupMatcher<JobKey> groupMatcher) throws JobPersistenceException {
+    synchronized (lock) {
+      Set<String> groups = new HashSet<>();
+      if (groupMatcher.getCompareWithOperator() == StringMatcher.StringOperatorName.EQUALS) {
+        groups.add(groupMatcher.getCompareToValue());
+      } else {
+        for (String group : getJobGroupNames()) {
+          if (groupMatcher.getCompareWithOperator().evaluate(group, groupMatcher.getCompareToValue())) {
+            groups.add(group);
+          }
+        }
+      }
+      groups.removeAll(pausedJobGroups);
+      execute(table -> {
+        for (String group : groups) {
+          table.addPausedJobGroup(group);
+        }
+        return null;
+      });
+      pausedJobGroups.addAll(groups);
+
+      for (JobKey jobKey : getJobKeys(groupMatcher)) {
+        if (groups.contains(jobKey.getGroup())) {
+          pauseJob(jobKey);
+        }
+      }
+      return groups;
+    }
   }
 
-  private void delete(StructuredTable table, String type, String name) throws IOException {
-    table.delete(getPrimaryKeys(type, name));
+  @Override
+  public void resumeTrigger(TriggerKey triggerKey) throws JobPersistenceException {
+    synchronized (lock) {
+      execute(table -> {
+        MisfireNotifications notifications = new MisfireNotifications();
+        resumeTrigger(table, triggerKey, notifications);
+        return notifications;
+      }).send(signaler);
+    }
   }
 
+  @Override
+  public Collection<String> resumeTriggers(GroupMatcher<TriggerKey> matcher) throws JobPersistenceException {
+    synchronized (lock) {
+      Set<String> groups = new HashSet<>();
+      Set<TriggerKey> triggerKeys = getTriggerKeys(matcher);
+      for (TriggerKey triggerKey : triggerKeys) {
+        groups.add(triggerKey.getGroup());
+      }
+      for (String group : pausedTriggerGroups) {
+        if (matcher.getCompareWithOperator().evaluate(group, matcher.getCompareToValue())) {
+          groups.add(group);
+        }
+      }
+      execute(table -> {
+        MisfireNotifications notifications = new MisfireNotifications();
+        for (String group : groups) {
+          table.deletePausedTriggerGroup(group);
+        }
+        for (TriggerKey triggerKey : triggerKeys) {
+          resumeTrigger(table, triggerKey, notifications);
+        }
+        return notifications;
+      }).send(signaler);
+      pausedTriggerGroups.removeAll(groups);
+      return groups;
+    }
+  }
 
-  @Nullable
-  private byte[] get(StructuredTable table, String type, String name) throws IOException {
-    Optional<StructuredRow> row = table.read(getPrimaryKeys(type, name));
-    if (!row.isPresent()) {
-      return null;
+  @Override
+  public Set<String> getPausedTriggerGroups() {
+    synchronized (lock) {
+      return new HashSet<>(pausedTriggerGroups);
     }
-    return row.get().getBytes(StoreDefinition.TimeScheduleStore.VALUE_FIELD);
   }
 
-  private List<Field<?>> getPrimaryKeys(String type, String name) {
-    List<Field<?>> fields = new ArrayList<>();
-    fields.add(Fields.stringField(StoreDefinition.TimeScheduleStore.TYPE_FIELD, type));
-    fields.add(Fields.stringField(StoreDefinition.TimeScheduleStore.NAME_FIELD, name));
-    return fields;
+  @Override
+  public void resumeJob(JobKey jobKey) throws JobPersistenceException {
+    synchronized (lock) {
+      execute(table -> {
+        MisfireNotifications notifications = new MisfireNotifications();
+        for (TriggerStatusV2 status : table.getTriggers(jobKey)) {
+          resumeTrigger(table, status.getTrigger().getKey(), notifications);
+        }
+        return notifications;
+      }).send(signaler);
+    }
   }
 
-  @VisibleForTesting
-  @Nullable
-  TriggerStatusV2 readTrigger(StructuredTable table, TriggerKey key) throws IOException {
-    byte [] result = get(table, TRIGGER_KEY, key.getName());
-    if (result != null) {
-      return (TriggerStatusV2) SerializationUtils.deserialize(result);
-    } else {
-      return null;
+  @Override
+  public Collection<String> resumeJobs(GroupMatcher<JobKey> matcher) throws JobPersistenceException {
+    synchronized (lock) {
+      Set<String> groups = new HashSet<>();
+      Set<JobKey> jobKeys = getJobKeys(matcher);
+      for (JobKey jobKey : jobKeys) {
+        groups.add(jobKey.getGroup());
+      }
+      if (matcher.getCompareWithOperator() == StringMatcher.StringOperatorName.EQUALS) {
+        groups.add(matcher.getCompareToValue());
+      }
+      execute(table -> {
+        for (String group : groups) {
+          table.deletePausedJobGroup(group);
+        }
+        return null;
+      });
+      pausedJobGroups.removeAll(groups);
+      for (JobKey jobKey : jobKeys) {
+        resumeJob(jobKey);
+      }
+      return groups;
     }
   }
 
-  private void upsert(StructuredTable table, String type, String name, byte[] data) throws IOException {
-    List<Field<?>> fields = getPrimaryKeys(type, name);
-    fields.add(Fields.bytesField(StoreDefinition.TimeScheduleStore.VALUE_FIELD, data));
-    table.upsert(fields);
+  @Override
+  public void pauseAll() throws JobPersistenceException {
+    synchronized (lock) {
+      for (String group : getTriggerGroupNames()) {
+        pauseTriggers(GroupMatcher.triggerGroupEquals(group));
+      }
+    }
   }
 
-  private void persistTrigger(StructuredTable table, OperableTrigger trigger,
-                              Trigger.TriggerState state) throws IOException {
-    byte[] data = SerializationUtils.serialize(new TriggerStatusV2(trigger, state));
-    upsert(table, TRIGGER_KEY, trigger.getKey().getName(), data);
+  @Override
+  public void resumeAll() throws JobPersistenceException {
+    synchronized (lock) {
+      execute(table -> {
+        for (String group : pausedJobGroups) {
+          table.deletePausedJobGroup(group);
+        }
+        return null;
+      });
+      pausedJobGroups.clear();
+      resumeTriggers(GroupMatcher.anyTriggerGroup());
+    }
   }
 
-  private List<Field<?>> getScanPrefix(String type) {
-    return ImmutableList.of(Fields.stringField(StoreDefinition.TimeScheduleStore.TYPE_FIELD, type));
+  @Override
+  public List<OperableTrigger> acquireNextTriggers(long noLaterThan, int maxCount,
+                                                   long timeWindow) throws JobPersistenceException {
+    synchronized (lock) {
+      List<OperableTrigger> result = new ArrayList<>();
+      long batchEnd = noLaterThan;
+      while (result.size() < maxCount) {
+        long maxFireTime = batchEnd;
+        boolean first = result.isEmpty();
+        int count = maxCount - result.size();
+        AcquiredTriggers acquired = execute(table -> acquireTriggers(table, maxFireTime, count, timeWindow, first));
+        acquired.notifications.send(signaler);
+        for (OperableTrigger trigger : acquired.triggers) {
+          acquiredTriggers.add(trigger.getKey());
+          result.add(trigger);
+        }
+        batchEnd = acquired.batchEnd;
+        if (acquired.completed) {
+          break;
+        }
+      }
+      return result;
+    }
   }
 
-  // Get schedule information from persistent store
-  private void readSchedulesFromPersistentStore() throws Exception {
-    final List<JobDetail> jobs = Lists.newArrayList();
-    final List<TriggerStatusV2> triggers = Lists.newArrayList();
+  @Override
+  public void releaseAcquiredTrigger(OperableTrigger trigger) {
+    synchronized (lock) {
+      acquiredTriggers.remove(trigger.getKey());
+    }
+  }
 
-    TransactionRunners.run(transactionRunner, context -> {
-      StructuredTable table = getTimeScheduleStructuredTable(context);
-      try (CloseableIterator<StructuredRow> iterator =
-        table.scan(Range.singleton(getScanPrefix(JOB_KEY)), Integer.MAX_VALUE)) {
-        while (iterator.hasNext()) {
-          JobDetail jobDetail =
-            (JobDetail) SerializationUtils.deserialize(
-              iterator.next().getBytes(StoreDefinition.TimeScheduleStore.VALUE_FIELD));
-          LOG.debug("Schedule: Job with key {} found", jobDetail.getKey());
-          jobs.add(jobDetail);
+  @Override
+  public List<TriggerFiredResult> triggersFired(List<OperableTrigger> triggers) throws JobPersistenceException {
+    synchronized (lock) {
+      List<TriggerFiredResult> results = execute(table -> {
+        List<TriggerFiredResult> fired = new ArrayList<>();
+        for (OperableTrigger trigger : triggers) {
+          TriggerFiredBundle bundle = acquiredTriggers.contains(trigger.getKey()) ? fireTrigger(table, trigger) : null;
+          // The scheduler thread matches the results with the given triggers by position
+          fired.add(new TriggerFiredResult(bundle));
         }
-      }
+        return fired;
+      });
+      triggers.forEach(trigger -> acquiredTriggers.remove(trigger.getKey()));
+      return results;
+    }
+  }
 
-      try (CloseableIterator<StructuredRow> iterator =
-        table.scan(Range.singleton(getScanPrefix(TRIGGER_KEY)), Integer.MAX_VALUE)) {
-        while (iterator.hasNext()) {
-          TriggerStatusV2 trigger =
-            (TriggerStatusV2) SerializationUtils.deserialize(
-              iterator.next().getBytes(StoreDefinition.TimeScheduleStore.VALUE_FIELD));
-          if (trigger.state.equals(Trigger.TriggerState.NORMAL) ||
-            trigger.state.equals(Trigger.TriggerState.PAUSED)) {
-            triggers.add(trigger);
-            LOG.debug("Schedule: trigger with key {} added", trigger.trigger.getKey());
-          } else {
-            LOG.debug("Schedule: trigger with key {} and state {} skipped", trigger.trigger.getKey(),
-                      trigger.state);
-          }
+  @Override
+  public void triggeredJobComplete(OperableTrigger trigger, JobDetail jobDetail,
+                                   Trigger.CompletedExecutionInstruction triggerInstCode)
+    throws JobPersistenceException {
+    synchronized (lock) {
+      boolean signal = execute(table -> {
+        TriggerStatusV2 status = table.readTrigger(trigger.getKey());
+        if (status == null) {
+          return false;
         }
+        switch (triggerInstCode) {
+          case DELETE_TRIGGER:
+            if (trigger.getNextFireTime() != null) {
+              removeTrigger(table, trigger.getKey());
+              return true;
+            }
+            // Double check for possible reschedule within job execution, which would cancel the need to delete
+            if (status.getTrigger().getNextFireTime() == null) {
+              removeTrigger(table, trigger.getKey());
+            }
+            return false;
+          case SET_TRIGGER_COMPLETE:
+            table.writeTrigger(status.getTrigger(), Trigger.TriggerState.COMPLETE);
+            return true;
+          case SET_TRIGGER_ERROR:
+            LOG.info("Trigger {} set to ERROR state.", trigger.getKey());
+            table.writeTrigger(status.getTrigger(), Trigger.TriggerState.ERROR);
+            return true;
+          case SET_ALL_JOB_TRIGGERS_COMPLETE:
+            for (TriggerStatusV2 jobTrigger : table.getTriggers(jobDetail.getKey())) {
+              table.writeTrigger(jobTrigger.getTrigger(), Trigger.TriggerState.COMPLETE);
+            }
+            return true;
+          case SET_ALL_JOB_TRIGGERS_ERROR:
+            LOG.info("All triggers of Job {} set to ERROR state.", jobDetail.getKey());
+            for (TriggerStatusV2 jobTrigger : table.getTriggers(jobDetail.getKey())) {
+              table.writeTrigger(jobTrigger.getTrigger(), Trigger.TriggerState.ERROR);
+            }
+            return true;
+          default:
+            return false;
+        }
+      });
+      if (signal) {
+        signaler.signalSchedulingChange(0L);
       }
+    }
+  }
+
+  @Override
+  public void setInstanceId(String schedInstId) {
+    // no-op
+  }
+
+  @Override
+  public void setInstanceName(String schedName) {
+    // no-op
+  }
+
+  @Override
+  public void setThreadPoolSize(int poolSize) {
+    // no-op
+  }
+
+  /**
+   * Builds the index tables for the triggers that were stored before the index tables were introduced. This only
+   * scans the stored triggers once, after which the index tables are maintained on every change.
+   */
+  private void buildIndexes() throws JobPersistenceException {
+    if (execute(TimeScheduleTable::isIndexed)) {
+      return;
+    }
+    LOG.info("Building the index of time schedules");
+    String lastTrigger = null;
+    do {
+      String startAfter = lastTrigger;
+      lastTrigger = execute(table -> table.indexTriggers(startAfter, INDEX_BATCH_SIZE));
+    } while (lastTrigger != null);
+    execute(table -> {
+      table.setIndexed();
+      return null;
     });
+  }
 
-    Set<JobKey> jobKeys = new HashSet<>();
-    for (JobDetail job : jobs) {
-      super.storeJob(job, true);
-      jobKeys.add(job.getKey());
+  private void storeJob(TimeScheduleTable table, JobDetail job,
+                        boolean replaceExisting) throws IOException, JobPersistenceException {
+    if (!replaceExisting && table.readJob(job.getKey()) != null) {
+      throw new ObjectAlreadyExistsException(job);
     }
+    table.writeJob(job);
+    LOG.debug("Schedule: stored job with key {}", job.getKey());
+  }
+
+  private void storeTrigger(TimeScheduleTable table, OperableTrigger trigger,
+                            boolean replaceExisting) throws IOException, JobPersistenceException {
+    if (!replaceExisting && table.readTrigger(trigger.getKey()) != null) {
+      throw new ObjectAlreadyExistsException(trigger);
+    }
+    if (table.readJob(trigger.getJobKey()) == null) {
+      throw new JobPersistenceException("The job (" + trigger.getJobKey() +
+                                          ") referenced by the trigger does not exist.");
+    }
+    boolean paused = pausedTriggerGroups.contains(trigger.getKey().getGroup())
+      || pausedJobGroups.contains(trigger.getJobKey().getGroup());
+    table.writeTrigger(trigger, paused ? Trigger.TriggerState.PAUSED : Trigger.TriggerState.NORMAL);
+    LOG.debug("Schedule: stored trigger with key {}", trigger.getKey());
+  }
+
+  private boolean removeJob(TimeScheduleTable table, JobKey jobKey) throws IOException {
+    boolean found = false;
+    for (TriggerStatusV2 status : table.getTriggers(jobKey)) {
+      TriggerKey triggerKey = status.getTrigger().getKey();
+      table.deleteTrigger(triggerKey);
+      acquiredTriggers.remove(triggerKey);
+      found = true;
+    }
+    if (table.readJob(jobKey) != null) {
+      table.deleteJob(jobKey);
+      found = true;
+    }
+    return found;
+  }
 
-    Set<TriggerKey> triggersWithNoJob = new HashSet<>();
-    for (TriggerStatusV2 trigger : triggers) {
-      if (!jobKeys.contains(trigger.trigger.getJobKey())) {
-        triggersWithNoJob.add(trigger.trigger.getKey());
+  /**
+   * Removes the given trigger. Unlike the {@link org.quartz.simpl.RAMJobStore}, the job that it fires is not removed
+   * even if it is not durable, since jobs are always removed explicitly by the time scheduler.
+   */
+  private boolean removeTrigger(TimeScheduleTable table, TriggerKey triggerKey) throws IOException {
+    return table.deleteTrigger(triggerKey);
+  }
+
+  private void pauseTrigger(TimeScheduleTable table, TriggerKey triggerKey) throws IOException {
+    TriggerStatusV2 status = table.readTrigger(triggerKey);
+    if (status == null || status.getState() == Trigger.TriggerState.COMPLETE
+      || status.getState() == Trigger.TriggerState.PAUSED) {
+      return;
+    }
+    table.writeTrigger(status.getTrigger(), Trigger.TriggerState.PAUSED);
+  }
+
+  private void resumeTrigger(TimeScheduleTable table, TriggerKey triggerKey,
+                             MisfireNotifications notifications) throws IOException {
+    TriggerStatusV2 status = table.readTrigger(triggerKey);
+    if (status == null || status.getState() != Trigger.TriggerState.PAUSED
+      || pausedJobGroups.contains(status.getTrigger().getJobKey().getGroup())) {
+      return;
+    }
+    OperableTrigger trigger = status.getTrigger();
+    applyMisfire(trigger, notifications);
+    table.writeTrigger(trigger, trigger.getNextFireTime() == null
+      ? Trigger.TriggerState.COMPLETE : Trigger.TriggerState.NORMAL);
+  }
+
+  /**
+   * Acquires the triggers to fire from the fire time index.
+   *
+   * @param table the table to read triggers from
+   * @param batchEnd only acquire triggers with next fire time at or before this time
+   * @param maxCount maximum number of triggers to acquire
+   * @param timeWindow the time window that triggers can be fired together with the first acquired trigger
+   * @param first {@code true} if no trigger was acquired yet in the current call from the scheduler thread
+   */
+  private AcquiredTriggers acquireTriggers(TimeScheduleTable table, long batchEnd, int maxCount,
+                                           long timeWindow, boolean first) throws IOException {
+    AcquiredTriggers acquired = new AcquiredTriggers(batchEnd);
+    // Acquired triggers are still in the index, hence read more entries to skip over them
+    int limit = maxCount + acquiredTriggers.size();
+    List<ImmutablePair<TriggerKey, Long>> entries = table.getTriggersToFire(batchEnd + timeWindow, limit);
+    acquired.completed = entries.size() < limit;
+
+    for (ImmutablePair<TriggerKey, Long> entry : entries) {
+      TriggerKey triggerKey = entry.getFirst();
+      if (acquiredTriggers.contains(triggerKey)) {
         continue;
       }
-      super.storeTrigger(trigger.trigger, true);
-      // if the trigger was paused then pause it back. This is needed because the state of the trigger is not a
-      // property associated with the trigger.
-      // Its fine to do it this way and we will not run into issues where a triggers get fired before its paused
-      // because the scheduler is actually not started at this point.
-      if (trigger.state == Trigger.TriggerState.PAUSED) {
-        super.pauseTrigger(trigger.trigger.getKey());
+      TriggerStatusV2 status = table.readTrigger(triggerKey);
+      Date nextFireTime = status == null ? null : status.getTrigger().getNextFireTime();
+      if (nextFireTime == null || status.getState() != Trigger.TriggerState.NORMAL
+        || nextFireTime.getTime() != entry.getSecond()) {
+        // The index entry doesn't match the stored trigger
+        table.deleteFireTime(triggerKey, entry.getSecond());
+        continue;
+      }
+
+      OperableTrigger trigger = status.getTrigger();
+      if (applyMisfire(trigger, acquired.notifications)) {
+        boolean completed = trigger.getNextFireTime() == null;
+        table.writeTrigger(trigger, completed ? Trigger.TriggerState.COMPLETE : Trigger.TriggerState.NORMAL);
+        if (completed || trigger.getNextFireTime().getTime() > acquired.batchEnd) {
+          continue;
+        }
+      } else if (nextFireTime.getTime() > acquired.batchEnd) {
+        acquired.completed = true;
+        break;
+      }
+
+      trigger.setFireInstanceId(String.valueOf(firedTriggerCounter.incrementAndGet()));
+      if (first && acquired.triggers.isEmpty()) {
+        acquired.batchEnd = Math.max(trigger.getNextFireTime().getTime(), System.currentTimeMillis()) + timeWindow;
+      }
+      acquired.triggers.add(trigger);
+      if (acquired.triggers.size() == maxCount) {
+        acquired.completed = true;
+        break;
       }
     }
+    return acquired;
+  }
+
+  /**
+   * Updates the stored trigger for firing the given acquired trigger.
+   *
+   * @return the {@link TriggerFiredBundle} for executing the job, or {@code null} if the trigger should not be fired
+   */
+  private TriggerFiredBundle fireTrigger(TimeScheduleTable table, OperableTrigger trigger) throws IOException {
+    TriggerStatusV2 status = table.readTrigger(trigger.getKey());
+    if (status == null || status.getState() != Trigger.TriggerState.NORMAL) {
+      return null;
+    }
+    JobDetail job = table.readJob(trigger.getJobKey());
+    if (job == null) {
+      LOG.error("No Job was found for the Trigger key '{}'. Deleting the trigger entry from the store.",
+                trigger.getKey());
+      table.deleteTrigger(trigger.getKey());
+      return null;
+    }
 
-    for (TriggerKey key : triggersWithNoJob) {
-      LOG.error(String.format("No Job was found for the Trigger key '%s'." +
-                                " Deleting the trigger entry from the store.", key));
-      executeDelete(key);
+    // The given trigger is not modified, since the transaction can be retried
+    OperableTrigger firedTrigger = (OperableTrigger) trigger.clone();
+    Date prevFireTime = firedTrigger.getPreviousFireTime();
+    firedTrigger.triggered(null);
+    OperableTrigger storedTrigger = status.getTrigger();
+    storedTrigger.triggered(null);
+    table.writeTrigger(storedTrigger, Trigger.TriggerState.NORMAL);
+
+    return new TriggerFiredBundle(job, firedTrigger, null, false, new Date(), firedTrigger.getPreviousFireTime(),
+                                  prevFireTime, firedTrigger.getNextFireTime());
+  }
+
+  /**
+   * Updates the next fire time of the given trigger if it misfired.
+   *
+   * @return {@code true} if the trigger misfired
+   */
+  private boolean applyMisfire(OperableTrigger trigger, MisfireNotifications notifications) {
+    long misfireTime = System.currentTimeMillis();
+    if (misfireThreshold > 0) {
+      misfireTime -= misfireThreshold;
+    }
+    Date nextFireTime = trigger.getNextFireTime();
+    if (nextFireTime == null || nextFireTime.getTime() > misfireTime
+      || trigger.getMisfireInstruction() == Trigger.MISFIRE_INSTRUCTION_IGNORE_MISFIRE_POLICY) {
+      return false;
+    }
+    notifications.misfired.add((OperableTrigger) trigger.clone());
+    trigger.updateAfterMisfire(null);
+    if (trigger.getNextFireTime() == null) {
+      notifications.finalized.add(trigger);
+    }
+    return true;
+  }
+
+  private <V> V execute(TableCallable<V> callable) throws JobPersistenceException {
+    try {
+      TxCallable<V> txCallable = context -> callable.call(new TimeScheduleTable(context));
+      return TransactionRunners.run(transactionRunner, txCallable, JobPersistenceException.class);
+    } catch (RuntimeException e) {
+      throw new JobPersistenceException("Failed to access the time schedule store", e);
+    }
+  }
+
+  /**
+   * A function executed with a {@link TimeScheduleTable} in a transaction.
+   *
+   * @param <V> type of the result
+   */
+  private interface TableCallable<V> {
+    V call(TimeScheduleTable table) throws Exception;
+  }
+
+  /**
+   * Triggers that misfired in a transaction. Listeners are notified after the transaction is committed, since the
+   * transaction can be retried.
+   */
+  private static final class MisfireNotifications {
+    private final List<OperableTrigger> misfired = new ArrayList<>();
+    private final List<OperableTrigger> finalized = new ArrayList<>();
+
+    void send(SchedulerSignaler signaler) {
+      misfired.forEach(signaler::notifyTriggerListenersMisfired);
+      finalized.forEach(signaler::notifySchedulerListenersFinalized);
+    }
+  }
+
+  /**
+   * Triggers acquired in a transaction.
+   */
+  private static final class AcquiredTriggers {
+    private final List<OperableTrigger> triggers = new ArrayList<>();
+    private final MisfireNotifications notifications = new MisfireNotifications();
+    private long batchEnd;
+    // Whether there are no more triggers to acquire in the current call from the scheduler thread
+    private boolean completed;
+
+    AcquiredTriggers(long batchEnd) {
+      this.batchEnd = batchEnd;
     }
   }
 
@@ -350,7 +968,7 @@ public class DatasetBasedTimeScheduleStore extends RAMJobStore {
     private OperableTrigger trigger;
     private Trigger.TriggerState state;
 
-    private TriggerStatusV2(OperableTrigger trigger, Trigger.TriggerState state) {
+    TriggerStatusV2(OperableTrigger trigger, Trigger.TriggerState state) {
       this.trigger = trigger;
       this.state = state;
     }
@@ -359,6 +977,14 @@ public class DatasetBasedTimeScheduleStore extends RAMJobStore {
       // no-op
     }
 
+    OperableTrigger getTrigger() {
+      return trigger;
+    }
+
+    Trigger.TriggerState getState() {
+      return state;
+    }
+
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
       out.writeObject(trigger);
@@ -0,0 +1,467 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.runtime.schedule.store;
+
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.common.utils.ImmutablePair;
+import io.cdap.cdap.internal.app.runtime.schedule.store.DatasetBasedTimeScheduleStore.TriggerStatusV2;
+import io.cdap.cdap.spi.data.StructuredRow;
+import io.cdap.cdap.spi.data.StructuredTable;
+import io.cdap.cdap.spi.data.StructuredTableContext;
+import io.cdap.cdap.spi.data.table.field.Field;
+import io.cdap.cdap.spi.data.table.field.Fields;
+import io.cdap.cdap.spi.data.table.field.Range;
+import io.cdap.cdap.store.StoreDefinition;
+import org.apache.commons.lang.SerializationUtils;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.spi.OperableTrigger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Provides access to the tables that persist the jobs and triggers of the time scheduler.
+ *
+ * <ul>
+ *   <li>The {@link StoreDefinition.TimeScheduleStore#SCHEDULES} table contains the serialized {@link JobDetail} and
+ *   {@link TriggerStatusV2}, keyed by type and name. It also contains a row for every paused trigger group and
+ *   paused job group.</li>
+ *   <li>The {@link StoreDefinition.TimeScheduleStore#SCHEDULE_FIRE_TIMES} table contains a row for every trigger that
+ *   is in the {@link Trigger.TriggerState#NORMAL} state and has a next fire time, keyed by the next fire time.</li>
+ *   <li>The {@link StoreDefinition.TimeScheduleStore#SCHEDULE_JOB_TRIGGERS} table contains a row for every trigger,
+ *   keyed by the name of the job it fires.</li>
+ *   <li>The {@link StoreDefinition.TimeScheduleStore#SCHEDULE_GROUP_TRIGGERS} table contains a row for every trigger,
+ *   keyed by its group.</li>
+ * </ul>
+ *
+ * The index tables are maintained when a trigger is written or deleted through this class.
+ */
+final class TimeScheduleTable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TimeScheduleTable.class);
+
+  private static final String JOB_KEY = "job";
+  private static final String TRIGGER_KEY = "trigger";
+  private static final String INDEX_KEY = "index";
+  private static final String PAUSED_TRIGGER_GROUP_KEY = "paused_trigger_group";
+  private static final String PAUSED_JOB_GROUP_KEY = "paused_job_group";
+  // Name of the row that marks that the index tables were built from the triggers stored in the SCHEDULES table.
+  // It is changed whenever an index table is added, so that the existing triggers are indexed again.
+  private static final String INDEX_VERSION = "v2";
+
+  private final StructuredTable schedules;
+  private final StructuredTable fireTimes;
+  private final StructuredTable jobTriggers;
+  private final StructuredTable groupTriggers;
+
+  TimeScheduleTable(StructuredTableContext context) {
+    this.schedules = context.getTable(StoreDefinition.TimeScheduleStore.SCHEDULES);
+    this.fireTimes = context.getTable(StoreDefinition.TimeScheduleStore.SCHEDULE_FIRE_TIMES);
+    this.jobTriggers = context.getTable(StoreDefinition.TimeScheduleStore.SCHEDULE_JOB_TRIGGERS);
+    this.groupTriggers = context.getTable(StoreDefinition.TimeScheduleStore.SCHEDULE_GROUP_TRIGGERS);
+  }
+
+  /**
+   * Returns the {@link JobDetail} of the given key, or {@code null} if it doesn't exist.
+   */
+  @Nullable
+  JobDetail readJob(JobKey key) throws IOException {
+    byte[] value = get(JOB_KEY, key.getName());
+    if (value == null) {
+      return null;
+    }
+    JobDetail job = (JobDetail) SerializationUtils.deserialize(value);
+    // Rows are keyed by name only, hence the group needs to be verified
+    return key.equals(job.getKey()) ? job : null;
+  }
+
+  /**
+   * Writes the given {@link JobDetail}, replacing the existing one of the same name.
+   */
+  void writeJob(JobDetail job) throws IOException {
+    upsert(JOB_KEY, job.getKey().getName(), SerializationUtils.serialize(job));
+  }
+
+  /**
+   * Deletes the {@link JobDetail} of the given key.
+   */
+  void deleteJob(JobKey key) throws IOException {
+    schedules.delete(getPrimaryKeys(JOB_KEY, key.getName()));
+  }
+
+  /**
+   * Returns all the {@link JobDetail} stored in the table.
+   */
+  List<JobDetail> scanJobs() throws IOException {
+    List<JobDetail> jobs = new ArrayList<>();
+    try (CloseableIterator<StructuredRow> iterator = schedules.scan(Range.singleton(getScanPrefix(JOB_KEY)),
+                                                                    Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        jobs.add((JobDetail) SerializationUtils.deserialize(
+          iterator.next().getBytes(StoreDefinition.TimeScheduleStore.VALUE_FIELD)));
+      }
+    }
+    return jobs;
+  }
+
+  /**
+   * Returns the {@link TriggerStatusV2} of the given key, or {@code null} if it doesn't exist.
+   */
+  @Nullable
+  TriggerStatusV2 readTrigger(TriggerKey key) throws IOException {
+    TriggerStatusV2 status = readTrigger(key.getName());
+    // Rows are keyed by name only, hence the group needs to be verified
+    return status != null && key.equals(status.getTrigger().getKey()) ? status : null;
+  }
+
+  /**
+   * Writes the given trigger with the given state, replacing the existing trigger of the same name, and updates
+   * the index tables.
+   */
+  void writeTrigger(OperableTrigger trigger, Trigger.TriggerState state) throws IOException {
+    String name = trigger.getKey().getName();
+    TriggerStatusV2 oldStatus = readTrigger(name);
+    if (oldStatus != null) {
+      deleteIndexes(oldStatus);
+    }
+    upsert(TRIGGER_KEY, name, SerializationUtils.serialize(new TriggerStatusV2(trigger, state)));
+    writeIndexes(trigger, state);
+  }
+
+  /**
+   * Deletes the trigger of the given key together with its index entries.
+   *
+   * @return {@code true} if the trigger existed
+   */
+  boolean deleteTrigger(TriggerKey key) throws IOException {
+    TriggerStatusV2 status = readTrigger(key);
+    if (status == null) {
+      return false;
+    }
+    deleteIndexes(status);
+    schedules.delete(getPrimaryKeys(TRIGGER_KEY, key.getName()));
+    return true;
+  }
+
+  /**
+   * Returns all triggers that fire the given job.
+   */
+  List<TriggerStatusV2> getTriggers(JobKey jobKey) throws IOException {
+    List<String> triggerNames = new ArrayList<>();
+    Range range = Range.singleton(Collections.singletonList(
+      Fields.stringField(StoreDefinition.TimeScheduleStore.JOB_NAME_FIELD, jobKey.getName())));
+    try (CloseableIterator<StructuredRow> iterator = jobTriggers.scan(range, Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        triggerNames.add(iterator.next().getString(StoreDefinition.TimeScheduleStore.TRIGGER_NAME_FIELD));
+      }
+    }
+
+    List<TriggerStatusV2> triggers = new ArrayList<>();
+    for (String triggerName : triggerNames) {
+      TriggerStatusV2 status = readTrigger(triggerName);
+      if (status != null && jobKey.equals(status.getTrigger().getJobKey())) {
+        triggers.add(status);
+      }
+    }
+    return triggers;
+  }
+
+  /**
+   * Returns the keys of the triggers in the given group, without reading the triggers.
+   */
+  List<TriggerKey> getTriggerKeys(String group) throws IOException {
+    return getTriggerKeys(Range.singleton(Collections.singletonList(
+      Fields.stringField(StoreDefinition.TimeScheduleStore.TRIGGER_GROUP_FIELD, group))));
+  }
+
+  /**
+   * Returns the keys of all the triggers stored in the table, ordered by group, without reading the triggers.
+   */
+  List<TriggerKey> scanTriggerKeys() throws IOException {
+    return getTriggerKeys(Range.all());
+  }
+
+  /**
+   * Returns the keys and the next fire times of the triggers in the {@link Trigger.TriggerState#NORMAL} state,
+   * ordered by the next fire time.
+   *
+   * @param maxFireTime only returns triggers with next fire time at or before this time
+   * @param limit maximum number of triggers to return
+   */
+  List<ImmutablePair<TriggerKey, Long>> getTriggersToFire(long maxFireTime, int limit) throws IOException {
+    List<ImmutablePair<TriggerKey, Long>> triggers = new ArrayList<>();
+    Range range = Range.to(Collections.singletonList(
+      Fields.longField(StoreDefinition.TimeScheduleStore.NEXT_FIRE_TIME_FIELD, maxFireTime)), Range.Bound.INCLUSIVE);
+    try (CloseableIterator<StructuredRow> iterator = fireTimes.scan(range, limit)) {
+      while (iterator.hasNext()) {
+        StructuredRow row = iterator.next();
+        TriggerKey key = new TriggerKey(row.getString(StoreDefinition.TimeScheduleStore.TRIGGER_NAME_FIELD),
+                                        row.getString(StoreDefinition.TimeScheduleStore.TRIGGER_GROUP_FIELD));
+        triggers.add(ImmutablePair.of(key, row.getLong(StoreDefinition.TimeScheduleStore.NEXT_FIRE_TIME_FIELD)));
+      }
+    }
+    return triggers;
+  }
+
+  /**
+   * Deletes the fire time index entry of the given trigger at the given time. This is used to remove entries that
+   * don't match the stored trigger anymore.
+   */
+  void deleteFireTime(TriggerKey key, long fireTime) throws IOException {
+    fireTimes.delete(getFireTimeKeys(fireTime, key.getName()));
+  }
+
+  /**
+   * Returns the number of jobs stored in the table.
+   */
+  int getJobCount() throws IOException {
+    return (int) schedules.count(Collections.singleton(Range.singleton(getScanPrefix(JOB_KEY))));
+  }
+
+  /**
+   * Returns the number of triggers stored in the table.
+   */
+  int getTriggerCount() throws IOException {
+    return (int) schedules.count(Collections.singleton(Range.singleton(getScanPrefix(TRIGGER_KEY))));
+  }
+
+  /**
+   * Returns the names of the paused trigger groups.
+   */
+  Set<String> getPausedTriggerGroups() throws IOException {
+    return scanNames(PAUSED_TRIGGER_GROUP_KEY);
+  }
+
+  /**
+   * Marks the given trigger group as paused.
+   */
+  void addPausedTriggerGroup(String group) throws IOException {
+    upsert(PAUSED_TRIGGER_GROUP_KEY, group, new byte[0]);
+  }
+
+  /**
+   * Removes the paused mark of the given trigger group.
+   */
+  void deletePausedTriggerGroup(String group) throws IOException {
+    schedules.delete(getPrimaryKeys(PAUSED_TRIGGER_GROUP_KEY, group));
+  }
+
+  /**
+   * Returns the names of the paused job groups.
+   */
+  Set<String> getPausedJobGroups() throws IOException {
+    return scanNames(PAUSED_JOB_GROUP_KEY);
+  }
+
+  /**
+   * Marks the given job group as paused.
+   */
+  void addPausedJobGroup(String group) throws IOException {
+    upsert(PAUSED_JOB_GROUP_KEY, group, new byte[0]);
+  }
+
+  /**
+   * Removes the paused mark of the given job group.
+   */
+  void deletePausedJobGroup(String group) throws IOException {
+    schedules.delete(getPrimaryKeys(PAUSED_JOB_GROUP_KEY, group));
+  }
+
+  /**
+   * Deletes all jobs, triggers, paused groups and index entries.
+   */
+  void deleteAll() throws IOException {
+    schedules.deleteAll(Range.singleton(getScanPrefix(JOB_KEY)));
+    schedules.deleteAll(Range.singleton(getScanPrefix(TRIGGER_KEY)));
+    schedules.deleteAll(Range.singleton(getScanPrefix(PAUSED_TRIGGER_GROUP_KEY)));
+    schedules.deleteAll(Range.singleton(getScanPrefix(PAUSED_JOB_GROUP_KEY)));
+    fireTimes.deleteAll(Range.all());
+    jobTriggers.deleteAll(Range.all());
+    groupTriggers.deleteAll(Range.all());
+  }
+
+  /**
+   * Returns whether the index tables were built for the triggers stored before the index tables were introduced.
+   */
+  boolean isIndexed() throws IOException {
+    return get(INDEX_KEY, INDEX_VERSION) != null;
+  }
+
+  /**
+   * Marks that the index tables are built.
+   */
+  void setIndexed() throws IOException {
+    upsert(INDEX_KEY, INDEX_VERSION, new byte[0]);
+  }
+
+  /**
+   * Rebuilds the index entries of a batch of stored triggers. Triggers that are not in the
+   * {@link Trigger.TriggerState#NORMAL} or {@link Trigger.TriggerState#PAUSED} state, or that fire a job that
+   * doesn't exist, are deleted.
+   *
+   * @param startAfter the name of the last trigger indexed by the previous batch, or {@code null} to start
+   * @param limit maximum number of triggers to index
+   * @return the name of the last trigger in this batch, or {@code null} if there are no more triggers
+   */
+  @Nullable
+  String indexTriggers(@Nullable String startAfter, int limit) throws IOException {
+    List<Field<?>> end = getScanPrefix(TRIGGER_KEY);
+    Range range = startAfter == null
+      ? Range.singleton(end)
+      : Range.create(getPrimaryKeys(TRIGGER_KEY, startAfter), Range.Bound.EXCLUSIVE, end, Range.Bound.INCLUSIVE);
+
+    List<TriggerStatusV2> triggers = new ArrayList<>();
+    try (CloseableIterator<StructuredRow> iterator = schedules.scan(range, limit)) {
+      while (iterator.hasNext()) {
+        triggers.add((TriggerStatusV2) SerializationUtils.deserialize(
+          iterator.next().getBytes(StoreDefinition.TimeScheduleStore.VALUE_FIELD)));
+      }
+    }
+
+    String lastName = null;
+    for (TriggerStatusV2 status : triggers) {
+      OperableTrigger trigger = status.getTrigger();
+      lastName = trigger.getKey().getName();
+      Trigger.TriggerState state = status.getState();
+      if (state != Trigger.TriggerState.NORMAL && state != Trigger.TriggerState.PAUSED) {
+        LOG.debug("Schedule: trigger with key {} and state {} deleted", trigger.getKey(), state);
+        schedules.delete(getPrimaryKeys(TRIGGER_KEY, lastName));
+      } else if (readJob(trigger.getJobKey()) == null) {
+        LOG.error("No Job was found for the Trigger key '{}'. Deleting the trigger entry from the store.",
+                  trigger.getKey());
+        schedules.delete(getPrimaryKeys(TRIGGER_KEY, lastName));
+      } else {
+        writeIndexes(trigger, state);
+      }
+    }
+    return triggers.size() < limit ? null : lastName;
+  }
+
+  @Nullable
+  private TriggerStatusV2 readTrigger(String name) throws IOException {
+    byte[] value = get(TRIGGER_KEY, name);
+    return value == null ? null : (TriggerStatusV2) SerializationUtils.deserialize(value);
+  }
+
+  private List<TriggerKey> getTriggerKeys(Range range) throws IOException {
+    List<TriggerKey> keys = new ArrayList<>();
+    try (CloseableIterator<StructuredRow> iterator = groupTriggers.scan(range, Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        StructuredRow row = iterator.next();
+        keys.add(new TriggerKey(row.getString(StoreDefinition.TimeScheduleStore.TRIGGER_NAME_FIELD),
+                                row.getString(StoreDefinition.TimeScheduleStore.TRIGGER_GROUP_FIELD)));
+      }
+    }
+    return keys;
+  }
+
+  private Set<String> scanNames(String type) throws IOException {
+    Set<String> names = new HashSet<>();
+    try (CloseableIterator<StructuredRow> iterator = schedules.scan(Range.singleton(getScanPrefix(type)),
+                                                                    Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        names.add(iterator.next().getString(StoreDefinition.TimeScheduleStore.NAME_FIELD));
+      }
+    }
+    return names;
+  }
+
+  private void writeIndexes(OperableTrigger trigger, Trigger.TriggerState state) throws IOException {
+    String name = trigger.getKey().getName();
+    Field<String> groupField = Fields.stringField(StoreDefinition.TimeScheduleStore.TRIGGER_GROUP_FIELD,
+                                                  trigger.getKey().getGroup());
+    Date nextFireTime = trigger.getNextFireTime();
+    if (state == Trigger.TriggerState.NORMAL && nextFireTime != null) {
+      List<Field<?>> fields = getFireTimeKeys(nextFireTime.getTime(), name);
+      fields.add(groupField);
+      fireTimes.upsert(fields);
+    }
+    List<Field<?>> fields = getJobTriggerKeys(trigger.getJobKey().getName(), name);
+    fields.add(groupField);
+    jobTriggers.upsert(fields);
+    fields = getGroupTriggerKeys(trigger.getKey());
+    fields.add(Fields.stringField(StoreDefinition.TimeScheduleStore.JOB_NAME_FIELD, trigger.getJobKey().getName()));
+    groupTriggers.upsert(fields);
+  }
+
+  private void deleteIndexes(TriggerStatusV2 status) throws IOException {
+    OperableTrigger trigger = status.getTrigger();
+    String name = trigger.getKey().getName();
+    Date nextFireTime = trigger.getNextFireTime();
+    if (status.getState() == Trigger.TriggerState.NORMAL && nextFireTime != null) {
+      fireTimes.delete(getFireTimeKeys(nextFireTime.getTime(), name));
+    }
+    jobTriggers.delete(getJobTriggerKeys(trigger.getJobKey().getName(), name));
+    groupTriggers.delete(getGroupTriggerKeys(trigger.getKey()));
+  }
+
+  @Nullable
+  private byte[] get(String type, String name) throws IOException {
+    Optional<StructuredRow> row = schedules.read(getPrimaryKeys(type, name));
+    return row.map(r -> r.getBytes(StoreDefinition.TimeScheduleStore.VALUE_FIELD)).orElse(null);
+  }
+
+  private void upsert(String type, String name, byte[] data) throws IOException {
+    List<Field<?>> fields = getPrimaryKeys(type, name);
+    fields.add(Fields.bytesField(StoreDefinition.TimeScheduleStore.VALUE_FIELD, data));
+    schedules.upsert(fields);
+  }
+
+  private List<Field<?>> getPrimaryKeys(String type, String name) {
+    List<Field<?>> fields = new ArrayList<>();
+    fields.add(Fields.stringField(StoreDefinition.TimeScheduleStore.TYPE_FIELD, type));
+    fields.add(Fields.stringField(StoreDefinition.TimeScheduleStore.NAME_FIELD, name));
+    return fields;
+  }
+
+  private List<Field<?>> getScanPrefix(String type) {
+    return Collections.singletonList(Fields.stringField(StoreDefinition.TimeScheduleStore.TYPE_FIELD, type));
+  }
+
+  private List<Field<?>> getFireTimeKeys(long fireTime, String triggerName) {
+    List<Field<?>> fields = new ArrayList<>();
+    fields.add(Fields.longField(StoreDefinition.TimeScheduleStore.NEXT_FIRE_TIME_FIELD, fireTime));
+    fields.add(Fields.stringField(StoreDefinition.TimeScheduleStore.TRIGGER_NAME_FIELD, triggerName));
+    return fields;
+  }
+
+  private List<Field<?>> getJobTriggerKeys(String jobName, String triggerName) {
+    List<Field<?>> fields = new ArrayList<>();
+    fields.add(Fields.stringField(StoreDefinition.TimeScheduleStore.JOB_NAME_FIELD, jobName));
+    fields.add(Fields.stringField(StoreDefinition.TimeScheduleStore.TRIGGER_NAME_FIELD, triggerName));
+    return fields;
+  }
+
+  private List<Field<?>> getGroupTriggerKeys(TriggerKey key) {
+    List<Field<?>> fields = new ArrayList<>();
+    fields.add(Fields.stringField(StoreDefinition.TimeScheduleStore.TRIGGER_GROUP_FIELD, key.getGroup()));
+    fields.add(Fields.stringField(StoreDefinition.TimeScheduleStore.TRIGGER_NAME_FIELD, key.getName()));
+    return fields;
+  }
+}
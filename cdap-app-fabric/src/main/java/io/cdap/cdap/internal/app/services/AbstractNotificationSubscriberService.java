@@ -60,7 +60,8 @@ public abstract class AbstractNotificationSubscriberService extends AbstractMess
             Constants.Metrics.Tag.CONSUMER, name
           )));
     this.name = name;
-    this.messagingContext = new MultiThreadMessagingContext(messagingService);
+    // Long-poll for new notifications instead of sleeping between empty fetches
+    this.messagingContext = new MultiThreadMessagingContext(messagingService, emptyFetchDelayMillis);
     this.transactionRunner = transactionRunner;
   }
 
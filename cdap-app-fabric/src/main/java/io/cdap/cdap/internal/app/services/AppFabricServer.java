@@ -22,6 +22,7 @@ import com.google.common.util.concurrent.Futures;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.app.runtime.ProgramRuntimeService;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
@@ -47,6 +48,7 @@ import io.cdap.cdap.store.DefaultNamespaceStore;
 import io.cdap.http.HttpHandler;
 import io.cdap.http.NettyHttpService;
 import org.apache.twill.common.Cancellable;
+import org.apache.twill.common.Threads;
 import org.apache.twill.discovery.DiscoveryService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,6 +59,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 
@@ -66,6 +71,7 @@ import javax.annotation.Nullable;
 public class AppFabricServer extends AbstractIdleService {
 
   private static final Logger LOG = LoggerFactory.getLogger(AppFabricServer.class);
+  private static final long CACHE_METRICS_INTERVAL_SECONDS = 60L;
 
   private final DiscoveryService discoveryService;
   private final InetAddress hostname;
@@ -92,6 +98,9 @@ public class AppFabricServer extends AbstractIdleService {
   private Set<HttpHandler> handlers;
   private MetricsCollectionService metricsCollectionService;
   private CommonNettyHttpServiceFactory commonNettyHttpServiceFactory;
+  private ScheduledExecutorService cacheMetricsExecutor;
+  private long reportedCacheHits;
+  private long reportedCacheMisses;
 
   /**
    * Construct the AppFabricServer with service factory and cConf coming from guice injection.
@@ -133,6 +142,7 @@ public class AppFabricServer extends AbstractIdleService {
     this.runRecordCorrectorService = runRecordCorrectorService;
     this.programRunStatusMonitorService = programRunStatusMonitorService;
     this.sslEnabled = cConf.getBoolean(Constants.Security.SSL.INTERNAL_ENABLED);
+    AppMetadataStore.configureApplicationMetaCache(cConf);
     this.coreSchedulerService = coreSchedulerService;
     this.provisioningService = provisioningService;
     this.bootstrapService = bootstrapService;
@@ -201,10 +211,18 @@ public class AppFabricServer extends AbstractIdleService {
                                                                       applicationCount);
     metricsCollectionService.getContext(Collections.emptyMap()).gauge(Constants.Metrics.Program.NAMESPACE_COUNT,
                                                                       namespaceCount);
+
+    cacheMetricsExecutor = Executors.newSingleThreadScheduledExecutor(
+      Threads.createDaemonThreadFactory("app-meta-cache-metrics"));
+    cacheMetricsExecutor.scheduleWithFixedDelay(this::reportCacheMetrics, CACHE_METRICS_INTERVAL_SECONDS,
+                                                CACHE_METRICS_INTERVAL_SECONDS, TimeUnit.SECONDS);
   }
 
   @Override
   protected void shutDown() throws Exception {
+    if (cacheMetricsExecutor != null) {
+      cacheMetricsExecutor.shutdownNow();
+    }
     coreSchedulerService.stopAndWait();
     bootstrapService.stopAndWait();
     systemAppManagementService.stopAndWait();
@@ -220,6 +238,19 @@ public class AppFabricServer extends AbstractIdleService {
     runRecordCounterService.stopAndWait();
   }
 
+  /**
+   * Emits the hits and misses of the application metadata cache since the last report.
+   */
+  private void reportCacheMetrics() {
+    long hits = AppMetadataStore.getApplicationMetaCacheHitCount();
+    long misses = AppMetadataStore.getApplicationMetaCacheMissCount();
+    MetricsContext context = metricsCollectionService.getContext(Collections.emptyMap());
+    context.increment(Constants.Metrics.Program.APPLICATION_META_CACHE_HIT, hits - reportedCacheHits);
+    context.increment(Constants.Metrics.Program.APPLICATION_META_CACHE_MISS, misses - reportedCacheMisses);
+    reportedCacheHits = hits;
+    reportedCacheMisses = misses;
+  }
+
   private Cancellable startHttpService(NettyHttpService httpService) throws Exception {
     httpService.start();
 
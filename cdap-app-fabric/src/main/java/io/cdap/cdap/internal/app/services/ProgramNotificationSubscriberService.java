@@ -16,6 +16,8 @@
 
 package io.cdap.cdap.internal.app.services;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.common.util.concurrent.Service;
@@ -197,6 +199,8 @@ class ProgramNotificationSingleTopicSubscriberService extends AbstractNotificati
   private final CConfiguration cConf;
   private final Store store;
   private final RunRecordMonitorService runRecordMonitorService;
+  // Decoded program descriptor of each program run together with the JSON it was decoded from
+  private final Cache<ProgramRunId, ImmutablePair<String, ProgramDescriptor>> programDescriptors;
 
   ProgramNotificationSingleTopicSubscriberService(MessagingService messagingService, CConfiguration cConf,
                                                   MetricsCollectionService metricsCollectionService,
@@ -223,6 +227,10 @@ class ProgramNotificationSingleTopicSubscriberService extends AbstractNotificati
     this.runRecordMonitorService = runRecordMonitorService;
     this.cConf = cConf;
     this.store = store;
+    this.programDescriptors = CacheBuilder.newBuilder()
+      .maximumWeight(cConf.getLong(Constants.AppFabric.STATUS_EVENT_DESCRIPTOR_CACHE_MAX_CHARS))
+      .weigher((ProgramRunId key, ImmutablePair<String, ProgramDescriptor> value) -> value.getFirst().length())
+      .build();
   }
 
   @Override
@@ -375,9 +383,29 @@ class ProgramNotificationSingleTopicSubscriberService extends AbstractNotificati
 
     handleClusterEvent(programRunId, clusterStatus, notification,
                        messageIdBytes, appMetadataStore, context).ifPresent(result::add);
+    if (clusterStatus == ProgramRunClusterStatus.DEPROVISIONED || clusterStatus == ProgramRunClusterStatus.ORPHANED) {
+      programDescriptors.invalidate(programRunId);
+    }
     return result;
   }
 
+  /**
+   * Returns the {@link ProgramDescriptor} carried by a notification of the given program run. Since all notifications
+   * of the same program run carry the same descriptor, the decoded descriptor is cached until the run is finished.
+   */
+  private ProgramDescriptor getProgramDescriptor(ProgramRunId programRunId, Map<String, String> properties) {
+    String json = properties.get(ProgramOptionConstants.PROGRAM_DESCRIPTOR);
+    ImmutablePair<String, ProgramDescriptor> cached = programDescriptors.getIfPresent(programRunId);
+    if (cached != null && cached.getFirst().equals(json)) {
+      return cached.getSecond();
+    }
+    ProgramDescriptor programDescriptor = GSON.fromJson(json, ProgramDescriptor.class);
+    if (json != null) {
+      programDescriptors.put(programRunId, ImmutablePair.of(json, programDescriptor));
+    }
+    return programDescriptor;
+  }
+
   private void handleProgramEvent(ProgramRunId programRunId, ProgramRunStatus programRunStatus,
                                   Notification notification, byte[] messageIdBytes,
                                   AppMetadataStore appMetadataStore,
@@ -420,8 +448,7 @@ class ProgramNotificationSingleTopicSubscriberService extends AbstractNotificati
                                                      artifactId.toApiArtifactId());
           appMetadataStore.recordProgramProvisioned(programRunId, 0, messageIdBytes);
         } else {
-          ProgramDescriptor prgDescriptor =
-            GSON.fromJson(properties.get(ProgramOptionConstants.PROGRAM_DESCRIPTOR), ProgramDescriptor.class);
+          ProgramDescriptor prgDescriptor = getProgramDescriptor(programRunId, properties);
           runnables.add(() -> {
             String oldUser = SecurityRequestContext.getUserId();
             try {
@@ -707,10 +734,11 @@ class ProgramNotificationSingleTopicSubscriberService extends AbstractNotificati
     String userId = properties.get(ProgramOptionConstants.USER_ID);
 
     long endTs = getTimeSeconds(properties, ProgramOptionConstants.CLUSTER_END_TIME);
-    ProgramDescriptor programDescriptor =
-      GSON.fromJson(properties.get(ProgramOptionConstants.PROGRAM_DESCRIPTOR), ProgramDescriptor.class);
+    // The program descriptor is only needed before the program starts
+    ProgramDescriptor programDescriptor;
     switch (clusterStatus) {
       case PROVISIONING:
+        programDescriptor = getProgramDescriptor(programRunId, properties);
         appMetadataStore.recordProgramProvisioning(programRunId, programOptions.getUserArguments().asMap(),
                                                    programOptions.getArguments().asMap(), messageIdBytes,
                                                    programDescriptor.getArtifactId().toApiArtifactId());
@@ -719,6 +747,7 @@ class ProgramNotificationSingleTopicSubscriberService extends AbstractNotificati
                                                                  userId);
         return Optional.of(provisioningService.provision(provisionRequest, context));
       case PROVISIONED:
+        programDescriptor = getProgramDescriptor(programRunId, properties);
         Cluster cluster = GSON.fromJson(properties.get(ProgramOptionConstants.CLUSTER), Cluster.class);
         RunRecordDetail runRecord =
           appMetadataStore.recordProgramProvisioned(programRunId, cluster.getNodes().size(), messageIdBytes);
@@ -37,6 +37,7 @@ import io.cdap.cdap.app.store.ScanApplicationsRequest;
 import io.cdap.cdap.common.BadRequestException;
 import io.cdap.cdap.common.ConflictException;
 import io.cdap.cdap.common.app.RunIds;
+import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.internal.app.ApplicationSpecificationAdapter;
 import io.cdap.cdap.internal.app.runtime.ProgramOptionConstants;
@@ -87,7 +88,6 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -124,6 +124,9 @@ public class AppMetadataStore {
   private static final Logger LOG = LoggerFactory.getLogger(AppMetadataStore.class);
   private static final Gson GSON = ApplicationSpecificationAdapter.addTypeAdapters(new GsonBuilder()).create();
   private static final Type MAP_STRING_STRING_TYPE = new TypeToken<Map<String, String>>() { }.getType();
+  // Shared by all instances since an instance only lives for a single transaction.
+  // Nothing is cached until it is sized from the CConfiguration by configureApplicationMetaCache.
+  private static volatile ApplicationMetaCache appMetaCache = new ApplicationMetaCache(0L);
 
   private static final String TYPE_RUN_RECORD_ACTIVE = "runRecordActive";
 
@@ -131,6 +134,10 @@ public class AppMetadataStore {
 
   private static final String TYPE_COUNT = "runRecordCount";
   private static final String TYPE_RUN_RECORD_UPGRADE_COUNT = "runRecordUpgradeCount";
+  // Count types of the number of active runs of a program in each active status
+  private static final String TYPE_RUN_RECORD_ACTIVE_COUNT = "runRecordActiveCount";
+  // Count type of the row that marks the active run counts as initialized
+  private static final String TYPE_RUN_RECORD_ACTIVE_COUNT_INIT = "runRecordActiveCountInit";
   private static final String SMALLEST_POSSIBLE_STRING = "";
 
   private static final Map<ProgramRunStatus, String> STATUS_TYPE_MAP = ImmutableMap.<ProgramRunStatus, String>builder()
@@ -145,6 +152,12 @@ public class AppMetadataStore {
     .put(ProgramRunStatus.REJECTED, TYPE_RUN_RECORD_COMPLETED)
     .build();
 
+  // Map from the active run count type to the active status it counts
+  private static final Map<String, ProgramRunStatus> ACTIVE_COUNT_TYPE_MAP = STATUS_TYPE_MAP.entrySet().stream()
+    .filter(e -> TYPE_RUN_RECORD_ACTIVE.equals(e.getValue()))
+    .collect(Collectors.toMap(e -> getActiveCountType(e.getKey()), Map.Entry::getKey, (s1, s2) -> s1,
+                              LinkedHashMap::new));
+
   private final StructuredTableContext context;
   private StructuredTable applicationSpecificationTable;
   private StructuredTable applicationEditTable;
@@ -454,8 +467,8 @@ public class AppMetadataStore {
       while (iterator.hasNext()) {
         StructuredRow row = iterator.next();
         ApplicationId appId = getApplicationIdFromRow(row);
-        result.put(appId, GSON.fromJson(row.getString(StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD),
-                                        ApplicationMeta.class));
+        String json = row.getString(StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD);
+        result.put(appId, decodeApplicationMeta(appId, json));
       }
     }
 
@@ -623,6 +636,7 @@ public class AppMetadataStore {
     throws IOException {
     List<Field<?>> fields = getApplicationPrimaryKeys(namespaceId, appId, versionId);
     getApplicationSpecificationTable().delete(fields);
+    appMetaCache.invalidate(new ApplicationId(namespaceId, appId, versionId));
   }
 
   public void deleteApplicationEditRecord(ApplicationReference appRef) throws IOException {
@@ -842,8 +856,7 @@ public class AppMetadataStore {
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.PROVISIONED, existing.getProgramRunId());
     return meta;
   }
@@ -883,8 +896,7 @@ public class AppMetadataStore {
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.DEPROVISIONING, existing.getProgramRunId());
     return meta;
   }
@@ -925,8 +937,7 @@ public class AppMetadataStore {
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.DEPROVISIONED, existing.getProgramRunId());
     return meta;
   }
@@ -966,8 +977,7 @@ public class AppMetadataStore {
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.ORPHANED, existing.getProgramRunId());
     return meta;
   }
@@ -1019,8 +1029,7 @@ public class AppMetadataStore {
   private void writeNewRunRecord(RunRecordDetail meta, String typeRunRecordCompleted) throws IOException {
     List<Field<?>> fields = getProgramRunInvertedTimeKey(typeRunRecordCompleted,
                                                          meta.getProgramRunId(), meta.getStartTs());
-    writeToStructuredTableWithPrimaryKeys(fields, meta, getRunRecordsTable(),
-                                          StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(fields, meta);
     List<Field<?>> countKey = getProgramCountPrimaryKeys(TYPE_COUNT, meta.getProgramRunId().getParent());
     getProgramCountsTable().increment(countKey, StoreDefinition.AppMetadataStore.COUNTS, 1L);
   }
@@ -1068,8 +1077,7 @@ public class AppMetadataStore {
       .setTwillRunId(twillRunId)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunStatus.STARTING, existing.getProgramRunId());
     return meta;
   }
@@ -1117,8 +1125,7 @@ public class AppMetadataStore {
       .setTwillRunId(twillRunId)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunStatus.RUNNING, existing.getProgramRunId());
     return meta;
   }
@@ -1194,8 +1201,7 @@ public class AppMetadataStore {
       }
     }
     RunRecordDetail meta = builder.build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", toStatus, existing.getProgramRunId());
     return meta;
   }
@@ -1243,8 +1249,7 @@ public class AppMetadataStore {
       .setTerminateTs(terminateTsSecs)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunStatus.STOPPING, existing.getProgramRunId());
     return meta;
   }
@@ -1292,8 +1297,7 @@ public class AppMetadataStore {
       .setStatus(runStatus)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", runStatus, existing.getProgramRunId());
     return meta;
   }
@@ -1388,14 +1392,86 @@ public class AppMetadataStore {
    * @param limit count at most that many runs, stop if there are more.
    */
   public int countActiveRuns(@Nullable Integer limit) throws IOException {
-    AtomicInteger count = new AtomicInteger(0);
+    long count = 0L;
+    for (long statusCount : getActiveRunCounts(null).values()) {
+      count += statusCount;
+    }
+    return (int) Math.min(count, limit != null ? limit : Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns the number of active runs in each active status. The counts are maintained on every run status
+   * transition, hence this method doesn't need to scan the active run records.
+   *
+   * @param namespaceId the namespace to count active runs in, or {@code null} to count in all namespaces except
+   *                    the system namespace
+   * @return a map from the active {@link ProgramRunStatus} to the number of runs in that status
+   * @throws IOException if failed to read the counts
+   */
+  public Map<ProgramRunStatus, Long> getActiveRunCounts(@Nullable NamespaceId namespaceId) throws IOException {
+    initializeActiveRunCounts();
+
+    List<Range> ranges = new ArrayList<>();
+    for (String countType : ACTIVE_COUNT_TYPE_MAP.keySet()) {
+      ranges.add(Range.singleton(namespaceId == null ? getCountTypePrefix(countType)
+                                   : getCountNamespacePrefix(countType, namespaceId)));
+    }
+
+    Map<ProgramRunStatus, Long> result = new LinkedHashMap<>();
+    ACTIVE_COUNT_TYPE_MAP.values().forEach(status -> result.put(status, 0L));
+    try (CloseableIterator<StructuredRow> iterator = getProgramCountsTable().multiScan(ranges, Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        StructuredRow row = iterator.next();
+        if (namespaceId == null && NamespaceId.SYSTEM.getNamespace()
+          .equals(row.getString(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD))) {
+          continue;
+        }
+        Long count = row.getLong(StoreDefinition.AppMetadataStore.COUNTS);
+        ProgramRunStatus status = ACTIVE_COUNT_TYPE_MAP.get(row.getString(StoreDefinition.AppMetadataStore.COUNT_TYPE));
+        if (count != null && status != null) {
+          result.merge(status, count, Long::sum);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Computes the active run counts from the active run records if they were never computed before, such as right
+   * after upgrading from a version that didn't maintain the counts.
+   */
+  private void initializeActiveRunCounts() throws IOException {
+    List<Field<?>> initKey = getCountTypePrefix(TYPE_RUN_RECORD_ACTIVE_COUNT_INIT);
+    initKey.add(Fields.stringField(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD, SMALLEST_POSSIBLE_STRING));
+    initKey.add(Fields.stringField(StoreDefinition.AppMetadataStore.APPLICATION_FIELD, SMALLEST_POSSIBLE_STRING));
+    initKey.add(Fields.stringField(StoreDefinition.AppMetadataStore.VERSION_FIELD, SMALLEST_POSSIBLE_STRING));
+    initKey.add(Fields.stringField(StoreDefinition.AppMetadataStore.PROGRAM_TYPE_FIELD, SMALLEST_POSSIBLE_STRING));
+    initKey.add(Fields.stringField(StoreDefinition.AppMetadataStore.PROGRAM_FIELD, SMALLEST_POSSIBLE_STRING));
+
+    StructuredTable countsTable = getProgramCountsTable();
+    if (countsTable.read(initKey).isPresent()) {
+      return;
+    }
+
+    // Counts updated by transitions before the initialization are discarded and recomputed
+    for (String countType : ACTIVE_COUNT_TYPE_MAP.keySet()) {
+      countsTable.deleteAll(Range.singleton(getCountTypePrefix(countType)));
+    }
+    Map<ProgramRunStatus, Map<ProgramId, Long>> counts = new HashMap<>();
     try (CloseableIterator<RunRecordDetail> iterator = queryProgramRuns(
-      Range.singleton(getRunRecordNamespacePrefix(TYPE_RUN_RECORD_ACTIVE, null)),
-      key -> !NamespaceId.SYSTEM.getNamespace().equals(key.getString(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD)),
-      null, limit != null ? limit : Integer.MAX_VALUE)) {
-      iterator.forEachRemaining(m -> count.getAndIncrement());
+      Range.singleton(getRunRecordStatusPrefix(TYPE_RUN_RECORD_ACTIVE)), null, null, Integer.MAX_VALUE)) {
+      iterator.forEachRemaining(r -> counts.computeIfAbsent(r.getStatus(), k -> new HashMap<>())
+        .merge(r.getProgramRunId().getParent(), 1L, Long::sum));
+    }
+    for (Map.Entry<ProgramRunStatus, Map<ProgramId, Long>> statusEntry : counts.entrySet()) {
+      for (Map.Entry<ProgramId, Long> entry : statusEntry.getValue().entrySet()) {
+        List<Field<?>> fields = getProgramCountPrimaryKeys(getActiveCountType(statusEntry.getKey()), entry.getKey());
+        fields.add(Fields.longField(StoreDefinition.AppMetadataStore.COUNTS, entry.getValue()));
+        countsTable.upsert(fields);
+      }
     }
-    return count.get();
+    initKey.add(Fields.longField(StoreDefinition.AppMetadataStore.COUNTS, 1L));
+    countsTable.upsert(initKey);
   }
 
   /**
@@ -1706,6 +1782,29 @@ public class AppMetadataStore {
     List<Field<?>> key = getProgramRunInvertedTimeKey(STATUS_TYPE_MAP.get(record.getStatus()), programRunId,
                                                       record.getStartTs());
     getRunRecordsTable().delete(key);
+    updateActiveRunCount(record, -1L);
+  }
+
+  /**
+   * Writes a new run record, or a run record that replaces a deleted one, and updates the active run counts.
+   */
+  private void writeRunRecord(List<Field<?>> key, RunRecordDetail meta) throws IOException {
+    writeToStructuredTableWithPrimaryKeys(key, meta, getRunRecordsTable(),
+                                          StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    updateActiveRunCount(meta, 1L);
+  }
+
+  /**
+   * Adds the given delta to the active run count of the program and status of the given run record if the run is
+   * active.
+   */
+  private void updateActiveRunCount(RunRecordDetail record, long delta) throws IOException {
+    if (!TYPE_RUN_RECORD_ACTIVE.equals(STATUS_TYPE_MAP.get(record.getStatus()))) {
+      return;
+    }
+    List<Field<?>> countKey = getProgramCountPrimaryKeys(getActiveCountType(record.getStatus()),
+                                                         record.getProgramRunId().getParent());
+    getProgramCountsTable().increment(countKey, StoreDefinition.AppMetadataStore.COUNTS, delta);
   }
 
   private Map<ProgramRunId, RunRecordDetail> getUnfinishedRuns(Set<ProgramRunId> programRunIds) throws IOException {
@@ -1904,6 +2003,9 @@ public class AppMetadataStore {
     getProgramCountsTable().deleteAll(Range.singleton(getCountApplicationPrefix(TYPE_COUNT, applicationId)));
     getProgramCountsTable().deleteAll(
       Range.singleton(getCountApplicationPrefix(TYPE_RUN_RECORD_UPGRADE_COUNT, applicationId)));
+    for (String countType : ACTIVE_COUNT_TYPE_MAP.keySet()) {
+      getProgramCountsTable().deleteAll(Range.singleton(getCountApplicationPrefix(countType, applicationId)));
+    }
   }
 
   public void deleteProgramHistory(NamespaceId namespaceId) throws IOException {
@@ -1914,6 +2016,9 @@ public class AppMetadataStore {
     getProgramCountsTable().deleteAll(Range.singleton(getCountNamespacePrefix(TYPE_COUNT, namespaceId)));
     getProgramCountsTable().deleteAll(Range.singleton(
       getCountNamespacePrefix(TYPE_RUN_RECORD_UPGRADE_COUNT, namespaceId)));
+    for (String countType : ACTIVE_COUNT_TYPE_MAP.keySet()) {
+      getProgramCountsTable().deleteAll(Range.singleton(getCountNamespacePrefix(countType, namespaceId)));
+    }
   }
 
   /**
@@ -2080,7 +2185,9 @@ public class AppMetadataStore {
 
     List<Field<?>> prefix = getRunRecordStatusPrefix(statusKey);
     Set<RunId> runIds = new HashSet<>();
-    try (CloseableIterator<RunRecordDetail> iterator = queryProgramRuns(Range.singleton(prefix), null, timeFilter,
+    // Skip decoding records that started after the end time based on the start time in the row key
+    Predicate<StructuredRow> keyFilter = getKeyFilterByTimeRange(0L, endTimeInSecs);
+    try (CloseableIterator<RunRecordDetail> iterator = queryProgramRuns(Range.singleton(prefix), keyFilter, timeFilter,
                                                                         getLimitByStatus(Integer.MAX_VALUE,
                                                                                          ProgramRunStatus.ALL))) {
       iterator.forEachRemaining(meta -> runIds.add(RunIds.fromString(meta.getPid())));
@@ -2098,6 +2205,7 @@ public class AppMetadataStore {
     deleteTable(getProgramCountsTable(), StoreDefinition.AppMetadataStore.COUNT_TYPE);
     deleteTable(getSubscriberStateTable(), StoreDefinition.AppMetadataStore.SUBSCRIBER_TOPIC);
     deleteTable(getApplicationEditTable(), StoreDefinition.AppMetadataStore.NAMESPACE_FIELD);
+    appMetaCache.invalidateAll();
   }
 
   private void deleteTable(StructuredTable table, String firstKey) throws IOException {
@@ -2207,6 +2315,10 @@ public class AppMetadataStore {
     getApplicationSpecificationTable().upsert(fields);
   }
 
+  private static String getActiveCountType(ProgramRunStatus status) {
+    return TYPE_RUN_RECORD_ACTIVE_COUNT + "." + status.name();
+  }
+
   private List<Field<?>> getCountTypePrefix(String countType) {
     List<Field<?>> fields = new ArrayList<>();
     fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.COUNT_TYPE, countType));
@@ -2240,13 +2352,44 @@ public class AppMetadataStore {
     return result;
   }
 
+  /**
+   * Creates the cache of decoded {@link ApplicationMeta} that is shared by all instances of this class, bounded by
+   * the total length of the cached JSON given by {@link Constants.AppFabric#APP_META_CACHE_MAX_CHARS}.
+   * Setting it to 0 disables the cache.
+   */
+  public static void configureApplicationMetaCache(CConfiguration cConf) {
+    appMetaCache = new ApplicationMetaCache(cConf.getLong(Constants.AppFabric.APP_META_CACHE_MAX_CHARS));
+  }
+
+  /**
+   * Decodes the {@link ApplicationMeta} JSON stored for the given application. The decoded result is cached and
+   * shared for as long as the stored JSON stays the same.
+   */
+  private static ApplicationMeta decodeApplicationMeta(ApplicationId appId, String json) {
+    return appMetaCache.get(appId, json, s -> GSON.fromJson(s, ApplicationMeta.class));
+  }
+
+  /**
+   * Returns the number of times an {@link ApplicationMeta} was served from the cache without decoding.
+   */
+  public static long getApplicationMetaCacheHitCount() {
+    return appMetaCache.getHitCount();
+  }
+
+  /**
+   * Returns the number of times an {@link ApplicationMeta} needs to be decoded because it was not in the cache.
+   */
+  public static long getApplicationMetaCacheMissCount() {
+    return appMetaCache.getMissCount();
+  }
+
   private ApplicationMeta decodeRow(StructuredRow row) {
     String author = row.getString(StoreDefinition.AppMetadataStore.AUTHOR_FIELD);
     String changeSummary = row.getString(StoreDefinition.AppMetadataStore.CHANGE_SUMMARY_FIELD);
     Long creationTimeMillis = row.getLong(StoreDefinition.AppMetadataStore.CREATION_TIME_FIELD);
     Boolean latest = row.getBoolean(StoreDefinition.AppMetadataStore.LATEST_FIELD);
-    ApplicationMeta meta = GSON.fromJson(row.getString(StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD),
-                                         ApplicationMeta.class);
+    String json = row.getString(StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD);
+    ApplicationMeta meta = decodeApplicationMeta(getApplicationIdFromRow(row), json);
     ApplicationSpecification spec = meta.getSpec();
     String id = meta.getId();
     ChangeDetail changeDetail;
@@ -2467,7 +2610,7 @@ public class AppMetadataStore {
       if (meta != null) {
         return meta;
       }
-      ApplicationMeta tempMeta = GSON.fromJson(rawAppMeta, ApplicationMeta.class);
+      ApplicationMeta tempMeta = decodeApplicationMeta(appId, rawAppMeta);
       appMeta = meta = new ApplicationMeta(tempMeta.getId(), tempMeta.getSpec(), changeDetail);
       return meta;
     }
@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.store;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.cdap.cdap.proto.id.ApplicationId;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A bounded cache of {@link ApplicationMeta} decoded from the JSON stored in the application specification table.
+ *
+ * Entries are keyed by {@link ApplicationId} and hold the JSON they were decoded from. A cached entry is only used
+ * if the JSON read from the table is the same as the cached one, hence the cache never returns a decoded value that
+ * differs from what is stored, regardless of which transaction or which process updated the table.
+ * The total size of the cache is bounded by the total length of the cached JSON.
+ */
+@ThreadSafe
+final class ApplicationMetaCache {
+
+  private final Cache<ApplicationId, Entry> cache;
+  private final AtomicLong hitCount;
+  private final AtomicLong missCount;
+
+  /**
+   * Creates a new instance.
+   *
+   * @param maxJsonLength the maximum total length of the JSON of all cached entries
+   */
+  ApplicationMetaCache(long maxJsonLength) {
+    this.cache = CacheBuilder.newBuilder()
+      .maximumWeight(maxJsonLength)
+      .weigher((ApplicationId key, Entry value) -> value.json.length())
+      .build();
+    this.hitCount = new AtomicLong();
+    this.missCount = new AtomicLong();
+  }
+
+  /**
+   * Returns the decoded {@link ApplicationMeta} of the given JSON, either from the cache or by decoding it with the
+   * given decoder.
+   *
+   * @param appId the application id that the JSON is stored for
+   * @param json the JSON read from the table
+   * @param decoder function to decode the JSON if it is not in the cache
+   * @return the decoded {@link ApplicationMeta}
+   */
+  ApplicationMeta get(ApplicationId appId, String json, Function<String, ApplicationMeta> decoder) {
+    Entry entry = cache.getIfPresent(appId);
+    if (entry != null && entry.json.equals(json)) {
+      hitCount.incrementAndGet();
+      return entry.meta;
+    }
+    missCount.incrementAndGet();
+    ApplicationMeta meta = decoder.apply(json);
+    cache.put(appId, new Entry(json, meta));
+    return meta;
+  }
+
+  /**
+   * Removes the cached entry of the given application.
+   */
+  void invalidate(ApplicationId appId) {
+    cache.invalidate(appId);
+  }
+
+  /**
+   * Removes all cached entries.
+   */
+  void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  /**
+   * Returns the number of times a decoded value was returned from the cache.
+   */
+  long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * Returns the number of times the JSON needs to be decoded.
+   */
+  long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * Returns the number of entries in the cache.
+   */
+  long size() {
+    return cache.size();
+  }
+
+  /**
+   * A decoded {@link ApplicationMeta} together with the JSON it was decoded from.
+   */
+  private static final class Entry {
+    private final String json;
+    private final ApplicationMeta meta;
+
+    private Entry(String json, ApplicationMeta meta) {
+      this.json = json;
+      this.meta = meta;
+    }
+  }
+}
@@ -76,10 +76,17 @@ public class TaskWorkerHttpHandlerInternal extends AbstractHttpHandler {
   private final RunnableTaskLauncher runnableTaskLauncher;
   private final BiConsumer<Boolean, TaskDetails> taskCompletionConsumer;
 
-  private final AtomicBoolean hasInflightRequest = new AtomicBoolean(false);
+  private final int maxConcurrentRequests;
+  private final int killAfterRequestCount;
+
+  /**
+   * Number of requests being executed. It is set to -1 once the worker is stopping, so no new request is accepted.
+   */
+  private final AtomicInteger inflightRequests = new AtomicInteger(0);
 
   /**
    * Holds the total number of requests that have been executed by this handler that should count toward max allowed.
+   * In-flight requests are counted until they complete and turn out not to count toward the restart.
    */
   private final AtomicInteger requestProcessedCount = new AtomicInteger(0);
 
@@ -87,13 +94,14 @@ public class TaskWorkerHttpHandlerInternal extends AbstractHttpHandler {
   private final MetricsCollectionService metricsCollectionService;
 
   /**
-   * If true, pod will restart once an operation finish its execution.
+   * If true, no new request is accepted and pod will restart once all ongoing operations finish their execution.
    */
   private final AtomicBoolean mustRestart = new AtomicBoolean(false);
 
   public TaskWorkerHttpHandlerInternal(CConfiguration cConf, Consumer<String> stopper,
                                        MetricsCollectionService metricsCollectionService) {
-    int killAfterRequestCount = cConf.getInt(Constants.TaskWorker.CONTAINER_KILL_AFTER_REQUEST_COUNT, 0);
+    this.killAfterRequestCount = cConf.getInt(Constants.TaskWorker.CONTAINER_KILL_AFTER_REQUEST_COUNT, 0);
+    this.maxConcurrentRequests = Math.max(1, cConf.getInt(Constants.TaskWorker.CONCURRENT_REQUESTS, 1));
     this.runnableTaskLauncher = new RunnableTaskLauncher(cConf);
     this.metricsCollectionService = metricsCollectionService;
     this.metadataServiceEndpoint = cConf.get(Constants.TaskWorker.METADATA_SERVICE_END_POINT);
@@ -102,22 +110,16 @@ public class TaskWorkerHttpHandlerInternal extends AbstractHttpHandler {
 
       String className = taskDetails.getClassName();
 
-      if (mustRestart.get()) {
-        stopper.accept(className);
-        return;
-      }
-
       if (!taskDetails.isTerminateOnComplete() || className == null || killAfterRequestCount <= 0) {
-        // No need to restart.
+        // Doesn't count toward the restart.
         requestProcessedCount.decrementAndGet();
-        hasInflightRequest.set(false);
-        return;
+      } else if (requestProcessedCount.get() >= killAfterRequestCount) {
+        mustRestart.set(true);
       }
 
-      if (requestProcessedCount.get() >= killAfterRequestCount) {
+      // The last request to finish stops the pod if a restart is needed.
+      if (inflightRequests.decrementAndGet() == 0 && mustRestart.get() && inflightRequests.compareAndSet(0, -1)) {
         stopper.accept(className);
-      } else {
-        hasInflightRequest.set(false);
       }
     };
 
@@ -126,7 +128,7 @@ public class TaskWorkerHttpHandlerInternal extends AbstractHttpHandler {
 
   /**
    * If there is no ongoing request, worker pod gets restarted after a random duration is selected from the following
-   * range. Otherwise, worker pod can only get restarted once the ongoing request finishes.
+   * range. Otherwise, worker pod can only get restarted once all the ongoing requests finish.
    * range = [Duration - DURATION_FRACTION * Duration, Duration + DURATION_FRACTION * Duration]
    * Reason: by randomizing the duration, it is guaranteed that pods do not get restarted at the same time.
    */
@@ -139,14 +141,12 @@ public class TaskWorkerHttpHandlerInternal extends AbstractHttpHandler {
       Executors.newSingleThreadScheduledExecutor(Threads.createDaemonThreadFactory("task-worker-restart"))
         .schedule(
           () -> {
-            if (hasInflightRequest.compareAndSet(false, true)) {
+            // no new request will be accepted and we restart once the ongoing requests finish.
+            mustRestart.set(true);
+            if (inflightRequests.compareAndSet(0, -1)) {
               // there is no ongoing request. pod gets restarted.
               stopper.accept("");
             }
-            // we restart once a request finishes.
-            // TODO: this might delay the pod restart to after executing a new request if the
-            // ongoing request is already in the stopper.
-            mustRestart.set(true);
           }, waitTime, TimeUnit.SECONDS);
     }
   }
@@ -154,11 +154,10 @@ public class TaskWorkerHttpHandlerInternal extends AbstractHttpHandler {
   @POST
   @Path("/run")
   public void run(FullHttpRequest request, HttpResponder responder) {
-    if (!hasInflightRequest.compareAndSet(false, true)) {
+    if (!tryAcquireRequest()) {
       responder.sendStatus(HttpResponseStatus.TOO_MANY_REQUESTS);
       return;
     }
-    requestProcessedCount.incrementAndGet();
 
     long startTime = System.currentTimeMillis();
     try {
@@ -207,6 +206,45 @@ public class TaskWorkerHttpHandlerInternal extends AbstractHttpHandler {
     }
   }
 
+  /**
+   * Reserves a slot for executing a request. Returns {@code false} if the maximum number of concurrent requests
+   * is reached, if the requests processed and in-flight already reach the number of requests after which the worker
+   * restarts, or if the worker is going to restart.
+   */
+  private boolean tryAcquireRequest() {
+    // A request is counted toward the restart until it completes, since it is only known by then whether it counts
+    if (!tryIncrementProcessedCount()) {
+      return false;
+    }
+    while (!mustRestart.get()) {
+      int inflight = inflightRequests.get();
+      if (inflight < 0 || inflight >= maxConcurrentRequests) {
+        break;
+      }
+      if (inflightRequests.compareAndSet(inflight, inflight + 1)) {
+        return true;
+      }
+    }
+    requestProcessedCount.decrementAndGet();
+    return false;
+  }
+
+  /**
+   * Increments the number of processed requests. Returns {@code false} if it already reaches the number of requests
+   * after which the worker restarts.
+   */
+  private boolean tryIncrementProcessedCount() {
+    while (true) {
+      int count = requestProcessedCount.get();
+      if (killAfterRequestCount > 0 && count >= killAfterRequestCount) {
+        return false;
+      }
+      if (requestProcessedCount.compareAndSet(count, count + 1)) {
+        return true;
+      }
+    }
+  }
+
   /**
    * Return json representation of an exception.
    * Used to propagate exception across network for better surfacing errors and debuggability.
@@ -23,6 +23,7 @@ import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.api.metrics.MetricsCollectionService;
 import io.cdap.cdap.api.metrics.MetricsContext;
@@ -37,13 +38,17 @@ import io.cdap.cdap.internal.app.runtime.schedule.constraint.CheckableConstraint
 import io.cdap.cdap.internal.app.runtime.schedule.constraint.ConstraintContext;
 import io.cdap.cdap.internal.app.runtime.schedule.constraint.ConstraintResult;
 import io.cdap.cdap.internal.app.runtime.schedule.queue.Job;
+import io.cdap.cdap.internal.app.runtime.schedule.queue.JobKey;
 import io.cdap.cdap.internal.app.runtime.schedule.queue.JobQueue;
 import io.cdap.cdap.internal.app.runtime.schedule.queue.JobQueueTable;
 import io.cdap.cdap.internal.app.runtime.schedule.store.Schedulers;
 import io.cdap.cdap.internal.app.services.ProgramLifecycleService;
 import io.cdap.cdap.internal.app.services.PropertiesResolver;
 import io.cdap.cdap.internal.schedule.constraint.Constraint;
+import io.cdap.cdap.proto.id.EntityId;
 import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.ProgramId;
+import io.cdap.cdap.proto.id.ScheduleId;
 import io.cdap.cdap.spi.data.transaction.TransactionException;
 import io.cdap.cdap.spi.data.transaction.TransactionRunner;
 import io.cdap.cdap.spi.data.transaction.TransactionRunners;
@@ -52,15 +57,26 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 /**
- * Polls the JobQueue, checks the jobs for constraint satisfaction, and launches them.
+ * Checks the jobs in the JobQueue for constraint satisfaction, and launches them.
  */
+@Singleton
 class ConstraintCheckerService extends AbstractIdleService {
   private static final Logger LOG = LoggerFactory.getLogger(ConstraintCheckerService.class);
 
@@ -70,6 +86,8 @@ class ConstraintCheckerService extends AbstractIdleService {
   private final NamespaceQueryAdmin namespaceQueryAdmin;
   private final CConfiguration cConf;
   private final TransactionRunner transactionRunner;
+  private final long fullScanIntervalMillis;
+  private volatile List<ConstraintCheckerThread> checkerThreads;
   private ScheduleTaskRunner taskRunner;
   private ListeningExecutorService taskExecutorService;
   private volatile boolean stopping;
@@ -89,6 +107,9 @@ class ConstraintCheckerService extends AbstractIdleService {
     this.cConf = cConf;
     this.transactionRunner = transactionRunner;
     this.metricsCollectionService = metricsCollectionService;
+    this.fullScanIntervalMillis =
+      TimeUnit.SECONDS.toMillis(cConf.getLong(Constants.Scheduler.CONSTRAINT_CHECK_FULL_SCAN_INTERVAL_SECONDS));
+    this.checkerThreads = Collections.emptyList();
   }
 
   @Override
@@ -99,15 +120,19 @@ class ConstraintCheckerService extends AbstractIdleService {
     taskRunner = new ScheduleTaskRunner(store, lifecycleService, propertiesResolver, namespaceQueryAdmin, cConf);
 
     int numPartitions = cConf.getInt(Constants.Scheduler.JOB_QUEUE_NUM_PARTITIONS);
+    List<ConstraintCheckerThread> threads = new ArrayList<>();
     for (int partition = 0; partition < numPartitions; partition++) {
-      taskExecutorService.submit(new ConstraintCheckerThread(partition));
+      threads.add(new ConstraintCheckerThread(partition));
     }
+    checkerThreads = Collections.unmodifiableList(threads);
+    threads.forEach(taskExecutorService::submit);
     LOG.info("Started ConstraintCheckerService. state: " + state());
   }
 
   @Override
   protected void shutDown() throws Exception {
     stopping = true;
+    checkerThreads = Collections.emptyList();
     LOG.info("Stopping ConstraintCheckerService.");
     try {
       // Shutdown the executor and wait for all pending task to be completed for max of 5 seconds
@@ -123,10 +148,49 @@ class ConstraintCheckerService extends AbstractIdleService {
     LOG.info("Stopped ConstraintCheckerService.");
   }
 
+  /**
+   * Notifies the constraint checker that jobs of the given schedules may have been added or updated.
+   * This should be called after the transaction that updated the job queue is committed.
+   */
+  void schedulesUpdated(Collection<ScheduleId> scheduleIds) {
+    List<ConstraintCheckerThread> threads = checkerThreads;
+    if (threads.isEmpty()) {
+      return;
+    }
+    for (ScheduleId scheduleId : scheduleIds) {
+      threads.get(JobQueueTable.getPartition(scheduleId, threads.size())).events.add(scheduleId);
+    }
+  }
+
+  /**
+   * Notifies the constraint checker that runs of the given programs have finished, which can satisfy constraints
+   * of the jobs that launch those programs.
+   */
+  void programRunsFinished(Collection<ProgramId> programIds) {
+    for (ConstraintCheckerThread thread : checkerThreads) {
+      thread.events.addAll(programIds);
+    }
+  }
+
+  /**
+   * Checks the jobs of one partition of the job queue.
+   *
+   * Each thread keeps a {@link PendingJobIndex} of the jobs of its partition by the time they need to be checked next,
+   * which is the earliest of the time that constraints need to be checked again, the time that the job times out,
+   * or the time that a job marked for deletion can be removed. Only jobs that are due are read from the job queue.
+   * Jobs are also checked when their schedule is updated, or when a run of the program they launch has finished.
+   * Since the job queue can also be updated by other processes, the whole partition is still scanned periodically.
+   */
   private class ConstraintCheckerThread implements Runnable {
     private final RetryStrategy scheduleStrategy;
     private final int partition;
     private final Deque<Job> readyJobs = new ArrayDeque<>();
+    private final BlockingQueue<EntityId> events = new LinkedBlockingQueue<>();
+    private final PendingJobIndex jobIndex = new PendingJobIndex();
+    private final Set<ScheduleId> pendingSchedules = new LinkedHashSet<>();
+    private final Set<JobKey> pendingJobs = new LinkedHashSet<>();
+    private final Set<JobKey> scannedJobs = new HashSet<>();
+    private long nextFullScanTime;
     private Job lastConsumed;
     private int failureCount;
 
@@ -144,9 +208,9 @@ class ConstraintCheckerService extends AbstractIdleService {
       while (!stopping) {
         try {
           long sleepTime = checkJobQueue();
-          // Don't sleep if sleepTime returned is 0
+          // Don't wait if sleepTime returned is 0
           if (sleepTime > 0) {
-            TimeUnit.MILLISECONDS.sleep(sleepTime);
+            awaitEvents(sleepTime);
           }
         } catch (InterruptedException e) {
           // sleep is interrupted, just exit without doing anything
@@ -154,16 +218,35 @@ class ConstraintCheckerService extends AbstractIdleService {
       }
     }
 
+    /**
+     * Waits for any event for at most the given time.
+     */
+    private void awaitEvents(long waitMillis) throws InterruptedException {
+      EntityId event = events.poll(waitMillis, TimeUnit.MILLISECONDS);
+      if (event != null) {
+        addEvent(event);
+      }
+    }
+
+    private void addEvent(EntityId event) {
+      if (event instanceof ScheduleId) {
+        pendingSchedules.add((ScheduleId) event);
+      } else if (event instanceof ProgramId) {
+        pendingJobs.addAll(jobIndex.getJobs((ProgramId) event));
+      }
+    }
+
     /**
      * Check jobs in job queue for constraint satisfaction.
      *
      * @return sleep time in milliseconds before next fetch
      */
     private long checkJobQueue() {
-      boolean emptyFetch = false;
+      boolean hasMoreJobs = false;
       try {
-        emptyFetch = TransactionRunners.run(transactionRunner, context -> {
-          return checkJobConstraints(JobQueueTable.getJobQueue(context, cConf));
+        hasMoreJobs = TransactionRunners.run(transactionRunner, context -> {
+          JobQueueTable jobQueue = JobQueueTable.getJobQueue(context, cConf);
+          return System.currentTimeMillis() >= nextFullScanTime ? scanJobs(jobQueue) : checkPendingJobs(jobQueue);
         });
 
         // run any ready jobs
@@ -172,6 +255,8 @@ class ConstraintCheckerService extends AbstractIdleService {
       } catch (Exception e) {
         LOG.warn("Failed to check Job constraints. Will retry in next run", e);
         failureCount++;
+        // The index may have been updated by the failed transaction, rebuild it by scanning the partition
+        nextFullScanTime = 0L;
       }
 
       // If there is any failure, delay the next fetch based on the strategy
@@ -180,65 +265,140 @@ class ConstraintCheckerService extends AbstractIdleService {
         return scheduleStrategy.nextRetry(failureCount, 0);
       }
 
-      // Sleep for 2 seconds if there's no jobs in the queue
-      return emptyFetch && readyJobs.isEmpty() ? 2000L : 0L;
+      if (hasMoreJobs || !readyJobs.isEmpty() || !pendingSchedules.isEmpty() || !pendingJobs.isEmpty()) {
+        return 0L;
+      }
+      // Wait until the next job is due or there is an event, for at most 2 seconds
+      long nextCheckTime = Math.min(jobIndex.getNextCheckTime(), nextFullScanTime);
+      return Math.max(1L, Math.min(nextCheckTime - System.currentTimeMillis(), 2000L));
     }
 
-    private boolean checkJobConstraints(JobQueue jobQueue) throws IOException {
-      boolean emptyScan = true;
-
+    /**
+     * Scans and checks all jobs in the partition, resuming from the last scanned job.
+     *
+     * @return {@code true} if the scan is not completed yet
+     */
+    private boolean scanJobs(JobQueue jobQueue) throws IOException {
+      if (lastConsumed == null) {
+        scannedJobs.clear();
+      }
       try (CloseableIterator<Job> jobQueueIter = jobQueue.getJobs(partition, lastConsumed)) {
         Stopwatch stopWatch = new Stopwatch().start();
         // limit the batches of the scan to 1000ms
         while (!stopping && stopWatch.elapsedMillis() < 1000) {
           if (!jobQueueIter.hasNext()) {
             lastConsumed = null;
-            return emptyScan;
+            // Remove jobs that no longer exist from the index
+            jobIndex.retainAll(scannedJobs);
+            scannedJobs.clear();
+            nextFullScanTime = System.currentTimeMillis() + fullScanIntervalMillis;
+            return false;
           }
           Job job = jobQueueIter.next();
           lastConsumed = job;
-          emptyScan = false;
-          checkAndUpdateJob(jobQueue, job);
+          scannedJobs.add(job.getJobKey());
+          checkAndIndexJob(jobQueue, job);
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Checks jobs of updated schedules, jobs of programs that had runs finished, and jobs that are due for a check.
+     *
+     * @return {@code true} if not all jobs could be checked within the time limit
+     */
+    private boolean checkPendingJobs(JobQueue jobQueue) throws IOException {
+      List<EntityId> newEvents = new ArrayList<>();
+      events.drainTo(newEvents);
+      newEvents.forEach(this::addEvent);
+      pendingJobs.addAll(jobIndex.pollDueJobs(System.currentTimeMillis()));
+
+      Stopwatch stopWatch = new Stopwatch().start();
+      // limit the batches of the checks to 1000ms
+      Iterator<ScheduleId> schedules = pendingSchedules.iterator();
+      while (!stopping && stopWatch.elapsedMillis() < 1000 && schedules.hasNext()) {
+        try (CloseableIterator<Job> jobs = jobQueue.getJobsForSchedule(schedules.next())) {
+          while (jobs.hasNext()) {
+            Job job = jobs.next();
+            pendingJobs.remove(job.getJobKey());
+            checkAndIndexJob(jobQueue, job);
+          }
+        }
+        schedules.remove();
+      }
+      Iterator<JobKey> jobKeys = pendingJobs.iterator();
+      while (!stopping && stopWatch.elapsedMillis() < 1000 && jobKeys.hasNext()) {
+        JobKey jobKey = jobKeys.next();
+        Job job = jobQueue.getJob(jobKey);
+        if (job == null) {
+          jobIndex.remove(jobKey);
+        } else {
+          checkAndIndexJob(jobQueue, job);
         }
+        jobKeys.remove();
       }
-      return emptyScan;
+      return !pendingSchedules.isEmpty() || !pendingJobs.isEmpty();
     }
 
-    private void checkAndUpdateJob(JobQueue jobQueue, Job job) throws IOException {
+    private void checkAndIndexJob(JobQueue jobQueue, Job job) throws IOException {
+      Long nextCheckTime = checkAndUpdateJob(jobQueue, job);
+      if (nextCheckTime == null) {
+        jobIndex.remove(job.getJobKey());
+      } else {
+        jobIndex.put(job.getJobKey(), job.getSchedule().getProgramId(), nextCheckTime);
+      }
+    }
+
+    /**
+     * Checks the given job, and deletes it or moves it to {@link Job.State#PENDING_LAUNCH} if needed.
+     *
+     * @return the time in milliseconds when the job needs to be checked again,
+     *         or {@code null} if the job no longer needs to be checked
+     */
+    @Nullable
+    private Long checkAndUpdateJob(JobQueue jobQueue, Job job) throws IOException {
       long now = System.currentTimeMillis();
       if (job.isToBeDeleted()) {
         // only delete jobs that are pending trigger or pending constraint. If pending launch, the launcher will delete
-        if ((job.getState() == Job.State.PENDING_CONSTRAINT ||
-          // if pending trigger, we need to check if now - deletionTime > 2 * txTimeout. Otherwise the subscriber thread
-          // might update this job concurrently (because its tx does not see the delete flag) and cause a conflict.
-          // It's 2 * txTimeout for:
+        if (job.getState() == Job.State.PENDING_CONSTRAINT) {
+          jobQueue.deleteJob(job);
+        } else if (job.getState() == Job.State.PENDING_TRIGGER) {
+          // if pending trigger, we need to check if now - deletionTime > 2 * txTimeout. Otherwise the subscriber
+          // thread might update this job concurrently (because its tx does not see the delete flag) and cause a
+          // conflict. It's 2 * txTimeout for:
           // - the transaction the marked it as to be deleted
           // - the subscriber's transaction that may not have seen that change
-          (job.getState() == Job.State.PENDING_TRIGGER &&
-            now - job.getDeleteTimeMillis() > 2 * Schedulers.SUBSCRIBER_TX_TIMEOUT_MILLIS))) {
+          long deleteTime = job.getDeleteTimeMillis() + 2 * Schedulers.SUBSCRIBER_TX_TIMEOUT_MILLIS + 1;
+          if (now < deleteTime) {
+            return deleteTime;
+          }
           jobQueue.deleteJob(job);
         }
-        return;
+        return null;
       }
-      if (now - job.getCreationTime() >= job.getSchedule().getTimeoutMillis() +
-        2 * Schedulers.SUBSCRIBER_TX_TIMEOUT_MILLIS) {
+      long timeoutTime = job.getCreationTime() + job.getSchedule().getTimeoutMillis() +
+        2 * Schedulers.SUBSCRIBER_TX_TIMEOUT_MILLIS;
+      if (now >= timeoutTime) {
         LOG.info("Deleted job {}, due to timeout value of {}.", job.getJobKey(), job.getSchedule().getTimeoutMillis());
         jobQueue.deleteJob(job);
-        return;
+        return null;
       }
       if (job.getState() != Job.State.PENDING_CONSTRAINT) {
-        return;
+        return timeoutTime;
       }
-      ConstraintResult.SatisfiedState satisfiedState = constraintsSatisfied(job, now);
-      if (satisfiedState == ConstraintResult.SatisfiedState.NOT_SATISFIED) {
-        return;
+      ConstraintResult result = constraintsSatisfied(job, now);
+      if (result.getSatisfiedState() == ConstraintResult.SatisfiedState.NOT_SATISFIED) {
+        //noinspection ConstantConditions
+        return Math.min(result.getNextCheckTime(), timeoutTime);
       }
-      if (satisfiedState == ConstraintResult.SatisfiedState.NEVER_SATISFIED) {
+      if (result.getSatisfiedState() == ConstraintResult.SatisfiedState.NEVER_SATISFIED) {
         jobQueue.deleteJob(job);
-        return;
+        return null;
       }
       jobQueue.transitState(job, Job.State.PENDING_LAUNCH);
       readyJobs.add(job);
+      return null;
     }
 
     private void runReadyJobs() {
@@ -297,8 +457,15 @@ class ConstraintCheckerService extends AbstractIdleService {
       return true;
     }
 
-    private ConstraintResult.SatisfiedState constraintsSatisfied(Job job, long now) {
-      ConstraintResult.SatisfiedState satisfiedState = ConstraintResult.SatisfiedState.SATISFIED;
+    /**
+     * Checks all constraints of the given job.
+     *
+     * @return {@link ConstraintResult#NEVER_SATISFIED} if any constraint is never satisfied,
+     *         a not satisfied result with the earliest next check time if any constraint is not satisfied,
+     *         or {@link ConstraintResult#SATISFIED} if all constraints are satisfied
+     */
+    private ConstraintResult constraintsSatisfied(Job job, long now) {
+      Long nextCheckTime = null;
 
       ConstraintContext constraintContext = new ConstraintContext(job, now, store);
       for (Constraint constraint : job.getSchedule().getConstraints()) {
@@ -313,13 +480,17 @@ class ConstraintCheckerService extends AbstractIdleService {
         ConstraintResult result = abstractConstraint.check(job.getSchedule(), constraintContext);
         if (result.getSatisfiedState() == ConstraintResult.NEVER_SATISFIED.getSatisfiedState()) {
           // if any of the constraints are NEVER_SATISFIED, return NEVER_SATISFIED
-          return ConstraintResult.NEVER_SATISFIED.getSatisfiedState();
+          return ConstraintResult.NEVER_SATISFIED;
         }
         if (result.getSatisfiedState() == ConstraintResult.SatisfiedState.NOT_SATISFIED) {
-          satisfiedState = ConstraintResult.SatisfiedState.NOT_SATISFIED;
+          //noinspection ConstantConditions
+          nextCheckTime = nextCheckTime == null ? result.getNextCheckTime()
+            : Math.min(nextCheckTime, result.getNextCheckTime());
         }
       }
-      return satisfiedState;
+      return nextCheckTime == null
+        ? ConstraintResult.SATISFIED
+        : new ConstraintResult(ConstraintResult.SatisfiedState.NOT_SATISFIED, nextCheckTime);
     }
 
     private void emitScheduleJobSuccessAndLatencyMetric(String application, String schedule, long jobCreationTime) {
@@ -0,0 +1,155 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.scheduler;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.SetMultimap;
+import io.cdap.cdap.internal.app.runtime.schedule.queue.JobKey;
+import io.cdap.cdap.proto.id.ProgramId;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * In-memory index of the jobs in one partition of the job queue by the time they need to be checked next,
+ * and by the program they launch. It is used by the {@link ConstraintCheckerService} to only read jobs
+ * that are due for a check, instead of scanning the whole partition repeatedly.
+ */
+@NotThreadSafe
+final class PendingJobIndex {
+
+  private final Map<JobKey, Entry> entries;
+  private final SetMultimap<ProgramId, JobKey> jobsByProgram;
+  // Entries are removed lazily, hence an entry in the queue is only valid if it is the same as the one in the map
+  private final PriorityQueue<Entry> checkQueue;
+
+  PendingJobIndex() {
+    this.entries = new HashMap<>();
+    this.jobsByProgram = HashMultimap.create();
+    this.checkQueue = new PriorityQueue<>((e1, e2) -> Long.compare(e1.checkTime, e2.checkTime));
+  }
+
+  /**
+   * Adds or replaces the check time of the given job.
+   *
+   * @param jobKey the key of the job
+   * @param programId the program that the job launches
+   * @param checkTime the time in milliseconds when the job needs to be checked next
+   */
+  void put(JobKey jobKey, ProgramId programId, long checkTime) {
+    Entry entry = new Entry(jobKey, programId, checkTime);
+    Entry oldEntry = entries.put(jobKey, entry);
+    if (oldEntry != null && !oldEntry.programId.equals(programId)) {
+      jobsByProgram.remove(oldEntry.programId, jobKey);
+    }
+    jobsByProgram.put(programId, jobKey);
+    checkQueue.add(entry);
+
+    // Rebuild the queue if it is mostly made of replaced entries
+    if (checkQueue.size() > 2 * entries.size() + 16) {
+      checkQueue.clear();
+      checkQueue.addAll(entries.values());
+    }
+  }
+
+  /**
+   * Removes the given job from the index.
+   */
+  void remove(JobKey jobKey) {
+    Entry entry = entries.remove(jobKey);
+    if (entry != null) {
+      jobsByProgram.remove(entry.programId, jobKey);
+    }
+  }
+
+  /**
+   * Removes and returns the keys of all jobs that need to be checked at or before the given time.
+   */
+  List<JobKey> pollDueJobs(long time) {
+    List<JobKey> result = new ArrayList<>();
+    while (!checkQueue.isEmpty() && checkQueue.peek().checkTime <= time) {
+      Entry entry = checkQueue.poll();
+      if (entries.get(entry.jobKey) == entry) {
+        remove(entry.jobKey);
+        result.add(entry.jobKey);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the keys of all jobs in the index that launch the given program.
+   */
+  Collection<JobKey> getJobs(ProgramId programId) {
+    return new ArrayList<>(jobsByProgram.get(programId));
+  }
+
+  /**
+   * Returns the earliest check time of all jobs, or {@link Long#MAX_VALUE} if the index is empty.
+   */
+  long getNextCheckTime() {
+    while (!checkQueue.isEmpty()) {
+      Entry entry = checkQueue.peek();
+      if (entries.get(entry.jobKey) == entry) {
+        return entry.checkTime;
+      }
+      checkQueue.poll();
+    }
+    return Long.MAX_VALUE;
+  }
+
+  /**
+   * Removes all jobs that are not in the given set of job keys from the index.
+   */
+  void retainAll(Set<JobKey> jobKeys) {
+    List<JobKey> removed = new ArrayList<>();
+    for (JobKey jobKey : entries.keySet()) {
+      if (!jobKeys.contains(jobKey)) {
+        removed.add(jobKey);
+      }
+    }
+    removed.forEach(this::remove);
+  }
+
+  /**
+   * Returns the number of jobs in the index.
+   */
+  int size() {
+    return entries.size();
+  }
+
+  /**
+   * An entry of the index.
+   */
+  private static final class Entry {
+    private final JobKey jobKey;
+    private final ProgramId programId;
+    private final long checkTime;
+
+    private Entry(JobKey jobKey, ProgramId programId, long checkTime) {
+      this.jobKey = jobKey;
+      this.programId = programId;
+      this.checkTime = checkTime;
+    }
+  }
+}
@@ -51,10 +51,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -71,16 +77,19 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
   private final CConfiguration cConf;
   private final MessagingService messagingService;
   private final MetricsCollectionService metricsCollectionService;
+  private final ConstraintCheckerService constraintCheckerService;
   private final List<Service> subscriberServices;
   private ScheduledExecutorService subscriberExecutor;
 
   @Inject
   ScheduleNotificationSubscriberService(CConfiguration cConf, MessagingService messagingService,
                                         MetricsCollectionService metricsCollectionService,
-                                        TransactionRunner transactionRunner) {
+                                        TransactionRunner transactionRunner,
+                                        ConstraintCheckerService constraintCheckerService) {
     this.cConf = cConf;
     this.messagingService = messagingService;
     this.metricsCollectionService = metricsCollectionService;
+    this.constraintCheckerService = constraintCheckerService;
     this.subscriberServices = Arrays.asList(new SchedulerEventSubscriberService(transactionRunner),
                                             new DataEventSubscriberService(transactionRunner),
                                             new ProgramStatusEventSubscriberService(transactionRunner));
@@ -123,6 +132,15 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
    */
   private abstract class AbstractSchedulerSubscriberService extends AbstractNotificationSubscriberService {
 
+    // Schedules and programs of the last processed batch of notifications, to notify the ConstraintCheckerService
+    private final Set<ScheduleId> updatedSchedules = new LinkedHashSet<>();
+    private final Set<ProgramId> finishedPrograms = new LinkedHashSet<>();
+    // Notifications of a batch of messages to be added to the jobs of each schedule
+    private final Map<ScheduleId, ImmutablePair<ProgramScheduleRecord, List<Notification>>> scheduleNotifications =
+      new LinkedHashMap<>();
+    // Schedules found for each trigger key in a batch of messages
+    private final Map<String, Collection<ProgramScheduleRecord>> triggerKeySchedules = new HashMap<>();
+
     AbstractSchedulerSubscriberService(String name, String topic, int fetchSize,
                                        TransactionRunner transactionRunner) {
       super(name, cConf, topic, fetchSize, cConf.getLong(Constants.Scheduler.EVENT_POLL_DELAY_MILLIS),
@@ -146,9 +164,76 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
       ProgramScheduleStoreDataset scheduleStore = getScheduleStore(structuredTableContext);
       JobQueueTable jobQueue = getJobQueue(structuredTableContext);
 
+      // Clear what is collected by previous attempts in case the transaction is retried
+      updatedSchedules.clear();
+      finishedPrograms.clear();
+      scheduleNotifications.clear();
+      triggerKeySchedules.clear();
       while (messages.hasNext()) {
-        processNotification(scheduleStore, jobQueue, messages.next().getSecond());
+        processNotification(scheduleStore, messages.next().getSecond());
+      }
+
+      // Add all notifications of the same schedule at once
+      for (ImmutablePair<ProgramScheduleRecord, List<Notification>> entry : scheduleNotifications.values()) {
+        ProgramScheduleRecord record = entry.getFirst();
+        try {
+          jobQueue.addNotifications(record, entry.getSecond());
+        } catch (Exception e) {
+          addNotificationsFailed(record);
+          throw e;
+        }
+        updatedSchedules.add(record.getSchedule().getScheduleId());
       }
+      scheduleNotifications.clear();
+      triggerKeySchedules.clear();
+    }
+
+    @Override
+    protected void postProcess() {
+      if (!updatedSchedules.isEmpty()) {
+        constraintCheckerService.schedulesUpdated(updatedSchedules);
+        updatedSchedules.clear();
+      }
+      if (!finishedPrograms.isEmpty()) {
+        constraintCheckerService.programRunsFinished(finishedPrograms);
+        finishedPrograms.clear();
+      }
+    }
+
+    /**
+     * Adds the notification to the jobs of the given schedule after all messages in the batch are processed.
+     */
+    protected void addNotification(ProgramScheduleRecord schedule, Notification notification) {
+      scheduleNotifications.computeIfAbsent(schedule.getSchedule().getScheduleId(),
+                                            k -> ImmutablePair.of(schedule, new ArrayList<>()))
+        .getSecond().add(notification);
+    }
+
+    /**
+     * Finds the schedules of the given trigger key. The result is reused for all messages in the same batch.
+     */
+    protected Collection<ProgramScheduleRecord> findSchedules(ProgramScheduleStoreDataset scheduleStore,
+                                                              String triggerKey) throws IOException {
+      Collection<ProgramScheduleRecord> schedules = triggerKeySchedules.get(triggerKey);
+      if (schedules == null) {
+        schedules = scheduleStore.findSchedules(triggerKey);
+        triggerKeySchedules.put(triggerKey, schedules);
+      }
+      return schedules;
+    }
+
+    /**
+     * Called when notifications cannot be added to the jobs of the given schedule.
+     */
+    protected void addNotificationsFailed(ProgramScheduleRecord schedule) {
+      // no-op
+    }
+
+    /**
+     * Records that a run of the given program has finished.
+     */
+    protected void programRunFinished(ProgramId programId) {
+      finishedPrograms.add(programId);
     }
 
     @Override
@@ -160,7 +245,7 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
      * Processes a single {@link Notification}.
      */
     protected abstract void processNotification(ProgramScheduleStoreDataset scheduleStore,
-                                                JobQueueTable jobQueue, Notification notification) throws IOException;
+                                                Notification notification) throws IOException;
 
     private JobQueueTable getJobQueue(StructuredTableContext context) {
       return JobQueueTable.getJobQueue(context, cConf);
@@ -184,7 +269,7 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
 
     @Override
     protected void processNotification(ProgramScheduleStoreDataset scheduleStore,
-                                       JobQueueTable jobQueue, Notification notification) throws IOException {
+                                       Notification notification) throws IOException {
       Map<String, String> properties = notification.getProperties();
       String scheduleIdString = properties.get(ProgramOptionConstants.SCHEDULE_ID);
       if (scheduleIdString == null) {
@@ -208,13 +293,13 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
         LOG.warn("Ignore notification that doesn't have a schedule {} associated with, {}", scheduleId, notification);
         return;
       }
-      try {
-        jobQueue.addNotification(record, notification);
-      } catch (Exception e) {
-        emitScheduleJobNotificationFailureMetrics(record.getSchedule().getScheduleId().getApplication(),
-                                                  record.getSchedule().getScheduleId().getSchedule());
-        throw e;
-      }
+      addNotification(record, notification);
+    }
+
+    @Override
+    protected void addNotificationsFailed(ProgramScheduleRecord record) {
+      emitScheduleJobNotificationFailureMetrics(record.getSchedule().getScheduleId().getApplication(),
+                                                record.getSchedule().getScheduleId().getSchedule());
     }
 
     private void emitScheduleJobNotificationFailureMetrics(String application, String schedule) {
@@ -241,15 +326,15 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
 
     @Override
     protected void processNotification(ProgramScheduleStoreDataset scheduleStore,
-                                       JobQueueTable jobQueue, Notification notification) throws IOException {
+                                       Notification notification) throws IOException {
       String datasetIdString = notification.getProperties().get(Notification.DATASET_ID);
       if (datasetIdString == null) {
         return;
       }
       DatasetId datasetId = DatasetId.fromString(datasetIdString);
-      for (ProgramScheduleRecord schedule :
-        scheduleStore.findSchedules(Schedulers.triggerKeyForPartition(datasetId))) {
-        jobQueue.addNotification(schedule, notification);
+      String triggerKey = Schedulers.triggerKeyForPartition(datasetId);
+      for (ProgramScheduleRecord schedule : findSchedules(scheduleStore, triggerKey)) {
+        addNotification(schedule, notification);
       }
     }
   }
@@ -267,7 +352,7 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
 
     @Override
     protected void processNotification(ProgramScheduleStoreDataset scheduleStore,
-                                       JobQueueTable jobQueue, Notification notification) throws IOException {
+                                       Notification notification) throws IOException {
       String programRunIdString = notification.getProperties().get(ProgramOptionConstants.PROGRAM_RUN_ID);
       String programRunStatusString = notification.getProperties().get(ProgramOptionConstants.PROGRAM_STATUS);
 
@@ -286,10 +371,14 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
 
       ProgramRunId programRunId = GSON.fromJson(programRunIdString, ProgramRunId.class);
       ProgramId programId = programRunId.getParent();
+      if (ProgramRunStatus.valueOf(programRunStatusString).isEndState()) {
+        // A finished run can satisfy constraints of jobs that launch the same program
+        programRunFinished(programId);
+      }
       String triggerKeyForProgramStatus = Schedulers.triggerKeyForProgramStatus(programId, programStatus);
 
-      for (ProgramScheduleRecord schedule : scheduleStore.findSchedules(triggerKeyForProgramStatus)) {
-        jobQueue.addNotification(schedule, notification);
+      for (ProgramScheduleRecord schedule : findSchedules(scheduleStore, triggerKeyForProgramStatus)) {
+        addNotification(schedule, notification);
       }
     }
   }
@@ -23,6 +23,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.api.dataset.lib.PartitionKey;
 import io.cdap.cdap.api.schedule.Trigger;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.internal.app.runtime.schedule.ProgramSchedule;
@@ -293,6 +294,46 @@ public abstract class JobQueueTableTest {
     });
   }
 
+  @Test
+  public void testAddNotificationsBatch() {
+    ProgramScheduleRecord record =
+      new ProgramScheduleRecord(SCHED3, new ProgramScheduleMeta(ProgramScheduleStatus.SCHEDULED, 0L));
+    Notification notification1 = Notification.forPartitions(DATASET_ID, ImmutableList.of());
+    Notification notification2 =
+      Notification.forPartitions(DATASET2_ID, ImmutableList.of(PartitionKey.builder().addIntField("i", 1).build()));
+    Notification notification3 = Notification.forPartitions(DATASET_ID, ImmutableList.of());
+
+    TransactionRunners.run(transactionRunner, context -> {
+      JobQueueTable jobQueue = JobQueueTable.getJobQueue(context, getCConf());
+      // The second notification satisfies the trigger, hence the third one should go to a new job
+      jobQueue.addNotifications(record, ImmutableList.of(notification1, notification2, notification3));
+    });
+
+    TransactionRunners.run(transactionRunner, context -> {
+      JobQueueTable jobQueue = JobQueueTable.getJobQueue(context, getCConf());
+      Job job0 = jobQueue.getJob(new JobKey(SCHED3.getScheduleId(), 0));
+      Assert.assertEquals(Job.State.PENDING_CONSTRAINT, job0.getState());
+      Assert.assertEquals(ImmutableList.of(notification1, notification2), job0.getNotifications());
+
+      Job job1 = jobQueue.getJob(new JobKey(SCHED3.getScheduleId(), 1));
+      Assert.assertEquals(Job.State.PENDING_TRIGGER, job1.getState());
+      Assert.assertEquals(ImmutableList.of(notification3), job1.getNotifications());
+
+      // Notifications added to a pending job should be read back in the order they were added
+      jobQueue.addNotification(record, notification1);
+      jobQueue.addNotification(record, notification3);
+      job1 = jobQueue.getJob(new JobKey(SCHED3.getScheduleId(), 1));
+      Assert.assertEquals(ImmutableList.of(notification3, notification1, notification3), job1.getNotifications());
+      Assert.assertEquals(2, getAllJobs(jobQueue).size());
+
+      // Transition of the job state should keep all the notifications
+      jobQueue.transitState(job1, Job.State.PENDING_CONSTRAINT);
+      job1 = jobQueue.getJob(new JobKey(SCHED3.getScheduleId(), 1));
+      Assert.assertEquals(Job.State.PENDING_CONSTRAINT, job1.getState());
+      Assert.assertEquals(ImmutableList.of(notification3, notification1, notification3), job1.getNotifications());
+    });
+  }
+
   @Test
   public void testAddConcurrentNotifications() throws Exception {
     TransactionRunners.run(transactionRunner, context -> {
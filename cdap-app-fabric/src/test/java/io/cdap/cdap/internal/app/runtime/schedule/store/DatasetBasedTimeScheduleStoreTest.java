@@ -65,6 +65,7 @@ import org.quartz.JobDetail;
 import org.quartz.JobKey;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
+import org.quartz.SimpleScheduleBuilder;
 import org.quartz.Trigger;
 import org.quartz.TriggerBuilder;
 import org.quartz.impl.DirectSchedulerFactory;
@@ -72,12 +73,21 @@ import org.quartz.impl.matchers.GroupMatcher;
 import org.quartz.simpl.RAMJobStore;
 import org.quartz.simpl.SimpleThreadPool;
 import org.quartz.spi.JobStore;
-
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SchedulerSignaler;
+import org.quartz.spi.TriggerFiredBundle;
+import org.quartz.spi.TriggerFiredResult;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 
 /**
@@ -368,13 +378,115 @@ public class DatasetBasedTimeScheduleStoreTest {
     // Make sure we actually deleted the entry from the persistent store as well for the Trigger
     TransactionRunners.run(transactionRunner, context -> {
       DatasetBasedTimeScheduleStore.TriggerStatusV2 triggerStatusV2
-        = datasetBasedTimeScheduleStore.readTrigger(
-          DatasetBasedTimeScheduleStore.getTimeScheduleStructuredTable(context), job1Trigger.getKey());
+        = new TimeScheduleTable(context).readTrigger(job1Trigger.getKey());
       Assert.assertNull(triggerStatusV2);
     });
     schedulerTearDown();
   }
 
+  @Test
+  public void testAcquireTriggersByFireTime() throws Exception {
+    DatasetBasedTimeScheduleStore store =
+      new DatasetBasedTimeScheduleStore(transactionRunner, injector.getInstance(CConfiguration.class));
+    store.initialize(null, new NoOpSchedulerSignaler());
+    store.clearAllSchedulingData();
+
+    JobDetail job = getJobDetail("acquire");
+    store.storeJob(job, false);
+    long now = System.currentTimeMillis();
+    OperableTrigger dueTrigger = getMinutelyTrigger("due", job, now);
+    OperableTrigger laterTrigger = getMinutelyTrigger("later", job, now + TimeUnit.HOURS.toMillis(1));
+    store.storeTrigger(dueTrigger, false);
+    store.storeTrigger(laterTrigger, false);
+
+    // Only the trigger due before the given time should be acquired, and only once
+    List<OperableTrigger> acquired = store.acquireNextTriggers(now + 1000, 10, 0L);
+    Assert.assertEquals(1, acquired.size());
+    Assert.assertEquals(dueTrigger.getKey(), acquired.get(0).getKey());
+    Assert.assertTrue(store.acquireNextTriggers(now + 1000, 10, 0L).isEmpty());
+
+    // Firing the trigger moves it to the next fire time
+    List<TriggerFiredResult> results = store.triggersFired(acquired);
+    Assert.assertEquals(1, results.size());
+    TriggerFiredBundle bundle = results.get(0).getTriggerFiredBundle();
+    Assert.assertEquals(job.getKey(), bundle.getJobDetail().getKey());
+    Assert.assertEquals(new Date(now + TimeUnit.MINUTES.toMillis(1)), bundle.getNextFireTime());
+    Assert.assertEquals(bundle.getNextFireTime(), store.retrieveTrigger(dueTrigger.getKey()).getNextFireTime());
+    Assert.assertTrue(store.acquireNextTriggers(now + 1000, 10, 0L).isEmpty());
+
+    // Both triggers are acquired if they are within the time window
+    long windowEnd = now + TimeUnit.HOURS.toMillis(2);
+    acquired = store.acquireNextTriggers(windowEnd, 10, windowEnd - now);
+    Assert.assertEquals(Arrays.asList(dueTrigger.getKey(), laterTrigger.getKey()),
+                        acquired.stream().map(Trigger::getKey).collect(Collectors.toList()));
+    acquired.forEach(store::releaseAcquiredTrigger);
+
+    // Paused triggers are not acquired
+    store.pauseTrigger(dueTrigger.getKey());
+    Assert.assertEquals(Trigger.TriggerState.PAUSED, store.getTriggerState(dueTrigger.getKey()));
+    acquired = store.acquireNextTriggers(windowEnd, 10, windowEnd - now);
+    Assert.assertEquals(Collections.singletonList(laterTrigger.getKey()),
+                        acquired.stream().map(Trigger::getKey).collect(Collectors.toList()));
+    acquired.forEach(store::releaseAcquiredTrigger);
+
+    Assert.assertTrue(store.removeJob(job.getKey()));
+    Assert.assertTrue(store.acquireNextTriggers(windowEnd, 10, windowEnd - now).isEmpty());
+    Assert.assertEquals(0, store.getNumberOfTriggers());
+  }
+
+  @Test
+  public void testPauseTriggerGroup() throws Exception {
+    AtomicInteger transactions = new AtomicInteger();
+    TransactionRunner countingRunner = runnable -> {
+      transactions.incrementAndGet();
+      transactionRunner.run(runnable);
+    };
+    CConfiguration cConf = injector.getInstance(CConfiguration.class);
+    DatasetBasedTimeScheduleStore store = new DatasetBasedTimeScheduleStore(countingRunner, cConf);
+    store.initialize(null, new NoOpSchedulerSignaler());
+    store.clearAllSchedulingData();
+
+    JobDetail job = getJobDetail("pauseGroup");
+    store.storeJob(job, false);
+    long now = System.currentTimeMillis();
+    OperableTrigger trigger1 = getMinutelyTrigger("t1", "paused", job, now);
+    OperableTrigger trigger2 = getMinutelyTrigger("t2", "other", job, now);
+    store.storeTrigger(trigger1, false);
+    store.storeTrigger(trigger2, false);
+    Assert.assertEquals(Collections.singleton(trigger1.getKey()),
+                        store.getTriggerKeys(GroupMatcher.triggerGroupEquals("paused")));
+
+    // Only the triggers in the paused group are paused
+    Assert.assertEquals(Collections.singleton("paused"),
+                        store.pauseTriggers(GroupMatcher.triggerGroupEquals("paused")));
+    Assert.assertEquals(Trigger.TriggerState.PAUSED, store.getTriggerState(trigger1.getKey()));
+    Assert.assertEquals(Trigger.TriggerState.NORMAL, store.getTriggerState(trigger2.getKey()));
+
+    // The paused group is persisted, hence new triggers in the group are paused after a restart
+    store = new DatasetBasedTimeScheduleStore(countingRunner, cConf);
+    store.initialize(null, new NoOpSchedulerSignaler());
+    Assert.assertEquals(Collections.singleton("paused"), store.getPausedTriggerGroups());
+    OperableTrigger trigger3 = getMinutelyTrigger("t3", "paused", job, now);
+    store.storeTrigger(trigger3, false);
+    Assert.assertEquals(Trigger.TriggerState.PAUSED, store.getTriggerState(trigger3.getKey()));
+
+    // Pausing a group that is already paused doesn't access the tables
+    transactions.set(0);
+    Assert.assertTrue(store.pauseTriggers(GroupMatcher.triggerGroupEquals("paused")).isEmpty());
+    Assert.assertEquals(0, transactions.get());
+
+    Assert.assertEquals(Collections.singleton("paused"),
+                        store.resumeTriggers(GroupMatcher.triggerGroupEquals("paused")));
+    Assert.assertEquals(Trigger.TriggerState.NORMAL, store.getTriggerState(trigger1.getKey()));
+    Assert.assertEquals(Trigger.TriggerState.NORMAL, store.getTriggerState(trigger3.getKey()));
+
+    store = new DatasetBasedTimeScheduleStore(countingRunner, cConf);
+    store.initialize(null, new NoOpSchedulerSignaler());
+    Assert.assertTrue(store.getPausedTriggerGroups().isEmpty());
+    Assert.assertTrue(store.removeJob(job.getKey()));
+    Assert.assertTrue(store.getTriggerKeys(GroupMatcher.anyTriggerGroup()).isEmpty());
+  }
+
   private void verifyJobAndTriggers(JobKey jobKey, int expectedTriggersSize,
                                     Trigger.TriggerState expectedTriggerState) throws SchedulerException {
     JobDetail jobStored = scheduler.getJobDetail(jobKey);
@@ -411,6 +523,21 @@ public class DatasetBasedTimeScheduleStoreTest {
       .build();
   }
 
+  private OperableTrigger getMinutelyTrigger(String triggerName, JobDetail job, long startTime) {
+    return getMinutelyTrigger(triggerName, Scheduler.DEFAULT_GROUP, job, startTime);
+  }
+
+  private OperableTrigger getMinutelyTrigger(String triggerName, String triggerGroup, JobDetail job, long startTime) {
+    OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger()
+      .withIdentity(triggerName, triggerGroup)
+      .forJob(job)
+      .startAt(new Date(startTime))
+      .withSchedule(SimpleScheduleBuilder.repeatMinutelyForever())
+      .build();
+    trigger.computeFirstFireTime(null);
+    return trigger;
+  }
+
   private JobDetail getJobDetail(String jobName) {
     return JobBuilder.newJob(LogPrintingJob.class)
       .withIdentity(String.format("developer:application1:%s", jobName))
@@ -432,4 +559,30 @@ public class DatasetBasedTimeScheduleStoreTest {
   public static void cleanup() throws SchedulerException {
     schedulerTearDown();
   }
+
+  /**
+   * A {@link SchedulerSignaler} that ignores all signals.
+   */
+  private static final class NoOpSchedulerSignaler implements SchedulerSignaler {
+
+    @Override
+    public void notifyTriggerListenersMisfired(Trigger trigger) {
+      // no-op
+    }
+
+    @Override
+    public void notifySchedulerListenersFinalized(Trigger trigger) {
+      // no-op
+    }
+
+    @Override
+    public void notifySchedulerListenersJobDeleted(JobKey jobKey) {
+      // no-op
+    }
+
+    @Override
+    public void signalSchedulingChange(long candidateNewNextFireTime) {
+      // no-op
+    }
+  }
 }
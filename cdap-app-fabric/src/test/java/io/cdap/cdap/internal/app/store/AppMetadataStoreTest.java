@@ -730,6 +730,60 @@ public abstract class AppMetadataStoreTest {
     }
   }
 
+  @Test
+  public void testActiveRunCounts() {
+    NamespaceId ns1 = new NamespaceId("ns1");
+    ProgramId program1 = ns1.app("app").workflow("program");
+    ProgramId program2 = NamespaceId.DEFAULT.app("app").workflow("program");
+    ProgramId systemProgram = NamespaceId.SYSTEM.app("app").workflow("program");
+
+    // Initialize the counts before any run
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      Assert.assertEquals(0, store.countActiveRuns(null));
+    });
+
+    List<ProgramRunId> runs = new ArrayList<>();
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      for (ProgramId program : Arrays.asList(program1, program1, program2, systemProgram)) {
+        RunId runId = RunIds.generate(runIdTime.incrementAndGet());
+        ProgramRunId programRunId = program.run(runId);
+        recordProvisionAndStart(programRunId, store);
+        runs.add(programRunId);
+      }
+      store.recordProgramRunning(runs.get(0), RunIds.getTime(runs.get(0).getRun(), TimeUnit.SECONDS), null,
+                                 AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+    });
+
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      Assert.assertEquals(3, store.countActiveRuns(null));
+      Assert.assertEquals(2, store.countActiveRuns(2));
+
+      Map<ProgramRunStatus, Long> counts = store.getActiveRunCounts(ns1);
+      Assert.assertEquals(Long.valueOf(1L), counts.get(ProgramRunStatus.RUNNING));
+      Assert.assertEquals(Long.valueOf(1L), counts.get(ProgramRunStatus.STARTING));
+      Assert.assertEquals(Long.valueOf(0L), counts.get(ProgramRunStatus.PENDING));
+      Assert.assertEquals(Long.valueOf(1L),
+                          store.getActiveRunCounts(NamespaceId.SYSTEM).get(ProgramRunStatus.STARTING));
+
+      store.recordProgramStop(runs.get(0), RunIds.getTime(runs.get(0).getRun(), TimeUnit.SECONDS) + 10,
+                              ProgramRunStatus.COMPLETED, null,
+                              AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+    });
+
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      Assert.assertEquals(store.getActiveRuns(NamespaceId.DEFAULT).size()
+                            + store.getActiveRuns(ns1).size(), store.countActiveRuns(null));
+      Assert.assertEquals(Long.valueOf(0L), store.getActiveRunCounts(ns1).get(ProgramRunStatus.RUNNING));
+
+      store.deleteProgramHistory(ns1);
+      Assert.assertEquals(1, store.countActiveRuns(null));
+    });
+  }
+
   @Test
   public void testDuplicateWritesIgnored() throws Exception {
     ApplicationId application = NamespaceId.DEFAULT.app("app");
@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.store;
+
+import io.cdap.cdap.proto.id.ApplicationId;
+import io.cdap.cdap.proto.id.NamespaceId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Unit tests for {@link ApplicationMetaCache}.
+ */
+public class ApplicationMetaCacheTest {
+
+  @Test
+  public void testDecodeOnlyOnChange() {
+    ApplicationMetaCache cache = new ApplicationMetaCache(1024);
+    AtomicInteger decodeCount = new AtomicInteger();
+    Function<String, ApplicationMeta> decoder = json -> {
+      decodeCount.incrementAndGet();
+      return new ApplicationMeta(json, null, null);
+    };
+
+    ApplicationId appId = NamespaceId.DEFAULT.app("app");
+    ApplicationMeta meta = cache.get(appId, "v1", decoder);
+    Assert.assertEquals("v1", meta.getId());
+    Assert.assertSame(meta, cache.get(appId, "v1", decoder));
+    Assert.assertEquals(1, decodeCount.get());
+
+    // Different JSON for the same app must be decoded again
+    Assert.assertEquals("v2", cache.get(appId, "v2", decoder).getId());
+    Assert.assertEquals(2, decodeCount.get());
+
+    cache.invalidate(appId);
+    Assert.assertEquals("v2", cache.get(appId, "v2", decoder).getId());
+    Assert.assertEquals(3, decodeCount.get());
+
+    Assert.assertEquals(1L, cache.getHitCount());
+    Assert.assertEquals(3L, cache.getMissCount());
+  }
+
+  @Test
+  public void testBoundedByJsonLength() {
+    ApplicationMetaCache cache = new ApplicationMetaCache(100);
+    Function<String, ApplicationMeta> decoder = json -> new ApplicationMeta(json, null, null);
+    StringBuilder json = new StringBuilder();
+    for (int i = 0; i < 40; i++) {
+      json.append('x');
+    }
+    for (int i = 0; i < 10; i++) {
+      cache.get(NamespaceId.DEFAULT.app("app" + i), json.toString(), decoder);
+    }
+    Assert.assertTrue(cache.size() <= 2);
+  }
+
+  @Test
+  public void testDisabled() {
+    ApplicationMetaCache cache = new ApplicationMetaCache(0);
+    AtomicInteger decodeCount = new AtomicInteger();
+    Function<String, ApplicationMeta> decoder = json -> {
+      decodeCount.incrementAndGet();
+      return new ApplicationMeta(json, null, null);
+    };
+
+    ApplicationId appId = NamespaceId.DEFAULT.app("app");
+    cache.get(appId, "v1", decoder);
+    cache.get(appId, "v1", decoder);
+    Assert.assertEquals(2, decodeCount.get());
+    Assert.assertEquals(0L, cache.size());
+  }
+}
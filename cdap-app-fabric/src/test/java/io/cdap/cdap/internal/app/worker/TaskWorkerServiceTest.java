@@ -270,6 +270,100 @@ public class TaskWorkerServiceTest {
     Assert.assertEquals(Service.State.TERMINATED, taskWorkerService.state());
   }
 
+  @Test
+  public void testConcurrentRequestsWithinLimit() throws Exception {
+    CConfiguration cConf = createCConf();
+    SConfiguration sConf = createSConf();
+    int concurrentRequests = 3;
+    cConf.setInt(Constants.TaskWorker.CONCURRENT_REQUESTS, concurrentRequests);
+    cConf.setInt(Constants.TaskWorker.CONTAINER_KILL_AFTER_REQUEST_COUNT, concurrentRequests);
+    cConf.setInt(Constants.TaskWorker.CONTAINER_KILL_AFTER_DURATION_SECOND, 0);
+
+    TaskWorkerService taskWorkerService = new TaskWorkerService(
+      cConf, sConf, new InMemoryDiscoveryService(), metricsCollectionService,
+      new CommonNettyHttpServiceFactory(cConf, metricsCollectionService));
+    serviceCompletionFuture = TaskWorkerTestUtil.getServiceCompletionFuture(taskWorkerService);
+    // start the service
+    taskWorkerService.startAndWait();
+
+    InetSocketAddress addr = taskWorkerService.getBindAddress();
+    URI uri = URI.create(String.format("http://%s:%s", addr.getHostName(), addr.getPort()));
+
+    RunnableTaskRequest request = RunnableTaskRequest.getBuilder(TestRunnableClass.class.getName()).
+      withParam("1000").build();
+
+    String reqBody = GSON.toJson(request);
+    List<Callable<HttpResponse>> calls = new ArrayList<>();
+    for (int i = 0; i < concurrentRequests; i++) {
+      calls.add(
+        () -> HttpRequests.execute(
+          HttpRequest.post(uri.resolve("/v3Internal/worker/run").toURL())
+            .withBody(reqBody).build(),
+          new DefaultHttpRequestConfig(false))
+      );
+    }
+
+    // All requests should be executed, and the worker only stops after all of them are completed
+    List<Future<HttpResponse>> responses = Executors.newFixedThreadPool(concurrentRequests).invokeAll(calls);
+    for (Future<HttpResponse> response : responses) {
+      Assert.assertEquals(HttpResponseStatus.OK.code(), response.get().getResponseCode());
+      Assert.assertEquals("1000", response.get().getResponseBodyAsString());
+    }
+    TaskWorkerTestUtil.waitForServiceCompletion(serviceCompletionFuture);
+    Assert.assertEquals(Service.State.TERMINATED, taskWorkerService.state());
+  }
+
+  @Test
+  public void testConcurrentRequestsBeyondRestartCount() throws Exception {
+    CConfiguration cConf = createCConf();
+    SConfiguration sConf = createSConf();
+    int concurrentRequests = 3;
+    int killAfterRequestCount = 2;
+    cConf.setInt(Constants.TaskWorker.CONCURRENT_REQUESTS, concurrentRequests);
+    cConf.setInt(Constants.TaskWorker.CONTAINER_KILL_AFTER_REQUEST_COUNT, killAfterRequestCount);
+    cConf.setInt(Constants.TaskWorker.CONTAINER_KILL_AFTER_DURATION_SECOND, 0);
+
+    TaskWorkerService taskWorkerService = new TaskWorkerService(
+      cConf, sConf, new InMemoryDiscoveryService(), metricsCollectionService,
+      new CommonNettyHttpServiceFactory(cConf, metricsCollectionService));
+    serviceCompletionFuture = TaskWorkerTestUtil.getServiceCompletionFuture(taskWorkerService);
+    // start the service
+    taskWorkerService.startAndWait();
+
+    InetSocketAddress addr = taskWorkerService.getBindAddress();
+    URI uri = URI.create(String.format("http://%s:%s", addr.getHostName(), addr.getPort()));
+
+    RunnableTaskRequest request = RunnableTaskRequest.getBuilder(TestRunnableClass.class.getName()).
+      withParam("1000").build();
+
+    String reqBody = GSON.toJson(request);
+    List<Callable<HttpResponse>> calls = new ArrayList<>();
+    for (int i = 0; i < concurrentRequests; i++) {
+      calls.add(
+        () -> HttpRequests.execute(
+          HttpRequest.post(uri.resolve("/v3Internal/worker/run").toURL())
+            .withBody(reqBody).build(),
+          new DefaultHttpRequestConfig(false))
+      );
+    }
+
+    // Only as many requests as the restart count are executed, even though more are allowed concurrently
+    List<Future<HttpResponse>> responses = Executors.newFixedThreadPool(concurrentRequests).invokeAll(calls);
+    int okResponse = 0;
+    int conflictResponse = 0;
+    for (Future<HttpResponse> response : responses) {
+      if (response.get().getResponseCode() == HttpResponseStatus.OK.code()) {
+        okResponse++;
+      } else if (response.get().getResponseCode() == HttpResponseStatus.TOO_MANY_REQUESTS.code()) {
+        conflictResponse++;
+      }
+    }
+    TaskWorkerTestUtil.waitForServiceCompletion(serviceCompletionFuture);
+    Assert.assertEquals(killAfterRequestCount, okResponse);
+    Assert.assertEquals(concurrentRequests, okResponse + conflictResponse);
+    Assert.assertEquals(Service.State.TERMINATED, taskWorkerService.state());
+  }
+
   public static class TestRunnableClass implements RunnableTask {
     @Override
     public void run(RunnableTaskContext context) throws Exception {
@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.scheduler;
+
+import com.google.common.collect.ImmutableSet;
+import io.cdap.cdap.internal.app.runtime.schedule.queue.JobKey;
+import io.cdap.cdap.proto.ProgramType;
+import io.cdap.cdap.proto.id.ApplicationId;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.ProgramId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Unit tests for {@link PendingJobIndex}.
+ */
+public class PendingJobIndexTest {
+
+  private static final ApplicationId APP_ID = NamespaceId.DEFAULT.app("app");
+  private static final ProgramId PROGRAM1 = APP_ID.program(ProgramType.WORKFLOW, "w1");
+  private static final ProgramId PROGRAM2 = APP_ID.program(ProgramType.WORKFLOW, "w2");
+
+  @Test
+  public void testDueJobs() {
+    PendingJobIndex index = new PendingJobIndex();
+    Assert.assertEquals(Long.MAX_VALUE, index.getNextCheckTime());
+
+    JobKey job1 = new JobKey(APP_ID.schedule("s1"), 0);
+    JobKey job2 = new JobKey(APP_ID.schedule("s2"), 0);
+    JobKey job3 = new JobKey(APP_ID.schedule("s3"), 0);
+    index.put(job1, PROGRAM1, 300L);
+    index.put(job2, PROGRAM1, 100L);
+    index.put(job3, PROGRAM2, 200L);
+    Assert.assertEquals(100L, index.getNextCheckTime());
+    Assert.assertEquals(Collections.emptyList(), index.pollDueJobs(99L));
+    Assert.assertEquals(Arrays.asList(job2, job3), index.pollDueJobs(200L));
+    Assert.assertEquals(300L, index.getNextCheckTime());
+    Assert.assertEquals(1, index.size());
+
+    // Replacing the check time of a job should only keep the latest one
+    index.put(job1, PROGRAM1, 500L);
+    Assert.assertEquals(500L, index.getNextCheckTime());
+    Assert.assertEquals(Collections.emptyList(), index.pollDueJobs(400L));
+    Assert.assertEquals(Collections.singletonList(job1), index.pollDueJobs(500L));
+    Assert.assertEquals(Long.MAX_VALUE, index.getNextCheckTime());
+  }
+
+  @Test
+  public void testJobsByProgram() {
+    PendingJobIndex index = new PendingJobIndex();
+    JobKey job1 = new JobKey(APP_ID.schedule("s1"), 0);
+    JobKey job2 = new JobKey(APP_ID.schedule("s1"), 1);
+    JobKey job3 = new JobKey(APP_ID.schedule("s2"), 0);
+    index.put(job1, PROGRAM1, 100L);
+    index.put(job2, PROGRAM1, 100L);
+    index.put(job3, PROGRAM2, 100L);
+    Assert.assertEquals(ImmutableSet.of(job1, job2), ImmutableSet.copyOf(index.getJobs(PROGRAM1)));
+
+    index.remove(job1);
+    Assert.assertEquals(Collections.singletonList(job2), index.getJobs(PROGRAM1));
+
+    index.retainAll(Collections.singleton(job3));
+    Assert.assertTrue(index.getJobs(PROGRAM1).isEmpty());
+    Assert.assertEquals(Collections.singletonList(job3), index.getJobs(PROGRAM2));
+    Assert.assertEquals(Collections.singletonList(job3), index.pollDueJobs(100L));
+    Assert.assertEquals(0, index.size());
+  }
+
+  @Test
+  public void testReplacedEntriesCompacted() {
+    PendingJobIndex index = new PendingJobIndex();
+    JobKey job = new JobKey(APP_ID.schedule("s1"), 0);
+    for (long i = 1000; i > 0; i--) {
+      index.put(job, PROGRAM1, i);
+    }
+    Assert.assertEquals(1L, index.getNextCheckTime());
+    Assert.assertEquals(Collections.singletonList(job), index.pollDueJobs(Long.MAX_VALUE));
+    Assert.assertEquals(Long.MAX_VALUE, index.getNextCheckTime());
+  }
+}
@@ -36,6 +36,7 @@ import io.cdap.cdap.etl.mock.batch.MockSource;
 import io.cdap.cdap.etl.mock.batch.MockSourceWithReadCapability;
 import io.cdap.cdap.etl.mock.batch.joiner.MockAutoJoiner;
 import io.cdap.cdap.etl.mock.test.HydratorTestBase;
+import io.cdap.cdap.etl.mock.transform.IdentityTransform;
 import io.cdap.cdap.etl.proto.v2.ETLBatchConfig;
 import io.cdap.cdap.etl.proto.v2.ETLPlugin;
 import io.cdap.cdap.etl.proto.v2.ETLStage;
@@ -1446,6 +1447,160 @@ public class AutoJoinerTest extends HydratorTestBase {
     validateMetric(expected.size(), appId, "join.records.out");
   }
 
+  @Test
+  public void testChainedAutoJoin() throws Exception {
+    // join outputs are kept as Datasets and the second join reads the output of the first one directly
+    testChainedAutoJoin(Collections.emptyMap());
+    // join outputs are converted to records after each join
+    testChainedAutoJoin(Collections.singletonMap(io.cdap.cdap.etl.common.Constants.DATASET_JOIN_OUTPUT_ENABLED,
+                                                 "false"));
+  }
+
+  private void testChainedAutoJoin(Map<String, String> args) throws Exception {
+    /*
+         users ------|
+                     |--> join1 --|
+         purchases --|            |
+                                  |--> join2 --> identity --> sink1
+         interests ---------------|          |
+                                             |--> sink2
+
+         join1 is a shuffle join, so its output is only read by join2.
+         join2 broadcasts interests and has multiple outputs, so its output is cached.
+     */
+    String userInput = UUID.randomUUID().toString();
+    String purchaseInput = UUID.randomUUID().toString();
+    String interestInput = UUID.randomUUID().toString();
+    String output1 = UUID.randomUUID().toString();
+    String output2 = UUID.randomUUID().toString();
+
+    List<JoinField> join1Select = new ArrayList<>();
+    join1Select.add(new JoinField("purchases", "region", "region"));
+    join1Select.add(new JoinField("purchases", "user_id", "user_id"));
+    join1Select.add(new JoinField("purchases", "purchase_id", "purchase_id"));
+    join1Select.add(new JoinField("users", "name", "name"));
+
+    List<JoinField> join2Select = new ArrayList<>();
+    join2Select.add(new JoinField("join1", "region", "region"));
+    join2Select.add(new JoinField("join1", "user_id", "user_id"));
+    join2Select.add(new JoinField("join1", "purchase_id", "purchase_id"));
+    join2Select.add(new JoinField("join1", "name", "name"));
+    join2Select.add(new JoinField("interests", "interest", "interest"));
+
+    ETLBatchConfig config = ETLBatchConfig.builder()
+      .addStage(new ETLStage("users", MockSource.getPlugin(userInput, USER_SCHEMA)))
+      .addStage(new ETLStage("purchases", MockSource.getPlugin(purchaseInput, PURCHASE_SCHEMA)))
+      .addStage(new ETLStage("interests", MockSource.getPlugin(interestInput, INTEREST_SCHEMA)))
+      .addStage(new ETLStage("join1", MockAutoJoiner.getPlugin(Arrays.asList("purchases", "users"),
+                                                               Arrays.asList("region", "user_id"),
+                                                               Arrays.asList("purchases", "users"),
+                                                               Collections.emptyList(), join1Select, true)))
+      .addStage(new ETLStage("join2", MockAutoJoiner.getPlugin(Arrays.asList("join1", "interests"),
+                                                               Arrays.asList("region", "user_id"),
+                                                               Arrays.asList("join1", "interests"),
+                                                               Collections.singletonList("interests"),
+                                                               join2Select, true)))
+      .addStage(new ETLStage("identity", IdentityTransform.getPlugin()))
+      .addStage(new ETLStage("sink1", MockSink.getPlugin(output1)))
+      .addStage(new ETLStage("sink2", MockSink.getPlugin(output2)))
+      .addConnection("users", "join1")
+      .addConnection("purchases", "join1")
+      .addConnection("join1", "join2")
+      .addConnection("interests", "join2")
+      .addConnection("join2", "identity")
+      .addConnection("identity", "sink1")
+      .addConnection("join2", "sink2")
+      .setEngine(Engine.SPARK)
+      .build();
+
+    AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(APP_ARTIFACT, config);
+    ApplicationId appId = NamespaceId.DEFAULT.app(UUID.randomUUID().toString());
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    // write input data
+    List<StructuredRecord> userData = Arrays.asList(USER_ALICE, USER_ALYCE, USER_BOB, USER_JOHN);
+    DataSetManager<Table> inputManager = getDataset(userInput);
+    MockSource.writeInput(inputManager, userData);
+
+    List<StructuredRecord> purchaseData = new ArrayList<>();
+    purchaseData.add(StructuredRecord.builder(PURCHASE_SCHEMA)
+                       .set("region", "us")
+                       .set("user_id", 0)
+                       .set("purchase_id", 123).build());
+    purchaseData.add(StructuredRecord.builder(PURCHASE_SCHEMA)
+                       .set("region", "us")
+                       .set("user_id", 2)
+                       .set("purchase_id", 456).build());
+    inputManager = getDataset(purchaseInput);
+    MockSource.writeInput(inputManager, purchaseData);
+
+    List<StructuredRecord> interestData = new ArrayList<>();
+    interestData.add(StructuredRecord.builder(INTEREST_SCHEMA)
+                       .set("region", "us")
+                       .set("user_id", 0)
+                       .set("interest", "food")
+                       .build());
+    interestData.add(StructuredRecord.builder(INTEREST_SCHEMA)
+                       .set("region", "us")
+                       .set("user_id", 0)
+                       .set("interest", "sports")
+                       .build());
+    interestData.add(StructuredRecord.builder(INTEREST_SCHEMA)
+                       .set("region", "us")
+                       .set("user_id", 1)
+                       .set("interest", "gardening")
+                       .build());
+    interestData.add(StructuredRecord.builder(INTEREST_SCHEMA)
+                       .set("region", "us")
+                       .set("user_id", 2)
+                       .set("interest", "gaming")
+                       .build());
+    inputManager = getDataset(interestInput);
+    MockSource.writeInput(inputManager, interestData);
+
+    WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
+    workflowManager.startAndWaitForGoodRun(args, ProgramRunStatus.COMPLETED, 5, TimeUnit.MINUTES);
+
+    Schema expectedSchema = Schema.recordOf(
+      "join1.interests",
+      Schema.Field.of("region", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("user_id", Schema.of(Schema.Type.INT)),
+      Schema.Field.of("purchase_id", Schema.of(Schema.Type.INT)),
+      Schema.Field.of("name", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("interest", Schema.of(Schema.Type.STRING)));
+    Set<StructuredRecord> expected = new HashSet<>();
+    expected.add(StructuredRecord.builder(expectedSchema)
+                   .set("region", "us")
+                   .set("user_id", 0)
+                   .set("purchase_id", 123)
+                   .set("name", "alice")
+                   .set("interest", "food").build());
+    expected.add(StructuredRecord.builder(expectedSchema)
+                   .set("region", "us")
+                   .set("user_id", 0)
+                   .set("purchase_id", 123)
+                   .set("name", "alice")
+                   .set("interest", "sports").build());
+    expected.add(StructuredRecord.builder(expectedSchema)
+                   .set("region", "us")
+                   .set("user_id", 2)
+                   .set("purchase_id", 456)
+                   .set("name", "john")
+                   .set("interest", "gaming").build());
+
+    Assert.assertEquals(expected, new HashSet<>(MockSink.readOutput(getDataset(output1))));
+    Assert.assertEquals(expected, new HashSet<>(MockSink.readOutput(getDataset(output2))));
+
+    validateMetric(6, appId, "join1.records.in");
+    validateMetric(2, appId, "join1.records.out");
+    validateMetric(6, appId, "join2.records.in");
+    validateMetric(3, appId, "join2.records.out");
+    validateMetric(3, appId, "identity.records.in");
+    validateMetric(3, appId, "identity.records.out");
+    validateMetric(3, appId, "sink1.records.in");
+    validateMetric(3, appId, "sink2.records.in");
+  }
+
   @Test
   public void testNullNotEqual() throws Exception {
     Schema expectedSchema = Schema.recordOf(
@@ -39,8 +39,10 @@ import io.cdap.cdap.common.utils.Tasks;
 import io.cdap.cdap.datapipeline.DataPipelineApp;
 import io.cdap.cdap.datapipeline.SmartWorkflow;
 import io.cdap.cdap.etl.api.Engine;
+import io.cdap.cdap.etl.api.join.JoinField;
 import io.cdap.cdap.etl.mock.batch.MockSink;
 import io.cdap.cdap.etl.mock.batch.MockSource;
+import io.cdap.cdap.etl.mock.batch.joiner.MockAutoJoiner;
 import io.cdap.cdap.etl.mock.batch.joiner.MockJoiner;
 import io.cdap.cdap.etl.mock.condition.MockCondition;
 import io.cdap.cdap.etl.mock.test.HydratorTestBase;
@@ -499,6 +501,125 @@ public class PreviewDataPipelineTest extends HydratorTestBase {
     MockSource.writeInput(inputManager, ImmutableList.of(recordTrasCar, recordTrasBike, recordTrasPlane));
   }
 
+  @Test
+  public void testChainedAutoJoinPreview() throws Exception {
+    /*
+     * customers ---|
+     *              |--> join1 --|
+     * purchases ---|            |--> join2 --> sink
+     *                           |
+     * addresses ----------------|
+     *
+     * Join outputs are converted to records when data is traced for preview.
+     */
+    PreviewManager previewManager = getPreviewManager();
+
+    Schema customerSchema = Schema.recordOf(
+      "customer",
+      Schema.Field.of("customer_id", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("name", Schema.of(Schema.Type.STRING))
+    );
+    Schema purchaseSchema = Schema.recordOf(
+      "purchase",
+      Schema.Field.of("customer_id", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("item", Schema.of(Schema.Type.STRING))
+    );
+    Schema addressSchema = Schema.recordOf(
+      "address",
+      Schema.Field.of("customer_id", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("city", Schema.of(Schema.Type.STRING))
+    );
+
+    String customerTableName = "chainedJoinCustomers";
+    String purchaseTableName = "chainedJoinPurchases";
+    String addressTableName = "chainedJoinAddresses";
+    String sinkTableName = "chainedJoinOutput";
+
+    List<JoinField> join1Select = ImmutableList.of(new JoinField("customers", "customer_id", "customer_id"),
+                                                   new JoinField("customers", "name", "name"),
+                                                   new JoinField("purchases", "item", "item"));
+    List<JoinField> join2Select = ImmutableList.of(new JoinField("join1", "customer_id", "customer_id"),
+                                                   new JoinField("join1", "name", "name"),
+                                                   new JoinField("join1", "item", "item"),
+                                                   new JoinField("addresses", "city", "city"));
+
+    ETLBatchConfig etlConfig = ETLBatchConfig.builder()
+      .addStage(new ETLStage("customers", MockSource.getPlugin(customerTableName, customerSchema)))
+      .addStage(new ETLStage("purchases", MockSource.getPlugin(purchaseTableName, purchaseSchema)))
+      .addStage(new ETLStage("addresses", MockSource.getPlugin(addressTableName, addressSchema)))
+      .addStage(new ETLStage("join1", MockAutoJoiner.getPlugin(ImmutableList.of("customers", "purchases"),
+                                                               Collections.singletonList("customer_id"),
+                                                               ImmutableList.of("customers", "purchases"),
+                                                               Collections.emptyList(), join1Select, true)))
+      .addStage(new ETLStage("join2", MockAutoJoiner.getPlugin(ImmutableList.of("join1", "addresses"),
+                                                               Collections.singletonList("customer_id"),
+                                                               ImmutableList.of("join1", "addresses"),
+                                                               Collections.emptyList(), join2Select, true)))
+      .addStage(new ETLStage("sink", MockSink.getPlugin(sinkTableName)))
+      .addConnection("customers", "join1")
+      .addConnection("purchases", "join1")
+      .addConnection("join1", "join2")
+      .addConnection("addresses", "join2")
+      .addConnection("join2", "sink")
+      .setEngine(Engine.SPARK)
+      .setNumOfRecordsPreview(100)
+      .build();
+
+    // Construct the preview config with the program name and program type
+    PreviewConfig previewConfig = new PreviewConfig(SmartWorkflow.NAME, ProgramType.WORKFLOW,
+                                                    Collections.<String, String>emptyMap(), 10);
+
+    // Create the tables for the mock sources
+    addDatasetInstance(Table.class.getName(), customerTableName,
+                       DatasetProperties.of(ImmutableMap.of("schema", customerSchema.toString())));
+    addDatasetInstance(Table.class.getName(), purchaseTableName,
+                       DatasetProperties.of(ImmutableMap.of("schema", purchaseSchema.toString())));
+    addDatasetInstance(Table.class.getName(), addressTableName,
+                       DatasetProperties.of(ImmutableMap.of("schema", addressSchema.toString())));
+
+    DataSetManager<Table> inputManager = getDataset(NamespaceId.DEFAULT.dataset(customerTableName));
+    MockSource.writeInput(inputManager, ImmutableList.of(
+      StructuredRecord.builder(customerSchema).set("customer_id", "1").set("name", "samuel").build(),
+      StructuredRecord.builder(customerSchema).set("customer_id", "2").set("name", "bob").build()));
+    inputManager = getDataset(NamespaceId.DEFAULT.dataset(purchaseTableName));
+    MockSource.writeInput(inputManager, ImmutableList.of(
+      StructuredRecord.builder(purchaseSchema).set("customer_id", "1").set("item", "car").build(),
+      StructuredRecord.builder(purchaseSchema).set("customer_id", "2").set("item", "bike").build(),
+      StructuredRecord.builder(purchaseSchema).set("customer_id", "3").set("item", "plane").build()));
+    inputManager = getDataset(NamespaceId.DEFAULT.dataset(addressTableName));
+    MockSource.writeInput(inputManager, ImmutableList.of(
+      StructuredRecord.builder(addressSchema).set("customer_id", "1").set("city", "sf").build(),
+      StructuredRecord.builder(addressSchema).set("customer_id", "2").set("city", "la").build()));
+
+    AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig, previewConfig);
+    // Start the preview and get the corresponding PreviewRunner.
+    ApplicationId previewId = previewManager.start(NamespaceId.DEFAULT, appRequest);
+
+    // Wait for the preview status go into COMPLETED.
+    Tasks.waitFor(PreviewStatus.Status.COMPLETED, new Callable<PreviewStatus.Status>() {
+      @Override
+      public PreviewStatus.Status call() throws Exception {
+        PreviewStatus status = previewManager.getStatus(previewId);
+        return status == null ? null : status.getStatus();
+      }
+    }, 5, TimeUnit.MINUTES);
+
+    // The joined records are traced for both joins
+    checkPreviewStore(previewManager, previewId, "join1", 2);
+    checkPreviewStore(previewManager, previewId, "join2", 2);
+    checkPreviewStore(previewManager, previewId, "sink", 2);
+
+    validateMetric(5, previewId, "join1.records.in", previewManager);
+    validateMetric(2, previewId, "join1.records.out", previewManager);
+    validateMetric(4, previewId, "join2.records.in", previewManager);
+    validateMetric(2, previewId, "join2.records.out", previewManager);
+    validateMetric(2, previewId, "sink.records.in", previewManager);
+
+    deleteDatasetInstance(NamespaceId.DEFAULT.dataset(customerTableName));
+    deleteDatasetInstance(NamespaceId.DEFAULT.dataset(purchaseTableName));
+    deleteDatasetInstance(NamespaceId.DEFAULT.dataset(addressTableName));
+  }
+
   @Test
   public void testPreviewFailedRun() throws Exception {
     testPreviewFailedRun(Engine.MAPREDUCE);
@@ -0,0 +1,274 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.api.lookup;
+
+import io.cdap.cdap.etl.api.Lookup;
+import io.cdap.cdap.etl.api.StageMetrics;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link Lookup} that wraps another {@link Lookup} to reduce the number of reads from the backing dataset.
+ * <p>
+ * Keys looked up with {@link #lookupAsync(String)} are buffered across calls and read with a single batch lookup
+ * once the batch is full or {@link #flush()} is called, for example after all the records of a partition have been
+ * processed. Values read from the dataset are kept in a bounded cache of the most recently used keys, so that hot
+ * keys are only read once. Since values are cached for the lifetime of the instance, it should only be used for
+ * lookup datasets that do not change while the pipeline is running.
+ * <p>
+ * If {@link StageMetrics} are given, the number of cache hits, cache misses and batch lookups are counted in the
+ * {@code lookup.cache.hits}, {@code lookup.cache.misses} and {@code lookup.batches} metrics, and the size of the
+ * last batch is emitted as the {@code lookup.batch.size} gauge.
+ * <p>
+ * The instance is thread safe.
+ *
+ * @param <T> the type of object that will be returned for a lookup
+ */
+public class BatchingLookup<T> implements Lookup<T> {
+  public static final String CACHE_HITS = "lookup.cache.hits";
+  public static final String CACHE_MISSES = "lookup.cache.misses";
+  public static final String BATCHES = "lookup.batches";
+  public static final String BATCH_SIZE = "lookup.batch.size";
+
+  private final Lookup<T> delegate;
+  private final int batchSize;
+  private final StageMetrics metrics;
+  private final Map<String, T> cache;
+  private final Map<String, CompletableFuture<T>> pending;
+
+  /**
+   * Creates a new instance.
+   *
+   * @param delegate the {@link Lookup} to read values from
+   * @param batchSize the number of keys to buffer before reading them with a single batch lookup
+   * @param cacheSize the maximum number of values to keep in the cache, or 0 to not cache any values
+   * @param metrics the {@link StageMetrics} to emit metrics to, or {@code null} to not emit any metrics
+   */
+  public BatchingLookup(Lookup<T> delegate, int batchSize, int cacheSize, @Nullable StageMetrics metrics) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("Batch size must be greater than 0. Got: " + batchSize);
+    }
+    if (cacheSize < 0) {
+      throw new IllegalArgumentException("Cache size must not be negative. Got: " + cacheSize);
+    }
+    this.delegate = delegate;
+    this.batchSize = batchSize;
+    this.metrics = metrics;
+    this.cache = new LinkedHashMap<String, T>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+        return size() > cacheSize;
+      }
+    };
+    this.pending = new LinkedHashMap<>();
+  }
+
+  /**
+   * Performs a single lookup asynchronously. If the value is not cached, the key is added to the current batch,
+   * which is read once it has reached the batch size or when {@link #flush()} is called.
+   *
+   * @param key the key to lookup
+   * @return a {@link CompletableFuture} that completes with the value associated with the key
+   */
+  public CompletableFuture<T> lookupAsync(String key) {
+    CompletableFuture<T> future;
+    Batch<T> batch;
+    synchronized (this) {
+      if (cache.containsKey(key)) {
+        count(CACHE_HITS, 1);
+        return CompletableFuture.completedFuture(cache.get(key));
+      }
+      future = pending.get(key);
+      if (future != null) {
+        count(CACHE_HITS, 1);
+        return future;
+      }
+
+      count(CACHE_MISSES, 1);
+      future = new CompletableFuture<>();
+      pending.put(key, future);
+      if (pending.size() < batchSize) {
+        return future;
+      }
+      batch = readPending();
+    }
+    batch.complete();
+    return future;
+  }
+
+  /**
+   * Reads all the keys buffered by {@link #lookupAsync(String)} with a single batch lookup and completes their
+   * futures. If the lookup fails, the futures are completed exceptionally and the exception is rethrown.
+   */
+  public void flush() {
+    Batch<T> batch;
+    synchronized (this) {
+      if (pending.isEmpty()) {
+        return;
+      }
+      batch = readPending();
+    }
+    batch.complete();
+  }
+
+  @Override
+  public T lookup(String key) {
+    CompletableFuture<T> future;
+    Batch<T> batch;
+    synchronized (this) {
+      if (cache.containsKey(key)) {
+        count(CACHE_HITS, 1);
+        return cache.get(key);
+      }
+      // read the key along with the buffered ones, so that they don't need another read
+      future = pending.get(key);
+      if (future == null) {
+        count(CACHE_MISSES, 1);
+        future = new CompletableFuture<>();
+        pending.put(key, future);
+      } else {
+        count(CACHE_HITS, 1);
+      }
+      batch = readPending();
+    }
+    batch.complete();
+    return future.join();
+  }
+
+  @Override
+  public Map<String, T> lookup(String... keys) {
+    return lookup(new HashSet<>(Arrays.asList(keys)));
+  }
+
+  @Override
+  public Map<String, T> lookup(Set<String> keys) {
+    Map<String, T> result = new HashMap<>();
+    Batch<T> batch = null;
+    synchronized (this) {
+      Set<String> missing = new HashSet<>();
+      // keys buffered by lookupAsync are read with the requested ones and their futures completed from this read
+      Map<String, CompletableFuture<T>> futures = new HashMap<>();
+      for (String key : keys) {
+        if (cache.containsKey(key)) {
+          result.put(key, cache.get(key));
+          continue;
+        }
+        missing.add(key);
+        CompletableFuture<T> future = pending.remove(key);
+        if (future != null) {
+          futures.put(key, future);
+        }
+      }
+      count(CACHE_HITS, keys.size() - missing.size() + futures.size());
+      count(CACHE_MISSES, missing.size() - futures.size());
+      if (!missing.isEmpty()) {
+        batch = read(missing, futures);
+      }
+    }
+    if (batch != null) {
+      batch.complete();
+      for (String key : batch.keys) {
+        result.put(key, batch.values.get(key));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Reads all the keys buffered by {@link #lookupAsync(String)}. Must be called while holding the lock of this
+   * instance.
+   */
+  private Batch<T> readPending() {
+    Map<String, CompletableFuture<T>> futures = new HashMap<>(pending);
+    pending.clear();
+    return read(futures.keySet(), futures);
+  }
+
+  /**
+   * Reads the given keys with a single batch lookup. Must be called while holding the lock of this instance.
+   * The returned {@link Batch} completes the given futures and must be completed after releasing the lock.
+   */
+  private Batch<T> read(Set<String> keys, Map<String, CompletableFuture<T>> futures) {
+    try {
+      return new Batch<>(keys, futures, read(keys), null);
+    } catch (RuntimeException e) {
+      return new Batch<>(keys, futures, Collections.emptyMap(), e);
+    }
+  }
+
+  /**
+   * Reads the given keys from the delegate with a single batch lookup and caches the values.
+   */
+  private Map<String, T> read(Set<String> keys) {
+    Map<String, T> values = delegate.lookup(keys);
+    count(BATCHES, 1);
+    if (metrics != null) {
+      metrics.gauge(BATCH_SIZE, keys.size());
+    }
+    for (String key : keys) {
+      cache.put(key, values.get(key));
+    }
+    return values;
+  }
+
+  private void count(String metricName, int delta) {
+    if (metrics != null && delta > 0) {
+      metrics.count(metricName, delta);
+    }
+  }
+
+  /**
+   * The result of a batch lookup, together with the futures to complete with it. The futures are completed after
+   * releasing the lock of the {@link BatchingLookup}, so that callbacks of the callers do not run while holding it.
+   *
+   * @param <T> the type of object that is returned for a lookup
+   */
+  private static final class Batch<T> {
+    private final Set<String> keys;
+    private final Map<String, CompletableFuture<T>> futures;
+    private final Map<String, T> values;
+    private final RuntimeException failure;
+
+    private Batch(Set<String> keys, Map<String, CompletableFuture<T>> futures, Map<String, T> values,
+                  @Nullable RuntimeException failure) {
+      this.keys = keys;
+      this.futures = futures;
+      this.values = values;
+      this.failure = failure;
+    }
+
+    /**
+     * Completes the futures with the values read. If the lookup failed, the futures are completed exceptionally and
+     * the exception is rethrown.
+     */
+    void complete() {
+      if (failure != null) {
+        futures.values().forEach(future -> future.completeExceptionally(failure));
+        throw failure;
+      }
+      futures.forEach((key, future) -> future.complete(values.get(key)));
+    }
+  }
+}
@@ -18,11 +18,14 @@ package io.cdap.cdap.etl.api.lookup;
 
 import com.google.common.collect.ImmutableSet;
 import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.table.Get;
 import io.cdap.cdap.api.dataset.table.Row;
 import io.cdap.cdap.api.dataset.table.Table;
 import io.cdap.cdap.etl.api.Lookup;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -49,9 +52,17 @@ public class TableLookup implements Lookup<Row> {
 
   @Override
   public Map<String, Row> lookup(Set<String> keys) {
+    // read all the rows with a single batch get
+    List<String> keyList = new ArrayList<>(keys);
+    List<Get> gets = new ArrayList<>(keyList.size());
+    for (String key : keyList) {
+      gets.add(new Get(key));
+    }
+    List<Row> rows = table.get(gets);
+
     Map<String, Row> results = new HashMap<>();
-    for (String key : keys) {
-      results.put(key, lookup(key));
+    for (int i = 0; i < keyList.size(); i++) {
+      results.put(keyList.get(i), rows.get(i));
     }
     return results;
   }
@@ -0,0 +1,216 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.api.lookup;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.cdap.cdap.api.metrics.Metrics;
+import io.cdap.cdap.etl.api.Lookup;
+import io.cdap.cdap.etl.api.StageMetrics;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Tests for {@link BatchingLookup}.
+ */
+public class BatchingLookupTest {
+  private static final Map<String, String> VALUES = ImmutableMap.of("a", "1", "b", "2", "c", "3", "d", "4");
+
+  @Test
+  public void testBatchedAsyncLookup() {
+    RecordingLookup delegate = new RecordingLookup();
+    RecordingMetrics metrics = new RecordingMetrics();
+    BatchingLookup<String> lookup = new BatchingLookup<>(delegate, 3, 10, metrics);
+
+    CompletableFuture<String> a = lookup.lookupAsync("a");
+    CompletableFuture<String> b = lookup.lookupAsync("b");
+    CompletableFuture<String> a2 = lookup.lookupAsync("a");
+    Assert.assertFalse(a.isDone());
+    Assert.assertTrue(delegate.reads.isEmpty());
+
+    // the batch is read once it is full
+    CompletableFuture<String> x = lookup.lookupAsync("x");
+    Assert.assertEquals("1", a.join());
+    Assert.assertEquals("2", b.join());
+    Assert.assertEquals("1", a2.join());
+    Assert.assertNull(x.join());
+    Assert.assertEquals(Collections.singletonList(ImmutableSet.of("a", "b", "x")), delegate.reads);
+
+    // remaining keys are read on flush, cached keys are not read again
+    CompletableFuture<String> c = lookup.lookupAsync("c");
+    Assert.assertEquals("2", lookup.lookupAsync("b").join());
+    lookup.flush();
+    Assert.assertEquals("3", c.join());
+    Assert.assertEquals(ImmutableSet.of("c"), delegate.reads.get(1));
+    lookup.flush();
+    Assert.assertEquals(2, delegate.reads.size());
+
+    Assert.assertEquals(2L, (long) metrics.counts.get(BatchingLookup.CACHE_HITS));
+    Assert.assertEquals(4L, (long) metrics.counts.get(BatchingLookup.CACHE_MISSES));
+    Assert.assertEquals(2L, (long) metrics.counts.get(BatchingLookup.BATCHES));
+    Assert.assertEquals(1L, (long) metrics.gauges.get(BatchingLookup.BATCH_SIZE));
+  }
+
+  @Test
+  public void testSyncLookup() {
+    RecordingLookup delegate = new RecordingLookup();
+    BatchingLookup<String> lookup = new BatchingLookup<>(delegate, 10, 2, null);
+
+    // a synchronous lookup also reads the buffered keys
+    CompletableFuture<String> a = lookup.lookupAsync("a");
+    Assert.assertEquals("2", lookup.lookup("b"));
+    Assert.assertEquals("1", a.join());
+    Assert.assertEquals(1, delegate.reads.size());
+
+    Assert.assertEquals(ImmutableMap.of("a", "1", "b", "2"), lookup.lookup("a", "b"));
+    Assert.assertEquals(1, delegate.reads.size());
+
+    // only missing keys are read. The cache only keeps the two most recently used keys
+    Assert.assertEquals(ImmutableMap.of("b", "2", "c", "3"), lookup.lookup(ImmutableSet.of("b", "c")));
+    Assert.assertEquals(ImmutableSet.of("c"), delegate.reads.get(1));
+    Assert.assertEquals("1", lookup.lookup("a"));
+    Assert.assertEquals(ImmutableSet.of("a"), delegate.reads.get(2));
+  }
+
+  @Test
+  public void testBatchLookupCompletesPending() {
+    RecordingLookup delegate = new RecordingLookup();
+    BatchingLookup<String> lookup = new BatchingLookup<>(delegate, 10, 10, null);
+
+    // keys buffered by lookupAsync are read once by a batch lookup of the same keys
+    CompletableFuture<String> a = lookup.lookupAsync("a");
+    CompletableFuture<String> c = lookup.lookupAsync("c");
+    Assert.assertEquals(ImmutableMap.of("a", "1", "b", "2"), lookup.lookup(ImmutableSet.of("a", "b")));
+    Assert.assertEquals("1", a.getNow(null));
+    Assert.assertFalse(c.isDone());
+    Assert.assertEquals(Collections.singletonList(ImmutableSet.of("a", "b")), delegate.reads);
+
+    // the remaining buffered key is read on flush, and the keys read by the batch lookup are cached
+    lookup.flush();
+    Assert.assertEquals("3", c.join());
+    Assert.assertEquals(ImmutableSet.of("c"), delegate.reads.get(1));
+    Assert.assertEquals("2", lookup.lookupAsync("b").join());
+    Assert.assertEquals(2, delegate.reads.size());
+  }
+
+  @Test
+  public void testCompleteOutsideLock() {
+    RecordingLookup delegate = new RecordingLookup();
+    BatchingLookup<String> lookup = new BatchingLookup<>(delegate, 2, 10, null);
+
+    List<Boolean> locked = new ArrayList<>();
+    lookup.lookupAsync("a").thenAccept(value -> locked.add(Thread.holdsLock(lookup)));
+    lookup.lookupAsync("b").thenAccept(value -> locked.add(Thread.holdsLock(lookup)));
+    lookup.lookupAsync("c").thenAccept(value -> locked.add(Thread.holdsLock(lookup)));
+    lookup.flush();
+    lookup.lookupAsync("d").thenAccept(value -> locked.add(Thread.holdsLock(lookup)));
+    lookup.lookup("a", "d");
+    Assert.assertEquals(Collections.nCopies(4, false), locked);
+  }
+
+  @Test
+  public void testFailedLookup() {
+    Lookup<String> failing = new RecordingLookup() {
+      @Override
+      public Map<String, String> lookup(Set<String> keys) {
+        throw new IllegalStateException("failed");
+      }
+    };
+    BatchingLookup<String> lookup = new BatchingLookup<>(failing, 10, 10, null);
+    CompletableFuture<String> a = lookup.lookupAsync("a");
+    try {
+      lookup.flush();
+      Assert.fail("Expected flush to fail");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    Assert.assertTrue(a.isCompletedExceptionally());
+  }
+
+  /**
+   * A {@link Lookup} that records the keys of every batch lookup.
+   */
+  private static class RecordingLookup implements Lookup<String> {
+    private final List<Set<String>> reads = new ArrayList<>();
+
+    @Override
+    public String lookup(String key) {
+      return lookup(Collections.singleton(key)).get(key);
+    }
+
+    @Override
+    public Map<String, String> lookup(String... keys) {
+      return lookup(ImmutableSet.copyOf(keys));
+    }
+
+    @Override
+    public Map<String, String> lookup(Set<String> keys) {
+      reads.add(ImmutableSet.copyOf(keys));
+      Map<String, String> result = new HashMap<>();
+      for (String key : keys) {
+        result.put(key, VALUES.get(key));
+      }
+      return result;
+    }
+  }
+
+  /**
+   * {@link StageMetrics} that keeps the metrics in memory.
+   */
+  private static class RecordingMetrics implements StageMetrics {
+    private final Map<String, Long> counts = new HashMap<>();
+    private final Map<String, Long> gauges = new HashMap<>();
+
+    @Override
+    public void count(String metricName, int delta) {
+      counts.merge(metricName, (long) delta, Long::sum);
+    }
+
+    @Override
+    public void gauge(String metricName, long value) {
+      gauges.put(metricName, value);
+    }
+
+    @Override
+    public void pipelineCount(String metricName, int delta) {
+      // no-op
+    }
+
+    @Override
+    public void pipelineGauge(String metricName, long value) {
+      // no-op
+    }
+
+    @Override
+    public Metrics child(Map<String, String> tags) {
+      return this;
+    }
+
+    @Override
+    public Map<String, String> getTags() {
+      return Collections.emptyMap();
+    }
+  }
+}
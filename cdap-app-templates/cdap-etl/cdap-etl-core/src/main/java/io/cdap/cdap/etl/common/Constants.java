@@ -38,6 +38,13 @@ public final class Constants {
   public static final String CACHE_FUNCTIONS = "spark.cdap.pipeline.functioncache.enable";
   public static final String DATASET_KRYO_ENABLED = "spark.cdap.pipeline.dataset.kryo.enable";
   public static final String DATASET_AGGREGATE_ENABLED = "spark.cdap.pipeline.aggregate.dataset.enable";
+  public static final String DATASET_JOIN_OUTPUT_ENABLED = "spark.cdap.pipeline.join.dataset.output.enable";
+  public static final String JOIN_AUTO_STRATEGY_ENABLED = "spark.cdap.pipeline.join.strategy.auto.enable";
+  public static final String JOIN_BROADCAST_MAX_BYTES = "spark.cdap.pipeline.join.broadcast.max.bytes";
+  public static final String JOIN_SKEW_RATIO = "spark.cdap.pipeline.join.skew.ratio";
+  public static final String JOIN_SKEW_DISTRIBUTION_FACTOR = "spark.cdap.pipeline.join.skew.distribution.factor";
+  // Followed by <stage>.records or <stage>.bytes
+  public static final String JOIN_STATS_PREFIX = "spark.cdap.pipeline.join.stats.";
   public static final String DISABLE_ELT_PUSHDOWN = "cdap.pipeline.pushdown.disable";
   public static final String DATASET_AGGREGATE_IGNORE_PARTITIONS =
     "spark.cdap.pipeline.aggregate.dataset.partitions.ignore";
@@ -84,6 +91,8 @@ public final class Constants {
     public static final String RECORDS_PULL = "records.pull";
     public static final String AGG_GROUPS = "aggregator.groups";
     public static final String JOIN_KEYS = "joiner.keys";
+    public static final String JOIN_STRATEGY_PREFIX = "joiner.strategy.";
+    public static final String JOIN_ESTIMATED_RECORDS = "joiner.records.estimated";
     public static final String DRAFT_COUNT = "draft.count";
     public static final String STAGES_COUNT = "stages.count";
     public static final String STAGES_COUNT_PREFIX = STAGES_COUNT + ".";
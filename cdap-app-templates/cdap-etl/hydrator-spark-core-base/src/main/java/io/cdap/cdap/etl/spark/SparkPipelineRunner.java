@@ -67,6 +67,7 @@ import io.cdap.cdap.etl.planner.CombinerDag;
 import io.cdap.cdap.etl.planner.Dag;
 import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
 import io.cdap.cdap.etl.proto.v2.spec.StageSpec.Port;
+import io.cdap.cdap.etl.spark.batch.DataframeCollection;
 import io.cdap.cdap.etl.spark.batch.SQLBackedCollection;
 import io.cdap.cdap.etl.spark.batch.WrappedSQLEngineCollection;
 import io.cdap.cdap.etl.spark.function.AlertPassFilter;
@@ -517,6 +518,11 @@ public abstract class SparkPipelineRunner {
       SparkCollection<Object> joined = handleJoin(inputDataCollections, pipelinePhase, pluginFunctionContext,
                                                   stageSpec, functionCacheFactory, plugin,
                                                   numPartitions, collector, shufflers);
+      SparkCollection<?> joinedData = joined;
+      if (joinedData instanceof DataframeCollection) {
+        return getDataframeEmittedRecords(stageSpec, (DataframeCollection) joinedData, groupedDag, branchers,
+                                          shufflers);
+      }
       return getEmittedRecords(pipelinePhase, stageSpec,
                                mapToRecordInfoCollection(stageName, joined),
                                groupedDag, branchers, shufflers, false, false);
@@ -1145,6 +1151,29 @@ public abstract class SparkPipelineRunner {
     return builder.build();
   }
 
+  /**
+   * Returns the records emitted by a join stage whose output is a {@link DataframeCollection}.
+   *
+   * Join stages do not emit errors or alerts and do not have output ports, so their output records are the joined
+   * records themselves. The joined collection is used as the output as is, instead of wrapping and unwrapping each
+   * record in a {@link RecordInfo}, so that a join that reads the output can use the joined Dataset directly.
+   */
+  @SuppressWarnings("unchecked")
+  private EmittedRecords getDataframeEmittedRecords(StageSpec stageSpec, DataframeCollection joined, Dag dag,
+                                                    Set<String> branchers, Set<String> shufflers) {
+    String stageName = stageSpec.getName();
+    SparkCollection<Object> output = (SparkCollection<Object>) (SparkCollection<?>) joined;
+    SparkCollection<RecordInfo<Object>> rawData = mapToRecordInfoCollection(stageName, output);
+    if (shouldCache(dag, stageName, branchers, shufflers, rawData)) {
+      output = (SparkCollection<Object>) (SparkCollection<?>) joined.cache();
+      rawData = mapToRecordInfoCollection(stageName, output);
+    }
+    return EmittedRecords.builder()
+      .setRawData(rawData)
+      .setOutput(output)
+      .build();
+  }
+
   /**
    * Filter output records for a given port using an {@link OutputPassFilter}.
    *
@@ -31,6 +31,7 @@ import io.cdap.cdap.api.spark.JavaSparkExecutionContext;
 import io.cdap.cdap.api.spark.JavaSparkMain;
 import io.cdap.cdap.api.workflow.WorkflowToken;
 import io.cdap.cdap.etl.api.JoinElement;
+import io.cdap.cdap.etl.api.StageMetrics;
 import io.cdap.cdap.etl.api.batch.BatchSource;
 import io.cdap.cdap.etl.api.engine.sql.SQLEngine;
 import io.cdap.cdap.etl.api.engine.sql.SQLEngineInput;
@@ -44,6 +45,7 @@ import io.cdap.cdap.etl.batch.connector.SingleConnectorFactory;
 import io.cdap.cdap.etl.common.BasicArguments;
 import io.cdap.cdap.etl.common.Constants;
 import io.cdap.cdap.etl.common.DefaultMacroEvaluator;
+import io.cdap.cdap.etl.common.DefaultStageMetrics;
 import io.cdap.cdap.etl.common.RecordInfo;
 import io.cdap.cdap.etl.common.SetMultimapCodec;
 import io.cdap.cdap.etl.common.StageStatisticsCollector;
@@ -61,6 +63,7 @@ import io.cdap.cdap.etl.spark.function.FunctionCache;
 import io.cdap.cdap.etl.spark.function.JoinMergeFunction;
 import io.cdap.cdap.etl.spark.function.JoinOnFunction;
 import io.cdap.cdap.etl.spark.function.PluginFunctionContext;
+import io.cdap.cdap.etl.spark.join.JoinStrategySelector;
 import io.cdap.cdap.internal.io.SchemaTypeAdapter;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.api.java.function.FlatMapFunction;
@@ -100,6 +103,7 @@ public class BatchSparkPipelineDriver extends SparkPipelineRunner implements Jav
   private transient Map<String, Integer> stagePartitions;
   private transient FunctionCache.Factory functionCacheFactory;
   private transient BatchSQLEngineAdapter sqlEngineAdapter;
+  private transient JoinStrategySelector joinStrategySelector;
 
   /**
    * Empty constructor, used when instantiating this class.
@@ -203,6 +207,7 @@ public class BatchSparkPipelineDriver extends SparkPipelineRunner implements Jav
       stagePartitions = sourceSinkInfo.getStagePartitions();
     }
     datasetContext = context;
+    joinStrategySelector = new JoinStrategySelector(sec.getRuntimeArguments(), sec.getWorkflowToken());
     PipelinePluginContext pluginContext = new PipelinePluginContext(sec.getPluginContext(), sec.getMetrics(),
                                                                     phaseSpec.isStageLoggingEnabled(),
                                                                     phaseSpec.isProcessTimingEnabled());
@@ -319,9 +324,34 @@ public class BatchSparkPipelineDriver extends SparkPipelineRunner implements Jav
                                                            datasetContext, sinkFactory, collection,
                                                            joinStageName, sqlEngineAdapter, pushJob));
       }
+      return super.handleAutoJoin(stageName, joinDefinition, inputDataCollections, numPartitions);
     }
 
-    return super.handleAutoJoin(stageName, joinDefinition, inputDataCollections, numPartitions);
+    return super.handleAutoJoin(stageName, selectJoinStrategy(stageName, joinDefinition), inputDataCollections,
+                                numPartitions);
+  }
+
+  /**
+   * Selects how a join executed by Spark should be performed, based on the statistics about its inputs.
+   * The selected strategy and the estimated number of input records are emitted as metrics of the stage, so that
+   * they can be compared with the actual number of records in.
+   *
+   * @param stageName the name of the joiner stage
+   * @param joinDefinition the join definition returned by the joiner
+   * @return the join definition to execute
+   */
+  private JoinDefinition selectJoinStrategy(String stageName, JoinDefinition joinDefinition) {
+    JoinStrategySelector.Selection selection = joinStrategySelector.select(joinDefinition);
+    Long estimatedRecords = selection.getEstimatedInputRecords();
+    LOG.debug("Using {} join for stage {} with {} estimated input records.", selection.getStrategy(), stageName,
+              estimatedRecords == null ? "unknown" : estimatedRecords);
+
+    StageMetrics stageMetrics = new DefaultStageMetrics(sec.getMetrics(), stageName);
+    stageMetrics.count(Constants.Metrics.JOIN_STRATEGY_PREFIX + selection.getStrategy().name().toLowerCase(), 1);
+    if (estimatedRecords != null) {
+      stageMetrics.gauge(Constants.Metrics.JOIN_ESTIMATED_RECORDS, estimatedRecords);
+    }
+    return selection.getJoinDefinition();
   }
 
   /**
@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.batch;
+
+import io.cdap.cdap.api.data.DatasetContext;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.spark.JavaSparkExecutionContext;
+import io.cdap.cdap.api.spark.sql.DataFrames;
+import io.cdap.cdap.etl.common.Constants;
+import io.cdap.cdap.etl.spark.SparkCollection;
+import io.cdap.cdap.etl.spark.function.FunctionCache;
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SQLContext;
+import org.apache.spark.storage.StorageLevel;
+
+/**
+ * An {@link RDDCollection} of {@link StructuredRecord} that is produced by a relational operation, such as a join,
+ * and keeps the {@link Dataset} of {@link Row} it was computed from. Records are only converted to
+ * {@link StructuredRecord} when the underlying RDD is used, for example by a plugin stage. Relational operations that
+ * consume this collection can use the {@link Dataset} directly, which avoids converting every row to a
+ * {@link StructuredRecord} and back, and lets Spark optimize the chained operations together.
+ */
+public class DataframeCollection extends RDDCollection<StructuredRecord> {
+  private final Dataset<Row> dataframe;
+  private final Schema schema;
+
+  public DataframeCollection(JavaSparkExecutionContext sec, FunctionCache.Factory functionCacheFactory,
+                             JavaSparkContext jsc, SQLContext sqlContext,
+                             DatasetContext datasetContext, SparkBatchSinkFactory sinkFactory,
+                             Dataset<Row> dataframe, Schema schema) {
+    super(sec, functionCacheFactory, jsc, sqlContext, datasetContext, sinkFactory, toRecords(dataframe, schema));
+    this.dataframe = dataframe;
+    this.schema = schema;
+  }
+
+  /**
+   * @return the {@link Dataset} of {@link Row} backing this collection
+   */
+  public Dataset<Row> getDataframe() {
+    return dataframe;
+  }
+
+  /**
+   * @return the {@link Schema} of the records in this collection
+   */
+  public Schema getSchema() {
+    return schema;
+  }
+
+  @Override
+  public SparkCollection<StructuredRecord> cache() {
+    SparkConf sparkConf = jsc.getConf();
+    if (sparkConf.getBoolean(Constants.SPARK_PIPELINE_AUTOCACHE_ENABLE_FLAG, true)) {
+      String cacheStorageLevelString = sparkConf.get(Constants.SPARK_PIPELINE_CACHING_STORAGE_LEVEL,
+                                                     Constants.DEFAULT_CACHING_STORAGE_LEVEL);
+      StorageLevel cacheStorageLevel = StorageLevel.fromString(cacheStorageLevelString);
+      return new DataframeCollection(sec, functionCacheFactory, jsc, sqlContext, datasetContext, sinkFactory,
+                                     dataframe.persist(cacheStorageLevel), schema);
+    }
+    return this;
+  }
+
+  private static JavaRDD<StructuredRecord> toRecords(Dataset<Row> dataframe, Schema schema) {
+    return dataframe.javaRDD().map(row -> DataFrames.fromRow(row, schema));
+  }
+}
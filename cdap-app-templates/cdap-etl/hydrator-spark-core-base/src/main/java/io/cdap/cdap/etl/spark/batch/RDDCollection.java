@@ -27,6 +27,7 @@ import io.cdap.cdap.etl.common.RecordInfo;
 import io.cdap.cdap.etl.common.StageStatisticsCollector;
 import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
 import io.cdap.cdap.etl.spark.SparkCollection;
+import io.cdap.cdap.etl.spark.function.CountingFilterFunction;
 import io.cdap.cdap.etl.spark.function.CountingFunction;
 import io.cdap.cdap.etl.spark.function.DatasetAggregationAccumulator;
 import io.cdap.cdap.etl.spark.function.DatasetAggregationFinalizeFunction;
@@ -86,6 +87,7 @@ public class RDDCollection<T> extends BaseRDDCollection<T> {
     JAVA_OBJECT_ENCODER, JAVA_OBJECT_ENCODER);
 
   private final boolean useDatasetAggregation;
+  private final boolean useDatasetJoinOutput;
   private final boolean useKryoForDatasets;
   private final boolean ignorePartitionsDuringDatasetAggregation;
 
@@ -96,6 +98,8 @@ public class RDDCollection<T> extends BaseRDDCollection<T> {
     super(sec, functionCacheFactory, jsc, sqlContext, datasetContext, sinkFactory, rdd);
     this.useDatasetAggregation = Boolean.parseBoolean(
       sec.getRuntimeArguments().getOrDefault(Constants.DATASET_AGGREGATE_ENABLED, Boolean.TRUE.toString()));
+    this.useDatasetJoinOutput = Boolean.parseBoolean(
+      sec.getRuntimeArguments().getOrDefault(Constants.DATASET_JOIN_OUTPUT_ENABLED, Boolean.TRUE.toString()));
     this.useKryoForDatasets = Boolean.parseBoolean(
       sec.getRuntimeArguments().getOrDefault(Constants.DATASET_KRYO_ENABLED, Boolean.TRUE.toString()));
     this.ignorePartitionsDuringDatasetAggregation = Boolean.parseBoolean(
@@ -110,7 +114,7 @@ public class RDDCollection<T> extends BaseRDDCollection<T> {
     Function<StructuredRecord, StructuredRecord> recordsInCounter =
       new CountingFunction<>(stageName, sec.getMetrics(), Constants.Metrics.RECORDS_IN, sec.getDataTracer(stageName));
     StructType leftSparkSchema = DataFrames.toDataType(joinRequest.getLeftSchema());
-    Dataset<Row> left = toDataset(((JavaRDD<StructuredRecord>) rdd).map(recordsInCounter), leftSparkSchema);
+    Dataset<Row> left = toDataset(this, joinRequest.getLeftSchema(), stageName, recordsInCounter);
     collections.put(joinRequest.getLeftStage(), left);
 
     List<Column> leftJoinColumns = joinRequest.getLeftKey().stream()
@@ -141,8 +145,7 @@ public class RDDCollection<T> extends BaseRDDCollection<T> {
     for (JoinCollection toJoin : joinRequest.getToJoin()) {
       SparkCollection<StructuredRecord> data = (SparkCollection<StructuredRecord>) toJoin.getData();
       StructType sparkSchema = DataFrames.toDataType(toJoin.getSchema());
-      Dataset<Row> right = toDataset(((JavaRDD<StructuredRecord>) data.getUnderlying()).map(recordsInCounter),
-                                     sparkSchema);
+      Dataset<Row> right = toDataset(data, toJoin.getSchema(), stageName, recordsInCounter);
       collections.put(toJoin.getStage(), right);
 
       List<Column> rightJoinColumns = toJoin.getKey().stream()
@@ -283,12 +286,7 @@ public class RDDCollection<T> extends BaseRDDCollection<T> {
     Seq<Column> outputColumnSeq = JavaConversions.asScalaBuffer(outputColumns).toSeq();
     joined = joined.select(outputColumnSeq);
 
-    Schema outputSchema = joinRequest.getOutputSchema();
-    JavaRDD<StructuredRecord> output = joined.javaRDD()
-      .map(r -> DataFrames.fromRow(r, outputSchema))
-      .map(new CountingFunction<>(stageName, sec.getMetrics(), Constants.Metrics.RECORDS_OUT,
-                                  sec.getDataTracer(stageName)));
-    return (SparkCollection<T>) wrap(output);
+    return (SparkCollection<T>) toCollection(joined, joinRequest.getOutputSchema(), stageName);
   }
 
   @SuppressWarnings("unchecked")
@@ -299,14 +297,11 @@ public class RDDCollection<T> extends BaseRDDCollection<T> {
                              sec.getDataTracer(joinRequest.getStageName()));
 
     JoinCollection leftInfo = joinRequest.getLeft();
-    StructType leftSchema = DataFrames.toDataType(leftInfo.getSchema());
-    Dataset<Row> leftDF = toDataset(((JavaRDD<StructuredRecord>) rdd).map(recordsInCounter), leftSchema);
+    Dataset<Row> leftDF = toDataset(this, leftInfo.getSchema(), joinRequest.getStageName(), recordsInCounter);
 
     JoinCollection rightInfo = joinRequest.getRight();
-    SparkCollection<?> rightData = rightInfo.getData();
-    StructType rightSchema = DataFrames.toDataType(rightInfo.getSchema());
-    Dataset<Row> rightDF = toDataset(((JavaRDD<StructuredRecord>) rightData.getUnderlying()).map(recordsInCounter),
-                                     rightSchema);
+    Dataset<Row> rightDF = toDataset(rightInfo.getData(), rightInfo.getSchema(), joinRequest.getStageName(),
+                                     recordsInCounter);
 
     // if this is not a broadcast join, Spark will reprocess each side multiple times, depending on the number
     // of partitions. If the left side has N partitions and the right side has M partitions,
@@ -346,13 +341,45 @@ public class RDDCollection<T> extends BaseRDDCollection<T> {
     LOG.debug("Executing join stage {} using SQL: \n{}", joinRequest.getStageName(), sql);
     Dataset<Row> joined = sqlContext.sql(sql);
 
-    Schema outputSchema = joinRequest.getOutputSchema();
+    return (SparkCollection<T>) toCollection(joined, joinRequest.getOutputSchema(), joinRequest.getStageName());
+  }
+
+  /**
+   * Returns the records of the given collection that are input to a relational stage as a {@link Dataset}, counting
+   * them as records in for the stage. If the collection is the output of another relational stage, its
+   * {@link Dataset} is used as is, instead of converting its records to {@link StructuredRecord} and back.
+   */
+  @SuppressWarnings("unchecked")
+  private Dataset<Row> toDataset(SparkCollection<?> collection, Schema schema, String stageName,
+                                 Function<StructuredRecord, StructuredRecord> recordsInCounter) {
+    if (collection instanceof DataframeCollection && !sec.getDataTracer(stageName).isEnabled()) {
+      DataframeCollection dataframeCollection = (DataframeCollection) collection;
+      if (schema.equals(dataframeCollection.getSchema())) {
+        return dataframeCollection.getDataframe()
+          .filter(new CountingFilterFunction<>(stageName, sec.getMetrics(), Constants.Metrics.RECORDS_IN));
+      }
+    }
+    JavaRDD<StructuredRecord> records = (JavaRDD<StructuredRecord>) collection.getUnderlying();
+    return toDataset(records.map(recordsInCounter), DataFrames.toDataType(schema));
+  }
+
+  /**
+   * Creates the output collection of a relational stage, counting the records out for the stage.
+   * Unless data tracing is enabled, which requires {@link StructuredRecord}, the output keeps the joined
+   * {@link Dataset} so that it can be used by subsequent relational stages without any conversion.
+   */
+  private SparkCollection<StructuredRecord> toCollection(Dataset<Row> joined, Schema outputSchema, String stageName) {
+    if (useDatasetJoinOutput && !sec.getDataTracer(stageName).isEnabled()) {
+      Dataset<Row> counted = joined.filter(
+        new CountingFilterFunction<>(stageName, sec.getMetrics(), Constants.Metrics.RECORDS_OUT));
+      return new DataframeCollection(sec, functionCacheFactory, jsc, sqlContext, datasetContext, sinkFactory,
+                                     counted, outputSchema);
+    }
     JavaRDD<StructuredRecord> output = joined.javaRDD()
       .map(r -> DataFrames.fromRow(r, outputSchema))
-      .map(new CountingFunction<>(joinRequest.getStageName(), sec.getMetrics(),
-                                  Constants.Metrics.RECORDS_OUT,
-                                  sec.getDataTracer(joinRequest.getStageName())));
-    return (SparkCollection<T>) wrap(output);
+      .map(new CountingFunction<>(stageName, sec.getMetrics(), Constants.Metrics.RECORDS_OUT,
+                                  sec.getDataTracer(stageName)));
+    return wrap(output);
   }
 
   /**
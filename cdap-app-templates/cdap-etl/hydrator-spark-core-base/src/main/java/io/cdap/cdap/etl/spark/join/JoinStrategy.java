@@ -0,0 +1,36 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.join;
+
+/**
+ * How a join is performed by Spark.
+ */
+public enum JoinStrategy {
+  /**
+   * All but one of the inputs are broadcast to every executor, so that the other input does not need to be shuffled.
+   */
+  BROADCAST,
+  /**
+   * The skewed input is salted and the other input is exploded by the distribution factor, so that records of the same
+   * key are spread over multiple partitions.
+   */
+  SALTED,
+  /**
+   * All the inputs are shuffled on the join key.
+   */
+  SORT_MERGE
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.join;
+
+import io.cdap.cdap.api.workflow.Value;
+import io.cdap.cdap.api.workflow.WorkflowToken;
+import io.cdap.cdap.etl.api.join.InvalidJoinException;
+import io.cdap.cdap.etl.api.join.JoinCondition;
+import io.cdap.cdap.etl.api.join.JoinDefinition;
+import io.cdap.cdap.etl.api.join.JoinStage;
+import io.cdap.cdap.etl.common.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * Selects the {@link JoinStrategy} of an auto join based on statistics about its inputs.
+ * <p>
+ * The number of records and bytes of an input stage are taken from the
+ * {@code spark.cdap.pipeline.join.stats.<stage>.records} and {@code spark.cdap.pipeline.join.stats.<stage>.bytes}
+ * runtime arguments, which can be set from the statistics of a previous run or from hints about the source.
+ * If the number of records is not given, the number of output records that an earlier phase of the same run
+ * recorded in the workflow token is used.
+ * <p>
+ * Inputs whose number of bytes is known to be small enough are broadcast. The number of records alone is never
+ * used to broadcast, since it says nothing about how much memory the records take. If there is nothing to broadcast
+ * and one of two inputs is much larger than the other, the larger input is salted. Otherwise the inputs are shuffled.
+ * Strategies that are explicitly set in the join definition, through broadcast stages or a distribution, are always
+ * kept.
+ */
+public class JoinStrategySelector {
+  private static final Logger LOG = LoggerFactory.getLogger(JoinStrategySelector.class);
+  // same as the default of spark.sql.autoBroadcastJoinThreshold
+  private static final long DEFAULT_BROADCAST_MAX_BYTES = 10L * 1024 * 1024;
+  private static final long DEFAULT_SKEW_RATIO = 100L;
+  private static final int DEFAULT_SKEW_DISTRIBUTION_FACTOR = 10;
+
+  private final Map<String, String> arguments;
+  private final WorkflowToken workflowToken;
+  private final boolean enabled;
+  private final long broadcastMaxBytes;
+  private final long skewRatio;
+  private final int distributionFactor;
+
+  public JoinStrategySelector(Map<String, String> arguments, @Nullable WorkflowToken workflowToken) {
+    this.arguments = arguments;
+    this.workflowToken = workflowToken;
+    this.enabled = Boolean.parseBoolean(
+      arguments.getOrDefault(Constants.JOIN_AUTO_STRATEGY_ENABLED, Boolean.TRUE.toString()));
+    this.broadcastMaxBytes = getLong(Constants.JOIN_BROADCAST_MAX_BYTES, DEFAULT_BROADCAST_MAX_BYTES);
+    this.skewRatio = getLong(Constants.JOIN_SKEW_RATIO, DEFAULT_SKEW_RATIO);
+    this.distributionFactor = (int) getLong(Constants.JOIN_SKEW_DISTRIBUTION_FACTOR,
+                                            DEFAULT_SKEW_DISTRIBUTION_FACTOR);
+  }
+
+  /**
+   * Selects the strategy for the given join.
+   *
+   * @param joinDefinition the join definition returned by the joiner
+   * @return the selected strategy, along with the join definition to execute it
+   */
+  public Selection select(JoinDefinition joinDefinition) {
+    List<JoinStage> stages = joinDefinition.getStages();
+    Map<String, Long> estimatedRecords = new HashMap<>();
+    Map<String, Long> estimatedBytes = new HashMap<>();
+    for (JoinStage stage : stages) {
+      Long records = getEstimatedRecords(stage.getStageName());
+      if (records != null) {
+        estimatedRecords.put(stage.getStageName(), records);
+      }
+      Long bytes = getArgument(Constants.JOIN_STATS_PREFIX + stage.getStageName() + ".bytes");
+      if (bytes != null) {
+        estimatedBytes.put(stage.getStageName(), bytes);
+      }
+    }
+
+    if (stages.stream().anyMatch(JoinStage::isBroadcast)) {
+      return new Selection(JoinStrategy.BROADCAST, joinDefinition, estimatedRecords);
+    }
+    if (joinDefinition.getDistribution() != null) {
+      return new Selection(JoinStrategy.SALTED, joinDefinition, estimatedRecords);
+    }
+    if (!enabled) {
+      return new Selection(JoinStrategy.SORT_MERGE, joinDefinition, estimatedRecords);
+    }
+
+    Set<String> broadcastStages = getBroadcastStages(stages, estimatedBytes);
+    if (!broadcastStages.isEmpty()) {
+      List<JoinStage> plannedStages = stages.stream()
+        .map(s -> JoinStage.builder(s).setBroadcast(broadcastStages.contains(s.getStageName())).build())
+        .collect(Collectors.toList());
+      JoinDefinition planned = rebuild(joinDefinition, plannedStages, null);
+      if (planned != null) {
+        return new Selection(JoinStrategy.BROADCAST, planned, estimatedRecords);
+      }
+    }
+
+    String skewedStage = getSkewedStage(joinDefinition, estimatedRecords);
+    if (skewedStage != null) {
+      JoinDefinition planned = rebuild(joinDefinition, stages, skewedStage);
+      if (planned != null) {
+        return new Selection(JoinStrategy.SALTED, planned, estimatedRecords);
+      }
+    }
+    return new Selection(JoinStrategy.SORT_MERGE, joinDefinition, estimatedRecords);
+  }
+
+  /**
+   * Returns the stages that are known to be small enough to be broadcast. Spark can only broadcast the side of a
+   * join whose records are not preserved by an outer join, which means optional stages, or any stage of an inner
+   * join. The largest stage is never broadcast, since at least one stage must be shuffled.
+   */
+  private Set<String> getBroadcastStages(List<JoinStage> stages, Map<String, Long> estimatedBytes) {
+    boolean anyRequired = stages.stream().anyMatch(JoinStage::isRequired);
+    boolean allRequired = stages.stream().allMatch(JoinStage::isRequired);
+    if (!anyRequired) {
+      return Collections.emptySet();
+    }
+
+    List<String> candidates = new ArrayList<>();
+    for (JoinStage stage : stages) {
+      String stageName = stage.getStageName();
+      if (stage.isRequired() && !allRequired) {
+        continue;
+      }
+      Long bytes = estimatedBytes.get(stageName);
+      if (bytes != null && bytes <= broadcastMaxBytes) {
+        candidates.add(stageName);
+      }
+    }
+
+    if (candidates.size() == stages.size()) {
+      candidates.remove(candidates.stream().max(Comparator.comparing(estimatedBytes::get)).get());
+    }
+    return new HashSet<>(candidates);
+  }
+
+  /**
+   * Returns the stage that should be salted, which is the larger of the two stages being joined on keys if it is
+   * required and has more than {@link #skewRatio} times the records of the other stage. Returns {@code null} if the
+   * join is not skewed.
+   */
+  @Nullable
+  private String getSkewedStage(JoinDefinition joinDefinition, Map<String, Long> estimatedRecords) {
+    List<JoinStage> stages = joinDefinition.getStages();
+    if (stages.size() != 2 || joinDefinition.getCondition().getOp() != JoinCondition.Op.KEY_EQUALITY
+      || distributionFactor < 2) {
+      return null;
+    }
+
+    Long firstRecords = estimatedRecords.get(stages.get(0).getStageName());
+    Long secondRecords = estimatedRecords.get(stages.get(1).getStageName());
+    if (firstRecords == null || secondRecords == null) {
+      return null;
+    }
+    JoinStage larger = firstRecords >= secondRecords ? stages.get(0) : stages.get(1);
+    long largerRecords = Math.max(firstRecords, secondRecords);
+    long smallerRecords = Math.max(1L, Math.min(firstRecords, secondRecords));
+    if (!larger.isRequired() || largerRecords / smallerRecords < skewRatio) {
+      return null;
+    }
+    return larger.getStageName();
+  }
+
+  /**
+   * Creates a new {@link JoinDefinition} with the given stages and skewed stage. Returns {@code null} if the
+   * result is not a valid join, in which case the original join definition should be used.
+   */
+  @Nullable
+  private JoinDefinition rebuild(JoinDefinition joinDefinition, List<JoinStage> stages, @Nullable String skewedStage) {
+    JoinDefinition.Builder builder = JoinDefinition.builder()
+      .select(joinDefinition.getSelectedFields())
+      .from(stages)
+      .on(joinDefinition.getCondition())
+      .setOutputSchema(joinDefinition.getOutputSchema());
+    if (skewedStage != null) {
+      builder.setDistributionFactor(distributionFactor, skewedStage);
+    }
+    try {
+      return builder.build();
+    } catch (InvalidJoinException e) {
+      LOG.debug("Not changing the join strategy because the resulting join is invalid.", e);
+      return null;
+    }
+  }
+
+  @Nullable
+  private Long getEstimatedRecords(String stageName) {
+    Long records = getArgument(Constants.JOIN_STATS_PREFIX + stageName + ".records");
+    if (records != null || workflowToken == null) {
+      return records;
+    }
+    String key = Constants.StageStatistics.PREFIX + "." + stageName + "." + Constants.StageStatistics.OUTPUT_RECORDS;
+    Value value = workflowToken.get(key);
+    return value == null ? null : parseLong(key, value.toString());
+  }
+
+  private long getLong(String key, long defaultValue) {
+    Long value = getArgument(key);
+    return value == null ? defaultValue : value;
+  }
+
+  @Nullable
+  private Long getArgument(String key) {
+    String value = arguments.get(key);
+    return value == null ? null : parseLong(key, value);
+  }
+
+  @Nullable
+  private Long parseLong(String key, String value) {
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      LOG.warn("Ignoring invalid value '{}' for '{}'. It must be a number.", value, key);
+      return null;
+    }
+  }
+
+  /**
+   * The result of selecting a {@link JoinStrategy}.
+   */
+  public static class Selection {
+    private final JoinStrategy strategy;
+    private final JoinDefinition joinDefinition;
+    private final Map<String, Long> estimatedRecords;
+
+    private Selection(JoinStrategy strategy, JoinDefinition joinDefinition, Map<String, Long> estimatedRecords) {
+      this.strategy = strategy;
+      this.joinDefinition = joinDefinition;
+      this.estimatedRecords = estimatedRecords;
+    }
+
+    public JoinStrategy getStrategy() {
+      return strategy;
+    }
+
+    /**
+     * @return the join definition to execute, which has the broadcast stages or distribution of the strategy
+     */
+    public JoinDefinition getJoinDefinition() {
+      return joinDefinition;
+    }
+
+    /**
+     * @return the estimated number of input records of the join, or {@code null} if it is not known for every stage
+     */
+    @Nullable
+    public Long getEstimatedInputRecords() {
+      if (estimatedRecords.size() < joinDefinition.getStages().size()) {
+        return null;
+      }
+      return estimatedRecords.values().stream().mapToLong(Long::longValue).sum();
+    }
+  }
+}
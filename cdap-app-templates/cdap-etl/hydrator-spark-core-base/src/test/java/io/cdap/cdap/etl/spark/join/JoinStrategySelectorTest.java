@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.join;
+
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.etl.api.join.JoinCondition;
+import io.cdap.cdap.etl.api.join.JoinDefinition;
+import io.cdap.cdap.etl.api.join.JoinField;
+import io.cdap.cdap.etl.api.join.JoinKey;
+import io.cdap.cdap.etl.api.join.JoinStage;
+import io.cdap.cdap.etl.common.Constants;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link JoinStrategySelector}
+ */
+public class JoinStrategySelectorTest {
+  private static final Schema PURCHASE_SCHEMA = Schema.recordOf(
+    "purchase",
+    Schema.Field.of("id", Schema.of(Schema.Type.INT)),
+    Schema.Field.of("user_id", Schema.of(Schema.Type.INT)));
+  private static final Schema USER_SCHEMA = Schema.recordOf(
+    "user",
+    Schema.Field.of("id", Schema.of(Schema.Type.INT)),
+    Schema.Field.of("name", Schema.of(Schema.Type.STRING)));
+
+  @Test
+  public void testBroadcastSmallStage() {
+    Map<String, String> arguments = ImmutableMap.of(Constants.JOIN_STATS_PREFIX + "purchases.records", "100000000",
+                                                    Constants.JOIN_STATS_PREFIX + "users.records", "1000",
+                                                    Constants.JOIN_STATS_PREFIX + "users.bytes", "100000");
+    JoinStrategySelector.Selection selection =
+      new JoinStrategySelector(arguments, null).select(createJoin(true, false));
+
+    Assert.assertEquals(JoinStrategy.BROADCAST, selection.getStrategy());
+    Assert.assertEquals(Long.valueOf(100001000L), selection.getEstimatedInputRecords());
+    Assert.assertFalse(getStage(selection, "purchases").isBroadcast());
+    Assert.assertTrue(getStage(selection, "users").isBroadcast());
+
+    // a small number of records can still be too large to broadcast
+    arguments = ImmutableMap.of(Constants.JOIN_STATS_PREFIX + "purchases.records", "100000000",
+                                Constants.JOIN_STATS_PREFIX + "users.records", "1000",
+                                Constants.JOIN_STATS_PREFIX + "users.bytes", "1000000000");
+    selection = new JoinStrategySelector(arguments, null).select(createJoin(true, false));
+    Assert.assertEquals(JoinStrategy.SALTED, selection.getStrategy());
+    Assert.assertFalse(getStage(selection, "users").isBroadcast());
+
+    // without the number of bytes, nothing is broadcast
+    arguments = ImmutableMap.of(Constants.JOIN_STATS_PREFIX + "purchases.records", "100000",
+                                Constants.JOIN_STATS_PREFIX + "users.records", "10");
+    selection = new JoinStrategySelector(arguments, null).select(createJoin(true, true));
+    Assert.assertEquals(JoinStrategy.SALTED, selection.getStrategy());
+    Assert.assertFalse(getStage(selection, "users").isBroadcast());
+    Assert.assertFalse(getStage(selection, "purchases").isBroadcast());
+
+    arguments = ImmutableMap.of(Constants.JOIN_STATS_PREFIX + "purchases.records", "20",
+                                Constants.JOIN_STATS_PREFIX + "users.records", "10");
+    selection = new JoinStrategySelector(arguments, null).select(createJoin(true, true));
+    Assert.assertEquals(JoinStrategy.SORT_MERGE, selection.getStrategy());
+  }
+
+  @Test
+  public void testNoBroadcastOfPreservedStage() {
+    // users is small, but all of its records are kept by the outer join, so it can't be broadcast
+    Map<String, String> arguments = ImmutableMap.of(Constants.JOIN_STATS_PREFIX + "purchases.bytes", "100000",
+                                                    Constants.JOIN_STATS_PREFIX + "users.bytes", "1000");
+    JoinStrategySelector.Selection selection =
+      new JoinStrategySelector(arguments, null).select(createJoin(false, true));
+
+    Assert.assertEquals(JoinStrategy.BROADCAST, selection.getStrategy());
+    Assert.assertTrue(getStage(selection, "purchases").isBroadcast());
+    Assert.assertFalse(getStage(selection, "users").isBroadcast());
+
+    // nothing can be broadcast in an outer join
+    selection = new JoinStrategySelector(arguments, null).select(createJoin(false, false));
+    Assert.assertEquals(JoinStrategy.SORT_MERGE, selection.getStrategy());
+  }
+
+  @Test
+  public void testSaltSkewedStage() {
+    Map<String, String> arguments = ImmutableMap.of(Constants.JOIN_STATS_PREFIX + "purchases.records", "100000000",
+                                                    Constants.JOIN_STATS_PREFIX + "users.records", "500000");
+    JoinStrategySelector.Selection selection =
+      new JoinStrategySelector(arguments, null).select(createJoin(true, true));
+
+    Assert.assertEquals(JoinStrategy.SALTED, selection.getStrategy());
+    Assert.assertEquals("purchases", selection.getJoinDefinition().getDistribution().getSkewedStageName());
+    Assert.assertEquals(10, selection.getJoinDefinition().getDistribution().getDistributionFactor());
+  }
+
+  @Test
+  public void testKeepDefinedStrategy() {
+    JoinDefinition broadcast = JoinDefinition.builder()
+      .select(new JoinField("purchases", "id"), new JoinField("users", "name"))
+      .from(JoinStage.builder("purchases", PURCHASE_SCHEMA).build(),
+            JoinStage.builder("users", USER_SCHEMA).setBroadcast(true).build())
+      .on(JoinCondition.onKeys()
+            .addKey(new JoinKey("purchases", Collections.singletonList("user_id")))
+            .addKey(new JoinKey("users", Collections.singletonList("id")))
+            .build())
+      .build();
+    Map<String, String> arguments = ImmutableMap.of(Constants.JOIN_STATS_PREFIX + "purchases.records", "10",
+                                                    Constants.JOIN_STATS_PREFIX + "users.records", "100000000");
+    JoinStrategySelector.Selection selection = new JoinStrategySelector(arguments, null).select(broadcast);
+    Assert.assertEquals(JoinStrategy.BROADCAST, selection.getStrategy());
+    Assert.assertSame(broadcast, selection.getJoinDefinition());
+
+    // without statistics or when disabled, the join is not changed
+    JoinDefinition join = createJoin(true, true);
+    selection = new JoinStrategySelector(Collections.emptyMap(), null).select(join);
+    Assert.assertEquals(JoinStrategy.SORT_MERGE, selection.getStrategy());
+    Assert.assertNull(selection.getEstimatedInputRecords());
+    Assert.assertSame(join, selection.getJoinDefinition());
+
+    arguments = ImmutableMap.of(Constants.JOIN_STATS_PREFIX + "purchases.records", "10",
+                                Constants.JOIN_STATS_PREFIX + "users.records", "10",
+                                Constants.JOIN_AUTO_STRATEGY_ENABLED, "false");
+    selection = new JoinStrategySelector(arguments, null).select(join);
+    Assert.assertEquals(JoinStrategy.SORT_MERGE, selection.getStrategy());
+    Assert.assertSame(join, selection.getJoinDefinition());
+  }
+
+  private static JoinStage getStage(JoinStrategySelector.Selection selection, String stageName) {
+    return selection.getJoinDefinition().getStages().stream()
+      .filter(s -> s.getStageName().equals(stageName))
+      .findFirst()
+      .get();
+  }
+
+  private static JoinDefinition createJoin(boolean purchasesRequired, boolean usersRequired) {
+    return JoinDefinition.builder()
+      .select(new JoinField("purchases", "id"), new JoinField("users", "name"))
+      .from(JoinStage.builder("purchases", PURCHASE_SCHEMA).setRequired(purchasesRequired).build(),
+            JoinStage.builder("users", USER_SCHEMA).setRequired(usersRequired).build())
+      .on(JoinCondition.onKeys()
+            .addKey(new JoinKey("purchases", Collections.singletonList("user_id")))
+            .addKey(new JoinKey("users", Collections.singletonList("id")))
+            .build())
+      .build();
+  }
+}
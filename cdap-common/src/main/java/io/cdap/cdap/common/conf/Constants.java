@@ -224,6 +224,9 @@ public final class Constants {
     public static final String APP_SCHEDULER_QUEUE = "apps.scheduler.queue";
     public static final String STATUS_EVENT_FETCH_SIZE = "app.program.status.event.fetch.size";
     public static final String STATUS_EVENT_POLL_DELAY_MILLIS = "app.program.status.event.poll.delay.millis";
+    public static final String STATUS_EVENT_DESCRIPTOR_CACHE_MAX_CHARS =
+      "app.program.status.event.descriptor.cache.max.chars";
+    public static final String APP_META_CACHE_MAX_CHARS = "app.meta.cache.max.chars";
     public static final String MAPREDUCE_JOB_CLIENT_CONNECT_MAX_RETRIES = "mapreduce.jobclient.connect.max.retries";
     public static final String MAPREDUCE_INCLUDE_CUSTOM_CLASSES = "mapreduce.include.custom.format.classes";
     public static final String MAPREDUCE_STATUS_REPORT_INTERVAL_SECONDS = "mapreduce.status.report.interval.seconds";
@@ -479,6 +482,7 @@ public final class Constants {
     public static final String BOSS_THREADS = "task.worker.boss.threads";
     public static final String WORKER_THREADS = "task.worker.worker.threads";
     public static final String METADATA_SERVICE_END_POINT = "task.worker.metadata.service.endpoint";
+    public static final String CONCURRENT_REQUESTS = "task.worker.concurrent.requests";
     public static final String METRIC_PREFIX = "task.worker.";
   }
 
@@ -551,6 +555,8 @@ public final class Constants {
     public static final String PROGRAM_STATUS_EVENT_FETCH_SIZE = "scheduler.program.status.event.fetch.size";
 
     public static final String JOB_QUEUE_NUM_PARTITIONS = "scheduler.job.queue.num.partitions";
+    public static final String CONSTRAINT_CHECK_FULL_SCAN_INTERVAL_SECONDS =
+      "scheduler.constraint.check.full.scan.interval.seconds";
   }
 
   /**
@@ -654,6 +660,8 @@ public final class Constants {
     public static final String DATA_STORAGE_SQL_PROPERTY_PREFIX = "data.storage.sql.jdbc.property.";
     public static final String DATA_STORAGE_SQL_CONNECTION_SIZE = "data.storage.sql.jdbc.connection.pool.size";
     public static final String DATA_STORAGE_SQL_SCAN_FETCH_SIZE_ROWS = "data.storage.sql.scan.size.rows";
+    public static final String DATA_STORAGE_SQL_SCAN_FETCH_SIZE_BYTES = "data.storage.sql.scan.size.bytes";
+    public static final String DATA_STORAGE_SQL_STATEMENT_CACHE_SIZE = "data.storage.sql.jdbc.statement.cache.size";
     public static final String DATA_STORAGE_SQL_TRANSACTION_RUNNER_MAX_RETRIES =
       "data.storage.sql.tx.runner.max.retries";
     public static final String DATA_STORAGE_SQL_TRANSACTION_RUNNER_TRANSACTION_FAILURE_DELAY_MILLIS =
@@ -810,6 +818,7 @@ public final class Constants {
     public static final String PROCESSOR_MAX_DELAY_MS = "metrics.processor.max.delay.ms";
     public static final String QUEUE_SIZE = "metrics.processor.queue.size";
     public static final String OFFER_TIMEOUT_MS = "metrics.processor.offer.timeout.ms";
+    public static final String PROCESSOR_AGGREGATION_WINDOW_MS = "metrics.processor.aggregation.window.ms";
 
     public static final String ENTITY_TABLE_NAME = "metrics.data.entity.tableName";
     public static final String METRICS_TABLE_WRITE_PARRALELISM = "metrics.data.table.write.parallelism";
@@ -820,6 +829,7 @@ public final class Constants {
     public static final String COARSE_ROUND_FACTOR = "metrics.data.coarse.round.factor";
 
     public static final String METRICS_MINIMUM_RESOLUTION_SECONDS = "metrics.minimum.resolution.seconds";
+    public static final String HISTOGRAM_SIGNIFICANT_DIGITS = "metrics.histogram.significant.digits";
     public static final String MINIMUM_RESOLUTION_RETENTION_SECONDS =
       "metrics.data.table.retention.minimum.resolution.seconds";
     // Key prefix for retention seconds. The actual key is suffixed by the table resolution.
@@ -1037,6 +1047,8 @@ public final class Constants {
       public static final String APPLICATION_COUNT = "application.count";
       public static final String NAMESPACE_COUNT = "namespace.count";
       public static final String APPLICATION_PLUGIN_COUNT = "application.plugin.count";
+      public static final String APPLICATION_META_CACHE_HIT = "application.meta.cache.hit";
+      public static final String APPLICATION_META_CACHE_MISS = "application.meta.cache.miss";
     }
 
     /**
@@ -1093,6 +1105,8 @@ public final class Constants {
       public static final String ACTIVE_CONNECTIONS = "structured.table.connection.active";
       public static final String IDLE_CONNECTIONS = "structured.table.connection.idle";
       public static final String ERROR_CONNECTIONS = "structured.table.connection.error";
+      public static final String STATEMENT_PREPARE_COUNT = "structured.table.statement.prepare.count";
+      public static final String STATEMENT_PREPARE_TIME = "structured.table.statement.prepare.time";
     }
 
     /**
@@ -1676,8 +1690,12 @@ public final class Constants {
     public static final String LOCAL_DATA_DIR = "messaging.local.data.dir";
     public static final String LOCAL_DATA_CLEANUP_FREQUENCY = "messaging.local.data.cleanup.frequency.secs";
     public static final String LOCAL_DATA_PARTITION_SECONDS = "messaging.local.data.partition.secs";
+    public static final String LOCAL_DATA_SCAN_PREFETCH_BYTES = "messaging.local.data.scan.prefetch.bytes";
+    public static final String LOCAL_DATA_SCAN_PREFETCH_THREADS = "messaging.local.data.scan.prefetch.threads";
 
+    public static final String BATCH_PUBLISH_THREADS = "messaging.batch.publish.threads";
     public static final String CACHE_SIZE_MB = "messaging.cache.size.mb";
+    public static final String FETCH_MAX_WAIT_MS = "messaging.fetch.max.wait.ms";
 
     public static final String HBASE_MAX_SCAN_THREADS = "messaging.hbase.max.scan.threads";
     public static final String HBASE_SCAN_CACHE_ROWS = "messaging.hbase.scan.cache.rows";
@@ -1686,15 +1704,20 @@ public final class Constants {
     public static final String MESSAGE_TABLE_HBASE_SPLITS = "messaging.message.table.hbase.splits";
     public static final String PAYLOAD_TABLE_NAME = "messaging.payload.table.name";
     public static final String PAYLOAD_TABLE_HBASE_SPLITS = "messaging.payload.table.hbase.splits";
+    public static final String STORE_GROUP_COMMIT_ENABLED = "messaging.store.group.commit.enabled";
+    public static final String STORE_GROUP_COMMIT_LINGER_MICROS = "messaging.store.group.commit.linger.micros";
+    public static final String STORE_GROUP_COMMIT_MAX_BATCH_SIZE = "messaging.store.group.commit.max.batch.size";
     public static final String SYSTEM_TOPICS = "messaging.system.topics";
     public static final String TABLE_CACHE_EXPIRATION_SECONDS = "messaging.table.expiration.seconds";
     public static final String TABLE_HBASE_SPLIT_POLICY = "messaging.table.hbase.split.policy";
+    public static final String TOPIC_DEFAULT_COMPRESSION = "messaging.topic.default.compression";
     public static final String TOPIC_DEFAULT_TTL_SECONDS = "messaging.topic.default.ttl.seconds";
     public static final String COPROCESSOR_METADATA_CACHE_UPDATE_FREQUENCY_SECONDS =
       "messaging.coprocessor.metadata.cache.update.frequency.seconds";
 
     public static final String HTTP_SERVER_WORKER_THREADS = "messaging.http.server.worker.threads";
     public static final String HTTP_SERVER_EXECUTOR_THREADS = "messaging.http.server.executor.threads";
+    public static final String HTTP_SERVER_LONG_POLL_THREADS = "messaging.http.server.long.poll.threads";
     public static final String HTTP_SERVER_MAX_REQUEST_SIZE_MB = "messaging.http.server.max.request.size.mb";
     public static final String HTTP_SERVER_CONSUME_CHUNK_SIZE = "messaging.http.server.consume.chunk.size";
     public static final String HTTP_COMPRESS_PAYLOAD = "messaging.http.compress.payload";
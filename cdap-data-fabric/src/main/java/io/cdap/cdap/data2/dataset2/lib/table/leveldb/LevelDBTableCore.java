@@ -41,6 +41,7 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
 import javax.annotation.Nullable;
 
 /**
@@ -85,7 +86,16 @@ public class LevelDBTableCore {
   }
 
 
-  public synchronized boolean swap(byte[] row, byte[] column, byte[] oldValue, byte[] newValue) throws IOException {
+  public boolean swap(byte[] row, byte[] column, byte[] oldValue, byte[] newValue) throws IOException {
+    Iterable<Lock> locks = lockRows(Collections.singleton(row));
+    try {
+      return doSwap(row, column, oldValue, newValue);
+    } finally {
+      unlock(locks);
+    }
+  }
+
+  private boolean doSwap(byte[] row, byte[] column, byte[] oldValue, byte[] newValue) throws IOException {
     byte[] existing = getRow(row, new byte[][] { column }, null, null, -1, null).get(column);
     // verify
     if (oldValue == null && existing != null) {
@@ -104,11 +114,13 @@ public class LevelDBTableCore {
     return true;
   }
 
-  public synchronized Map<byte[], Long> increment(byte[] row, Map<byte[], Long> increments) throws IOException {
+  public Map<byte[], Long> increment(byte[] row, Map<byte[], Long> increments) throws IOException {
     Map<byte[], Long> result = new TreeMap<>(Bytes.BYTES_COMPARATOR);
 
     DB db = getDB();
     WriteBatch writeBatch = db.createWriteBatch();
+    Iterable<Lock> locks = lockRows(Collections.singleton(row));
+    // The snapshot must be taken after acquiring the lock to observe the latest values of the row
     try (Snapshot snapshot = db.getSnapshot()) {
       ReadOptions readOptions = new ReadOptions().snapshot(snapshot);
 
@@ -120,19 +132,23 @@ public class LevelDBTableCore {
         writeBatch.put(rowKey, Bytes.toBytes(newValue));
       }
       db.write(writeBatch, service.getWriteOptions());
+    } finally {
+      unlock(locks);
     }
 
     return result;
   }
 
 
-  public synchronized void increment(NavigableMap<byte[], NavigableMap<byte[], Long>> updates) throws IOException {
+  public void increment(NavigableMap<byte[], NavigableMap<byte[], Long>> updates) throws IOException {
     if (updates.isEmpty()) {
       return;
     }
 
     DB db = getDB();
     WriteBatch writeBatch = db.createWriteBatch();
+    Iterable<Lock> locks = lockRows(updates.keySet());
+    // The snapshot must be taken after acquiring the locks to observe the latest values of the rows
     try (Snapshot snapshot = db.getSnapshot()) {
       ReadOptions readOptions = new ReadOptions().snapshot(snapshot);
 
@@ -145,6 +161,26 @@ public class LevelDBTableCore {
         }
       }
       db.write(writeBatch, service.getWriteOptions());
+    } finally {
+      unlock(locks);
+    }
+  }
+
+  /**
+   * Acquires the row locks for read-modify-write operations on the given rows. Operations on rows that map to
+   * different lock stripes can proceed in parallel.
+   */
+  private Iterable<Lock> lockRows(Iterable<byte[]> rows) {
+    Iterable<Lock> locks = service.getRowLocks(tableName, rows);
+    for (Lock lock : locks) {
+      lock.lock();
+    }
+    return locks;
+  }
+
+  private void unlock(Iterable<Lock> locks) {
+    for (Lock lock : locks) {
+      lock.unlock();
     }
   }
 
@@ -21,10 +21,13 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.io.Closeables;
+import com.google.common.util.concurrent.Striped;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.data2.util.TableId;
@@ -55,6 +58,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 
 import static org.iq80.leveldb.impl.Iq80DBFactory.factory;
 
@@ -66,6 +70,9 @@ public class LevelDBTableService implements AutoCloseable {
 
   private static final Logger LOG = LoggerFactory.getLogger(LevelDBTableService.class);
 
+  // Number of lock stripes shared by all tables for serializing read-modify-write operations on the same row
+  private static final int ROW_LOCK_STRIPES = 1024;
+
   private boolean compressionEnabled;
   private int blockSize;
   private long cacheSize;
@@ -78,6 +85,7 @@ public class LevelDBTableService implements AutoCloseable {
   private boolean isClosed;
 
   private final ConcurrentMap<String, DB> tables = Maps.newConcurrentMap();
+  private final Striped<Lock> rowLocks = Striped.lock(ROW_LOCK_STRIPES);
 
   private final ScheduledExecutorService executor;
   private ScheduledFuture<?> scheduledFuture;
@@ -281,6 +289,17 @@ public class LevelDBTableService implements AutoCloseable {
     return writeOptions;
   }
 
+  /**
+   * Returns the locks for performing read-modify-write operations on the given rows of a table. Locks are shared
+   * by all users of the same table in this service, and are returned in an order such that acquiring them
+   * in order never deadlocks with another caller. The same lock may appear more than once, which is fine since
+   * the locks are reentrant.
+   */
+  Iterable<Lock> getRowLocks(String tableName, Iterable<byte[]> rows) {
+    int tableHash = tableName.hashCode();
+    return rowLocks.bulkGet(Iterables.transform(rows, row -> 31 * tableHash + Bytes.hashCode(row)));
+  }
+
   public DB getTable(String tableName) throws IOException {
     ensureOpen();
     DB db = tables.get(tableName);
@@ -67,6 +67,25 @@ public class MetricStructuredTable implements StructuredTable {
     }
   }
 
+  @Override
+  public void upsertAll(Collection<? extends Collection<Field<?>>> multiFields)
+    throws InvalidFieldException, IOException {
+    try {
+      if (!emitTimeMetrics) {
+        structuredTable.upsertAll(multiFields);
+      } else {
+        long curTime = System.nanoTime();
+        structuredTable.upsertAll(multiFields);
+        long duration = System.nanoTime() - curTime;
+        metricsCollector.increment(metricPrefix + "multi.upsert.time", duration);
+      }
+      metricsCollector.increment(metricPrefix + "multi.upsert.count", 1L);
+    } catch (Exception e) {
+      metricsCollector.increment(metricPrefix + "multi.upsert.error", 1L);
+      throw e;
+    }
+  }
+
   @Override
   public void update(Collection<Field<?>> fields) throws InvalidFieldException, IOException {
     try {
@@ -267,6 +286,25 @@ public class MetricStructuredTable implements StructuredTable {
     }
   }
 
+  @Override
+  public void incrementAll(Collection<? extends Collection<Field<?>>> multiKeys, String column,
+                           long amount) throws InvalidFieldException, IOException, IllegalArgumentException {
+    try {
+      if (!emitTimeMetrics) {
+        structuredTable.incrementAll(multiKeys, column, amount);
+      } else {
+        long curTime = System.nanoTime();
+        structuredTable.incrementAll(multiKeys, column, amount);
+        long duration = System.nanoTime() - curTime;
+        metricsCollector.increment(metricPrefix + "multi.increment.time", duration);
+      }
+      metricsCollector.increment(metricPrefix + "multi.increment.count", 1L);
+    } catch (Exception e) {
+      metricsCollector.increment(metricPrefix + "multi.increment.error", 1L);
+      throw e;
+    }
+  }
+
   @Override
   public void delete(Collection<Field<?>> keys) throws InvalidFieldException, IOException {
     try {
@@ -285,6 +323,25 @@ public class MetricStructuredTable implements StructuredTable {
     }
   }
 
+  @Override
+  public void deleteAll(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException, IOException {
+    try {
+      if (!emitTimeMetrics) {
+        structuredTable.deleteAll(multiKeys);
+      } else {
+        long curTime = System.nanoTime();
+        structuredTable.deleteAll(multiKeys);
+        long duration = System.nanoTime() - curTime;
+        metricsCollector.increment(metricPrefix + "multi.delete.time", duration);
+      }
+      metricsCollector.increment(metricPrefix + "multi.delete.count", 1L);
+    } catch (Exception e) {
+      metricsCollector.increment(metricPrefix + "multi.delete.error", 1L);
+      throw e;
+    }
+  }
+
   @Override
   public void deleteAll(Range keyRange) throws InvalidFieldException, IOException {
     try {
@@ -131,6 +131,13 @@ public class PostgreSqlStorageProvider implements StorageProvider {
     // the PoolingDataSource will be thread safe as long as the connectin pool is thread-safe
     GenericObjectPool<PoolableConnection> connectionPool = new GenericObjectPool<>(poolableConnectionFactory);
     poolableConnectionFactory.setPool(connectionPool);
+    int statementCacheSize = cConf.getInt(Constants.Dataset.DATA_STORAGE_SQL_STATEMENT_CACHE_SIZE);
+    if (statementCacheSize > 0) {
+      // Each pooled connection keeps prepared statements keyed by the SQL, which is generated from the table,
+      // the operation and the fields. The least recently used idle statements are evicted when the cache is full.
+      poolableConnectionFactory.setPoolStatements(true);
+      poolableConnectionFactory.setMaxOpenPreparedStatements(statementCacheSize);
+    }
     connectionPool.setMaxTotal(cConf.getInt(Constants.Dataset.DATA_STORAGE_SQL_CONNECTION_SIZE));
     PoolingDataSource<PoolableConnection> dataSource = new PoolingDataSource<>(connectionPool);
     return new MetricsDataSource(dataSource, metricsCollectionService, connectionPool);
@@ -50,6 +50,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 
@@ -64,12 +65,28 @@ public class PostgreSqlStructuredTable implements StructuredTable {
   private final StructuredTableSchema tableSchema;
   private final FieldValidator fieldValidator;
   private final int fetchSize;
+  private final int fetchBytes;
 
   public PostgreSqlStructuredTable(Connection connection, StructuredTableSchema tableSchema, int fetchSize) {
+    this(connection, tableSchema, fetchSize, 0);
+  }
+
+  /**
+   * Creates a new instance.
+   *
+   * @param connection the connection to use for all the operations
+   * @param tableSchema schema of the table
+   * @param fetchSize number of rows to fetch in the first round trip of a scan
+   * @param fetchBytes approximate number of bytes to fetch in each subsequent round trip of a scan,
+   *                   or a non-positive value to always fetch {@code fetchSize} rows
+   */
+  public PostgreSqlStructuredTable(Connection connection, StructuredTableSchema tableSchema,
+                                   int fetchSize, int fetchBytes) {
     this.connection = connection;
     this.tableSchema = tableSchema;
     this.fieldValidator = new FieldValidator(tableSchema);
     this.fetchSize = fetchSize;
+    this.fetchBytes = fetchBytes;
   }
 
   @Override
@@ -84,6 +101,27 @@ public class PostgreSqlStructuredTable implements StructuredTable {
     upsertInternal(fields);
   }
 
+  @Override
+  public void upsertAll(Collection<? extends Collection<Field<?>>> multiFields)
+    throws InvalidFieldException, IOException {
+    LOG.trace("Table {}: Write multiple fields {}", tableSchema.getTableId(), multiFields);
+    for (Collection<Field<?>> fields : multiFields) {
+      Set<String> fieldNames = fields.stream().map(Field::getName).collect(Collectors.toSet());
+      if (!fieldNames.containsAll(tableSchema.getPrimaryKeys())) {
+        throw new InvalidFieldException(tableSchema.getTableId(), fields,
+                                        String.format("Given fields %s do not contain all the " +
+                                                        "primary keys %s", fieldNames, tableSchema.getPrimaryKeys()));
+      }
+    }
+    try {
+      executeBatch(multiFields, fields -> getWriteSqlQuery(fields, null),
+                   (statement, fields) -> setFields(statement, fields, 1));
+    } catch (SQLException e) {
+      throw new IOException(String.format("Failed to write to table %s with multiple fields %s",
+                                          tableSchema.getTableId().getName(), multiFields), e);
+    }
+  }
+
   @Override
   public void update(Collection<Field<?>> fields) throws InvalidFieldException, IOException {
     LOG.trace("Table {}: Update fields {}", tableSchema.getTableId(), fields);
@@ -214,7 +252,7 @@ public class PostgreSqlStructuredTable implements StructuredTable {
       LOG.trace("SQL statement: {}", statement);
 
       ResultSet resultSet = statement.executeQuery();
-      return new ResultSetIterator(statement, resultSet, tableSchema);
+      return new ResultSetIterator(statement, resultSet, tableSchema, fetchSize, fetchBytes);
     } catch (SQLException e) {
       throw new IOException(String.format("Failed to scan from table %s with range %s",
                                           tableSchema.getTableId().getName(), keyRange), e);
@@ -257,7 +295,7 @@ public class PostgreSqlStructuredTable implements StructuredTable {
       LOG.trace("MultiScan SQL statement: {}", statement);
 
       ResultSet resultSet = statement.executeQuery();
-      return new ResultSetIterator(statement, resultSet, tableSchema);
+      return new ResultSetIterator(statement, resultSet, tableSchema, fetchSize, fetchBytes);
     } catch (SQLException e) {
       throw new IOException(String.format("Failed to scan from table %s with ranges %s",
                                           tableSchema.getTableId().getName(), keyRanges), e);
@@ -338,7 +376,7 @@ public class PostgreSqlStructuredTable implements StructuredTable {
       setField(statement, index, 1);
       LOG.trace("SQL statement: {}", statement);
       ResultSet resultSet = statement.executeQuery();
-      return new ResultSetIterator(statement, resultSet, tableSchema);
+      return new ResultSetIterator(statement, resultSet, tableSchema, fetchSize, fetchBytes);
     } catch (SQLException e) {
       throw new IOException(String.format("Failed to scan from table %s with index %s",
                                           tableSchema.getTableId().getName(), index), e);
@@ -376,7 +414,7 @@ public class PostgreSqlStructuredTable implements StructuredTable {
       LOG.trace("SQL statement: {}", statement);
 
       ResultSet resultSet = statement.executeQuery();
-      return new ResultSetIterator(statement, resultSet, tableSchema);
+      return new ResultSetIterator(statement, resultSet, tableSchema, fetchSize, fetchBytes);
     } catch (SQLException e) {
       throw new IOException(String.format("Failed to scan from table %s with range %s and index %s",
                                           tableSchema.getTableId().getName(), keyRange, filterIndexes), e);
@@ -404,7 +442,7 @@ public class PostgreSqlStructuredTable implements StructuredTable {
       LOG.trace("SQL statement: {}", statement);
 
       ResultSet resultSet = statement.executeQuery();
-      return new ResultSetIterator(statement, resultSet, tableSchema);
+      return new ResultSetIterator(statement, resultSet, tableSchema, fetchSize, fetchBytes);
     } catch (SQLException e) {
       throw new IOException(String.format("Failed to scan from table %s with range %s",
                                           tableSchema.getTableId().getName(), keyRange), e);
@@ -507,6 +545,42 @@ public class PostgreSqlStructuredTable implements StructuredTable {
     }
   }
 
+  @Override
+  public void incrementAll(Collection<? extends Collection<Field<?>>> multiKeys, String column, long amount)
+    throws InvalidFieldException, IOException {
+    LOG.trace("Table {}: Increment with multiple keys {}, column {}, amount {}",
+              tableSchema.getTableId(), multiKeys, column, amount);
+    FieldType.Type colType = tableSchema.getType(column);
+    if (colType == null) {
+      throw new InvalidFieldException(tableSchema.getTableId(), column);
+    } else if (colType != FieldType.Type.LONG) {
+      throw new IllegalArgumentException(
+        String.format("Trying to increment a column of type %s. Only %s column type can be incremented",
+                      colType, FieldType.Type.LONG));
+    }
+    if (tableSchema.isPrimaryKeyColumn(column)) {
+      throw new IllegalArgumentException("Cannot use increment on a primary key field");
+    }
+
+    List<Collection<Field<?>>> multiFieldsWithValue = new ArrayList<>(multiKeys.size());
+    for (Collection<Field<?>> keys : multiKeys) {
+      fieldValidator.validatePrimaryKeys(keys, false);
+      List<Field<?>> fieldsWithValue = new ArrayList<>(keys);
+      // If the row does not exist, insert it with long field = amount
+      fieldsWithValue.add(Fields.longField(column, amount));
+      multiFieldsWithValue.add(fieldsWithValue);
+    }
+    try {
+      executeBatch(multiFieldsWithValue, fields -> getWriteSqlQuery(fields, column), (statement, fields) -> {
+        // populate increment amount
+        statement.setLong(setFields(statement, fields, 1), amount);
+      });
+    } catch (SQLException e) {
+      throw new IOException(String.format("Failed to increment column %s of table %s with increment value %d",
+                                          column, tableSchema.getTableId().getName(), amount), e);
+    }
+  }
+
   @Override
   public void delete(Collection<Field<?>> keys) throws InvalidFieldException, IOException {
     LOG.trace("Table {}: Delete with keys {}", tableSchema.getTableId(), keys);
@@ -526,6 +600,21 @@ public class PostgreSqlStructuredTable implements StructuredTable {
     }
   }
 
+  @Override
+  public void deleteAll(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException, IOException {
+    LOG.trace("Table {}: Delete with multiple keys {}", tableSchema.getTableId(), multiKeys);
+    for (Collection<Field<?>> keys : multiKeys) {
+      fieldValidator.validatePrimaryKeys(keys, false);
+    }
+    try {
+      executeBatch(multiKeys, this::getDeleteQuery, (statement, keys) -> setFields(statement, keys, 1));
+    } catch (SQLException e) {
+      throw new IOException(String.format("Failed to delete the rows from table %s with multiple keys %s",
+                                          tableSchema.getTableId().getName(), multiKeys), e);
+    }
+  }
+
   @Override
   public void deleteAll(Range keyRange) throws InvalidFieldException, IOException {
     LOG.trace("Table {}: DeleteAll with range {}", tableSchema.getTableId(), keyRange);
@@ -614,6 +703,48 @@ public class PostgreSqlStructuredTable implements StructuredTable {
     }
   }
 
+  /**
+   * Executes one SQL statement for each of the given rows using JDBC batching. Consecutive rows that have the same
+   * SQL statement, which is the case when they have the same fields in the same order, are sent to the database
+   * in one batch. Rows are executed in the given order.
+   *
+   * @param multiFields  the fields of each row
+   * @param sqlFunction  function to generate the SQL statement of a row
+   * @param batchSetter  setter to set the parameters of a row into the prepared statement
+   * @throws SQLException if failed to execute any of the statements
+   */
+  private void executeBatch(Collection<? extends Collection<Field<?>>> multiFields,
+                            Function<Collection<Field<?>>, String> sqlFunction,
+                            BatchSetter batchSetter) throws SQLException {
+    String batchSql = null;
+    List<Collection<Field<?>>> batch = new ArrayList<>();
+    for (Collection<Field<?>> fields : multiFields) {
+      String sql = sqlFunction.apply(fields);
+      if (!sql.equals(batchSql)) {
+        executeBatch(batchSql, batch, batchSetter);
+        batchSql = sql;
+        batch.clear();
+      }
+      batch.add(fields);
+    }
+    executeBatch(batchSql, batch, batchSetter);
+  }
+
+  private void executeBatch(@Nullable String sql, List<Collection<Field<?>>> batch,
+                            BatchSetter batchSetter) throws SQLException {
+    if (sql == null || batch.isEmpty()) {
+      return;
+    }
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      for (Collection<Field<?>> fields : batch) {
+        batchSetter.set(statement, fields);
+        statement.addBatch();
+      }
+      LOG.trace("SQL statement: {} with batch size {}", statement, batch.size());
+      statement.executeBatch();
+    }
+  }
+
   /**
    * Read a row from the table. Null columns mean read from all columns.
    *
@@ -987,18 +1118,35 @@ public class PostgreSqlStructuredTable implements StructuredTable {
     }
   }
 
+  /**
+   * Sets the parameters of one row of a batch into a {@link PreparedStatement}.
+   */
+  private interface BatchSetter {
+    void set(PreparedStatement statement, Collection<Field<?>> fields) throws SQLException;
+  }
+
   private static final class ResultSetIterator extends AbstractCloseableIterator<StructuredRow> {
+    // Upper bound of the adjusted fetch size
+    private static final int MAX_FETCH_SIZE = 10000;
+
     private final Statement statement;
     private final ResultSet resultSet;
     private final Set<String> columnNames;
     private final StructuredTableSchema schema;
-
-
-    ResultSetIterator(Statement statement, ResultSet resultSet, StructuredTableSchema schema) throws SQLException {
+    private final int fetchSize;
+    private final int fetchBytes;
+    // Number of rows and their estimated total size read before the fetch size is adjusted
+    private int sampleRows;
+    private long sampleBytes;
+
+    ResultSetIterator(Statement statement, ResultSet resultSet, StructuredTableSchema schema,
+                      int fetchSize, int fetchBytes) throws SQLException {
       this.statement = statement;
       this.resultSet = resultSet;
       this.columnNames = createColNames(resultSet.getMetaData());
       this.schema = schema;
+      this.fetchSize = fetchSize;
+      this.fetchBytes = fetchBytes;
     }
 
     @Override
@@ -1012,12 +1160,35 @@ public class PostgreSqlStructuredTable implements StructuredTable {
         for (String colName : columnNames) {
           row.put(colName, resultSet.getObject(colName));
         }
+        if (fetchBytes > 0 && fetchSize > 0 && sampleRows < fetchSize) {
+          adjustFetchSize(row);
+        }
         return new SqlStructuredRow(schema, row);
       } catch (SQLException e) {
         throw new RuntimeException("Failed to get the next value from the sql result set", e);
       }
     }
 
+    /**
+     * Samples the size of the rows in the first fetch. Once all of them are read, adjusts the fetch size such that
+     * each of the following fetches returns about {@code fetchBytes} bytes of rows.
+     */
+    private void adjustFetchSize(Map<String, Object> row) throws SQLException {
+      for (Object value : row.values()) {
+        if (value instanceof String) {
+          sampleBytes += ((String) value).length();
+        } else if (value instanceof byte[]) {
+          sampleBytes += ((byte[]) value).length;
+        } else {
+          sampleBytes += Long.BYTES;
+        }
+      }
+      if (++sampleRows == fetchSize) {
+        long rowBytes = Math.max(1L, sampleBytes / sampleRows);
+        resultSet.setFetchSize((int) Math.max(1L, Math.min(MAX_FETCH_SIZE, fetchBytes / rowBytes)));
+      }
+    }
+
     @Override
     public void close() {
       try {
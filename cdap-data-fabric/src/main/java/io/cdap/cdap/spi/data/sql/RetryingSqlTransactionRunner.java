@@ -58,7 +58,7 @@ public class RetryingSqlTransactionRunner implements TransactionRunner {
     this.transactionRunner =
       new SqlTransactionRunner(tableAdmin, dataSource, metricsCollectionService,
                                cConf.getBoolean(Constants.Metrics.STRUCTURED_TABLE_TIME_METRICS_ENABLED),
-                               scanFetchSize);
+                               scanFetchSize, cConf.getInt(Constants.Dataset.DATA_STORAGE_SQL_SCAN_FETCH_SIZE_BYTES));
     this.metricsCollectionService = metricsCollectionService;
     this.maxRetries = cConf.getInt(Constants.Dataset.DATA_STORAGE_SQL_TRANSACTION_RUNNER_MAX_RETRIES);
     this.delayMillisTransactionFailure =
@@ -37,14 +37,22 @@ public class SqlStructuredTableContext implements StructuredTableContext {
   private final MetricsCollector metricsCollector;
   private final boolean emitTimeMetrics;
   private final int scanFetchSize;
+  private final int scanFetchBytes;
 
   public SqlStructuredTableContext(StructuredTableAdmin structuredTableAdmin, Connection connection,
                                    MetricsCollector metricsCollector, boolean emitTimeMetrics, int scanFetchSize) {
+    this(structuredTableAdmin, connection, metricsCollector, emitTimeMetrics, scanFetchSize, 0);
+  }
+
+  public SqlStructuredTableContext(StructuredTableAdmin structuredTableAdmin, Connection connection,
+                                   MetricsCollector metricsCollector, boolean emitTimeMetrics, int scanFetchSize,
+                                   int scanFetchBytes) {
     this.admin = structuredTableAdmin;
     this.connection = connection;
     this.metricsCollector = metricsCollector;
     this.emitTimeMetrics = emitTimeMetrics;
     this.scanFetchSize = scanFetchSize;
+    this.scanFetchBytes = scanFetchBytes;
   }
 
   @Override
@@ -53,7 +61,7 @@ public class SqlStructuredTableContext implements StructuredTableContext {
 
     try {
       return new MetricStructuredTable(tableId, new PostgreSqlStructuredTable(connection, admin.getSchema(tableId),
-          scanFetchSize), metricsCollector, emitTimeMetrics);
+          scanFetchSize, scanFetchBytes), metricsCollector, emitTimeMetrics);
     } catch (IOException e) {
       throw new StructuredTableInstantiationException(tableId, "Failed to get the table schema", e);
     }
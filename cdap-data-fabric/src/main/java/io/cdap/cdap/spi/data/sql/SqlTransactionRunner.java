@@ -41,15 +41,23 @@ public class SqlTransactionRunner implements TransactionRunner {
   private final MetricsCollectionService metricsCollectionService;
   private final boolean emitTimeMetrics;
   private final int scanFetchSize;
+  private final int scanFetchBytes;
 
   public SqlTransactionRunner(StructuredTableAdmin tableAdmin, DataSource dataSource,
                               MetricsCollectionService metricsCollectionService,
                               boolean emitTimeMetrics, int scanFetchSize) {
+    this(tableAdmin, dataSource, metricsCollectionService, emitTimeMetrics, scanFetchSize, 0);
+  }
+
+  public SqlTransactionRunner(StructuredTableAdmin tableAdmin, DataSource dataSource,
+                              MetricsCollectionService metricsCollectionService,
+                              boolean emitTimeMetrics, int scanFetchSize, int scanFetchBytes) {
     this.admin = tableAdmin;
     this.dataSource = dataSource;
     this.metricsCollectionService = metricsCollectionService;
     this.emitTimeMetrics = emitTimeMetrics;
     this.scanFetchSize = scanFetchSize;
+    this.scanFetchBytes = scanFetchBytes;
   }
 
   @Override
@@ -68,7 +76,7 @@ public class SqlTransactionRunner implements TransactionRunner {
       connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
       connection.setAutoCommit(false);
       runnable.run(new SqlStructuredTableContext(admin, connection, metricsCollector, emitTimeMetrics,
-          this.scanFetchSize));
+          this.scanFetchSize, this.scanFetchBytes));
       connection.commit();
     } catch (Exception e) {
       Throwable cause = e.getCause();
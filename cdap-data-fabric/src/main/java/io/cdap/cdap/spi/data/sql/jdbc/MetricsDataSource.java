@@ -22,6 +22,10 @@ import io.cdap.cdap.common.conf.Constants;
 import org.apache.commons.pool2.ObjectPool;
 
 import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
@@ -29,10 +33,14 @@ import java.util.logging.Logger;
 import javax.sql.DataSource;
 
 /**
- * A metrics data source that will emit metrics about the number of connections.
+ * A metrics data source that will emit metrics about the number of connections and the time spent on preparing
+ * statements. With prepared statement caching enabled in the underlying data source, the prepare time reflects
+ * how effective the cache is.
  */
 public class MetricsDataSource implements DataSource, AutoCloseable {
 
+  private static final String PREPARE_STATEMENT_METHOD = "prepareStatement";
+
   private final DataSource dataSource;
   private final MetricsCollectionService metricsCollectionService;
   private final ObjectPool<?> objectPool;
@@ -51,7 +59,7 @@ public class MetricsDataSource implements DataSource, AutoCloseable {
       Connection connection = dataSource.getConnection();
       metricsCollector.gauge(Constants.Metrics.StructuredTable.ACTIVE_CONNECTIONS, objectPool.getNumActive());
       metricsCollector.gauge(Constants.Metrics.StructuredTable.IDLE_CONNECTIONS, objectPool.getNumIdle());
-      return connection;
+      return createMetricsConnection(connection, metricsCollector);
     } catch (SQLException e) {
       metricsCollector.increment(Constants.Metrics.StructuredTable.ERROR_CONNECTIONS, 1L);
       throw e;
@@ -65,7 +73,7 @@ public class MetricsDataSource implements DataSource, AutoCloseable {
       Connection connection = dataSource.getConnection(username, password);
       metricsCollector.gauge(Constants.Metrics.StructuredTable.ACTIVE_CONNECTIONS, objectPool.getNumActive());
       metricsCollector.gauge(Constants.Metrics.StructuredTable.IDLE_CONNECTIONS, objectPool.getNumIdle());
-      return connection;
+      return createMetricsConnection(connection, metricsCollector);
     } catch (SQLException e) {
       metricsCollector.increment(Constants.Metrics.StructuredTable.ERROR_CONNECTIONS, 1L);
       throw e;
@@ -113,4 +121,34 @@ public class MetricsDataSource implements DataSource, AutoCloseable {
       ((AutoCloseable) dataSource).close();
     }
   }
+
+  /**
+   * Creates a {@link Connection} that delegates to the given connection and emits metrics for each call to
+   * the {@code prepareStatement} methods.
+   */
+  private static Connection createMetricsConnection(Connection connection, MetricsContext metricsCollector) {
+    InvocationHandler handler = (proxy, method, args) -> {
+      if (!PREPARE_STATEMENT_METHOD.equals(method.getName())) {
+        return invoke(connection, method, args);
+      }
+      long startTime = System.nanoTime();
+      try {
+        return invoke(connection, method, args);
+      } finally {
+        metricsCollector.increment(Constants.Metrics.StructuredTable.STATEMENT_PREPARE_TIME,
+                                   System.nanoTime() - startTime);
+        metricsCollector.increment(Constants.Metrics.StructuredTable.STATEMENT_PREPARE_COUNT, 1L);
+      }
+    };
+    return (Connection) Proxy.newProxyInstance(MetricsDataSource.class.getClassLoader(),
+                                               new Class<?>[] { Connection.class }, handler);
+  }
+
+  private static Object invoke(Connection connection, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(connection, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
 }
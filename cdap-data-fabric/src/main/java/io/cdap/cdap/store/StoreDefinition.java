@@ -734,7 +734,8 @@ public final class StoreDefinition {
     public enum RowType {
       JOB, // row contains the serialized job
       DELETE, // if the job is marked for deletion, the row contains the time when the job was marked for deletion
-      OBSOLETE // if the job has timed out, the row contains the time when the job was marked as obsolete
+      OBSOLETE, // if the job has timed out, the row contains the time when the job was marked as obsolete
+      NOTIFICATION // the row contains a notification added to the job, the row type is suffixed by a sequence number
     }
 
     public static final StructuredTableSpecification JOB_QUEUE_STORE_SPEC =
@@ -761,10 +762,17 @@ public final class StoreDefinition {
   public static final class TimeScheduleStore {
 
     public static final StructuredTableId SCHEDULES = new StructuredTableId("schedules");
+    public static final StructuredTableId SCHEDULE_FIRE_TIMES = new StructuredTableId("schedule_fire_times");
+    public static final StructuredTableId SCHEDULE_JOB_TRIGGERS = new StructuredTableId("schedule_job_triggers");
+    public static final StructuredTableId SCHEDULE_GROUP_TRIGGERS = new StructuredTableId("schedule_group_triggers");
 
     public static final String TYPE_FIELD = "type";
     public static final String NAME_FIELD = "name";
     public static final String VALUE_FIELD = "value";
+    public static final String NEXT_FIRE_TIME_FIELD = "next_fire_time";
+    public static final String TRIGGER_NAME_FIELD = "trigger_name";
+    public static final String TRIGGER_GROUP_FIELD = "trigger_group";
+    public static final String JOB_NAME_FIELD = "job_name";
 
     public static final StructuredTableSpecification SCHEDULES_SPEC =
       new StructuredTableSpecification.Builder()
@@ -775,8 +783,41 @@ public final class StoreDefinition {
         .withPrimaryKeys(TYPE_FIELD, NAME_FIELD)
         .build();
 
+    // Index of the triggers that are waiting to fire by their next fire time
+    public static final StructuredTableSpecification SCHEDULE_FIRE_TIMES_SPEC =
+      new StructuredTableSpecification.Builder()
+        .withId(SCHEDULE_FIRE_TIMES)
+        .withFields(Fields.longType(NEXT_FIRE_TIME_FIELD),
+                    Fields.stringType(TRIGGER_NAME_FIELD),
+                    Fields.stringType(TRIGGER_GROUP_FIELD))
+        .withPrimaryKeys(NEXT_FIRE_TIME_FIELD, TRIGGER_NAME_FIELD)
+        .build();
+
+    // Index of the triggers by the job they fire
+    public static final StructuredTableSpecification SCHEDULE_JOB_TRIGGERS_SPEC =
+      new StructuredTableSpecification.Builder()
+        .withId(SCHEDULE_JOB_TRIGGERS)
+        .withFields(Fields.stringType(JOB_NAME_FIELD),
+                    Fields.stringType(TRIGGER_NAME_FIELD),
+                    Fields.stringType(TRIGGER_GROUP_FIELD))
+        .withPrimaryKeys(JOB_NAME_FIELD, TRIGGER_NAME_FIELD)
+        .build();
+
+    // Index of the triggers by their group
+    public static final StructuredTableSpecification SCHEDULE_GROUP_TRIGGERS_SPEC =
+      new StructuredTableSpecification.Builder()
+        .withId(SCHEDULE_GROUP_TRIGGERS)
+        .withFields(Fields.stringType(TRIGGER_GROUP_FIELD),
+                    Fields.stringType(TRIGGER_NAME_FIELD),
+                    Fields.stringType(JOB_NAME_FIELD))
+        .withPrimaryKeys(TRIGGER_GROUP_FIELD, TRIGGER_NAME_FIELD)
+        .build();
+
     public static void create(StructuredTableAdmin tableAdmin) throws IOException {
       createIfNotExists(tableAdmin, SCHEDULES_SPEC);
+      createIfNotExists(tableAdmin, SCHEDULE_FIRE_TIMES_SPEC);
+      createIfNotExists(tableAdmin, SCHEDULE_JOB_TRIGGERS_SPEC);
+      createIfNotExists(tableAdmin, SCHEDULE_GROUP_TRIGGERS_SPEC);
     }
   }
 
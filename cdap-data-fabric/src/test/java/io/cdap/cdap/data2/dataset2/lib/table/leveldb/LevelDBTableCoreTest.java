@@ -41,8 +41,16 @@ import org.junit.rules.TemporaryFolder;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.NavigableMap;
 import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 
@@ -210,6 +218,69 @@ public class LevelDBTableCoreTest {
     }
   }
 
+  @Test
+  public void testConcurrentIncrement() throws Exception {
+    String tableName = "testConcurrentIncrementTable";
+    service.ensureTableExists(tableName);
+
+    int numThreads = 8;
+    int numRows = 16;
+    int numIterations = 200;
+    byte[] col = Bytes.toBytes(colName);
+    byte[] swapCol = Bytes.toBytes("swap");
+
+    // Each thread uses its own table core, the same as each dataset instance does
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    CyclicBarrier barrier = new CyclicBarrier(numThreads);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < numThreads; t++) {
+      futures.add(executor.submit(() -> {
+        LevelDBTableCore table = new LevelDBTableCore(tableName, service);
+        barrier.await();
+        for (int i = 0; i < numIterations; i++) {
+          byte[] row = Bytes.toBytes(getRowName(rowNamePrefix, i % numRows));
+          table.increment(row, Collections.singletonMap(col, 1L));
+
+          NavigableMap<byte[], NavigableMap<byte[], Long>> updates = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+          for (int r = 0; r < numRows; r += 3) {
+            NavigableMap<byte[], Long> columns = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+            columns.put(col, 1L);
+            updates.put(Bytes.toBytes(getRowName(rowNamePrefix, (r + i) % numRows)), columns);
+          }
+          table.increment(updates);
+
+          // Compare and swap a counter until it succeeds
+          byte[] existing;
+          do {
+            existing = table.getRow(row, new byte[][] { swapCol }, null, null, -1, null).get(swapCol);
+          } while (!table.swap(row, swapCol, existing,
+                               Bytes.toBytes(existing == null ? 1L : Bytes.toLong(existing) + 1)));
+        }
+        return null;
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get(60, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    // Verify no update is lost
+    LevelDBTableCore table = new LevelDBTableCore(tableName, service);
+    long total = 0;
+    long swapTotal = 0;
+    for (int r = 0; r < numRows; r++) {
+      NavigableMap<byte[], byte[]> row = table.getRow(Bytes.toBytes(getRowName(rowNamePrefix, r)),
+                                                      null, null, null, -1, null);
+      total += Bytes.toLong(row.get(col));
+      swapTotal += Bytes.toLong(row.get(swapCol));
+    }
+    int rowsPerMultiRowIncrement = (numRows + 2) / 3;
+    Assert.assertEquals((long) numThreads * numIterations * (1 + rowsPerMultiRowIncrement), total);
+    Assert.assertEquals((long) numThreads * numIterations, swapTotal);
+
+    service.dropTable(tableName);
+  }
+
   @Test
   public void testDelete() throws Exception {
     String tableName = "testDeleteTable";
@@ -0,0 +1,215 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.format.io;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.data.schema.SchemaHash;
+import io.cdap.cdap.common.io.DatumReader;
+import io.cdap.cdap.common.io.Decoder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A {@link DatumReader} for reading {@link StructuredRecord} written in the format of
+ * {@link StructuredRecordDatumWriter}. Instead of walking the {@link Schema} for every record, the schema is compiled
+ * once into a tree of value decoders, which is cached by {@link SchemaHash}.
+ * The instance is thread safe.
+ */
+public class CompiledStructuredRecordDatumReader implements DatumReader<StructuredRecord> {
+
+  private static final int MAX_CACHED_SCHEMAS = 1000;
+
+  private final Cache<SchemaHash, RecordDecoder> decoders =
+    CacheBuilder.newBuilder().maximumSize(MAX_CACHED_SCHEMAS).build();
+
+  @Override
+  public StructuredRecord read(Decoder decoder, Schema sourceSchema) throws IOException {
+    if (sourceSchema.getType() != Schema.Type.RECORD) {
+      throw new IOException("Expected schema of type RECORD. Got: " + sourceSchema.getType());
+    }
+
+    RecordDecoder recordDecoder;
+    try {
+      recordDecoder = decoders.get(sourceSchema.getSchemaHash(),
+                                   () -> (RecordDecoder) compile(sourceSchema, new HashMap<>()));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      throw new IOException("Failed to compile decoder for schema " + sourceSchema, e.getCause());
+    }
+    return recordDecoder.decode(decoder);
+  }
+
+  /**
+   * Creates a {@link ValueDecoder} for the given schema.
+   *
+   * @param schema the {@link Schema} of the values to decode
+   * @param records decoders of the records being compiled, keyed by record name, for resolving recursive records
+   */
+  private static ValueDecoder compile(Schema schema, Map<String, RecordDecoder> records) {
+    switch (schema.getType()) {
+      case NULL:
+        return decoder -> {
+          decoder.readNull();
+          return null;
+        };
+      case BOOLEAN:
+        return Decoder::readBool;
+      case INT:
+        return Decoder::readInt;
+      case LONG:
+        return Decoder::readLong;
+      case FLOAT:
+        return Decoder::readFloat;
+      case DOUBLE:
+        return Decoder::readDouble;
+      case BYTES:
+        return Decoder::readBytes;
+      case STRING:
+        return Decoder::readString;
+      case ENUM:
+        return decoder -> schema.getEnumValue(decoder.readInt());
+      case ARRAY:
+        return new ArrayDecoder(compile(schema.getComponentSchema(), records));
+      case MAP:
+        Map.Entry<Schema, Schema> mapSchema = schema.getMapSchema();
+        return new MapDecoder(compile(mapSchema.getKey(), records), compile(mapSchema.getValue(), records));
+      case RECORD:
+        RecordDecoder recordDecoder = records.get(schema.getRecordName());
+        if (recordDecoder == null) {
+          recordDecoder = new RecordDecoder(schema);
+          records.put(schema.getRecordName(), recordDecoder);
+          recordDecoder.compileFields(records);
+        }
+        return recordDecoder;
+      case UNION:
+        List<Schema> unionSchemas = schema.getUnionSchemas();
+        ValueDecoder[] decoders = new ValueDecoder[unionSchemas.size()];
+        for (int i = 0; i < decoders.length; i++) {
+          decoders[i] = compile(unionSchemas.get(i), records);
+        }
+        return decoder -> {
+          int idx = decoder.readInt();
+          if (idx < 0 || idx >= decoders.length) {
+            throw new IOException("Invalid index " + idx + " for union: " + schema);
+          }
+          return decoders[idx].decode(decoder);
+        };
+    }
+    throw new IllegalArgumentException("Unsupported schema: " + schema);
+  }
+
+  /**
+   * Decodes a value based on a compiled schema.
+   */
+  private interface ValueDecoder {
+    Object decode(Decoder decoder) throws IOException;
+  }
+
+  /**
+   * {@link ValueDecoder} for array values. It reads chunks of elements until reading a chunk size of {@code 0}.
+   */
+  private static final class ArrayDecoder implements ValueDecoder {
+
+    private final ValueDecoder elementDecoder;
+
+    private ArrayDecoder(ValueDecoder elementDecoder) {
+      this.elementDecoder = elementDecoder;
+    }
+
+    @Override
+    public Object decode(Decoder decoder) throws IOException {
+      int size = decoder.readInt();
+      List<Object> array = new ArrayList<>(size);
+
+      while (size != 0) {
+        for (int i = 0; i < size; i++) {
+          array.add(elementDecoder.decode(decoder));
+        }
+        size = decoder.readInt();
+      }
+      return array;
+    }
+  }
+
+  /**
+   * {@link ValueDecoder} for {@link Map} values. It reads chunks of entries until reading a chunk size of {@code 0}.
+   */
+  private static final class MapDecoder implements ValueDecoder {
+
+    private final ValueDecoder keyDecoder;
+    private final ValueDecoder valueDecoder;
+
+    private MapDecoder(ValueDecoder keyDecoder, ValueDecoder valueDecoder) {
+      this.keyDecoder = keyDecoder;
+      this.valueDecoder = valueDecoder;
+    }
+
+    @Override
+    public Object decode(Decoder decoder) throws IOException {
+      int size = decoder.readInt();
+      Map<Object, Object> map = new LinkedHashMap<>(size);
+
+      while (size != 0) {
+        for (int i = 0; i < size; i++) {
+          map.put(keyDecoder.decode(decoder), valueDecoder.decode(decoder));
+        }
+        size = decoder.readInt();
+      }
+      return map;
+    }
+  }
+
+  /**
+   * {@link ValueDecoder} for {@link StructuredRecord} values. The field decoders are compiled after the instance is
+   * created, so that recursive records can refer to the decoder being compiled.
+   */
+  private static final class RecordDecoder implements ValueDecoder {
+
+    private final Schema schema;
+    private final ValueDecoder[] fieldDecoders;
+
+    private RecordDecoder(Schema schema) {
+      this.schema = schema;
+      this.fieldDecoders = new ValueDecoder[schema.getFields().size()];
+    }
+
+    private void compileFields(Map<String, RecordDecoder> records) {
+      List<Schema.Field> fields = schema.getFields();
+      for (int i = 0; i < fieldDecoders.length; i++) {
+        fieldDecoders[i] = compile(fields.get(i).getSchema(), records);
+      }
+    }
+
+    @Override
+    public StructuredRecord decode(Decoder decoder) throws IOException {
+      StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+      for (int i = 0; i < fieldDecoders.length; i++) {
+        builder.set(i, fieldDecoders[i].decode(decoder));
+      }
+      return builder.build();
+    }
+  }
+}
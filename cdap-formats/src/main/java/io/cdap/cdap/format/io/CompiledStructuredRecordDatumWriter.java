@@ -0,0 +1,265 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.format.io;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.data.schema.SchemaHash;
+import io.cdap.cdap.common.io.DatumWriter;
+import io.cdap.cdap.common.io.Encoder;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link DatumWriter} for writing out {@link StructuredRecord} to {@link Encoder}, using the same format as
+ * {@link StructuredRecordDatumWriter}. Instead of walking the {@link Schema} for every record, the schema is compiled
+ * once into a tree of value encoders, which is cached by {@link SchemaHash}.
+ * The instance is thread safe.
+ */
+public class CompiledStructuredRecordDatumWriter implements DatumWriter<StructuredRecord> {
+
+  private static final int MAX_CACHED_SCHEMAS = 1000;
+
+  private final Cache<SchemaHash, ValueEncoder> encoders =
+    CacheBuilder.newBuilder().maximumSize(MAX_CACHED_SCHEMAS).build();
+
+  @Override
+  public void encode(StructuredRecord data, Encoder encoder) throws IOException {
+    Schema schema = data.getSchema();
+    ValueEncoder valueEncoder;
+    try {
+      valueEncoder = encoders.get(schema.getSchemaHash(), () -> compile(schema, new HashMap<>()));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      throw new IOException("Failed to compile encoder for schema " + schema, e.getCause());
+    }
+    valueEncoder.encode(encoder, data);
+  }
+
+  /**
+   * Creates a {@link ValueEncoder} for the given schema.
+   *
+   * @param schema the {@link Schema} of the values to encode
+   * @param records encoders of the records being compiled, keyed by record name, for resolving recursive records
+   */
+  private static ValueEncoder compile(Schema schema, Map<String, RecordEncoder> records) {
+    switch (schema.getType()) {
+      case NULL:
+        return (encoder, value) -> encoder.writeNull();
+      case BOOLEAN:
+        return (encoder, value) -> encoder.writeBool((Boolean) value);
+      case INT:
+        return (encoder, value) -> encoder.writeInt((Integer) value);
+      case LONG:
+        return (encoder, value) -> encoder.writeLong((Long) value);
+      case FLOAT:
+        return (encoder, value) -> encoder.writeFloat((Float) value);
+      case DOUBLE:
+        return (encoder, value) -> encoder.writeDouble((Double) value);
+      case BYTES:
+        return StructuredRecordDatumWriter::encodeBytes;
+      case STRING:
+        return (encoder, value) -> encoder.writeString((String) value);
+      case ENUM:
+        return (encoder, value) -> {
+          String enumValue = value instanceof Enum ? ((Enum) value).name() : value.toString();
+          encoder.writeInt(schema.getEnumIndex(enumValue));
+        };
+      case ARRAY:
+        return new ArrayEncoder(compile(schema.getComponentSchema(), records));
+      case MAP:
+        Map.Entry<Schema, Schema> mapSchema = schema.getMapSchema();
+        return new MapEncoder(compile(mapSchema.getKey(), records), compile(mapSchema.getValue(), records));
+      case RECORD:
+        RecordEncoder recordEncoder = records.get(schema.getRecordName());
+        if (recordEncoder == null) {
+          recordEncoder = new RecordEncoder(schema);
+          records.put(schema.getRecordName(), recordEncoder);
+          recordEncoder.compileFields(records);
+        }
+        return recordEncoder;
+      case UNION:
+        return new UnionEncoder(schema, records);
+    }
+    throw new IllegalArgumentException("Unsupported schema: " + schema);
+  }
+
+  /**
+   * Encodes a value based on a compiled schema.
+   */
+  private interface ValueEncoder {
+    void encode(Encoder encoder, @Nullable Object value) throws IOException;
+  }
+
+  /**
+   * {@link ValueEncoder} for array values, which can either be a {@link Collection} or a Java array.
+   */
+  private static final class ArrayEncoder implements ValueEncoder {
+
+    private final ValueEncoder elementEncoder;
+
+    private ArrayEncoder(ValueEncoder elementEncoder) {
+      this.elementEncoder = elementEncoder;
+    }
+
+    @Override
+    public void encode(Encoder encoder, @Nullable Object array) throws IOException {
+      int size;
+      if (array instanceof Collection) {
+        Collection<?> collection = (Collection<?>) array;
+        size = collection.size();
+        encoder.writeInt(size);
+        for (Object element : collection) {
+          elementEncoder.encode(encoder, element);
+        }
+      } else if (array.getClass().isArray()) {
+        size = Array.getLength(array);
+        encoder.writeInt(size);
+        for (int i = 0; i < size; i++) {
+          elementEncoder.encode(encoder, Array.get(array, i));
+        }
+      } else {
+        throw new IOException("Expects either Collection or array. Got: " + array.getClass());
+      }
+      // The size of an empty array already signals the end of the array
+      if (size > 0) {
+        encoder.writeInt(0);
+      }
+    }
+  }
+
+  /**
+   * {@link ValueEncoder} for {@link Map} values.
+   */
+  private static final class MapEncoder implements ValueEncoder {
+
+    private final ValueEncoder keyEncoder;
+    private final ValueEncoder valueEncoder;
+
+    private MapEncoder(ValueEncoder keyEncoder, ValueEncoder valueEncoder) {
+      this.keyEncoder = keyEncoder;
+      this.valueEncoder = valueEncoder;
+    }
+
+    @Override
+    public void encode(Encoder encoder, @Nullable Object map) throws IOException {
+      if (!(map instanceof Map)) {
+        throw new IOException("Expects Map type. Got: " + map.getClass());
+      }
+      int size = ((Map<?, ?>) map).size();
+      encoder.writeInt(size);
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) map).entrySet()) {
+        keyEncoder.encode(encoder, entry.getKey());
+        valueEncoder.encode(encoder, entry.getValue());
+      }
+      // The size of an empty map already signals the end of the map
+      if (size > 0) {
+        encoder.writeInt(0);
+      }
+    }
+  }
+
+  /**
+   * {@link ValueEncoder} for {@link StructuredRecord} values. The field encoders are compiled after the instance is
+   * created, so that recursive records can refer to the encoder being compiled.
+   */
+  private static final class RecordEncoder implements ValueEncoder {
+
+    private final Schema schema;
+    private final List<Schema.Field> fields;
+    private final ValueEncoder[] fieldEncoders;
+
+    private RecordEncoder(Schema schema) {
+      this.schema = schema;
+      this.fields = schema.getFields();
+      this.fieldEncoders = new ValueEncoder[fields.size()];
+    }
+
+    private void compileFields(Map<String, RecordEncoder> records) {
+      for (int i = 0; i < fieldEncoders.length; i++) {
+        fieldEncoders[i] = compile(fields.get(i).getSchema(), records);
+      }
+    }
+
+    @Override
+    public void encode(Encoder encoder, @Nullable Object record) throws IOException {
+      if (!(record instanceof StructuredRecord)) {
+        throw new IOException("Expected StructuredRecord type. Got: " + record.getClass());
+      }
+
+      StructuredRecord structuredRecord = (StructuredRecord) record;
+      // Field values can be read by position if the record has the same schema as the one being written
+      boolean sameSchema = schema.equals(structuredRecord.getSchema());
+      for (int i = 0; i < fieldEncoders.length; i++) {
+        Schema.Field field = fields.get(i);
+        Object value = sameSchema ? structuredRecord.get(i) : structuredRecord.get(field.getName());
+        try {
+          fieldEncoders[i].encode(encoder, value);
+        } catch (ClassCastException e) {
+          // happens if the record is constructed incorrectly.
+          throw new IllegalArgumentException(
+            String.format("A value for field '%s' is of type '%s', which does not match schema '%s'. ",
+                          field.getName(), value.getClass().getName(), field.getSchema()));
+        }
+      }
+    }
+  }
+
+  /**
+   * {@link ValueEncoder} for union values. The value is encoded with the first schema in the union that has the
+   * same type as the value.
+   */
+  private static final class UnionEncoder implements ValueEncoder {
+
+    private final Schema schema;
+    private final Map<Schema.Type, Integer> typeIndexes;
+    private final ValueEncoder[] encoders;
+
+    private UnionEncoder(Schema schema, Map<String, RecordEncoder> records) {
+      List<Schema> unionSchemas = schema.getUnionSchemas();
+      this.schema = schema;
+      this.typeIndexes = new EnumMap<>(Schema.Type.class);
+      this.encoders = new ValueEncoder[unionSchemas.size()];
+      for (int i = 0; i < encoders.length; i++) {
+        Schema unionSchema = unionSchemas.get(i);
+        typeIndexes.putIfAbsent(unionSchema.getType(), i);
+        encoders[i] = compile(unionSchema, records);
+      }
+    }
+
+    @Override
+    public void encode(Encoder encoder, @Nullable Object value) throws IOException {
+      Schema.Type type = StructuredRecordDatumWriter.getSchemaType(value);
+      Integer idx = typeIndexes.get(type);
+      if (idx == null) {
+        throw new IOException("Value type " + type + " not valid in union: " + schema);
+      }
+      encoder.writeInt(idx);
+      encoders[idx].encode(encoder, value);
+    }
+  }
+}
@@ -28,6 +28,7 @@ import java.lang.reflect.Array;
 import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
 
@@ -152,7 +153,7 @@ public class StructuredRecordDatumWriter implements DatumWriter<StructuredRecord
   }
 
   /**
-   * Encodes the ending of an array. This method writes out {@code 0} to signal the end of the array.
+   * Encodes the ending of an array. This method writes out {@code 0} to signal the end of a non-empty array.
    * Sub-class can override this to have different behavior
    *
    * @param encoder The encoder to use
@@ -161,7 +162,10 @@ public class StructuredRecordDatumWriter implements DatumWriter<StructuredRecord
    * @throws IOException If failed to encode
    */
   protected void encodeArrayEnd(Encoder encoder, Schema elementSchema, int size) throws IOException {
-    encoder.writeInt(0);
+    // The size of an empty array already signals the end of the array
+    if (size > 0) {
+      encoder.writeInt(0);
+    }
   }
 
   /**
@@ -196,7 +200,7 @@ public class StructuredRecordDatumWriter implements DatumWriter<StructuredRecord
   }
 
   /**
-   * Encodes the ending of a {@link Map}. This method writes out {@code 0} to signal the end of the map.
+   * Encodes the ending of a {@link Map}. This method writes out {@code 0} to signal the end of a non-empty map.
    * Sub-class can override this to have different behavior.
    *
    * @param encoder The encoder to use
@@ -206,7 +210,10 @@ public class StructuredRecordDatumWriter implements DatumWriter<StructuredRecord
    * @throws IOException If failed to encode
    */
   protected void encodeMapEnd(Encoder encoder, Schema keySchema, Schema valueSchema, int size) throws IOException {
-    encoder.writeInt(0);
+    // The size of an empty map already signals the end of the map
+    if (size > 0) {
+      encoder.writeInt(0);
+    }
   }
 
   /**
@@ -320,9 +327,15 @@ public class StructuredRecordDatumWriter implements DatumWriter<StructuredRecord
       throw new IOException("Expected StructuredRecord type. Got: " + record.getClass());
     }
 
+    StructuredRecord structuredRecord = (StructuredRecord) record;
+    // Field values can be read by position if the record has the same schema as the one being written
+    boolean sameSchema = recordSchema.equals(structuredRecord.getSchema());
+    List<Schema.Field> fields = recordSchema.getFields();
+
     encodeRecordBegin(encoder, recordSchema);
-    for (Schema.Field field : recordSchema.getFields()) {
-      encodeRecordField(encoder, field, ((StructuredRecord) record).get(field.getName()));
+    for (int i = 0; i < fields.size(); i++) {
+      Schema.Field field = fields.get(i);
+      encodeRecordField(encoder, field, sameSchema ? structuredRecord.get(i) : structuredRecord.get(field.getName()));
     }
     encodeRecordEnd(encoder, recordSchema);
   }
@@ -341,7 +354,7 @@ public class StructuredRecordDatumWriter implements DatumWriter<StructuredRecord
     throw new IOException("Value type " + type + " not valid in union: " + unionSchema);
   }
 
-  private void encodeBytes(Encoder encoder, Object value) throws IOException {
+  static void encodeBytes(Encoder encoder, Object value) throws IOException {
     if (value instanceof ByteBuffer) {
       encodeBytes(encoder, (ByteBuffer) value);
     } else if (value.getClass().isArray() && value.getClass().getComponentType().equals(byte.class)) {
@@ -352,7 +365,7 @@ public class StructuredRecordDatumWriter implements DatumWriter<StructuredRecord
     }
   }
 
-  private void encodeBytes(Encoder encoder, ByteBuffer buffer) throws IOException {
+  private static void encodeBytes(Encoder encoder, ByteBuffer buffer) throws IOException {
     if (buffer.hasArray()) {
       encoder.writeBytes(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
     } else {
@@ -364,7 +377,7 @@ public class StructuredRecordDatumWriter implements DatumWriter<StructuredRecord
     }
   }
 
-  private Schema.Type getSchemaType(@Nullable Object value) throws IOException {
+  static Schema.Type getSchemaType(@Nullable Object value) throws IOException {
     if (value == null) {
       return Schema.Type.NULL;
     }
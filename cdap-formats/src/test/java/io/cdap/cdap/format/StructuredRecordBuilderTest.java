@@ -24,6 +24,10 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.text.SimpleDateFormat;
@@ -34,6 +38,9 @@ import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.TimeZone;
 
 /**
@@ -356,4 +363,59 @@ public class StructuredRecordBuilderTest {
     thrown.expectMessage("Field 'x' is expected to be a decimal");
     record.getDecimal("x");
   }
+
+  @Test
+  public void testPositionAccess() {
+    Schema schema = Schema.recordOf("test",
+                                    Schema.Field.of("x", Schema.of(Schema.Type.INT)),
+                                    Schema.Field.of("y", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                                    Schema.Field.of("z", Schema.of(Schema.Type.LONG)));
+    StructuredRecord record = StructuredRecord.builder(schema).set(2, 3L).set("x", 1).build();
+    Assert.assertEquals(1, (int) record.get(0));
+    Assert.assertNull(record.get(1));
+    Assert.assertEquals(3L, (long) record.get(2));
+    Assert.assertEquals(3L, (long) record.get("z"));
+    Assert.assertEquals(StructuredRecord.builder(schema).set("x", 1).set("y", null).set("z", 3L).build(), record);
+
+    thrown.expect(UnexpectedFormatException.class);
+    thrown.expectMessage("field x cannot be set to a null value.");
+    StructuredRecord.builder(schema).set(0, null);
+  }
+
+  @Test
+  public void testMissingNonNullableField() {
+    Schema schema = Schema.recordOf("test",
+                                    Schema.Field.of("x", Schema.of(Schema.Type.INT)),
+                                    Schema.Field.of("y", Schema.of(Schema.Type.NULL)));
+    Assert.assertNull(StructuredRecord.builder(schema).set("x", 1).set("y", null).build().get("y"));
+
+    thrown.expect(UnexpectedFormatException.class);
+    thrown.expectMessage("Field y must contain a value.");
+    StructuredRecord.builder(schema).set("x", 1).build();
+  }
+
+  @Test
+  public void testJavaSerialization() throws Exception {
+    Schema schema = Schema.recordOf("test",
+                                    Schema.Field.of("x", Schema.of(Schema.Type.INT)),
+                                    Schema.Field.of("y", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+    StructuredRecord record = StructuredRecord.builder(schema).set("x", 1).set("y", "y").build();
+
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+      oos.writeObject(record);
+    }
+    try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+      StructuredRecord deserialized = (StructuredRecord) ois.readObject();
+      Assert.assertEquals(record, deserialized);
+      Assert.assertEquals(record.hashCode(), deserialized.hashCode());
+      Assert.assertEquals("y", deserialized.get(1));
+    }
+
+    // The hash code is the same as the one computed from the map of field values
+    Map<String, Object> fields = new HashMap<>();
+    fields.put("x", 1);
+    fields.put("y", "y");
+    Assert.assertEquals(Objects.hash(schema, fields), record.hashCode());
+  }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.format.io;
+
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.common.io.BinaryDecoder;
+import io.cdap.cdap.common.io.BinaryEncoder;
+import io.cdap.cdap.common.io.DatumWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Unit tests for {@link CompiledStructuredRecordDatumWriter} and {@link CompiledStructuredRecordDatumReader}.
+ */
+public class CompiledStructuredRecordDatumTest {
+
+  private static final Schema NODE_SCHEMA = Schema.recordOf(
+    "node",
+    Schema.Field.of("value", Schema.of(Schema.Type.INT)),
+    Schema.Field.of("next", Schema.nullableOf(Schema.recordOf("node"))));
+
+  private static final Schema SCHEMA = Schema.recordOf(
+    "record",
+    Schema.Field.of("bool", Schema.of(Schema.Type.BOOLEAN)),
+    Schema.Field.of("long", Schema.of(Schema.Type.LONG)),
+    Schema.Field.of("float", Schema.of(Schema.Type.FLOAT)),
+    Schema.Field.of("double", Schema.of(Schema.Type.DOUBLE)),
+    Schema.Field.of("string", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+    Schema.Field.of("bytes", Schema.of(Schema.Type.BYTES)),
+    Schema.Field.of("buffer", Schema.of(Schema.Type.BYTES)),
+    Schema.Field.of("enum", Schema.enumWith("a", "b", "c")),
+    Schema.Field.of("list", Schema.arrayOf(Schema.of(Schema.Type.STRING))),
+    Schema.Field.of("array", Schema.arrayOf(Schema.of(Schema.Type.INT))),
+    Schema.Field.of("map", Schema.mapOf(Schema.of(Schema.Type.STRING), Schema.of(Schema.Type.LONG))),
+    Schema.Field.of("union", Schema.unionOf(Schema.of(Schema.Type.NULL), Schema.of(Schema.Type.INT),
+                                            Schema.of(Schema.Type.STRING))),
+    Schema.Field.of("node", NODE_SCHEMA));
+
+  @Test
+  public void testSameEncoding() throws IOException {
+    StructuredRecord[] records = {
+      createRecord(10, "string", Arrays.asList("x", "y")),
+      createRecord("union", "string", Collections.emptyList()),
+      createRecord(null, null, Collections.singletonList("x")),
+    };
+
+    CompiledStructuredRecordDatumWriter writer = new CompiledStructuredRecordDatumWriter();
+    CompiledStructuredRecordDatumReader reader = new CompiledStructuredRecordDatumReader();
+    for (StructuredRecord record : records) {
+      byte[] expected = encode(new StructuredRecordDatumWriter(), record);
+      byte[] actual = encode(writer, record);
+      Assert.assertArrayEquals(expected, actual);
+
+      // The decoded record should be the same as the one decoded by the StructuredRecordDatumReader
+      StructuredRecord decoded = reader.read(new BinaryDecoder(new ByteArrayInputStream(actual)), SCHEMA);
+      Assert.assertEquals(new StructuredRecordDatumReader().read(
+        new BinaryDecoder(new ByteArrayInputStream(actual)), SCHEMA), decoded);
+      Assert.assertEquals(Arrays.asList(1, 2, 3), decoded.get("array"));
+      Assert.assertEquals(2, (int) decoded.<StructuredRecord>get("node").<StructuredRecord>get("next").get("value"));
+      Assert.assertEquals(record.<Object>get("union"), decoded.get("union"));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testInvalidUnionValue() throws IOException {
+    Schema schema = Schema.recordOf("record", Schema.Field.of("union", Schema.unionOf(Schema.of(Schema.Type.INT),
+                                                                                    Schema.of(Schema.Type.LONG))));
+    encode(new CompiledStructuredRecordDatumWriter(), StructuredRecord.builder(schema).set("union", "x").build());
+  }
+
+  private StructuredRecord createRecord(@Nullable Object union, @Nullable String string, List<String> list) {
+    StructuredRecord node = StructuredRecord.builder(NODE_SCHEMA)
+      .set("value", 1)
+      .set("next", StructuredRecord.builder(NODE_SCHEMA).set("value", 2).build())
+      .build();
+
+    return StructuredRecord.builder(SCHEMA)
+      .set("bool", true)
+      .set("long", 5L)
+      .set("float", 1.5f)
+      .set("double", 2.5d)
+      .set("string", string)
+      .set("bytes", new byte[] {1, 2, 3})
+      .set("buffer", ByteBuffer.wrap(new byte[] {4, 5, 6}))
+      .set("enum", "b")
+      .set("list", list)
+      .set("array", new int[] {1, 2, 3})
+      .set("map", ImmutableMap.of("k1", 1L, "k2", 2L))
+      .set("union", union)
+      .set("node", node)
+      .build();
+  }
+
+  private byte[] encode(DatumWriter<StructuredRecord> writer, StructuredRecord record) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    writer.encode(record, new BinaryEncoder(os));
+    return os.toByteArray();
+  }
+}
@@ -24,8 +24,8 @@ import com.esotericsoftware.kryo.io.Output;
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.api.data.schema.SchemaCache;
-import io.cdap.cdap.format.io.StructuredRecordDatumReader;
-import io.cdap.cdap.format.io.StructuredRecordDatumWriter;
+import io.cdap.cdap.format.io.CompiledStructuredRecordDatumReader;
+import io.cdap.cdap.format.io.CompiledStructuredRecordDatumWriter;
 
 import java.io.IOException;
 
@@ -34,8 +34,8 @@ import java.io.IOException;
  */
 public class StructuredRecordSerializer extends Serializer<StructuredRecord> {
 
-  private static final StructuredRecordDatumWriter DATUM_WRITER = new StructuredRecordDatumWriter();
-  private static final StructuredRecordDatumReader DATUM_READER = new StructuredRecordDatumReader();
+  private static final CompiledStructuredRecordDatumWriter DATUM_WRITER = new CompiledStructuredRecordDatumWriter();
+  private static final CompiledStructuredRecordDatumReader DATUM_READER = new CompiledStructuredRecordDatumReader();
 
   @Override
   public void write(Kryo kryo, Output output, StructuredRecord record) {
@@ -45,6 +45,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -73,16 +74,7 @@ public class SpannerStructuredTable implements StructuredTable {
 
   @Override
   public void upsert(Collection<Field<?>> fields) throws InvalidFieldException {
-    Map<String, Field<?>> fieldMap = fields.stream().collect(Collectors.toMap(Field::getName, Function.identity()));
-    List<Field<?>> primaryKeyFields = new ArrayList<>();
-
-    for (String key : schema.getPrimaryKeys()) {
-      Field<?> field = fieldMap.get(key);
-      if (field == null) {
-        throw new InvalidFieldException(schema.getTableId(), key, "Missing primary key field " + key);
-      }
-      primaryKeyFields.add(field);
-    }
+    List<Field<?>> primaryKeyFields = getPrimaryKeyFields(fields);
 
     // Cloud Spanner doesn't support upsert. The best we can do is to read the existing row and update it if it exists
     // in the same transaction.
@@ -94,8 +86,38 @@ public class SpannerStructuredTable implements StructuredTable {
     }
   }
 
+  @Override
+  public void upsertAll(Collection<? extends Collection<Field<?>>> multiFields) throws InvalidFieldException {
+    List<List<Field<?>>> multiKeys = new ArrayList<>(multiFields.size());
+    for (Collection<Field<?>> fields : multiFields) {
+      multiKeys.add(getPrimaryKeyFields(fields));
+    }
+    if (multiKeys.isEmpty()) {
+      return;
+    }
+
+    // Same as upsert, read all the existing rows in one call and then update or insert them in one batch
+    Set<Key> existingKeys = new HashSet<>();
+    for (StructuredRow row : multiRead(multiKeys, schema.getPrimaryKeys())) {
+      existingKeys.add(getKey(row.getPrimaryKeys()));
+    }
+
+    List<Statement> statements = new ArrayList<>(multiKeys.size());
+    Iterator<List<Field<?>>> keysIterator = multiKeys.iterator();
+    for (Collection<Field<?>> fields : multiFields) {
+      // A row inserted by an earlier statement in the batch is updated by the later ones
+      statements.add(existingKeys.add(getKey(keysIterator.next())) ? getInsertStatement(fields)
+                                                                  : getUpdateStatement(fields));
+    }
+    transactionContext.batchUpdate(statements);
+  }
+
   @Override
   public void update(Collection<Field<?>> fields) throws InvalidFieldException {
+    transactionContext.executeUpdate(getUpdateStatement(fields));
+  }
+
+  private Statement getUpdateStatement(Collection<Field<?>> fields) throws InvalidFieldException {
     List<Field<?>> primaryKeyFields = new ArrayList<>();
     List<Field<?>> updateFields = new ArrayList<>();
     Set<String> fieldNames = new HashSet<>();
@@ -122,13 +144,11 @@ public class SpannerStructuredTable implements StructuredTable {
 
     LOG.trace("Updating row: {}", sql);
 
-    Statement statement = fields.stream()
+    return fields.stream()
       .reduce(Statement.newBuilder(sql),
               (builder, field) -> builder.bind(field.getName()).to(getValue(field)),
               (builder1, builder2) -> builder1)
       .build();
-
-    transactionContext.executeUpdate(statement);
   }
 
   @Override
@@ -160,6 +180,38 @@ public class SpannerStructuredTable implements StructuredTable {
     return Optional.ofNullable(row).map(r -> new SpannerStructuredRow(schema, r));
   }
 
+  @Override
+  public Collection<StructuredRow> multiRead(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException {
+    return multiRead(multiKeys, schema.getFieldNames());
+  }
+
+  /**
+   * Reads multiple rows with the given columns and the primary keys in one call.
+   */
+  private Collection<StructuredRow> multiRead(Collection<? extends Collection<Field<?>>> multiKeys,
+                                              Collection<String> columns) throws InvalidFieldException {
+    if (multiKeys.isEmpty()) {
+      return Collections.emptyList();
+    }
+    KeySet.Builder keySet = KeySet.newBuilder();
+    for (Collection<Field<?>> keys : multiKeys) {
+      fieldValidator.validatePrimaryKeys(keys, false);
+      keySet.addKey(getKey(getPrimaryKeyFields(keys)));
+    }
+
+    Set<String> queryColumns = new HashSet<>(schema.getPrimaryKeys());
+    queryColumns.addAll(columns);
+
+    List<StructuredRow> result = new ArrayList<>();
+    try (ResultSet resultSet = transactionContext.read(schema.getTableId().getName(), keySet.build(), queryColumns)) {
+      while (resultSet.next()) {
+        result.add(new SpannerStructuredRow(schema, resultSet.getCurrentRowAsStruct()));
+      }
+    }
+    return result;
+  }
+
   @Override
   public CloseableIterator<StructuredRow> scan(Range keyRange, int limit) throws InvalidFieldException {
     if (!isRangePrimaryKeys(keyRange)) {
@@ -338,19 +390,72 @@ public class SpannerStructuredTable implements StructuredTable {
     }
   }
 
+  @Override
+  public void incrementAll(Collection<? extends Collection<Field<?>>> multiKeys,
+                           String column, long amount) throws InvalidFieldException, IllegalArgumentException {
+    if (schema.isPrimaryKeyColumn(column)) {
+      throw new IllegalArgumentException("Cannot use increment on a primary key field");
+    }
+    FieldType.Type type = schema.getType(column);
+    if (type == null) {
+      throw new InvalidFieldException(schema.getTableId(), column, "Column " + column + " does not exist");
+    }
+    if (type != FieldType.Type.LONG) {
+      throw new IllegalArgumentException(
+        String.format("Trying to increment a column of type %s. Only %s column type can be incremented",
+                      type, FieldType.Type.LONG));
+    }
+    if (multiKeys.isEmpty()) {
+      return;
+    }
+
+    // Read the current values of all the rows in one call
+    Map<Key, Long> values = new HashMap<>();
+    for (StructuredRow row : multiRead(multiKeys, Collections.singleton(column))) {
+      Long value = row.getLong(column);
+      values.put(getKey(row.getPrimaryKeys()), value == null ? 0L : value);
+    }
+
+    List<Statement> statements = new ArrayList<>(multiKeys.size());
+    for (Collection<Field<?>> keys : multiKeys) {
+      Key key = getKey(getPrimaryKeyFields(keys));
+      Long existing = values.get(key);
+      long newValue = amount + (existing == null ? 0L : existing);
+      values.put(key, newValue);
+
+      List<Field<?>> fields = new ArrayList<>(keys);
+      fields.add(Fields.longField(column, newValue));
+      statements.add(existing == null ? getInsertStatement(fields) : getUpdateStatement(fields));
+    }
+    transactionContext.batchUpdate(statements);
+  }
+
   @Override
   public void delete(Collection<Field<?>> keys) throws InvalidFieldException {
+    transactionContext.executeUpdate(getDeleteStatement(keys));
+  }
+
+  @Override
+  public void deleteAll(Collection<? extends Collection<Field<?>>> multiKeys) throws InvalidFieldException {
+    List<Statement> statements = new ArrayList<>(multiKeys.size());
+    for (Collection<Field<?>> keys : multiKeys) {
+      statements.add(getDeleteStatement(keys));
+    }
+    if (!statements.isEmpty()) {
+      transactionContext.batchUpdate(statements);
+    }
+  }
+
+  private Statement getDeleteStatement(Collection<Field<?>> keys) throws InvalidFieldException {
     fieldValidator.validatePrimaryKeys(keys, false);
     String sql = "DELETE FROM " + escapeName(schema.getTableId().getName()) + " WHERE "
       + keys.stream().map(f -> escapeName(f.getName()) + " = @" + f.getName()).collect(Collectors.joining(" AND "));
 
-    Statement statement = keys.stream()
+    return keys.stream()
       .reduce(Statement.newBuilder(sql),
               (builder, field) -> builder.bind(field.getName()).to(getValue(field)),
               (builder1, builder2) -> builder1)
       .build();
-
-    transactionContext.executeUpdate(statement);
   }
 
   @Override
@@ -517,6 +622,10 @@ public class SpannerStructuredTable implements StructuredTable {
   }
 
   private void insert(Collection<Field<?>> fields) throws InvalidFieldException {
+    transactionContext.executeUpdate(getInsertStatement(fields));
+  }
+
+  private Statement getInsertStatement(Collection<Field<?>> fields) throws InvalidFieldException {
     List<Field<?>> insertFields = new ArrayList<>();
     for (Field<?> field : fields) {
       fieldValidator.validateField(field);
@@ -530,13 +639,28 @@ public class SpannerStructuredTable implements StructuredTable {
 
     LOG.trace("Inserting row: {}", sql);
 
-    Statement statement = fields.stream()
+    return fields.stream()
       .reduce(Statement.newBuilder(sql),
               (builder, field) -> builder.bind(field.getName()).to(getValue(field)),
               (builder1, builder2) -> builder1)
       .build();
+  }
+
+  /**
+   * Returns the primary key fields from the given fields in the order of the primary keys in the table schema.
+   */
+  private List<Field<?>> getPrimaryKeyFields(Collection<Field<?>> fields) throws InvalidFieldException {
+    Map<String, Field<?>> fieldMap = fields.stream().collect(Collectors.toMap(Field::getName, Function.identity()));
+    List<Field<?>> primaryKeyFields = new ArrayList<>();
 
-    transactionContext.executeUpdate(statement);
+    for (String key : schema.getPrimaryKeys()) {
+      Field<?> field = fieldMap.get(key);
+      if (field == null) {
+        throw new InvalidFieldException(schema.getTableId(), key, "Missing primary key field " + key);
+      }
+      primaryKeyFields.add(field);
+    }
+    return primaryKeyFields;
   }
 
   private Key createKey(Collection<Field<?>> fields) {
@@ -48,6 +48,23 @@ public interface StructuredTable extends Closeable {
    */
   void upsert(Collection<Field<?>> fields) throws InvalidFieldException, IOException;
 
+  /**
+   * Insert or replace multiple rows to the table. Each collection of fields contains both the primary key
+   * and the rest of the columns to write for one row. The default implementation is to call
+   * {@link #upsert(Collection)} one by one. Implementations of this interface can provide an optimized version.
+   *
+   * @param multiFields a collection of fields of the rows to write
+   * @throws InvalidFieldException if any of the fields are not part of the table schema, or the types of the value
+   *                               do not match
+   * @throws IOException if there is an error writing to the table
+   */
+  default void upsertAll(Collection<? extends Collection<Field<?>>> multiFields)
+    throws InvalidFieldException, IOException {
+    for (Collection<Field<?>> fields : multiFields) {
+      upsert(fields);
+    }
+  }
+
   /**
    * Update the collection of fields to the table.
    * The fields contain the primary key and other columns to update.
@@ -253,6 +270,26 @@ public interface StructuredTable extends Closeable {
   void increment(Collection<Field<?>> keys, String column, long amount)
     throws InvalidFieldException, IOException, IllegalArgumentException;
 
+  /**
+   * Atomically increment a column of type LONG in multiple rows by the same amount. The default implementation is
+   * to call {@link #increment(Collection, String, long)} one by one. Implementations of this interface can provide
+   * an optimized version.
+   *
+   * @param multiKeys a collection of primary keys of the rows to increment
+   * @param column the column name to increment, cannot be part of the primary key
+   * @param amount the amount of increment
+   * @throws InvalidFieldException if any of the keys/column are not part of table schema,
+   *                               or their types do not match the schema
+   * @throws IOException if there is an error reading or writing to the table
+   * @throws IllegalArgumentException if the column type is not LONG
+   */
+  default void incrementAll(Collection<? extends Collection<Field<?>>> multiKeys, String column, long amount)
+    throws InvalidFieldException, IOException, IllegalArgumentException {
+    for (Collection<Field<?>> keys : multiKeys) {
+      increment(keys, column, amount);
+    }
+  }
+
   /**
    * Delete a single row from the table.
    *
@@ -263,6 +300,22 @@ public interface StructuredTable extends Closeable {
    */
   void delete(Collection<Field<?>> keys) throws InvalidFieldException, IOException;
 
+  /**
+   * Delete multiple rows from the table. The default implementation is to call {@link #delete(Collection)}
+   * one by one. Implementations of this interface can provide an optimized version.
+   *
+   * @param multiKeys a collection of primary keys of the rows to delete
+   * @throws InvalidFieldException if any of the keys are not part of the table schema, or the types of the value
+   *                               do not match
+   * @throws IOException if there is an error deleting from the table
+   */
+  default void deleteAll(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException, IOException {
+    for (Collection<Field<?>> keys : multiKeys) {
+      delete(keys);
+    }
+  }
+
   /**
    * Delete a range of rows from the table.
    *
@@ -197,6 +197,104 @@ public abstract class StructuredTableTest {
     Assert.assertEquals(new HashSet<>(keys), result);
   }
 
+  @Test
+  public void testBatchWriteReadDelete() throws Exception {
+    int max = 500;
+
+    // Batch operations with no rows are no-op
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      table.upsertAll(Collections.emptyList());
+      table.incrementAll(Collections.emptyList(), LONG_COL, 1L);
+      table.deleteAll(Collections.<Collection<Field<?>>>emptyList());
+      Assert.assertTrue(table.multiRead(Collections.emptyList()).isEmpty());
+    });
+
+    // Write half of the rows one by one, then write all the rows in one batch to override them
+    writeSimpleStructuredRows(max / 2, "");
+    List<Collection<Field<?>>> expected = new ArrayList<>(max);
+    for (int i = 0; i < max; i++) {
+      expected.add(Arrays.asList(Fields.intField(KEY, i),
+                                 Fields.longField(KEY2, (long) i),
+                                 Fields.stringField(KEY3, "key3"),
+                                 Fields.stringField(STRING_COL, VAL + i + "batch"),
+                                 Fields.doubleField(DOUBLE_COL, (double) i),
+                                 Fields.floatField(FLOAT_COL, (float) i),
+                                 Fields.bytesField(BYTES_COL, Bytes.toBytes("bytes-" + i))));
+    }
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      table.upsertAll(expected);
+    });
+    Assert.assertEquals(expected, readSimpleStructuredRows(max));
+
+    // Read all of them back using multiRead in a separate transaction
+    List<List<Field<?>>> keys = expected.stream()
+      .map(fields -> new ArrayList<>(fields).subList(0, 3))
+      .collect(Collectors.toList());
+    List<String> columns = Arrays.asList(KEY, KEY2, KEY3, STRING_COL, DOUBLE_COL, FLOAT_COL, BYTES_COL);
+    Set<Collection<Field<?>>> result = TransactionRunners.run(getTransactionRunner(), context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      return new HashSet<>(convertRowsToFields(table.multiRead(keys).iterator(), columns));
+    });
+    Assert.assertEquals(new HashSet<>(expected), result);
+
+    // Delete every other row in one batch, together with rows that don't exist
+    List<Collection<Field<?>>> deleteKeys = new ArrayList<>();
+    for (int i = 0; i < max + 10; i += 2) {
+      deleteKeys.add(Arrays.asList(Fields.intField(KEY, i), Fields.longField(KEY2, (long) i),
+                                   Fields.stringField(KEY3, "key3")));
+    }
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      table.deleteAll(deleteKeys);
+    });
+    List<Collection<Field<?>>> remaining = IntStream.range(0, max)
+      .filter(i -> i % 2 == 1)
+      .mapToObj(expected::get)
+      .collect(Collectors.toList());
+    Assert.assertEquals(remaining, scanSimpleStructuredRows(Range.all(), max));
+  }
+
+  @Test
+  public void testBatchWriteInTransaction() throws Exception {
+    List<Field<?>> keys = Arrays.asList(Fields.intField(KEY, 1), Fields.longField(KEY2, 1L),
+                                        Fields.stringField(KEY3, "key3"));
+    List<Field<?>> otherKeys = Arrays.asList(Fields.intField(KEY, 2), Fields.longField(KEY2, 2L),
+                                             Fields.stringField(KEY3, "key3"));
+
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      // The same row appears multiple times in a batch, the last one wins
+      List<Field<?>> first = new ArrayList<>(keys);
+      first.add(Fields.stringField(STRING_COL, "first"));
+      List<Field<?>> second = new ArrayList<>(keys);
+      second.add(Fields.stringField(STRING_COL, "second"));
+      second.add(Fields.longField(IDX_COL, 10L));
+      List<Field<?>> other = new ArrayList<>(otherKeys);
+      other.add(Fields.stringField(STRING_COL, "other"));
+      table.upsertAll(Arrays.asList(first, other, second));
+
+      // Batch writes are visible to reads in the same transaction
+      Optional<StructuredRow> row = table.read(keys);
+      Assert.assertTrue(row.isPresent());
+      Assert.assertEquals("second", row.get().getString(STRING_COL));
+      Assert.assertEquals(Long.valueOf(10L), row.get().getLong(IDX_COL));
+      Assert.assertEquals(2, table.multiRead(Arrays.asList(keys, otherKeys)).size());
+
+      table.deleteAll(Collections.singletonList(otherKeys));
+      Assert.assertEquals(1, table.multiRead(Arrays.asList(keys, otherKeys)).size());
+    });
+
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      Optional<StructuredRow> row = table.read(keys);
+      Assert.assertTrue(row.isPresent());
+      Assert.assertEquals("second", row.get().getString(STRING_COL));
+      Assert.assertFalse(table.read(otherKeys).isPresent());
+    });
+  }
+
   @Test
   public void testSimpleScan() throws Exception {
     int max = 100;
@@ -941,6 +1039,48 @@ public abstract class StructuredTableTest {
     });
   }
 
+  @Test
+  public void testIncrementAll() throws Exception {
+    List<Field<?>> keys = Arrays.asList(Fields.intField(KEY, 100), Fields.longField(KEY2, 200L),
+                                        Fields.stringField(KEY3, "key3"));
+    List<Field<?>> otherKeys = Arrays.asList(Fields.intField(KEY, 101), Fields.longField(KEY2, 201L),
+                                             Fields.stringField(KEY3, "key3"));
+
+    // Increment an existing row, a new row, and the same row twice in one batch
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      table.increment(keys, LONG_COL, 5L);
+    });
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      table.incrementAll(Arrays.asList(keys, otherKeys, keys), LONG_COL, 30L);
+      // Increments are visible to reads in the same transaction
+      Assert.assertEquals(Long.valueOf(65L), table.read(keys).map(r -> r.getLong(LONG_COL)).orElse(null));
+    });
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      Assert.assertEquals(Long.valueOf(65L), table.read(keys).map(r -> r.getLong(LONG_COL)).orElse(null));
+      Assert.assertEquals(Long.valueOf(30L), table.read(otherKeys).map(r -> r.getLong(LONG_COL)).orElse(null));
+    });
+
+    // Only long columns that are not part of the primary key can be incremented
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      try {
+        table.incrementAll(Collections.singletonList(keys), FLOAT_COL, 1L);
+        Assert.fail("Expected IllegalArgumentException since only long columns can be incremented");
+      } catch (IllegalArgumentException e) {
+        // Expected
+      }
+      try {
+        table.incrementAll(Collections.singletonList(keys), KEY2, 1L);
+        Assert.fail("Expected IllegalArgumentException since primary key column cannot be incremented");
+      } catch (IllegalArgumentException e) {
+        // Expected
+      }
+    });
+  }
+
   @Test
   public void testDeleteAll() throws Exception {
     int max = 10;
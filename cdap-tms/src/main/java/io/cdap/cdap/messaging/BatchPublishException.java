@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging;
+
+import io.cdap.cdap.proto.id.TopicId;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exception thrown by {@link MessagingService#batchPublish(Collection)} when publishing to some of the topics failed.
+ * Messages for topics that are not contained in {@link #getFailures()} were published successfully.
+ */
+public class BatchPublishException extends IOException {
+
+  private final Map<TopicId, Exception> failures;
+
+  public BatchPublishException(Map<TopicId, ? extends Exception> failures) {
+    super("Failed to publish messages to topics " + failures.keySet(),
+          failures.isEmpty() ? null : failures.values().iterator().next());
+    this.failures = Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+  }
+
+  /**
+   * Returns a {@link Map} from the topic to the failure when publishing messages to that topic.
+   */
+  public Map<TopicId, Exception> getFailures() {
+    return failures;
+  }
+}
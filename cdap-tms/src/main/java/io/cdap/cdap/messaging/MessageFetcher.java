@@ -22,6 +22,7 @@ import io.cdap.cdap.messaging.data.RawMessage;
 import org.apache.tephra.Transaction;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 /**
@@ -38,6 +39,7 @@ public abstract class MessageFetcher {
 
   // by default there is virtually no limit
   private int limit = Integer.MAX_VALUE;
+  private long waitMillis;
 
   /**
    * Setup the message fetching starting point based on the given message id. Calling this method
@@ -96,6 +98,24 @@ public abstract class MessageFetcher {
     return this;
   }
 
+  /**
+   * Sets the maximum amount of time to wait for new messages if there is no message available
+   * when the fetch happens. By default, this is set to {@code 0}, meaning the fetch returns immediately.
+   * Implementations that don't support waiting for new messages may return immediately regardless of this setting,
+   * and the actual wait time can be capped by the implementation.
+   *
+   * @param time the maximum amount of time to wait
+   * @param unit the unit of the time
+   * @return this instance
+   */
+  public MessageFetcher setWaitTime(long time, TimeUnit unit) {
+    if (time < 0) {
+      throw new IllegalArgumentException("Invalid message fetching wait time. Wait time must be >= 0");
+    }
+    this.waitMillis = unit.toMillis(time);
+    return this;
+  }
+
   @Nullable
   protected byte[] getStartOffset() {
     return startOffset;
@@ -119,6 +139,10 @@ public abstract class MessageFetcher {
     return limit;
   }
 
+  protected long getWaitMillis() {
+    return waitMillis;
+  }
+
   /**
    * Returns a {@link CloseableIterator} that iterates over messages fetched from the messaging system.
    *
@@ -24,7 +24,10 @@ import io.cdap.cdap.proto.id.TopicId;
 import io.cdap.cdap.security.spi.authorization.UnauthorizedException;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import javax.annotation.Nullable;
 
 /**
@@ -109,6 +112,43 @@ public interface MessagingService {
   @Nullable
   RollbackDetail publish(StoreRequest request) throws TopicNotFoundException, IOException, UnauthorizedException;
 
+  /**
+   * Publishes messages to multiple topics in one call. Only non-transactional {@link StoreRequest} is supported.
+   * Requests to different topics are published independently, hence failure in publishing to one topic doesn't
+   * affect the others. Requests to the same topic are published in order, and the ones after a failed request are
+   * not published. The default implementation publishes the requests sequentially.
+   *
+   * @param requests the {@link StoreRequest}s containing messages to be published
+   * @throws BatchPublishException if failed to publish some of the requests. The exception carries the failure
+   *                               for each topic
+   * @throws IOException if failed to publish messages
+   * @throws IllegalArgumentException if any of the requests is transactional
+   * @throws ServiceUnavailableException if the messaging service is not available
+   */
+  default void batchPublish(Collection<StoreRequest> requests) throws IOException, UnauthorizedException {
+    for (StoreRequest request : requests) {
+      if (request.isTransactional()) {
+        throw new IllegalArgumentException("Transactional publish is not supported in batch publish. Topic: "
+                                             + request.getTopicId());
+      }
+    }
+    Map<TopicId, Exception> failures = new LinkedHashMap<>();
+    for (StoreRequest request : requests) {
+      // Don't publish to a topic after a failure, so that messages of the same topic are never out of order
+      if (failures.containsKey(request.getTopicId())) {
+        continue;
+      }
+      try {
+        publish(request);
+      } catch (TopicNotFoundException | IOException | UnauthorizedException e) {
+        failures.put(request.getTopicId(), e);
+      }
+    }
+    if (!failures.isEmpty()) {
+      throw new BatchPublishException(failures);
+    }
+  }
+
   /**
    * Stores a list of messages to the messaging system. It is for long / distributed transactional publishing use case.
    *
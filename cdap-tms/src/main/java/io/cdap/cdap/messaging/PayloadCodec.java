@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging;
+
+import io.airlift.compress.Compressor;
+import io.airlift.compress.Decompressor;
+import io.airlift.compress.lz4.Lz4Compressor;
+import io.airlift.compress.lz4.Lz4Decompressor;
+import io.airlift.compress.snappy.SnappyCompressor;
+import io.airlift.compress.snappy.SnappyDecompressor;
+import io.cdap.cdap.api.common.Bytes;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * Codecs for compressing message payloads stored in the messaging system. A compressed payload is self-describing,
+ * which is encoded as
+ *
+ * <pre>
+ *   [byte: codec id][int: uncompressed length][compressed bytes]
+ * </pre>
+ *
+ * The storage is responsible for remembering whether a stored payload is compressed or not, such that changing
+ * the codec of a topic doesn't affect payloads that were stored before.
+ */
+public enum PayloadCodec {
+  NONE(0, null, null),
+  SNAPPY(1, SnappyCompressor::new, new SnappyDecompressor()),
+  LZ4(2, Lz4Compressor::new, new Lz4Decompressor());
+
+  /**
+   * Payloads smaller than this size are not compressed, as the saving is too small to justify the cost.
+   */
+  private static final int MIN_COMPRESS_SIZE = 64;
+  private static final int HEADER_SIZE = 1 + Bytes.SIZEOF_INT;
+
+  private final byte id;
+  // Compressors keep internal hash tables, hence are not thread safe. Decompressors are stateless.
+  private final ThreadLocal<Compressor> compressor;
+  private final Decompressor decompressor;
+
+  PayloadCodec(int id, @Nullable Supplier<Compressor> compressorSupplier, @Nullable Decompressor decompressor) {
+    this.id = (byte) id;
+    this.compressor = compressorSupplier == null ? null : ThreadLocal.withInitial(compressorSupplier);
+    this.decompressor = decompressor;
+  }
+
+  /**
+   * Returns the {@link PayloadCodec} of the given name.
+   *
+   * @param name name of the codec, case insensitive
+   * @throws IllegalArgumentException if there is no codec of the given name
+   */
+  public static PayloadCodec fromName(String name) {
+    try {
+      return valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unsupported payload compression '" + name
+                                           + "'. Supported values are " + Arrays.toString(values()));
+    }
+  }
+
+  /**
+   * Compresses the given payload.
+   *
+   * @param payload the payload to compress
+   * @return the compressed payload or {@code null} if the payload is not compressed, which happens if this is
+   *         the {@link #NONE} codec or compression doesn't reduce the payload size
+   */
+  @Nullable
+  public byte[] compress(byte[] payload) {
+    if (compressor == null || payload.length < MIN_COMPRESS_SIZE) {
+      return null;
+    }
+    Compressor compressor = this.compressor.get();
+    byte[] buffer = new byte[HEADER_SIZE + compressor.maxCompressedLength(payload.length)];
+    int size = compressor.compress(payload, 0, payload.length, buffer, HEADER_SIZE, buffer.length - HEADER_SIZE);
+    if (HEADER_SIZE + size >= payload.length) {
+      return null;
+    }
+    buffer[0] = id;
+    Bytes.putInt(buffer, 1, payload.length);
+    return Arrays.copyOf(buffer, HEADER_SIZE + size);
+  }
+
+  /**
+   * Decompresses a payload that was compressed by {@link #compress(byte[])}.
+   *
+   * @param compressed the compressed payload
+   * @return the original payload
+   * @throws IllegalArgumentException if the given payload is not a valid compressed payload
+   */
+  public static byte[] decompress(byte[] compressed) {
+    if (compressed.length < HEADER_SIZE) {
+      throw new IllegalArgumentException("Invalid compressed payload of size " + compressed.length);
+    }
+    PayloadCodec codec = fromId(compressed[0]);
+    int length = Bytes.toInt(compressed, 1);
+    byte[] payload = new byte[length];
+    int size = codec.decompressor.decompress(compressed, HEADER_SIZE, compressed.length - HEADER_SIZE,
+                                             payload, 0, length);
+    if (size != length) {
+      throw new IllegalArgumentException(String.format("Corrupted %s compressed payload. Expected %d bytes, got %d",
+                                                       codec, length, size));
+    }
+    return payload;
+  }
+
+  private static PayloadCodec fromId(byte id) {
+    for (PayloadCodec codec : values()) {
+      if (codec.id == id && codec.decompressor != null) {
+        return codec;
+      }
+    }
+    throw new IllegalArgumentException("Unknown payload compression codec id " + id);
+  }
+}
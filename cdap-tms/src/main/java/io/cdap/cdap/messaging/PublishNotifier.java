@@ -0,0 +1,38 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging;
+
+import io.cdap.cdap.proto.id.TopicId;
+import org.apache.twill.common.Cancellable;
+
+/**
+ * Provides notification when new messages are published to topics in the messaging system. It is used for
+ * implementing long-poll fetching, such that a fetch that has nothing to return can wait for new messages
+ * instead of having the client polling repeatedly.
+ */
+public interface PublishNotifier {
+
+  /**
+   * Adds a listener that will be called once after new messages are published to the given topic.
+   * The listener is called from the publishing thread, hence it must not perform any blocking operation.
+   *
+   * @param topicId the topic to listen on
+   * @param listener the {@link Runnable} to call when there are new messages published
+   * @return a {@link Cancellable} to remove the listener if it is no longer needed
+   */
+  Cancellable addPublishListener(TopicId topicId, Runnable listener);
+}
@@ -30,6 +30,7 @@ public class TopicMetadata {
 
   public static final String GENERATION_KEY = MessagingUtils.Constants.GENERATION_KEY;
   public static final String TTL_KEY = MessagingUtils.Constants.TTL_KEY;
+  public static final String COMPRESSION_KEY = "compression";
 
   private final TopicId topicId;
   private final Map<String, String> properties;
@@ -109,6 +110,15 @@ public class TopicMetadata {
     return Integer.parseInt(properties.get(TTL_KEY));
   }
 
+  /**
+   * Returns the {@link PayloadCodec} for compressing message payloads of the topic.
+   * If the compression property is absent, {@link PayloadCodec#NONE} is returned.
+   */
+  public PayloadCodec getPayloadCodec() {
+    String compression = properties.get(COMPRESSION_KEY);
+    return compression == null ? PayloadCodec.NONE : PayloadCodec.fromName(compression);
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -142,6 +152,7 @@ public class TopicMetadata {
   private void validateProperties() {
     validateTTL();
     validateGeneration();
+    validateCompression();
   }
 
   /**
@@ -183,6 +194,22 @@ public class TopicMetadata {
     }
   }
 
+  /**
+   * Validates the "compression" property of the given topic if it is present.
+   *
+   * @throws IllegalArgumentException if the compression value is not a supported codec.
+   */
+  private void validateCompression() {
+    String compression = properties.get(COMPRESSION_KEY);
+    if (compression != null) {
+      try {
+        PayloadCodec.fromName(compression);
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException(e.getMessage() + " for topic " + topicId, e);
+      }
+    }
+  }
+
   /**
    * Turns a list of {@link Object} into a {@link Map} by using even index objects as keys and the following odd index
    * objects as values. The {@link Object#toString()} method will be used to convert {@link Object} to {@link String}.
@@ -19,22 +19,22 @@ package io.cdap.cdap.messaging.cache;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.messaging.store.MessageFilter;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.NavigableSet;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.NoSuchElementException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.annotation.Nullable;
 
 /**
@@ -55,12 +55,19 @@ import javax.annotation.Nullable;
  *   by the consumer. On adding entries to the cache, the cache can keep growing without blocking as long as
  *   the hard limit is not hit so that the publisher doesn't need to be blocked.
  *   The room between the reduce trigger and hard limits is basically the buffer for non-blocking addition.
- *   - On addition, once the hard limit is reached, a blocking operation is needed to reduce the weight of the
- *     cache back to min retain.
+ *   - On addition, once the hard limit is reached, weight of the cache is reduced back to min retain.
  *   - On fetching entries from the cache, the fetcher will check whether it needs to reduce the cache weight and reduce
- *     it if needed. This essentially is to amortize the cost of the blocking weight reduction operations among all
+ *     it if needed. This essentially is to amortize the cost of the weight reduction operations among all
  *     fetchers (which typically has multiple of them), without blocking the single publish as much as possible.
  *
+ * Entries are stored in an append-only list of fixed size segments. Each segment keeps the entries and their weights
+ * in arrays, hence there is no per entry wrapper object. The single writer appends to the last segment and publishes
+ * each entry by advancing the segment size. Weight reduction advances the start offset of the head segments and
+ * drops segments once all their entries are removed. Scans take a snapshot of the segment list and locate the start
+ * entry with binary searches over segment boundaries, then within the segment, without acquiring any lock.
+ * Since entries in a segment are only released when the whole segment is dropped, the memory held by the cache
+ * can exceed the computed weight by at most one segment.
+ *
  * @param <T> type of entry stored in the cache
  */
 public class MessageCache<T> {
@@ -68,12 +75,17 @@ public class MessageCache<T> {
   private static final String METRICS_WEIGHT = "cache.weight";
   private static final String METRICS_ENTRIES_ADDED = "cache.entries.added";
   private static final String METRICS_ENTRIES_REMOVED = "cache.entries.removed";
+  private static final String METRICS_SEGMENTS_REMOVED = "cache.segments.removed";
   private static final String METRICS_ADD_REQUESTS = "cache.add.requests";
   private static final String METRICS_ADD_REDUCE_WEIGHT = "cache.add.reduce.weight";
   private static final String METRICS_SCAN_REQUESTS = "cache.scan.requests";
   private static final String METRICS_SCAN_REDUCE_WEIGHT = "cache.scan.reduce.weight";
 
-  private final NavigableSet<CacheEntry<T>> cache;
+  @VisibleForTesting
+  static final int DEFAULT_SEGMENT_SIZE = 1024;
+
+  private final AtomicReference<List<Segment<T>>> segments;
+  private final int segmentSize;
   private final Comparator<T> comparator;
   private final AtomicReference<Limits> limits;
   private final MetricsContext metricsContext;
@@ -81,7 +93,13 @@ public class MessageCache<T> {
   private final AtomicBoolean needReduceWeight;
   private final AtomicBoolean adding;
   private final Weigher<T> weigher;
-  private final ReadWriteLock cacheLock;
+  // Serializes weight reduction and entry updates. Scans never acquire it.
+  private final Lock maintenanceLock;
+  // Odd while an entry update is in progress. Scans retry if it changed while they were collecting entries.
+  private final AtomicLong updateVersion;
+
+  // The segment currently being appended to. It is only accessed while holding the adding flag.
+  private Segment<T> writeSegment;
 
   /**
    * Creates a new instance of the cache.
@@ -92,7 +110,15 @@ public class MessageCache<T> {
    * @param metricsContext a {@link MetricsContext} for emitting metrics about this cache.
    */
   public MessageCache(Comparator<T> comparator, Weigher<T> weigher, Limits limits, MetricsContext metricsContext) {
-    this.cache = new ConcurrentSkipListSet<>(new CacheEntryComparator<>(comparator));
+    this(comparator, weigher, limits, metricsContext, DEFAULT_SEGMENT_SIZE);
+  }
+
+  @VisibleForTesting
+  MessageCache(Comparator<T> comparator, Weigher<T> weigher, Limits limits,
+               MetricsContext metricsContext, int segmentSize) {
+    Preconditions.checkArgument(segmentSize > 0, "Segment size must be positive");
+    this.segments = new AtomicReference<>(ImmutableList.of());
+    this.segmentSize = segmentSize;
     this.comparator = comparator;
     this.limits = new AtomicReference<>(limits);
     this.metricsContext = metricsContext;
@@ -100,7 +126,8 @@ public class MessageCache<T> {
     this.needReduceWeight = new AtomicBoolean();
     this.adding = new AtomicBoolean();
     this.weigher = weigher;
-    this.cacheLock = new ReentrantReadWriteLock();
+    this.maintenanceLock = new ReentrantLock();
+    this.updateVersion = new AtomicLong();
   }
 
   /**
@@ -128,41 +155,41 @@ public class MessageCache<T> {
 
     try {
       long newWeight = 0L;
-      CacheEntry<T> largestCacheEntry = null;
+
+      // The largest entry in the cache is the last live one in the segment being appended to.
+      Segment<T> tail = writeSegment;
+      T largestEntry = tail != null && tail.getStart() < tail.getSize() ? tail.get(tail.getSize() - 1) : null;
 
       int entriesAdded = 0;
       while (entries.hasNext()) {
         T entry = entries.next();
-        CacheEntry<T> cacheEntry = new CacheEntry<>(entry, weigher.weight(entry));
-        newWeight = currentWeight.addAndGet(cacheEntry.getWeight());
-        if (newWeight > limits.get().getHardLimit()) {
-          reduceWeight();
-          metricsContext.increment(METRICS_ADD_REDUCE_WEIGHT, 1L);
-          newWeight = currentWeight.get();
-        }
 
         // Make sure new entries are also in increasing order.
-        // For the first entry from the provided iterator, it must be larger than everything in the cache, hence
-        // the ceiling call must be returning null.
+        // For the first entry from the provided iterator, it must be larger than everything in the cache.
         // For sub-sequence entries in the iterator, they must be in strictly increasing order
-        largestCacheEntry = largestCacheEntry == null ? cache.ceiling(cacheEntry) : largestCacheEntry;
-        if (largestCacheEntry != null && comparator.compare(largestCacheEntry.getEntry(), cacheEntry.getEntry()) >= 0) {
+        if (largestEntry != null && comparator.compare(largestEntry, entry) >= 0) {
           // Entries must be in strictly increasing order
           // Clear the cache to reset state. This is just for precaution, as this shouldn't happen,
           // unless there is bug in the TMS system (from the caller side).
-          currentWeight.addAndGet(-1 * cacheEntry.getWeight());
           clear();
           throw new IllegalArgumentException("Cache entry must be in strictly increasing order. " +
-                                               "Entry " + entry + " is smaller than or equal to " +
-                                               largestCacheEntry.getEntry());
+                                               "Entry " + entry + " is smaller than or equal to " + largestEntry);
+        }
+
+        int weight = weigher.weight(entry);
+        newWeight = currentWeight.addAndGet(weight);
+        if (newWeight > limits.get().getHardLimit()) {
+          reduceWeight();
+          metricsContext.increment(METRICS_ADD_REDUCE_WEIGHT, 1L);
+          newWeight = currentWeight.get();
         }
 
         // It's ok to "leak" this to reader even if the new weight is larger than the hard limit
         // The entry will get removed eventually and the read/write operations as a whole still give valid
         // results
-        cache.add(cacheEntry);
+        append(entry, weight);
         entriesAdded++;
-        largestCacheEntry = cacheEntry;
+        largestEntry = entry;
       }
 
       metricsContext.increment(METRICS_ADD_REQUESTS, 1L);
@@ -190,29 +217,32 @@ public class MessageCache<T> {
    * @return a {@link Scanner} for accessing to the fetched entries
    */
   public Scanner<T> scan(T startEntry, boolean includeStart, int limit, MessageFilter<T> filter) {
-    List<T> entries = new LinkedList<>();
-
-    // Acquire the read lock and copy the entries. This is to guard against weight reduction while the caller
-    // is iterating using the returned Scanner.
-    cacheLock.readLock().lock();
+    List<T> entries = new ArrayList<>();
     T firstInCache;
-    try {
-      firstInCache = cache.isEmpty() ? null : cache.first().getEntry();
-      for (CacheEntry<T> cacheEntry : cache.tailSet(new CacheEntry<>(startEntry, 0), includeStart)) {
-        if (entries.size() >= limit) {
-          break;
-        }
 
-        MessageFilter.Result result = filter.apply(cacheEntry.getEntry());
-        if (result == MessageFilter.Result.ACCEPT) {
-          entries.add(cacheEntry.getEntry());
-        } else if (result == MessageFilter.Result.HOLD) {
-          // Hold means not to scan more, so just break
+    // Copy the entries so that weight reduction won't affect the caller while it is iterating using the
+    // returned Scanner. If entries were updated while copying, copy again to get a consistent view.
+    while (true) {
+      long version = updateVersion.get();
+      if ((version & 1L) == 0L) {
+        entries.clear();
+        Cursor<T> cursor = new Cursor<>(segments.get(), comparator, startEntry, includeStart);
+        firstInCache = cursor.getFirst();
+        while (entries.size() < limit && cursor.hasNext()) {
+          T entry = cursor.next();
+          MessageFilter.Result result = filter.apply(entry);
+          if (result == MessageFilter.Result.ACCEPT) {
+            entries.add(entry);
+          } else if (result == MessageFilter.Result.HOLD) {
+            // Hold means not to scan more, so just break
+            break;
+          }
+        }
+        if (updateVersion.get() == version) {
           break;
         }
       }
-    } finally {
-      cacheLock.readLock().unlock();
+      Thread.yield();
     }
 
     metricsContext.increment(METRICS_SCAN_REQUESTS, 1L);
@@ -239,20 +269,20 @@ public class MessageCache<T> {
    * @param updater a {@link EntryUpdater} to update the content of a entry
    */
   public void updateEntries(T startEntry, T endEntry, EntryUpdater<T> updater) {
-    CacheEntry<T> startCacheEntry = new CacheEntry<>(startEntry, 0);
-
-    cacheLock.writeLock().lock();
+    maintenanceLock.lock();
+    updateVersion.incrementAndGet();
     try {
-      CacheEntry<T> lower = cache.lower(startCacheEntry);
-      Iterator<CacheEntry<T>> iterator = cache.subSet(startCacheEntry, true,
-                                                      new CacheEntry<>(endEntry, 0), true).iterator();
-      CacheEntry<T> cacheEntry = iterator.hasNext() ? iterator.next() : null;
-      while (cacheEntry != null) {
-        CacheEntry<T> nextCacheEntry = iterator.hasNext() ? iterator.next() : null;
-        CacheEntry<T> higher = nextCacheEntry == null ? cache.higher(cacheEntry) : nextCacheEntry;
+      Cursor<T> cursor = new Cursor<>(segments.get(), comparator, startEntry, true);
+      T lower = cursor.getLower();
+      while (cursor.hasNext()) {
+        T entry = cursor.next();
+        if (comparator.compare(entry, endEntry) > 0) {
+          break;
+        }
+        T higher = cursor.hasNext() ? cursor.peek() : null;
 
         try {
-          updater.updateEntry(cacheEntry.getEntry());
+          updater.updateEntry(entry);
         } catch (RuntimeException e) {
           clear();
           throw e;
@@ -260,19 +290,18 @@ public class MessageCache<T> {
 
         // A quick check that the ordering hasn't been altered.
         // It doesn't cover all possible case though. This is just a quick catch for bug in the caller.
-        if ((lower != null && comparator.compare(lower.getEntry(), cacheEntry.getEntry()) >= 0)
-            || (higher != null && comparator.compare(higher.getEntry(), cacheEntry.getEntry()) <= 0)) {
+        if ((lower != null && comparator.compare(lower, entry) >= 0)
+            || (higher != null && comparator.compare(higher, entry) <= 0)) {
           // This shouldn't happen, unless there is bug in the caller.
           clear();
           throw new IllegalStateException("Entry order should not be altered after update.");
         }
 
-        lower = cacheEntry;
-        cacheEntry = nextCacheEntry;
+        lower = entry;
       }
-
     } finally {
-      cacheLock.writeLock().unlock();
+      updateVersion.incrementAndGet();
+      maintenanceLock.unlock();
     }
   }
 
@@ -293,12 +322,12 @@ public class MessageCache<T> {
    * @param limits the new limits for this cache.
    */
   public void resize(Limits limits) {
-    cacheLock.writeLock().lock();
+    maintenanceLock.lock();
     try {
       this.limits.set(limits);
       reduceWeight();
     } finally {
-      cacheLock.writeLock().unlock();
+      maintenanceLock.unlock();
     }
   }
 
@@ -317,29 +346,78 @@ public class MessageCache<T> {
     return currentWeight.get();
   }
 
+  /**
+   * Returns the number of segments currently held by the cache.
+   */
+  @VisibleForTesting
+  int getSegmentCount() {
+    return segments.get().size();
+  }
+
+  /**
+   * Appends an entry to the last segment, creating a new segment if needed. This method must be called while
+   * holding the adding flag.
+   */
+  private void append(T entry, int weight) {
+    Segment<T> tail = writeSegment;
+
+    // Starts a new segment if the current one is full. Also starts a new one if all entries in the current
+    // segment were removed and the new entry is not larger than them (e.g. after the cache was cleared),
+    // so that entries within each segment are always sorted.
+    if (tail == null || tail.isFull()
+      || (tail.getStart() == tail.getSize() && comparator.compare(tail.get(tail.getSize() - 1), entry) >= 0)) {
+      Segment<T> newSegment = new Segment<>(segmentSize);
+      segments.updateAndGet(list -> ImmutableList.<Segment<T>>builder().addAll(list).add(newSegment).build());
+      writeSegment = tail = newSegment;
+    }
+    tail.add(entry, weight);
+  }
+
   /**
    * Reduces the cache weight. Cached entries will be removed until the cache weight is smaller than the soft limit.
+   * Segments with all entries removed are dropped from the cache.
    */
   private void reduceWeight() {
     int entriesRemoved = 0;
-    cacheLock.writeLock().lock();
+    int segmentsRemoved = 0;
+    maintenanceLock.lock();
     try {
       long newWeight = currentWeight.get();
-      Iterator<CacheEntry<T>> iterator = cache.iterator();
-      while (iterator.hasNext()) {
-        CacheEntry<T> cacheEntry = iterator.next();
+      long minRetain = limits.get().getMinRetain();
+      List<Segment<T>> snapshot = segments.get();
+      int lastIdx = snapshot.size() - 1;
+
+      for (int i = 0; i <= lastIdx; i++) {
+        Segment<T> segment = snapshot.get(i);
+        int size = segment.getSize();
+        int start = segment.getStart();
+
         // If removing the next entry is smaller than the min weight, we are done with the reduce logic
-        if (newWeight - cacheEntry.getWeight() < limits.get().getMinRetain()) {
+        while (start < size && newWeight - segment.getWeight(start) >= minRetain) {
+          newWeight = currentWeight.addAndGet(-1 * segment.getWeight(start));
+          start++;
+          entriesRemoved++;
+        }
+        segment.setStart(start);
+
+        // The last segment can only be dropped if it is full, since the writer may still be appending to it.
+        if (start < size || (i == lastIdx && !segment.isFull())) {
           break;
         }
-        iterator.remove();
-        entriesRemoved++;
-        newWeight = currentWeight.addAndGet(-1 * cacheEntry.getWeight());
+        segmentsRemoved++;
+      }
+
+      if (segmentsRemoved > 0) {
+        // Only this method removes segments and the writer only appends, hence the leading segments of the
+        // current list are the same as in the snapshot.
+        int removeCount = segmentsRemoved;
+        segments.updateAndGet(list -> ImmutableList.copyOf(list.subList(removeCount, list.size())));
       }
     } finally {
-      cacheLock.writeLock().unlock();
+      maintenanceLock.unlock();
     }
     metricsContext.increment(METRICS_ENTRIES_REMOVED, entriesRemoved);
+    metricsContext.increment(METRICS_SEGMENTS_REMOVED, segmentsRemoved);
   }
 
   /**
@@ -461,53 +539,186 @@ public class MessageCache<T> {
   }
 
   /**
-   * A private class that wraps a user provided entry of type {@code T} with an associated weight.
+   * A fixed size block of cache entries. Entries are only appended by the single writer and are published to readers
+   * by the volatile write of the size. Removed entries are only tracked by advancing the start offset.
    *
    * @param <T> type of the entry
    */
-  private static class CacheEntry<T> {
-    private final T entry;
-    private final int weight;
+  private static final class Segment<T> {
+    private final Object[] entries;
+    private final int[] weights;
+    private volatile int size;
+    private volatile int start;
+
+    private Segment(int capacity) {
+      this.entries = new Object[capacity];
+      this.weights = new int[capacity];
+    }
 
-    private CacheEntry(T entry, int weight) {
-      this.entry = entry;
-      this.weight = weight;
+    @SuppressWarnings("unchecked")
+    T get(int idx) {
+      return (T) entries[idx];
     }
 
-    T getEntry() {
-      return entry;
+    int getWeight(int idx) {
+      return weights[idx];
+    }
+
+    int getSize() {
+      return size;
+    }
+
+    int getStart() {
+      return start;
+    }
+
+    void setStart(int start) {
+      this.start = start;
+    }
+
+    boolean isFull() {
+      return size == entries.length;
     }
 
-    int getWeight() {
-      return weight;
+    void add(T entry, int weight) {
+      int idx = size;
+      entries[idx] = entry;
+      weights[idx] = weight;
+      size = idx + 1;
+    }
+
+    /**
+     * Returns the index of the first entry in the range of {@code [from, to)} that is larger than the given entry,
+     * or larger than or equal to if {@code inclusive} is {@code true}. Returns {@code to} if there is no such entry.
+     */
+    int search(int from, int to, T entry, boolean inclusive, Comparator<T> comparator) {
+      int low = from;
+      int high = to;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        int cmp = comparator.compare(get(mid), entry);
+        if (cmp < 0 || (cmp == 0 && !inclusive)) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
     }
 
     @Override
     public String toString() {
-      return "CacheEntry{" +
-        "entry=" + entry +
-        ", weight=" + weight +
+      return "Segment{" +
+        "capacity=" + entries.length +
+        ", size=" + size +
+        ", start=" + start +
         '}';
     }
   }
 
   /**
-   * A {@link Comparator} for {@link CacheEntry} that only compares with the user entry of type {@code T},
-   * using the provided {@link Comparator}.
+   * Iterates over live entries from a snapshot of the segment list, starting from a given entry.
    *
-   * @param <T> type of the user entry
+   * @param <T> type of the entry
    */
-  private static final class CacheEntryComparator<T> implements Comparator<CacheEntry<T>> {
+  private static final class Cursor<T> {
+
+    private final List<Segment<T>> segments;
+    private final T first;
+    private final T lower;
+    private int segmentIdx;
+    private int idx;
+
+    Cursor(List<Segment<T>> segments, Comparator<T> comparator, T startEntry, boolean inclusive) {
+      this.segments = segments;
+
+      // Find the first segment that still has live entries. Segments after it are not affected by weight
+      // reduction happened after this point, since entries are never removed from the segment arrays.
+      int head = 0;
+      int headStart = 0;
+      while (head < segments.size()) {
+        Segment<T> segment = segments.get(head);
+        headStart = segment.getStart();
+        if (headStart < segment.getSize()) {
+          break;
+        }
+        head++;
+      }
+
+      if (head == segments.size()) {
+        this.first = null;
+        this.lower = null;
+        this.segmentIdx = head;
+        return;
+      }
+      this.first = segments.get(head).get(headStart);
+
+      // Binary search for the last segment with the first entry not larger than the start entry
+      int low = head;
+      int high = segments.size() - 1;
+      while (low < high) {
+        int mid = (low + high + 1) >>> 1;
+        Segment<T> segment = segments.get(mid);
+        if (segment.getSize() == 0 || comparator.compare(segment.get(0), startEntry) > 0) {
+          high = mid - 1;
+        } else {
+          low = mid;
+        }
+      }
 
-    private final Comparator<T> comparator;
+      Segment<T> segment = segments.get(low);
+      int from = low == head ? headStart : 0;
+      this.segmentIdx = low;
+      this.idx = segment.search(from, segment.getSize(), startEntry, inclusive, comparator);
+
+      if (idx > from) {
+        this.lower = segment.get(idx - 1);
+      } else if (low > head) {
+        Segment<T> previous = segments.get(low - 1);
+        this.lower = previous.get(previous.getSize() - 1);
+      } else {
+        this.lower = null;
+      }
+    }
 
-    private CacheEntryComparator(Comparator<T> comparator) {
-      this.comparator = comparator;
+    /**
+     * Returns the first live entry in the cache when this cursor was created or {@code null} if there is none.
+     */
+    @Nullable
+    T getFirst() {
+      return first;
     }
 
-    @Override
-    public int compare(CacheEntry<T> entry1, CacheEntry<T> entry2) {
-      return comparator.compare(entry1.getEntry(), entry2.getEntry());
+    /**
+     * Returns the live entry right before the starting position of this cursor or {@code null} if there is none.
+     */
+    @Nullable
+    T getLower() {
+      return lower;
+    }
+
+    boolean hasNext() {
+      while (segmentIdx < segments.size()) {
+        if (idx < segments.get(segmentIdx).getSize()) {
+          return true;
+        }
+        segmentIdx++;
+        idx = 0;
+      }
+      return false;
+    }
+
+    T peek() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return segments.get(segmentIdx).get(idx);
+    }
+
+    T next() {
+      T entry = peek();
+      idx++;
+      return entry;
     }
   }
 }
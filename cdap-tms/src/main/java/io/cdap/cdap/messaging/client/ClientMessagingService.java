@@ -37,6 +37,7 @@ import io.cdap.cdap.common.http.DefaultHttpRequestConfig;
 import io.cdap.cdap.common.internal.remote.RemoteClient;
 import io.cdap.cdap.common.internal.remote.RemoteClientFactory;
 import io.cdap.cdap.internal.io.ExposedByteArrayOutputStream;
+import io.cdap.cdap.messaging.BatchPublishException;
 import io.cdap.cdap.messaging.MessageFetcher;
 import io.cdap.cdap.messaging.MessagingService;
 import io.cdap.cdap.messaging.RollbackDetail;
@@ -44,6 +45,7 @@ import io.cdap.cdap.messaging.Schemas;
 import io.cdap.cdap.messaging.StoreRequest;
 import io.cdap.cdap.messaging.TopicMetadata;
 import io.cdap.cdap.messaging.data.RawMessage;
+import io.cdap.cdap.messaging.data.RawMessageFraming;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.TopicId;
 import io.cdap.cdap.security.spi.authorization.UnauthorizedException;
@@ -65,6 +67,7 @@ import org.apache.avro.io.Encoder;
 import org.apache.avro.io.EncoderFactory;
 import org.apache.tephra.TransactionCodec;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -76,6 +79,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
@@ -103,6 +107,10 @@ public final class ClientMessagingService implements MessagingService {
 
   private final RemoteClient remoteClient;
   private final boolean compressPayload;
+  private final boolean framedFetch;
+  // Set to false once the server responded that it doesn't have the batch publish endpoint, which is the case for
+  // servers of older versions. Requests are then published to each topic separately.
+  private volatile boolean batchPublishSupported = true;
 
   @Inject
   public ClientMessagingService(CConfiguration cConf, RemoteClientFactory remoteClientFactory) {
@@ -111,9 +119,23 @@ public final class ClientMessagingService implements MessagingService {
 
   @VisibleForTesting
   public ClientMessagingService(RemoteClientFactory remoteClientFactory, boolean compressPayload) {
+    this(remoteClientFactory, compressPayload, true);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param remoteClientFactory the {@link RemoteClientFactory} for creating client to talk to the messaging service
+   * @param compressPayload {@code true} to compress payload in requests and responses
+   * @param framedFetch {@code true} to ask for the {@link RawMessageFraming} encoding in fetch responses,
+   *                    {@code false} to always use Avro encoding
+   */
+  @VisibleForTesting
+  public ClientMessagingService(RemoteClientFactory remoteClientFactory, boolean compressPayload, boolean framedFetch) {
     this.remoteClient = remoteClientFactory.createRemoteClient(
       Constants.Service.MESSAGING_SERVICE, HTTP_REQUEST_CONFIG, "/v1/namespaces/");
     this.compressPayload = compressPayload;
+    this.framedFetch = framedFetch;
   }
 
   @Override
@@ -212,6 +234,42 @@ public final class ClientMessagingService implements MessagingService {
     return new ClientRollbackDetail(body);
   }
 
+  @Override
+  public void batchPublish(Collection<StoreRequest> requests) throws IOException, UnauthorizedException {
+    // Group the requests by namespace, since the batch publish call is scoped by namespace
+    Map<NamespaceId, List<StoreRequest>> requestsByNamespace = new LinkedHashMap<>();
+    for (StoreRequest request : requests) {
+      if (request.isTransactional()) {
+        throw new IllegalArgumentException("Transactional publish is not supported in batch publish. Topic: "
+                                             + request.getTopicId());
+      }
+      requestsByNamespace.computeIfAbsent(request.getTopicId().getNamespaceId(), k -> new ArrayList<>()).add(request);
+    }
+
+    Map<TopicId, Exception> failures = new LinkedHashMap<>();
+    for (Map.Entry<NamespaceId, List<StoreRequest>> entry : requestsByNamespace.entrySet()) {
+      Map<TopicId, Exception> namespaceFailures = null;
+      if (batchPublishSupported) {
+        try {
+          namespaceFailures = performBatchPublish(entry.getKey(), entry.getValue());
+        } catch (IOException | IllegalArgumentException e) {
+          // The whole call failed, hence none of the topics in the namespace was published
+          namespaceFailures = new LinkedHashMap<>();
+          for (StoreRequest request : entry.getValue()) {
+            namespaceFailures.put(request.getTopicId(), e);
+          }
+        }
+      }
+      if (namespaceFailures == null) {
+        namespaceFailures = publishEach(entry.getValue());
+      }
+      failures.putAll(namespaceFailures);
+    }
+    if (!failures.isEmpty()) {
+      throw new BatchPublishException(failures);
+    }
+  }
+
   @Override
   public void storePayload(StoreRequest request)
     throws TopicNotFoundException, IOException, UnauthorizedException {
@@ -290,6 +348,116 @@ public final class ClientMessagingService implements MessagingService {
     return response;
   }
 
+  /**
+   * Publishes each of the given requests with a separate publish call. After a request failed, the remaining
+   * requests to the same topic are not published, so that messages of a topic are never published out of order.
+   *
+   * @param requests the requests to publish
+   * @return a {@link Map} from topic to the failure for topics that failed to publish
+   */
+  private Map<TopicId, Exception> publishEach(List<StoreRequest> requests) {
+    Map<TopicId, Exception> failures = new LinkedHashMap<>();
+    for (StoreRequest request : requests) {
+      if (failures.containsKey(request.getTopicId())) {
+        continue;
+      }
+      try {
+        publish(request);
+      } catch (Exception e) {
+        failures.put(request.getTopicId(), e);
+      }
+    }
+    return failures;
+  }
+
+  /**
+   * Makes a batch publish request to the server for publishing to multiple topics in the given namespace.
+   * Payloads of requests to the same topic are merged in order, since each topic can only appear once in the call.
+   *
+   * @param namespaceId the namespace of the topics
+   * @param requests the requests to publish
+   * @return a {@link Map} from topic to the failure for topics that failed to publish, or {@code null} if the
+   *         server doesn't support batch publish
+   * @throws IOException if failed to perform the batch publish call
+   */
+  @Nullable
+  private Map<TopicId, Exception> performBatchPublish(NamespaceId namespaceId,
+                                                      List<StoreRequest> requests) throws IOException {
+    Map<TopicId, List<ByteBuffer>> payloads = new LinkedHashMap<>();
+    for (StoreRequest request : requests) {
+      payloads.computeIfAbsent(request.getTopicId(), k -> new ArrayList<>()).addAll(convertPayloads(request));
+    }
+
+    Schema schema = Schemas.V1.BatchPublishRequest.SCHEMA;
+    Schema topicRequestSchema = schema.getField("requests").schema().getElementType();
+
+    List<GenericRecord> topicRequests = new ArrayList<>(payloads.size());
+    for (Map.Entry<TopicId, List<ByteBuffer>> entry : payloads.entrySet()) {
+      GenericRecord topicRequest = new GenericData.Record(topicRequestSchema);
+      topicRequest.put("topic", entry.getKey().getTopic());
+      topicRequest.put("messages", entry.getValue());
+      topicRequests.add(topicRequest);
+    }
+    GenericRecord record = new GenericData.Record(schema);
+    record.put("requests", topicRequests);
+
+    // Encode the request as avro
+    ExposedByteArrayOutputStream os = new ExposedByteArrayOutputStream();
+    try (OutputStream encoderOutput = compressOutputStream(os)) {
+      Encoder encoder = EncoderFactory.get().directBinaryEncoder(encoderOutput, null);
+
+      DatumWriter<GenericRecord> datumWriter = new GenericDatumWriter<>(schema);
+      datumWriter.write(record, encoder);
+      encoder.flush();
+    }
+
+    Map<String, String> headers = new HashMap<>();
+    headers.put(HttpHeaders.CONTENT_TYPE, "avro/binary");
+    if (compressPayload) {
+      headers.put(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+
+    HttpRequest httpRequest = remoteClient.requestBuilder(HttpMethod.POST, namespaceId.getNamespace() + "/publish")
+      .addHeaders(headers)
+      .withBody(os.toByteBuffer())
+      .build();
+
+    HttpResponse response = remoteClient.execute(httpRequest);
+    if (response.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+      // The server responds with per topic failures for missing topics, hence this means the endpoint is missing
+      batchPublishSupported = false;
+      return null;
+    }
+    handleError(response, "Failed to publish messages to topics " + payloads.keySet());
+
+    // Decode the per topic failures
+    verifyContentType(response.getHeaders().asMap(), "avro/binary");
+    Decoder decoder = DecoderFactory.get().binaryDecoder(response.getResponseBody(), null);
+    DatumReader<GenericRecord> datumReader = new GenericDatumReader<>(Schemas.V1.BatchPublishResponse.SCHEMA);
+
+    Map<TopicId, Exception> failures = new LinkedHashMap<>();
+    for (Object obj : (List<?>) datumReader.read(null, decoder).get("failures")) {
+      GenericRecord failure = (GenericRecord) obj;
+      TopicId topicId = namespaceId.topic(failure.get("topic").toString());
+      String message = failure.get("message").toString();
+      switch ((Integer) failure.get("status")) {
+        case HttpURLConnection.HTTP_NOT_FOUND:
+          failures.put(topicId, new TopicNotFoundException(topicId.getNamespace(), topicId.getTopic()));
+          break;
+        case HttpURLConnection.HTTP_BAD_REQUEST:
+          failures.put(topicId, new IllegalArgumentException(message));
+          break;
+        case HttpURLConnection.HTTP_UNAVAILABLE:
+          failures.put(topicId, new ServiceUnavailableException(Constants.Service.MESSAGING_SERVICE));
+          break;
+        default:
+          failures.put(topicId, new IOException("Failed to publish message to topic " + topicId
+                                                  + ". Reason: " + message));
+      }
+    }
+    return failures;
+  }
+
   /**
    * Wraps the given output stream with {@link GZIPOutputStream} if payload compression is enabled.
    */
@@ -423,8 +591,17 @@ public final class ClientMessagingService implements MessagingService {
 
       // The cask common http library doesn't support read streaming, and we don't want to buffer all messages
       // in memory, hence we use the HttpURLConnection directly instead.
-      HttpURLConnection urlConn = remoteClient.openConnection(HttpMethod.POST, createTopicPath(topicId) + "/poll");
+      String path = createTopicPath(topicId) + "/poll";
+      if (getWaitMillis() > 0) {
+        // Ask the server to wait for new messages if there is no message available
+        path += "?waitMillis=" + getWaitMillis();
+      }
+      HttpURLConnection urlConn = remoteClient.openConnection(HttpMethod.POST, path);
       urlConn.setRequestProperty(HttpHeaders.CONTENT_TYPE, "avro/binary");
+      if (framedFetch) {
+        // Older servers ignore the accept header and always respond with avro
+        urlConn.setRequestProperty(HttpHeaders.ACCEPT, RawMessageFraming.CONTENT_TYPE + ", avro/binary");
+      }
       if (compressPayload) {
         urlConn.setRequestProperty(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
       }
@@ -452,6 +629,10 @@ public final class ClientMessagingService implements MessagingService {
           urlConn.disconnect();
         }
       }, "Failed to update topic " + topicId);
+
+      if (RawMessageFraming.CONTENT_TYPE.equalsIgnoreCase(urlConn.getContentType())) {
+        return new FramedMessageIterator(urlConn, decompressIfNeeded(urlConn, urlConn.getInputStream()));
+      }
       verifyContentType(urlConn.getHeaderFields(), "avro/binary");
 
       // Decode the avro array manually instead of using DatumReader in order to support streaming decode.
@@ -499,6 +680,40 @@ public final class ClientMessagingService implements MessagingService {
       };
     }
 
+    /**
+     * A {@link CloseableIterator} that decodes messages from a stream encoded with {@link RawMessageFraming}.
+     */
+    private final class FramedMessageIterator extends AbstractCloseableIterator<RawMessage> {
+
+      private final HttpURLConnection urlConn;
+      private final InputStream inputStream;
+      private final InputStream bufferedInput;
+      private final byte[] header;
+
+      FramedMessageIterator(HttpURLConnection urlConn, InputStream inputStream) {
+        this.urlConn = urlConn;
+        this.inputStream = inputStream;
+        this.bufferedInput = new BufferedInputStream(inputStream);
+        this.header = new byte[RawMessageFraming.HEADER_SIZE];
+      }
+
+      @Override
+      protected RawMessage computeNext() {
+        try {
+          RawMessage message = RawMessageFraming.decode(bufferedInput, header);
+          return message == null ? endOfData() : message;
+        } catch (IOException e) {
+          throw Throwables.propagate(e);
+        }
+      }
+
+      @Override
+      public void close() {
+        Closeables.closeQuietly(inputStream);
+        urlConn.disconnect();
+      }
+    }
+
     /**
      * Based on the given {@link HttpURLConnection} content encoding,
      * optionally wrap the given {@link InputStream} with either gzip or deflate decompression.
@@ -29,20 +29,24 @@ import org.apache.tephra.TransactionAware;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 /**
  * Implementation of {@link MessageFetcher} that implements {@link TransactionAware}. The active transaction will
- * be used for fetching messages if there is one. Otherwise messages will be fetched without transaction.
+ * be used for fetching messages if there is one. Otherwise messages will be fetched without transaction, and
+ * the fetch can wait for new messages up to the configured wait time if there is no message available.
  */
 final class BasicMessageFetcher implements MessageFetcher, TransactionAware {
 
   private final MessagingService messagingService;
+  private final long waitMillis;
   private final String name;
   private Transaction transaction;
 
-  BasicMessageFetcher(MessagingService messagingService) {
+  BasicMessageFetcher(MessagingService messagingService, long waitMillis) {
     this.messagingService = messagingService;
+    this.waitMillis = waitMillis;
     this.name = "MessageFetcher-" + Thread.currentThread().getName();
   }
 
@@ -54,9 +58,7 @@ final class BasicMessageFetcher implements MessageFetcher, TransactionAware {
       .setLimit(limit)
       .setStartTime(timestamp);
 
-    if (transaction != null) {
-      fetcher.setTransaction(transaction);
-    }
+    setupFetcher(fetcher);
 
     return new MessageIterator(fetcher.fetch());
   }
@@ -72,11 +74,21 @@ final class BasicMessageFetcher implements MessageFetcher, TransactionAware {
       fetcher.setStartMessage(Bytes.fromHexString(afterMessageId), false);
     }
 
+    setupFetcher(fetcher);
+
+    return new MessageIterator(fetcher.fetch());
+  }
+
+  /**
+   * Sets the transaction if there is an active one, otherwise sets the wait time to the given fetcher.
+   * Transactional fetches never wait to avoid holding up the transaction.
+   */
+  private void setupFetcher(io.cdap.cdap.messaging.MessageFetcher fetcher) {
     if (transaction != null) {
       fetcher.setTransaction(transaction);
+    } else if (waitMillis > 0) {
+      fetcher.setWaitTime(waitMillis, TimeUnit.MILLISECONDS);
     }
-
-    return new MessageIterator(fetcher.fetch());
   }
 
   @Override
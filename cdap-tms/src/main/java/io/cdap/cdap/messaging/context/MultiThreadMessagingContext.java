@@ -34,9 +34,21 @@ public class MultiThreadMessagingContext extends MultiThreadTransactionAware<Bas
                                          implements MessagingContext {
 
   private final MessagingService messagingService;
+  private final long fetchWaitMillis;
 
   public MultiThreadMessagingContext(final MessagingService messagingService) {
+    this(messagingService, 0L);
+  }
+
+  /**
+   * Creates an instance with message fetching that waits for new messages if there is no message available.
+   *
+   * @param messagingService the {@link MessagingService} for interacting with the messaging system
+   * @param fetchWaitMillis maximum number of milliseconds for a non-transactional fetch to wait for new messages
+   */
+  public MultiThreadMessagingContext(MessagingService messagingService, long fetchWaitMillis) {
     this.messagingService = messagingService;
+    this.fetchWaitMillis = fetchWaitMillis;
   }
 
   @Override
@@ -56,6 +68,6 @@ public class MultiThreadMessagingContext extends MultiThreadTransactionAware<Bas
 
   @Override
   protected BasicMessagingContext createTransactionAwareForCurrentThread() {
-    return new BasicMessagingContext(messagingService);
+    return new BasicMessagingContext(messagingService, fetchWaitMillis);
   }
 }
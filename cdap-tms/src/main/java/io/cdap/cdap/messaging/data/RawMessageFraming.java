@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.data;
+
+import com.google.common.io.ByteStreams;
+import io.cdap.cdap.api.common.Bytes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import javax.annotation.Nullable;
+
+/**
+ * Defines the compact binary framing of a stream of {@link RawMessage} used in fetch responses. It is an alternative
+ * to the Avro encoding that allows the server to send the message id and payload bytes without re-encoding them.
+ * Each message is encoded as
+ *
+ * <pre>
+ *   [int: id length][int: payload length][id bytes][payload bytes]
+ * </pre>
+ *
+ * All integers are big-endian. The end of the message stream is marked by a single int with value {@code -1}.
+ */
+public final class RawMessageFraming {
+
+  /**
+   * The content type for the framed message stream.
+   */
+  public static final String CONTENT_TYPE = "application/x-cdap-tms-messages";
+
+  /**
+   * Size of the header of each message.
+   */
+  public static final int HEADER_SIZE = 8;
+
+  /**
+   * Value of the id length that marks the end of the message stream.
+   */
+  public static final int END_OF_STREAM = -1;
+
+  private RawMessageFraming() {
+    // protect the constructor
+  }
+
+  /**
+   * Decodes the next {@link RawMessage} from the given {@link InputStream}.
+   *
+   * @param input the {@link InputStream} to read from
+   * @param header a buffer of at least {@link #HEADER_SIZE} bytes for reading the message header. It is provided by
+   *               the caller so that it can be reused across calls
+   * @return the {@link RawMessage} decoded or {@code null} if reached the end of the message stream
+   * @throws IOException if failed to read from the input or the stream is corrupted
+   */
+  @Nullable
+  public static RawMessage decode(InputStream input, byte[] header) throws IOException {
+    ByteStreams.readFully(input, header, 0, Integer.BYTES);
+    int idLength = Bytes.toInt(header, 0);
+    if (idLength == END_OF_STREAM) {
+      return null;
+    }
+    ByteStreams.readFully(input, header, Integer.BYTES, Integer.BYTES);
+    int payloadLength = Bytes.toInt(header, Integer.BYTES);
+    if (idLength < 0 || payloadLength < 0) {
+      throw new IOException(String.format("Invalid message frame with id length %d and payload length %d",
+                                          idLength, payloadLength));
+    }
+
+    byte[] id = new byte[idLength];
+    byte[] payload = new byte[payloadLength];
+    ByteStreams.readFully(input, id);
+    ByteStreams.readFully(input, payload);
+    return new RawMessage(id, payload);
+  }
+}
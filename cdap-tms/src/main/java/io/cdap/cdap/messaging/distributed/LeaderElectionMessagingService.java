@@ -26,6 +26,7 @@ import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.messaging.MessageFetcher;
 import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.messaging.PublishNotifier;
 import io.cdap.cdap.messaging.RollbackDetail;
 import io.cdap.cdap.messaging.StoreRequest;
 import io.cdap.cdap.messaging.TopicMetadata;
@@ -39,6 +40,7 @@ import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.TopicId;
 import io.cdap.cdap.security.spi.authorization.UnauthorizedException;
 import org.apache.twill.api.ElectionHandler;
+import org.apache.twill.common.Cancellable;
 import org.apache.twill.common.Threads;
 import org.apache.twill.internal.zookeeper.LeaderElection;
 import org.apache.twill.zookeeper.ZKClient;
@@ -46,6 +48,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
@@ -57,7 +60,7 @@ import javax.annotation.Nullable;
 /**
  * A {@link MessagingService} that performs lead-election and only operates if it is currently a leader.
  */
-public class LeaderElectionMessagingService extends AbstractIdleService implements MessagingService {
+public class LeaderElectionMessagingService extends AbstractIdleService implements MessagingService, PublishNotifier {
 
   private static final Logger LOG = LoggerFactory.getLogger(LeaderElectionMessagingService.class);
 
@@ -169,6 +172,11 @@ public class LeaderElectionMessagingService extends AbstractIdleService implemen
     return getMessagingService().publish(request);
   }
 
+  @Override
+  public void batchPublish(Collection<StoreRequest> requests) throws IOException, UnauthorizedException {
+    getMessagingService().batchPublish(requests);
+  }
+
   @Override
   public void storePayload(StoreRequest request) throws TopicNotFoundException, IOException, UnauthorizedException {
     getMessagingService().storePayload(request);
@@ -180,6 +188,11 @@ public class LeaderElectionMessagingService extends AbstractIdleService implemen
     getMessagingService().rollback(topicId, rollbackDetail);
   }
 
+  @Override
+  public Cancellable addPublishListener(TopicId topicId, Runnable listener) {
+    return getMessagingService().addPublishListener(topicId, listener);
+  }
+
   private void upgradeTable() {
     HBaseTableFactory tableFactory = getHBaseTableFactory(injector.getInstance(TableFactory.class));
 
@@ -247,7 +260,7 @@ public class LeaderElectionMessagingService extends AbstractIdleService implemen
     }
   }
 
-  private MessagingService getMessagingService() {
+  private CoreMessagingService getMessagingService() {
     DelegateService delegateService = delegate.getReference();
     if (delegateService == null || !delegate.isMarked()) {
       throw new ServiceUnavailableException(Constants.Service.MESSAGING_SERVICE,
@@ -286,7 +299,7 @@ public class LeaderElectionMessagingService extends AbstractIdleService implemen
       }
     }
 
-    MessagingService getMessagingService() {
+    CoreMessagingService getMessagingService() {
       return messagingService;
     }
   }
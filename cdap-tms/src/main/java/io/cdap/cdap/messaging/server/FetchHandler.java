@@ -22,6 +22,7 @@ import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.api.messaging.TopicNotFoundException;
 import io.cdap.cdap.common.BadRequestException;
+import io.cdap.cdap.common.HttpExceptionHandler;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.io.ByteBuffers;
@@ -29,20 +30,25 @@ import io.cdap.cdap.common.logging.LogSamplers;
 import io.cdap.cdap.common.logging.Loggers;
 import io.cdap.cdap.messaging.MessageFetcher;
 import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.messaging.PublishNotifier;
 import io.cdap.cdap.messaging.Schemas;
 import io.cdap.cdap.messaging.data.RawMessage;
+import io.cdap.cdap.messaging.data.RawMessageFraming;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.TopicId;
 import io.cdap.http.AbstractHttpHandler;
 import io.cdap.http.BodyProducer;
+import io.cdap.http.HandlerContext;
 import io.cdap.http.HttpResponder;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericDatumReader;
@@ -55,6 +61,8 @@ import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.io.Encoder;
 import org.apache.avro.io.EncoderFactory;
 import org.apache.tephra.TransactionCodec;
+import org.apache.twill.common.Cancellable;
+import org.apache.twill.common.Threads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -65,13 +73,27 @@ import java.nio.channels.ClosedChannelException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nullable;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
 
 /**
  * A netty http handler for handling message fetching REST API for the messaging system.
+ *
+ * A poll request can carry a {@code waitMillis} query parameter to perform long-poll. If there is no message
+ * available, the response is deferred until new messages are published to the topic or the wait time expired,
+ * without occupying the http handler thread while waiting.
+ *
+ * Messages are sent back as an Avro array by default. If the request accepts the {@link RawMessageFraming} content
+ * type, messages are sent with the compact framing instead, which avoids re-encoding the message id and payload.
  */
 @Path("/v1/namespaces/{namespace}/topics/{topic}")
 public final class FetchHandler extends AbstractHttpHandler {
@@ -84,21 +106,45 @@ public final class FetchHandler extends AbstractHttpHandler {
     "Connection reset by peer",
     "Broken pipe"
   );
+  private static final HttpExceptionHandler EXCEPTION_HANDLER = new HttpExceptionHandler();
 
   private final MessagingService messagingService;
-  private int messageChunkSize;
+  private final int messageChunkSize;
+  private final long maxWaitMillis;
+  private final int longPollThreads;
+  private ScheduledExecutorService longPollExecutor;
 
   @Inject
   FetchHandler(CConfiguration cConf, MessagingService messagingService) {
     this.messagingService = messagingService;
     this.messageChunkSize = cConf.getInt(Constants.MessagingSystem.HTTP_SERVER_CONSUME_CHUNK_SIZE);
+    this.maxWaitMillis = cConf.getLong(Constants.MessagingSystem.FETCH_MAX_WAIT_MS);
+    this.longPollThreads = cConf.getInt(Constants.MessagingSystem.HTTP_SERVER_LONG_POLL_THREADS);
+  }
+
+  @Override
+  public void init(HandlerContext context) {
+    super.init(context);
+    if (maxWaitMillis > 0 && messagingService instanceof PublishNotifier) {
+      longPollExecutor = Executors.newScheduledThreadPool(longPollThreads,
+                                                          Threads.createDaemonThreadFactory("tms-long-poll-%d"));
+    }
+  }
+
+  @Override
+  public void destroy(HandlerContext context) {
+    super.destroy(context);
+    if (longPollExecutor != null) {
+      longPollExecutor.shutdownNow();
+    }
   }
 
   @POST
   @Path("poll")
   public void poll(FullHttpRequest request, HttpResponder responder,
                    @PathParam("namespace") String namespace,
-                   @PathParam("topic") String topic) throws Exception {
+                   @PathParam("topic") String topic,
+                   @QueryParam("waitMillis") @DefaultValue("0") long waitMillis) throws Exception {
 
     TopicId topicId = new NamespaceId(namespace).topic(topic);
 
@@ -111,11 +157,34 @@ public final class FetchHandler extends AbstractHttpHandler {
     Decoder decoder = DecoderFactory.get().directBinaryDecoder(new ByteBufInputStream(request.content()), null);
     DatumReader<GenericRecord> datumReader = new GenericDatumReader<>(Schemas.V1.ConsumeRequest.SCHEMA);
 
+    GenericRecord fetchRequest = datumReader.read(null, decoder);
+
+    // Wait for new messages only if it is requested and supported by the messaging service
+    long wait = Math.min(waitMillis, maxWaitMillis);
+    if (wait > 0 && longPollExecutor != null) {
+      new LongPoll(request, responder, fetchRequest, topicId).start(wait);
+      return;
+    }
+
     // Fetch the messages
-    CloseableIterator<RawMessage> iterator = fetchMessages(datumReader.read(null, decoder), topicId);
+    sendMessages(request, responder, fetchMessages(fetchRequest, topicId));
+  }
+
+  /**
+   * Sends the messages from the given iterator as the response, with the encoding based on the content types
+   * accepted by the request. The iterator will be closed when the response is completed.
+   */
+  private void sendMessages(HttpRequest request, HttpResponder responder, CloseableIterator<RawMessage> iterator) {
     try {
-      responder.sendContent(HttpResponseStatus.OK, new MessagesBodyProducer(iterator, messageChunkSize),
-                            new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE, "avro/binary"));
+      String accept = request.headers().get(HttpHeaderNames.ACCEPT);
+      if (accept != null && accept.contains(RawMessageFraming.CONTENT_TYPE)) {
+        responder.sendContent(HttpResponseStatus.OK, new FramedMessagesBodyProducer(iterator, messageChunkSize),
+                              new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE,
+                                                           RawMessageFraming.CONTENT_TYPE));
+      } else {
+        responder.sendContent(HttpResponseStatus.OK, new MessagesBodyProducer(iterator, messageChunkSize),
+                              new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE, "avro/binary"));
+      }
     } catch (Throwable t) {
       iterator.close();
       throw t;
@@ -156,6 +225,97 @@ public final class FetchHandler extends AbstractHttpHandler {
     return fetcher.fetch();
   }
 
+  /**
+   * Handles a poll request that waits for new messages if there is no message available. It registers a
+   * publish listener before the first fetch so that no publish will be missed. The response is sent from the
+   * long poll executor either when the listener is called or when the wait time expired, whichever comes first.
+   */
+  private final class LongPoll {
+
+    private final FullHttpRequest request;
+    private final HttpResponder responder;
+    private final GenericRecord fetchRequest;
+    private final TopicId topicId;
+    private final AtomicBoolean completed;
+    private volatile Cancellable listenerCancellable;
+    private volatile Future<?> timeoutFuture;
+
+    LongPoll(FullHttpRequest request, HttpResponder responder, GenericRecord fetchRequest, TopicId topicId) {
+      this.request = request;
+      this.responder = responder;
+      this.fetchRequest = fetchRequest;
+      this.topicId = topicId;
+      this.completed = new AtomicBoolean();
+    }
+
+    void start(long waitMillis) throws IOException, TopicNotFoundException {
+      listenerCancellable = ((PublishNotifier) messagingService).addPublishListener(topicId, this::wakeup);
+
+      CloseableIterator<RawMessage> iterator;
+      try {
+        iterator = fetchMessages(fetchRequest, topicId);
+      } catch (Throwable t) {
+        listenerCancellable.cancel();
+        throw t;
+      }
+
+      boolean hasMessage;
+      try {
+        hasMessage = iterator.hasNext();
+      } catch (Throwable t) {
+        iterator.close();
+        listenerCancellable.cancel();
+        throw t;
+      }
+
+      // If there are messages available, respond immediately.
+      if (hasMessage) {
+        if (completed.compareAndSet(false, true)) {
+          listenerCancellable.cancel();
+          sendMessages(request, responder, iterator);
+        } else {
+          // A publish happened after the listener was added, the response will be sent by the wakeup call.
+          iterator.close();
+        }
+        return;
+      }
+
+      iterator.close();
+      timeoutFuture = longPollExecutor.schedule(this::wakeup, waitMillis, TimeUnit.MILLISECONDS);
+      // If it is already completed by a publish, cancel the timeout.
+      if (completed.get()) {
+        timeoutFuture.cancel(false);
+      }
+    }
+
+    /**
+     * Called either by the publish listener or by timeout. Only the first call will trigger the response.
+     */
+    private void wakeup() {
+      if (!completed.compareAndSet(false, true)) {
+        return;
+      }
+      // The listener can be called before the cancellable is assigned, hence the null check
+      Cancellable cancellable = listenerCancellable;
+      if (cancellable != null) {
+        cancellable.cancel();
+      }
+      Future<?> future = timeoutFuture;
+      if (future != null) {
+        future.cancel(false);
+      }
+      longPollExecutor.execute(this::respond);
+    }
+
+    private void respond() {
+      try {
+        sendMessages(request, responder, fetchMessages(fetchRequest, topicId));
+      } catch (Throwable t) {
+        EXCEPTION_HANDLER.handle(t, request, responder);
+      }
+    }
+  }
+
   /**
    * A {@link BodyProducer} to encode and send back messages.
    * Instead of using GenericDatumWriter, we perform the array encoding manually so that we don't have to buffer
@@ -250,18 +410,101 @@ public final class FetchHandler extends AbstractHttpHandler {
     @Override
     public void handleError(@Nullable Throwable cause) {
       iterator.close();
-      // Since response header is already sent, there is nothing we can send back to client. Simply log the failure
-      if (cause instanceof SocketException
-        || cause instanceof ClosedChannelException
-        || (cause instanceof IOException && KNOWN_IO_EXCEPTION_MESSAGES.contains(cause.getMessage()))) {
-        // This can easily caused by client close connection prematurely. Don't want to flood the log.
-        LOG.trace("Connection closed by client prematurely while sending messages back to client", cause);
-      } else {
-        // Use sampling logger to log to avoid flooding the log if there is any systematic failure
-        SAMPLING_LOG.warn("Exception raised when sending messages back to client", cause);
-        // Also log a trace to provide a way to see every error if needed
-        LOG.trace("Exception raised when sending messages back to client", cause);
+      logSendError(cause);
+    }
+  }
+
+  /**
+   * A {@link BodyProducer} to send back messages with the {@link RawMessageFraming}. Each chunk is a
+   * {@link CompositeByteBuf}, with message headers and small payloads written to a heap buffer, and large payloads
+   * added as wrapped buffers without copying.
+   */
+  private static final class FramedMessagesBodyProducer extends BodyProducer {
+
+    // Payloads smaller than this size are copied, since wrapping has higher overhead for small arrays
+    private static final int WRAP_PAYLOAD_THRESHOLD = 256;
+
+    private final CloseableIterator<RawMessage> iterator;
+    private final int messageChunkSize;
+    private boolean ended;
+
+    FramedMessagesBodyProducer(CloseableIterator<RawMessage> iterator, int messageChunkSize) {
+      this.iterator = iterator;
+      this.messageChunkSize = messageChunkSize;
+    }
+
+    @Override
+    public ByteBuf nextChunk() throws Exception {
+      // Already sent all messages, return empty to signal the end of response
+      if (ended) {
+        return Unpooled.EMPTY_BUFFER;
+      }
+
+      CompositeByteBuf chunk = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+      ByteBuf buffer = null;
+      int size = 0;
+      while (iterator.hasNext() && size < messageChunkSize) {
+        RawMessage message = iterator.next();
+        byte[] id = message.getId();
+        byte[] payload = message.getPayload();
+
+        boolean wrapPayload = payload.length >= WRAP_PAYLOAD_THRESHOLD;
+        if (buffer == null) {
+          // If the payload is going to be copied, size the buffer for the rest of the chunk to avoid resizing
+          int capacity = RawMessageFraming.HEADER_SIZE + id.length + (wrapPayload ? 0 : messageChunkSize - size);
+          buffer = Unpooled.buffer(capacity);
+        }
+        buffer.writeInt(id.length).writeInt(payload.length).writeBytes(id);
+        if (!wrapPayload) {
+          buffer.writeBytes(payload);
+        } else {
+          chunk.addComponent(true, buffer);
+          chunk.addComponent(true, Unpooled.wrappedBuffer(payload));
+          buffer = null;
+        }
+        size += RawMessageFraming.HEADER_SIZE + id.length + payload.length;
+      }
+
+      if (!iterator.hasNext()) {
+        ended = true;
+        if (buffer == null) {
+          buffer = Unpooled.buffer(Integer.BYTES);
+        }
+        buffer.writeInt(RawMessageFraming.END_OF_STREAM);
       }
+      if (buffer != null) {
+        chunk.addComponent(true, buffer);
+      }
+      return chunk;
+    }
+
+    @Override
+    public void finished() throws Exception {
+      iterator.close();
+    }
+
+    @Override
+    public void handleError(@Nullable Throwable cause) {
+      iterator.close();
+      logSendError(cause);
+    }
+  }
+
+  /**
+   * Logs the failure of sending messages back to client.
+   */
+  private static void logSendError(@Nullable Throwable cause) {
+    // Since response header is already sent, there is nothing we can send back to client. Simply log the failure
+    if (cause instanceof SocketException
+      || cause instanceof ClosedChannelException
+      || (cause instanceof IOException && KNOWN_IO_EXCEPTION_MESSAGES.contains(cause.getMessage()))) {
+      // This can easily caused by client close connection prematurely. Don't want to flood the log.
+      LOG.trace("Connection closed by client prematurely while sending messages back to client", cause);
+    } else {
+      // Use sampling logger to log to avoid flooding the log if there is any systematic failure
+      SAMPLING_LOG.warn("Exception raised when sending messages back to client", cause);
+      // Also log a trace to provide a way to see every error if needed
+      LOG.trace("Exception raised when sending messages back to client", cause);
     }
   }
 }
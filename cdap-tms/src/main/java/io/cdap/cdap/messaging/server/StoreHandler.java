@@ -17,12 +17,16 @@
 package io.cdap.cdap.messaging.server;
 
 import com.google.inject.Inject;
+import io.cdap.cdap.api.common.HttpErrorStatusProvider;
+import io.cdap.cdap.api.messaging.TopicNotFoundException;
 import io.cdap.cdap.common.BadRequestException;
+import io.cdap.cdap.common.ServiceUnavailableException;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.http.SpillableBodyConsumer;
 import io.cdap.cdap.common.io.ByteBuffers;
 import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.messaging.BatchPublishException;
 import io.cdap.cdap.messaging.MessagingService;
 import io.cdap.cdap.messaging.RollbackDetail;
 import io.cdap.cdap.messaging.Schemas;
@@ -58,8 +62,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
@@ -67,7 +76,7 @@ import javax.ws.rs.PathParam;
 /**
  * A netty http handler for handling message storage REST API for the messaging system.
  */
-@Path("/v1/namespaces/{namespace}/topics/{topic}")
+@Path("/v1/namespaces/{namespace}")
 public final class StoreHandler extends AbstractHttpHandler {
 
   private final java.nio.file.Path tempDir;
@@ -84,7 +93,7 @@ public final class StoreHandler extends AbstractHttpHandler {
   }
 
   @POST
-  @Path("/publish")
+  @Path("/topics/{topic}/publish")
   public BodyConsumer publish(HttpRequest request, HttpResponder responder,
                               @PathParam("namespace") String namespace,
                               @PathParam("topic") String topic) throws Exception {
@@ -114,7 +123,30 @@ public final class StoreHandler extends AbstractHttpHandler {
   }
 
   @POST
-  @Path("/store")
+  @Path("/publish")
+  public BodyConsumer batchPublish(HttpRequest request, HttpResponder responder,
+                                   @PathParam("namespace") String namespace) throws Exception {
+
+    NamespaceId namespaceId = new NamespaceId(namespace);
+    return new SpillableBodyConsumer(Files.createTempFile(tempDir, "tms.batch.publish", ".tmp"), bufferSize) {
+      @Override
+      protected void processInput(InputStream inputStream, HttpResponder responder) throws Exception {
+        List<StoreRequest> storeRequests = createBatchStoreRequests(namespaceId, request, inputStream);
+        Map<TopicId, ? extends Exception> failures = Collections.emptyMap();
+        try {
+          messagingService.batchPublish(storeRequests);
+        } catch (BatchPublishException e) {
+          failures = e.getFailures();
+        }
+        // Always response with OK and the per topic failures, so that client can tell which topics were published
+        responder.sendContent(HttpResponseStatus.OK, encodeBatchPublishFailures(failures),
+                              new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE, "avro/binary"));
+      }
+    };
+  }
+
+  @POST
+  @Path("/topics/{topic}/store")
   public BodyConsumer store(HttpRequest request, HttpResponder responder,
                             @PathParam("namespace") String namespace,
                             @PathParam("topic") String topic) throws Exception {
@@ -137,7 +169,7 @@ public final class StoreHandler extends AbstractHttpHandler {
   }
 
   @POST
-  @Path("/rollback")
+  @Path("/topics/{topic}/rollback")
   public void rollback(FullHttpRequest request, HttpResponder responder,
                        @PathParam("namespace") String namespace,
                        @PathParam("topic") String topic) throws Exception {
@@ -164,6 +196,87 @@ public final class StoreHandler extends AbstractHttpHandler {
     return new GenericRecordStoreRequest(topicId, datumReader.read(null, decoder));
   }
 
+  /**
+   * Creates a list of non-transactional {@link StoreRequest} based on the given {@link HttpRequest} that carries
+   * a request body with the {@link Schemas.V1.BatchPublishRequest#SCHEMA}.
+   */
+  private List<StoreRequest> createBatchStoreRequests(NamespaceId namespaceId, HttpRequest request,
+                                                      InputStream is) throws BadRequestException, IOException {
+    // Currently only support avro
+    if (!"avro/binary".equals(request.headers().get(HttpHeaderNames.CONTENT_TYPE))) {
+      throw new BadRequestException("Only avro/binary content type is supported.");
+    }
+
+    Decoder decoder = DecoderFactory.get().directBinaryDecoder(is, null);
+    DatumReader<GenericRecord> datumReader = new GenericDatumReader<>(Schemas.V1.BatchPublishRequest.SCHEMA);
+
+    List<StoreRequest> storeRequests = new ArrayList<>();
+    Set<TopicId> topics = new HashSet<>();
+    for (Object obj : (List<?>) datumReader.read(null, decoder).get("requests")) {
+      GenericRecord record = (GenericRecord) obj;
+      TopicId topicId = namespaceId.topic(record.get("topic").toString());
+      if (!topics.add(topicId)) {
+        throw new BadRequestException("Topic " + topicId + " appears more than once in the batch publish request.");
+      }
+      @SuppressWarnings("unchecked")
+      StoreRequest storeRequest = new GenericRecordStoreRequest(topicId, false, -1L,
+                                                                (List<ByteBuffer>) record.get("messages"));
+      if (!storeRequest.hasPayload()) {
+        throw new BadRequestException("Empty payload is only allowed for publishing transactional message. Topic: "
+                                        + topicId);
+      }
+      storeRequests.add(storeRequest);
+    }
+    return storeRequests;
+  }
+
+  /**
+   * Encodes the per topic publish failures as avro record based on the
+   * {@link Schemas.V1.BatchPublishResponse#SCHEMA}.
+   */
+  private ByteBuf encodeBatchPublishFailures(Map<TopicId, ? extends Exception> failures) throws IOException {
+    Schema schema = Schemas.V1.BatchPublishResponse.SCHEMA;
+    Schema failureSchema = schema.getField("failures").schema().getElementType();
+
+    List<GenericRecord> failureRecords = new ArrayList<>(failures.size());
+    for (Map.Entry<TopicId, ? extends Exception> entry : failures.entrySet()) {
+      Exception failure = entry.getValue();
+      GenericRecord record = new GenericData.Record(failureSchema);
+      record.put("topic", entry.getKey().getTopic());
+      record.put("status", getFailureStatus(failure).code());
+      record.put("message", failure.getMessage() == null ? failure.getClass().getName() : failure.getMessage());
+      failureRecords.add(record);
+    }
+
+    GenericRecord response = new GenericData.Record(schema);
+    response.put("failures", failureRecords);
+
+    ByteBuf buffer = Unpooled.buffer();
+    Encoder encoder = EncoderFactory.get().directBinaryEncoder(new ByteBufOutputStream(buffer), null);
+    DatumWriter<GenericRecord> datumWriter = new GenericDatumWriter<>(schema);
+    datumWriter.write(response, encoder);
+    return buffer;
+  }
+
+  /**
+   * Returns the {@link HttpResponseStatus} that represents the publish failure of a single topic.
+   */
+  private HttpResponseStatus getFailureStatus(Exception failure) {
+    if (failure instanceof ServiceUnavailableException) {
+      return HttpResponseStatus.SERVICE_UNAVAILABLE;
+    }
+    if (failure instanceof HttpErrorStatusProvider) {
+      return HttpResponseStatus.valueOf(((HttpErrorStatusProvider) failure).getStatusCode());
+    }
+    if (failure instanceof TopicNotFoundException) {
+      return HttpResponseStatus.NOT_FOUND;
+    }
+    if (failure instanceof IllegalArgumentException) {
+      return HttpResponseStatus.BAD_REQUEST;
+    }
+    return HttpResponseStatus.INTERNAL_SERVER_ERROR;
+  }
+
   /**
    * Encodes the {@link RollbackDetail} object as avro record based on the {@link Schemas.V1.PublishResponse#SCHEMA}.
    */
@@ -201,13 +314,18 @@ public final class StoreHandler extends AbstractHttpHandler {
 
     @SuppressWarnings("unchecked")
     GenericRecordStoreRequest(TopicId topicId, GenericRecord record) {
-      super(topicId,
-            record.get("transactionWritePointer") != null,
-            record.get("transactionWritePointer") == null
-              ? -1L
-              : Long.parseLong(record.get("transactionWritePointer").toString()));
+      this(topicId,
+           record.get("transactionWritePointer") != null,
+           record.get("transactionWritePointer") == null
+             ? -1L
+             : Long.parseLong(record.get("transactionWritePointer").toString()),
+           (List<ByteBuffer>) record.get("messages"));
+    }
 
-      this.payloads = ((List<ByteBuffer>) record.get("messages"));
+    GenericRecordStoreRequest(TopicId topicId, boolean transactional, long transactionWritePointer,
+                              List<ByteBuffer> payloads) {
+      super(topicId, transactional, transactionWritePointer);
+      this.payloads = payloads;
     }
 
     @Override
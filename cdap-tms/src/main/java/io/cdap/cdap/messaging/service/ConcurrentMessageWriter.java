@@ -18,7 +18,7 @@ package io.cdap.cdap.messaging.service;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
-import io.cdap.cdap.api.metrics.MetricsCollector;
+import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.api.metrics.NoopMetricsContext;
 import io.cdap.cdap.messaging.RollbackDetail;
 import io.cdap.cdap.messaging.StoreRequest;
@@ -31,7 +31,9 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
@@ -58,15 +60,26 @@ import javax.annotation.concurrent.ThreadSafe;
  *
  * The spin lock between step 2 to step 8 is necessary as it guarantees events enqueued by all threads would eventually
  * get written and flushed.
+ *
+ * When group commit is enabled, threads that fail to acquire the writer flag in step 3 park instead of spinning.
+ * The writer persists at most {@code maxBatchSize} requests per batch, optionally lingering for a short time to let
+ * more requests join a batch that is not full. After releasing the writer flag, the writer unparks the thread
+ * that owns the head of the queue (if any), which then competes for the writer flag. Since every thread tries
+ * to acquire the flag right after enqueuing, and every writer wakes up the head of the queue after releasing the
+ * flag, no enqueued request can be left behind without a thread trying to write it.
  */
 @ThreadSafe
 final class ConcurrentMessageWriter implements Closeable {
 
+  // Upper bound on how long a publisher parks before re-checking its request, as a guard against missed wakeups
+  private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
   private final StoreRequestWriter<?> messagesWriter;
-  private final MetricsCollector metricsCollector;
+  private final MetricsContext metricsContext;
   private final PendingStoreQueue pendingStoreQueue;
   private final AtomicBoolean writerFlag;
   private final AtomicBoolean closed;
+  private final boolean groupCommit;
 
   /**
    * Constructor with a {@link NoopMetricsContext}. This constructor should only be used in unit-testing.
@@ -76,16 +89,37 @@ final class ConcurrentMessageWriter implements Closeable {
     this(messagesWriter, new NoopMetricsContext());
   }
 
+  /**
+   * Constructor without group commit, which spins until the pending requests are written.
+   *
+   * @param messagesWriter the {@link StoreRequestWriter} for persisting {@link StoreRequest}.
+   * @param metricsContext the {@link MetricsContext} for collecting metrics emitted by this class.
+   */
+  ConcurrentMessageWriter(StoreRequestWriter<?> messagesWriter, MetricsContext metricsContext) {
+    this(messagesWriter, metricsContext, false, Integer.MAX_VALUE, 0L);
+  }
+
   /**
    * Constructor.
    *
    * @param messagesWriter the {@link StoreRequestWriter} for persisting {@link StoreRequest}.
-   * @param metricsCollector the {@link MetricsCollector} for collecting metrics emitted by this class.
+   * @param metricsContext the {@link MetricsContext} for collecting metrics emitted by this class.
+   * @param groupCommit {@code true} to park waiting threads and persist requests in bounded batches;
+   *                    {@code false} to spin until the pending requests are written
+   * @param maxBatchSize maximum number of requests to persist in one batch when group commit is enabled
+   * @param lingerMicros maximum time in microseconds to wait for a batch to fill up when group commit is enabled
    */
-  ConcurrentMessageWriter(StoreRequestWriter<?> messagesWriter, MetricsCollector metricsCollector) {
+  ConcurrentMessageWriter(StoreRequestWriter<?> messagesWriter, MetricsContext metricsContext,
+                          boolean groupCommit, int maxBatchSize, long lingerMicros) {
+    if (maxBatchSize <= 0) {
+      throw new IllegalArgumentException("Maximum batch size must be positive: " + maxBatchSize);
+    }
     this.messagesWriter = messagesWriter;
-    this.metricsCollector = metricsCollector;
-    this.pendingStoreQueue = new PendingStoreQueue(metricsCollector);
+    this.metricsContext = metricsContext;
+    this.groupCommit = groupCommit;
+    this.pendingStoreQueue = groupCommit
+      ? new PendingStoreQueue(metricsContext, maxBatchSize, TimeUnit.MICROSECONDS.toNanos(lingerMicros))
+      : new PendingStoreQueue(metricsContext, Integer.MAX_VALUE, 0L);
     this.writerFlag = new AtomicBoolean();
     this.closed = new AtomicBoolean();
   }
@@ -109,16 +143,20 @@ final class ConcurrentMessageWriter implements Closeable {
     PendingStoreRequest pendingStoreRequest = new PendingStoreRequest(storeRequest, metadata);
     pendingStoreQueue.enqueue(pendingStoreRequest);
 
-    metricsCollector.increment("persist.requested", 1L);
+    metricsContext.increment("persist.requested", 1L);
 
-    while (!pendingStoreRequest.isCompleted()) {
-      if (!tryWrite()) {
-        Thread.yield();
+    if (groupCommit) {
+      awaitGroupCommit(pendingStoreRequest);
+    } else {
+      while (!pendingStoreRequest.isCompleted()) {
+        if (!tryWrite()) {
+          Thread.yield();
+        }
       }
     }
 
     if (pendingStoreRequest.isSuccess()) {
-      metricsCollector.increment("persist.success", 1L);
+      metricsContext.increment("persist.success", 1L);
       if (!pendingStoreRequest.isTransactional()) {
         return null;
       }
@@ -126,13 +164,32 @@ final class ConcurrentMessageWriter implements Closeable {
                                       pendingStoreRequest.getStartTimestamp(), pendingStoreRequest.getStartSequenceId(),
                                       pendingStoreRequest.getEndTimestamp(), pendingStoreRequest.getEndSequenceId());
     } else {
-      metricsCollector.increment("persist.failure", 1L);
+      metricsContext.increment("persist.failure", 1L);
       Throwables.propagateIfInstanceOf(pendingStoreRequest.getFailureCause(), IOException.class);
       throw new IOException("Unable to write message to " + storeRequest.getTopicId(),
                             pendingStoreRequest.getFailureCause());
     }
   }
 
+  /**
+   * Blocks until the given request is completed, either written by this thread or by another writer.
+   * While waiting, the thread is parked instead of spinning.
+   */
+  private void awaitGroupCommit(PendingStoreRequest pendingStoreRequest) {
+    boolean interrupted = false;
+    while (!pendingStoreRequest.isCompleted()) {
+      if (!tryWrite()) {
+        LockSupport.parkNanos(this, MAX_PARK_NANOS);
+        // Clear the interrupt flag so that park won't return immediately. It will be restored before returning,
+        // since the request cannot be abandoned once it is enqueued.
+        interrupted |= Thread.interrupted();
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   /**
    * Tries to acquire the writer flag and persist the pending requests.
    *
@@ -148,6 +205,10 @@ final class ConcurrentMessageWriter implements Closeable {
     } finally {
       writerFlag.set(false);
     }
+    if (groupCommit) {
+      // Hand over to the next waiting thread, in case there are requests left in the queue.
+      pendingStoreQueue.wakeupHead();
+    }
     return true;
   }
 
@@ -172,14 +233,18 @@ final class ConcurrentMessageWriter implements Closeable {
    */
   private static final class PendingStoreQueue {
 
-    private final MetricsCollector metricsCollector;
+    private final MetricsContext metricsContext;
     private final Queue<PendingStoreRequest> writeQueue;
     private final List<PendingStoreRequest> inflightRequests;
+    private final int maxBatchSize;
+    private final long lingerNanos;
 
-    private PendingStoreQueue(MetricsCollector metricsCollector) {
-      this.metricsCollector = metricsCollector;
+    private PendingStoreQueue(MetricsContext metricsContext, int maxBatchSize, long lingerNanos) {
+      this.metricsContext = metricsContext;
       this.writeQueue = new ConcurrentLinkedQueue<>();
-      this.inflightRequests = new ArrayList<>(100);
+      this.inflightRequests = new ArrayList<>(Math.min(maxBatchSize, 100));
+      this.maxBatchSize = maxBatchSize;
+      this.lingerNanos = lingerNanos;
     }
 
     /**
@@ -190,7 +255,18 @@ final class ConcurrentMessageWriter implements Closeable {
     }
 
     /**
-     * Persists all {@link PendingStoreRequest} currently in the queue with the given writer.
+     * Unparks the thread that owns the request at the head of the queue, if there is one.
+     */
+    void wakeupHead() {
+      PendingStoreRequest head = writeQueue.peek();
+      if (head != null) {
+        head.wakeup();
+      }
+    }
+
+    /**
+     * Persists the {@link PendingStoreRequest} currently in the queue with the given writer, up to the maximum
+     * batch size.
      */
     void persist(StoreRequestWriter<?> writer) {
       // Capture all current events.
@@ -200,20 +276,39 @@ final class ConcurrentMessageWriter implements Closeable {
       // Since this method is expected to be called (indirectly) from a http handler thread, that is bounded by
       // the thread pool size used by the http service.
       inflightRequests.clear();
-      PendingStoreRequest request = writeQueue.poll();
-      while (request != null) {
-        inflightRequests.add(request);
-        request = writeQueue.poll();
+      drain();
+      if (lingerNanos > 0 && inflightRequests.size() < maxBatchSize) {
+        // Give other publishers a chance to join this batch
+        LockSupport.parkNanos(this, lingerNanos);
+        drain();
       }
 
-      metricsCollector.gauge("persist.queue.size", inflightRequests.size());
+      int batchSize = inflightRequests.size();
+      metricsContext.gauge("persist.queue.size", batchSize);
+      metricsContext.event("persist.batch.size", batchSize);
 
+      long startNanos = System.nanoTime();
       try {
         writer.write(inflightRequests.iterator());
         completeAll(null);
       } catch (Throwable t) {
         completeAll(t);
       }
+      metricsContext.event("persist.batch.latency.ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Moves requests from the concurrent queue to the inflight list until the queue is empty or the
+     * batch is full.
+     */
+    private void drain() {
+      while (inflightRequests.size() < maxBatchSize) {
+        PendingStoreRequest request = writeQueue.poll();
+        if (request == null) {
+          return;
+        }
+        inflightRequests.add(request);
+      }
     }
 
     /**
@@ -19,23 +19,27 @@ package io.cdap.cdap.messaging.service;
 import com.google.common.base.Throwables;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.messaging.MessageFetcher;
+import io.cdap.cdap.messaging.PublishNotifier;
 import io.cdap.cdap.messaging.TopicMetadata;
 import io.cdap.cdap.messaging.data.MessageId;
 import io.cdap.cdap.messaging.data.RawMessage;
 import io.cdap.cdap.messaging.store.MessageTable;
 import io.cdap.cdap.messaging.store.PayloadTable;
 import io.cdap.cdap.proto.id.TopicId;
+import org.apache.twill.common.Cancellable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 /**
  * Implementation of {@link MessageFetcher} that fetch messages directly
- * from {@link MessageTable} and {@link PayloadTable}.
+ * from {@link MessageTable} and {@link PayloadTable}. If a wait time is set, the {@link #fetch()} call blocks
+ * until new messages are published to the topic or the wait time expired when there is no message available.
  */
 final class CoreMessageFetcher extends MessageFetcher {
 
@@ -44,17 +48,59 @@ final class CoreMessageFetcher extends MessageFetcher {
   private final TopicMetadata topicMetadata;
   private final TableProvider<MessageTable> messageTableProvider;
   private final TableProvider<PayloadTable> payloadTableProvider;
+  private final PublishNotifier publishNotifier;
+  private final long maxWaitMillis;
 
   CoreMessageFetcher(TopicMetadata topicMetadata,
                      TableProvider<MessageTable> messageTableProvider,
-                     TableProvider<PayloadTable> payloadTableProvider) {
+                     TableProvider<PayloadTable> payloadTableProvider,
+                     PublishNotifier publishNotifier, long maxWaitMillis) {
     this.topicMetadata = topicMetadata;
     this.messageTableProvider = messageTableProvider;
     this.payloadTableProvider = payloadTableProvider;
+    this.publishNotifier = publishNotifier;
+    this.maxWaitMillis = maxWaitMillis;
   }
 
   @Override
   public CloseableIterator<RawMessage> fetch() throws IOException {
+    long waitMillis = Math.min(getWaitMillis(), maxWaitMillis);
+    if (waitMillis <= 0) {
+      return fetchMessages();
+    }
+
+    // Register the listener before the first fetch so that a publish happening in between won't be missed
+    CountDownLatch publishLatch = new CountDownLatch(1);
+    Cancellable cancellable = publishNotifier.addPublishListener(topicMetadata.getTopicId(), publishLatch::countDown);
+    try {
+      CloseableIterator<RawMessage> iterator = fetchMessages();
+      try {
+        if (iterator.hasNext()) {
+          return iterator;
+        }
+      } catch (Throwable t) {
+        iterator.close();
+        throw t;
+      }
+      iterator.close();
+
+      try {
+        publishLatch.await(waitMillis, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        // Reset the interrupt flag and return whatever is available
+        Thread.currentThread().interrupt();
+      }
+      // Always fetch again, even if it was timed out, to pick up messages written without publish notification
+      return fetchMessages();
+    } finally {
+      cancellable.cancel();
+    }
+  }
+
+  /**
+   * Creates a {@link CloseableIterator} for fetching messages from the tables.
+   */
+  private CloseableIterator<RawMessage> fetchMessages() throws IOException {
     MessageTable messageTable = messageTableProvider.get();
     try {
       return new MessageCloseableIterator(messageTable);
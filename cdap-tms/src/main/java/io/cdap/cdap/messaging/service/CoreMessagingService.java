@@ -35,10 +35,13 @@ import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.utils.TimeProvider;
+import io.cdap.cdap.messaging.BatchPublishException;
 import io.cdap.cdap.messaging.MessageFetcher;
 import io.cdap.cdap.messaging.MessagingService;
 import io.cdap.cdap.messaging.MessagingServiceUtils;
 import io.cdap.cdap.messaging.MessagingUtils;
+import io.cdap.cdap.messaging.PayloadCodec;
+import io.cdap.cdap.messaging.PublishNotifier;
 import io.cdap.cdap.messaging.RollbackDetail;
 import io.cdap.cdap.messaging.StoreRequest;
 import io.cdap.cdap.messaging.TopicMetadata;
@@ -50,13 +53,17 @@ import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.TopicId;
 import org.apache.tephra.TxConstants;
 import org.apache.tephra.util.TxUtils;
+import org.apache.twill.common.Cancellable;
 import org.apache.twill.common.Threads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -64,7 +71,10 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
@@ -74,7 +84,7 @@ import javax.annotation.concurrent.ThreadSafe;
  * directly to provide the messaging functionality.
  */
 @ThreadSafe
-public class CoreMessagingService extends AbstractIdleService implements MessagingService {
+public class CoreMessagingService extends AbstractIdleService implements MessagingService, PublishNotifier {
 
   private static final Logger LOG = LoggerFactory.getLogger(CoreMessagingService.class);
 
@@ -86,6 +96,9 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
   private final TimeProvider timeProvider;
   private final MetricsCollectionService metricsCollectionService;
   private final long txMaxLifeTimeInMillis;
+  private final long fetchMaxWaitMillis;
+  private final TopicPublishListeners publishListeners;
+  private final ThreadPoolExecutor batchPublishExecutor;
 
   @Inject
   protected CoreMessagingService(CConfiguration cConf, TableFactory tableFactory,
@@ -115,6 +128,15 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     this.metricsCollectionService = metricsCollectionService;
     this.txMaxLifeTimeInMillis = TimeUnit.SECONDS.toMillis(cConf.getLong(TxConstants.Manager.CFG_TX_MAX_LIFETIME,
                                                                          TxConstants.Manager.DEFAULT_TX_MAX_LIFETIME));
+    this.fetchMaxWaitMillis = cConf.getLong(Constants.MessagingSystem.FETCH_MAX_WAIT_MS);
+    this.publishListeners = new TopicPublishListeners();
+
+    // Threads are only created when there are batch publish calls and are terminated when idle
+    int batchPublishThreads = cConf.getInt(Constants.MessagingSystem.BATCH_PUBLISH_THREADS);
+    this.batchPublishExecutor = new ThreadPoolExecutor(batchPublishThreads, batchPublishThreads,
+                                                       60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                                                       Threads.createDaemonThreadFactory("tms-batch-publish-%d"));
+    this.batchPublishExecutor.allowCoreThreadTimeOut(true);
   }
 
   @Override
@@ -144,6 +166,8 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
       messageTableWriterCache.invalidate(topicId);
       payloadTableWriterCache.invalidate(topicId);
     }
+    // Wakeup fetches that are waiting on the deleted topic
+    publishListeners.published(topicId);
   }
 
   @Override
@@ -169,7 +193,8 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     final TopicMetadata metadata = getTopic(topicId);
     return new CoreMessageFetcher(metadata,
                                   () -> createMessageTable(metadata),
-                                  () -> createPayloadTable(metadata));
+                                  () -> createPayloadTable(metadata),
+                                  publishListeners, fetchMaxWaitMillis);
   }
 
   @Nullable
@@ -180,7 +205,9 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
       if (request.isTransactional()) {
         ensureValidTxLifetime(request.getTransactionWritePointer());
       }
-      return messageTableWriterCache.get(request.getTopicId()).persist(request, metadata);
+      RollbackDetail rollbackDetail = messageTableWriterCache.get(request.getTopicId()).persist(request, metadata);
+      publishListeners.published(request.getTopicId());
+      return rollbackDetail;
     } catch (ExecutionException e) {
       Throwable cause = Objects.firstNonNull(e.getCause(), e);
       Throwables.propagateIfPossible(cause, TopicNotFoundException.class, IOException.class);
@@ -188,6 +215,76 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     }
   }
 
+  @Override
+  public void batchPublish(Collection<StoreRequest> requests) throws IOException {
+    for (StoreRequest request : requests) {
+      if (request.isTransactional()) {
+        throw new IllegalArgumentException("Transactional publish is not supported in batch publish. Topic: "
+                                             + request.getTopicId());
+      }
+    }
+    if (requests.isEmpty()) {
+      return;
+    }
+
+    // Group the requests by topic, such that requests to the same topic are published sequentially in order
+    Map<TopicId, List<StoreRequest>> requestsByTopic = new LinkedHashMap<>();
+    for (StoreRequest request : requests) {
+      requestsByTopic.computeIfAbsent(request.getTopicId(), k -> new ArrayList<>()).add(request);
+    }
+
+    // Publish to different topics in parallel through the writer of each topic.
+    // The requests of the last topic are published from the calling thread.
+    List<TopicId> topicIds = new ArrayList<>(requestsByTopic.keySet());
+    TopicId lastTopicId = topicIds.remove(topicIds.size() - 1);
+    List<Future<?>> futures = new ArrayList<>(topicIds.size());
+    for (TopicId topicId : topicIds) {
+      List<StoreRequest> topicRequests = requestsByTopic.get(topicId);
+      futures.add(batchPublishExecutor.submit(() -> {
+        publishInOrder(topicRequests);
+        return null;
+      }));
+    }
+
+    Map<TopicId, Exception> failures = new LinkedHashMap<>();
+    try {
+      publishInOrder(requestsByTopic.get(lastTopicId));
+    } catch (Exception e) {
+      failures.put(lastTopicId, e);
+    }
+
+    boolean interrupted = false;
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        futures.get(i).get();
+      } catch (ExecutionException e) {
+        Throwable cause = Objects.firstNonNull(e.getCause(), e);
+        failures.put(topicIds.get(i), cause instanceof Exception ? (Exception) cause : e);
+      } catch (InterruptedException e) {
+        // Still wait for all publishes to complete, as they are not cancellable
+        interrupted = true;
+        i--;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+
+    if (!failures.isEmpty()) {
+      throw new BatchPublishException(failures);
+    }
+  }
+
+  /**
+   * Publishes the given requests to the same topic one after the other. Publishing stops at the first failure,
+   * so that the later requests are never published ahead of a failed one.
+   */
+  private void publishInOrder(List<StoreRequest> requests) throws TopicNotFoundException, IOException {
+    for (StoreRequest request : requests) {
+      publish(request);
+    }
+  }
+
   @Override
   public void storePayload(StoreRequest request) throws TopicNotFoundException, IOException {
     try {
@@ -217,6 +314,11 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     }
   }
 
+  @Override
+  public Cancellable addPublishListener(TopicId topicId, Runnable listener) {
+    return publishListeners.addPublishListener(topicId, listener);
+  }
+
   @Override
   protected void startUp() throws Exception {
     tableFactory.init();
@@ -253,6 +355,7 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
   protected void shutDown() throws Exception {
     messageTableWriterCache.invalidateAll();
     payloadTableWriterCache.invalidateAll();
+    batchPublishExecutor.shutdown();
     Closeables.closeQuietly(tableFactory);
     LOG.info("Core Messaging Service stopped");
   }
@@ -367,7 +470,11 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
             Constants.Metrics.Tag.TABLE, messageTable ? "message" : "payload"
           ));
 
-          return new ConcurrentMessageWriter(messagesWriter, metricsContext);
+          return new ConcurrentMessageWriter(
+            messagesWriter, metricsContext,
+            cConf.getBoolean(Constants.MessagingSystem.STORE_GROUP_COMMIT_ENABLED, true),
+            cConf.getInt(Constants.MessagingSystem.STORE_GROUP_COMMIT_MAX_BATCH_SIZE, 1000),
+            cConf.getLong(Constants.MessagingSystem.STORE_GROUP_COMMIT_LINGER_MICROS, 0L));
         }
       });
   }
@@ -396,6 +503,10 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     // Default properties
     properties.put(TopicMetadata.TTL_KEY, cConf.get(Constants.MessagingSystem.TOPIC_DEFAULT_TTL_SECONDS));
     properties.put(TopicMetadata.GENERATION_KEY, MessagingUtils.Constants.DEFAULT_GENERATION);
+    PayloadCodec codec = PayloadCodec.fromName(cConf.get(Constants.MessagingSystem.TOPIC_DEFAULT_COMPRESSION));
+    if (codec != PayloadCodec.NONE) {
+      properties.put(TopicMetadata.COMPRESSION_KEY, codec.name().toLowerCase());
+    }
     return properties;
   }
 }
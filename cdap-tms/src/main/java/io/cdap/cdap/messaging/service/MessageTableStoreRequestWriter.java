@@ -17,6 +17,7 @@
 package io.cdap.cdap.messaging.service;
 
 import io.cdap.cdap.common.utils.TimeProvider;
+import io.cdap.cdap.messaging.PayloadCodec;
 import io.cdap.cdap.messaging.StoreRequest;
 import io.cdap.cdap.messaging.TopicMetadata;
 import io.cdap.cdap.messaging.store.MessageTable;
@@ -35,6 +36,8 @@ final class MessageTableStoreRequestWriter extends StoreRequestWriter<MessageTab
 
   private final MessageTable messageTable;
   private final MutableMessageTableEntry entry;
+  private TopicMetadata lastMetadata;
+  private PayloadCodec codec;
 
   MessageTableStoreRequestWriter(MessageTable messageTable, TimeProvider timeProvider) {
     super(timeProvider, true);
@@ -45,6 +48,11 @@ final class MessageTableStoreRequestWriter extends StoreRequestWriter<MessageTab
   @Override
   MessageTable.Entry getEntry(TopicMetadata metadata, boolean transactional, long transactionWritePointer,
                               long writeTimestamp, short sequenceId, @Nullable byte[] payload) {
+    if (metadata != lastMetadata) {
+      // Only resolve the codec when the topic changes, since the same metadata is used for the whole request
+      lastMetadata = metadata;
+      codec = metadata.getPayloadCodec();
+    }
     return entry
       .setTopicId(metadata.getTopicId())
       .setGeneration(metadata.getGeneration())
@@ -52,7 +60,7 @@ final class MessageTableStoreRequestWriter extends StoreRequestWriter<MessageTab
       .setTransactionWritePointer(transactionWritePointer)
       .setPublishTimestamp(writeTimestamp)
       .setSequenceId(sequenceId)
-      .setPayload(payload);
+      .setPayload(payload, codec);
   }
 
   @Override
@@ -77,6 +85,9 @@ final class MessageTableStoreRequestWriter extends StoreRequestWriter<MessageTab
     private long publishTimestamp;
     private short sequenceId;
     private byte[] payload;
+    private PayloadCodec codec;
+    private byte[] storedPayload;
+    private boolean payloadCompressed;
 
     MutableMessageTableEntry setTopicId(TopicId topicId) {
       this.topicId = topicId;
@@ -108,8 +119,11 @@ final class MessageTableStoreRequestWriter extends StoreRequestWriter<MessageTab
       return this;
     }
 
-    MutableMessageTableEntry setPayload(@Nullable byte[] payload) {
+    MutableMessageTableEntry setPayload(@Nullable byte[] payload, PayloadCodec codec) {
       this.payload = payload;
+      this.codec = codec;
+      this.storedPayload = null;
+      this.payloadCompressed = false;
       return this;
     }
 
@@ -144,6 +158,32 @@ final class MessageTableStoreRequestWriter extends StoreRequestWriter<MessageTab
       return payload;
     }
 
+    @Override
+    public boolean isPayloadCompressed() {
+      compressPayload();
+      return payloadCompressed;
+    }
+
+    @Nullable
+    @Override
+    public byte[] getStoredPayload() {
+      compressPayload();
+      return storedPayload;
+    }
+
+    /**
+     * Compresses the payload with the topic codec. The result is memorized since the same entry could be
+     * asked for the stored payload multiple times, e.g. for writing to the table and to the cache.
+     */
+    private void compressPayload() {
+      if (storedPayload != null || payload == null) {
+        return;
+      }
+      byte[] compressed = codec.compress(payload);
+      payloadCompressed = compressed != null;
+      storedPayload = payloadCompressed ? compressed : payload;
+    }
+
     @Override
     public long getPublishTimestamp() {
       return publishTimestamp;
@@ -20,6 +20,7 @@ import io.cdap.cdap.messaging.StoreRequest;
 import io.cdap.cdap.messaging.TopicMetadata;
 
 import java.util.Iterator;
+import java.util.concurrent.locks.LockSupport;
 import javax.annotation.Nullable;
 
 /**
@@ -29,8 +30,9 @@ final class PendingStoreRequest extends StoreRequest {
 
   private final StoreRequest originalRequest;
   private final TopicMetadata metadata;
+  private final Thread owner;
 
-  private boolean completed;
+  private volatile boolean completed;
   private long startTimestamp;
   private long endTimestamp;
   private int startSequenceId;
@@ -42,6 +44,7 @@ final class PendingStoreRequest extends StoreRequest {
           originalRequest.getTransactionWritePointer());
     this.originalRequest = originalRequest;
     this.metadata = topicMetadata;
+    this.owner = Thread.currentThread();
   }
 
   TopicMetadata getTopicMetadata() {
@@ -65,8 +68,16 @@ final class PendingStoreRequest extends StoreRequest {
   }
 
   void completed(@Nullable Throwable failureCause) {
-    completed = true;
     this.failureCause = failureCause;
+    completed = true;
+    wakeup();
+  }
+
+  /**
+   * Unparks the thread that created this request.
+   */
+  void wakeup() {
+    LockSupport.unpark(owner);
   }
 
   void setStartTimestamp(long startTimestamp) {
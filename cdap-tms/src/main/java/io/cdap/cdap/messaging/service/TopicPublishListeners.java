@@ -0,0 +1,70 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.service;
+
+import io.cdap.cdap.messaging.PublishNotifier;
+import io.cdap.cdap.proto.id.TopicId;
+import org.apache.twill.common.Cancellable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A {@link PublishNotifier} that keeps one-shot listeners per topic and calls them when
+ * {@link #published(TopicId)} is called.
+ */
+@ThreadSafe
+final class TopicPublishListeners implements PublishNotifier {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TopicPublishListeners.class);
+
+  private final ConcurrentMap<TopicId, Set<Runnable>> listeners = new ConcurrentHashMap<>();
+
+  @Override
+  public Cancellable addPublishListener(TopicId topicId, Runnable listener) {
+    Set<Runnable> topicListeners = listeners.computeIfAbsent(topicId, k -> ConcurrentHashMap.newKeySet());
+    topicListeners.add(listener);
+    return () -> topicListeners.remove(listener);
+  }
+
+  /**
+   * Notifies all listeners of the given topic that new messages were published. Each listener is removed
+   * before it is called, hence it will only be called once.
+   */
+  void published(TopicId topicId) {
+    Set<Runnable> topicListeners = listeners.get(topicId);
+    if (topicListeners == null || topicListeners.isEmpty()) {
+      return;
+    }
+    for (Runnable listener : topicListeners) {
+      // Only call the listener if this thread is the one that removed it, so that concurrent publishes
+      // won't call the same listener multiple times.
+      if (!topicListeners.remove(listener)) {
+        continue;
+      }
+      try {
+        listener.run();
+      } catch (Throwable t) {
+        LOG.warn("Exception raised when notifying message publish on topic {}", topicId, t);
+      }
+    }
+  }
+}
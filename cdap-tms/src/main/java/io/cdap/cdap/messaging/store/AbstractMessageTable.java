@@ -155,8 +155,8 @@ public abstract class AbstractMessageTable implements MessageTable {
         MessageFilter.Result status = accept(tableEntry.getTxPtr());
         if (status == MessageFilter.Result.ACCEPT) {
           maxLimit--;
-          return new ImmutableMessageTableEntry(tableEntry.getKey().getRowKey(),
-                                                tableEntry.getPayload(), tableEntry.getTxPtr());
+          return new ImmutableMessageTableEntry(tableEntry.getKey().getRowKey(), tableEntry.getPayload(),
+                                                tableEntry.getTxPtr(), tableEntry.isPayloadCompressed());
         }
 
         if (status == MessageFilter.Result.HOLD) {
@@ -225,7 +225,8 @@ public abstract class AbstractMessageTable implements MessageTable {
       if (entry.isTransactional()) {
         txPtr = Bytes.toBytes(entry.getTransactionWritePointer());
       }
-      return tableEntry.set(key, txPtr, entry.getPayload());
+      // Store the payload in the form provided by the entry, which is compressed based on the topic codec
+      return tableEntry.set(key, txPtr, entry.getStoredPayload(), entry.isPayloadCompressed());
     }
   }
 }
@@ -18,6 +18,7 @@ package io.cdap.cdap.messaging.store;
 
 import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.messaging.MessagingUtils;
+import io.cdap.cdap.messaging.PayloadCodec;
 import io.cdap.cdap.proto.id.TopicId;
 
 import javax.annotation.Nullable;
@@ -31,10 +32,25 @@ public final class ImmutableMessageTableEntry implements MessageTable.Entry {
   private final boolean transactional;
   private final long transactionWritePointer;
   private final byte[] payload;
+  private final boolean payloadCompressed;
   private final long publishTimestamp;
   private final short sequenceId;
 
   public ImmutableMessageTableEntry(byte[] row, @Nullable byte[] payload, @Nullable byte[] txPtr) {
+    this(row, payload, txPtr, false);
+  }
+
+  /**
+   * Creates an entry from the raw row key and column values.
+   *
+   * @param row the row key
+   * @param payload the payload as stored in the table
+   * @param txPtr the transaction write pointer or {@code null} if it is non-transactional
+   * @param payloadCompressed {@code true} if the payload is compressed. It will be decompressed lazily
+   *                          on every call to {@link #getPayload()}
+   */
+  public ImmutableMessageTableEntry(byte[] row, @Nullable byte[] payload, @Nullable byte[] txPtr,
+                                    boolean payloadCompressed) {
     this.topicId = MessagingUtils.toTopicId(row, 0,
                                             row.length - Bytes.SIZEOF_SHORT - Bytes.SIZEOF_LONG - Bytes.SIZEOF_INT);
     this.generation = Bytes.toInt(row, row.length - Bytes.SIZEOF_SHORT - Bytes.SIZEOF_LONG - Bytes.SIZEOF_INT);
@@ -46,6 +62,7 @@ public final class ImmutableMessageTableEntry implements MessageTable.Entry {
     // since we mark tx as negative when tx is rolled back, we return the absolute value of tx
     this.transactionWritePointer = txPtr == null ? -1 : Math.abs(Bytes.toLong(txPtr));
     this.payload = payload;
+    this.payloadCompressed = payload != null && payloadCompressed;
   }
 
   @Override
@@ -76,6 +93,17 @@ public final class ImmutableMessageTableEntry implements MessageTable.Entry {
   @Nullable
   @Override
   public byte[] getPayload() {
+    return payloadCompressed ? PayloadCodec.decompress(payload) : payload;
+  }
+
+  @Override
+  public boolean isPayloadCompressed() {
+    return payloadCompressed;
+  }
+
+  @Nullable
+  @Override
+  public byte[] getStoredPayload() {
     return payload;
   }
 
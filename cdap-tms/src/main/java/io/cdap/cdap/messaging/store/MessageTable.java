@@ -17,6 +17,7 @@
 package io.cdap.cdap.messaging.store;
 
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.messaging.PayloadCodec;
 import io.cdap.cdap.messaging.RollbackDetail;
 import io.cdap.cdap.messaging.TopicMetadata;
 import io.cdap.cdap.messaging.data.MessageId;
@@ -73,6 +74,23 @@ public interface MessageTable extends Closeable {
     @Nullable
     byte[] getPayload();
 
+    /**
+     * Returns {@code true} if the payload is stored in compressed form.
+     */
+    default boolean isPayloadCompressed() {
+      return false;
+    }
+
+    /**
+     * Returns the payload in the form as it is stored in the message table. If {@link #isPayloadCompressed()}
+     * returns {@code true}, it is the payload compressed by {@link PayloadCodec}; otherwise it is the same as
+     * {@link #getPayload()}.
+     */
+    @Nullable
+    default byte[] getStoredPayload() {
+      return getPayload();
+    }
+
     /**
      * Returns the timestamp in milliseconds when this entry was written to the message table.
      */
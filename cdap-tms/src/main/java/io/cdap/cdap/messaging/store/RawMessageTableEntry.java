@@ -25,11 +25,18 @@ public class RawMessageTableEntry {
   private MessageTableKey key;
   private byte[] txPtr;
   private byte[] payload;
+  private boolean payloadCompressed;
 
   public RawMessageTableEntry set(MessageTableKey key, @Nullable byte[] txPtr, @Nullable byte[] payload) {
+    return set(key, txPtr, payload, false);
+  }
+
+  public RawMessageTableEntry set(MessageTableKey key, @Nullable byte[] txPtr,
+                                  @Nullable byte[] payload, boolean payloadCompressed) {
     this.key = key;
     this.txPtr = txPtr;
     this.payload = payload;
+    this.payloadCompressed = payloadCompressed;
     return this;
   }
 
@@ -42,8 +49,16 @@ public class RawMessageTableEntry {
     return txPtr;
   }
 
+  /**
+   * Returns the payload as stored in the table, which is compressed if {@link #isPayloadCompressed()} is
+   * {@code true}.
+   */
   @Nullable
   public byte[] getPayload() {
     return payload;
   }
+
+  public boolean isPayloadCompressed() {
+    return payloadCompressed;
+  }
 }
@@ -24,6 +24,7 @@ import io.cdap.cdap.api.dataset.lib.AbstractCloseableIterator;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.utils.TimeProvider;
+import io.cdap.cdap.messaging.PayloadCodec;
 import io.cdap.cdap.messaging.RollbackDetail;
 import io.cdap.cdap.messaging.TopicMetadata;
 import io.cdap.cdap.messaging.cache.MessageCache;
@@ -341,6 +342,7 @@ final class CachingMessageTable implements MessageTable {
     private final int generation;
     private final boolean transactional;
     private final byte[] payload;
+    private final boolean payloadCompressed;
     private final long publishTimestamp;
     private final short sequenceId;
     private long transactionWritePointer;
@@ -352,6 +354,7 @@ final class CachingMessageTable implements MessageTable {
       this.generation = topicMetadata.getGeneration();
       this.transactional = false;
       this.payload = null;
+      this.payloadCompressed = false;
       this.publishTimestamp = publishTimestamp;
       this.sequenceId = sequenceId;
     }
@@ -362,7 +365,9 @@ final class CachingMessageTable implements MessageTable {
       this.generation = other.getGeneration();
       this.transactional = other.isTransactional();
       this.transactionWritePointer = other.getTransactionWritePointer();
-      this.payload = other.getPayload();
+      // Keep the payload in the stored form so that compressed payloads take less space in the cache
+      this.payload = other.getStoredPayload();
+      this.payloadCompressed = other.isPayloadCompressed();
       this.publishTimestamp = other.getPublishTimestamp();
       this.sequenceId = other.getSequenceId();
     }
@@ -389,7 +394,7 @@ final class CachingMessageTable implements MessageTable {
 
     @Override
     public boolean isPayloadReference() {
-      return getPayload() == null;
+      return getStoredPayload() == null;
     }
 
     @Override
@@ -411,6 +416,23 @@ final class CachingMessageTable implements MessageTable {
     @Nullable
     @Override
     public byte[] getPayload() {
+      if (lookupOnly) {
+        throw new UnsupportedOperationException();
+      }
+      return payloadCompressed ? PayloadCodec.decompress(payload) : payload;
+    }
+
+    @Override
+    public boolean isPayloadCompressed() {
+      if (lookupOnly) {
+        throw new UnsupportedOperationException();
+      }
+      return payloadCompressed;
+    }
+
+    @Nullable
+    @Override
+    public byte[] getStoredPayload() {
       if (lookupOnly) {
         throw new UnsupportedOperationException();
       }
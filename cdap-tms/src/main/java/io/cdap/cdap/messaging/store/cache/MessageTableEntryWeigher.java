@@ -28,7 +28,8 @@ final class MessageTableEntryWeigher implements MessageCache.Weigher<MessageTabl
   public int weight(MessageTable.Entry entry) {
     // Some fixed overhead for the primitive and reference fields
     int weight = 40;
-    byte[] payload = entry.getPayload();
+    // Use the stored payload, which can be compressed, to avoid decompression and to reflect the actual memory usage
+    byte[] payload = entry.getStoredPayload();
     weight += payload == null ? 0 : payload.length;
     return weight;
   }
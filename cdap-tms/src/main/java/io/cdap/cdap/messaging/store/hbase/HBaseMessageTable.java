@@ -50,6 +50,7 @@ import java.util.concurrent.ExecutorService;
 final class HBaseMessageTable extends AbstractMessageTable {
   private static final byte[] PAYLOAD_COL = MessagingUtils.Constants.PAYLOAD_COL;
   private static final byte[] TX_COL = MessagingUtils.Constants.TX_COL;
+  private static final byte[] COMPRESSED_PAYLOAD_COL = MessagingUtils.Constants.COMPRESSED_PAYLOAD_COL;
 
   private final HBaseTableUtil tableUtil;
   private final byte[] columnFamily;
@@ -108,9 +109,14 @@ final class HBaseMessageTable extends AbstractMessageTable {
 
           byte[] originalKey = rowKeyDistributor.getOriginalKey(result.getRow());
           messageTableKey.setFromRowKey(originalKey);
-          return tableEntry.set(messageTableKey,
-                                result.getValue(columnFamily, TX_COL),
-                                result.getValue(columnFamily, PAYLOAD_COL));
+          // Compressed payload is stored in a separate column
+          byte[] payload = result.getValue(columnFamily, PAYLOAD_COL);
+          boolean compressed = false;
+          if (payload == null) {
+            payload = result.getValue(columnFamily, COMPRESSED_PAYLOAD_COL);
+            compressed = payload != null;
+          }
+          return tableEntry.set(messageTableKey, result.getValue(columnFamily, TX_COL), payload, compressed);
         }
 
         @Override
@@ -139,7 +145,8 @@ final class HBaseMessageTable extends AbstractMessageTable {
       }
 
       if (entry.getPayload() != null) {
-        putBuilder.add(columnFamily, PAYLOAD_COL, entry.getPayload());
+        putBuilder.add(columnFamily, entry.isPayloadCompressed() ? COMPRESSED_PAYLOAD_COL : PAYLOAD_COL,
+                       entry.getPayload());
       }
       batchPuts.add(putBuilder.build());
     }
@@ -57,11 +57,14 @@ final class LevelDBMessageTable extends AbstractMessageTable {
   private static final WriteOptions WRITE_OPTIONS = new WriteOptions().sync(true);
   private static final String PAYLOAD_COL = "p";
   private static final String TX_COL = "t";
+  private static final String COMPRESSED_COL = "c";
 
   private enum EncodeType {
     NON_TRANSACTIONAL(0),
     TRANSACTIONAL(1),
-    PAYLOAD_REFERENCE(2);
+    PAYLOAD_REFERENCE(2),
+    COMPRESSED_NON_TRANSACTIONAL(3),
+    COMPRESSED_TRANSACTIONAL(4);
 
     private final byte type;
 
@@ -82,10 +85,6 @@ final class LevelDBMessageTable extends AbstractMessageTable {
 
   @Override
   protected CloseableIterator<RawMessageTableEntry> scan(ScanRequest scanRequest) throws IOException {
-    Collection<LevelDBPartition> partitions = partitionManager.getPartitions(scanRequest.getStartTime());
-    if (partitions.isEmpty()) {
-      return CloseableIterator.empty();
-    }
     RawMessageTableEntry tableEntry = new RawMessageTableEntry();
     TopicMetadata topicMetadata = scanRequest.getTopicMetadata();
     byte[] topic = MessagingUtils.toDataKeyPrefix(topicMetadata.getTopicId(), topicMetadata.getGeneration());
@@ -93,11 +92,12 @@ final class LevelDBMessageTable extends AbstractMessageTable {
     BiFunction<byte[], byte[], RawMessageTableEntry> decodeFunction = (key, value) -> {
       Map<String, byte[]> columns = decodeValue(value);
       messageTableKey.setFromRowKey(key);
-      return tableEntry.set(messageTableKey, columns.get(TX_COL), columns.get(PAYLOAD_COL));
+      return tableEntry.set(messageTableKey, columns.get(TX_COL), columns.get(PAYLOAD_COL),
+                            columns.containsKey(COMPRESSED_COL));
     };
 
-    return new PartitionedDBScanIterator<>(partitions.iterator(), scanRequest.getStartRow(), scanRequest.getStopRow(),
-                                           decodeFunction);
+    return partitionManager.scan(scanRequest.getStartTime(), scanRequest.getStartRow(), scanRequest.getStopRow(),
+                                 decodeFunction);
   }
 
   @Override
@@ -125,7 +125,8 @@ final class LevelDBMessageTable extends AbstractMessageTable {
       }
 
       // LevelDB doesn't make copies, and since we reuse RawMessageTableEntry object, we need to create copies.
-      writeBatch.put(Arrays.copyOf(rowKey, rowKey.length), encodeValue(entry.getTxPtr(), entry.getPayload()));
+      writeBatch.put(Arrays.copyOf(rowKey, rowKey.length),
+                     encodeValue(entry.getTxPtr(), entry.getPayload(), entry.isPayloadCompressed()));
     }
 
     if (partition != null) {
@@ -152,7 +153,8 @@ final class LevelDBMessageTable extends AbstractMessageTable {
           Map.Entry<byte[], byte[]> rowValue = rowIterator.next();
           byte[] value = rowValue.getValue();
           Map<String, byte[]> columns = decodeValue(value);
-          writeBatch.put(rowValue.getKey(), encodeValue(rollbackRequest.getTxWritePointer(), columns.get(PAYLOAD_COL)));
+          writeBatch.put(rowValue.getKey(), encodeValue(rollbackRequest.getTxWritePointer(), columns.get(PAYLOAD_COL),
+                                                        columns.containsKey(COMPRESSED_COL)));
         }
       }
 
@@ -173,13 +175,16 @@ final class LevelDBMessageTable extends AbstractMessageTable {
   // Encoding:
   // If the returned byte array starts with 0, then it is a non-tx message and all the subsequent bytes are payload
   // If the returned byte array starts with 1, then next 8 bytes correspond to txWritePtr and rest are payload bytes
-  private byte[] encodeValue(@Nullable byte[] txWritePtr, @Nullable byte[] payload) {
+  // If the returned byte array starts with 2, then next 8 bytes correspond to txWritePtr and there is no payload
+  // If the returned byte array starts with 3 or 4, it is the same as 0 or 1 respectively, but with compressed payload
+  private byte[] encodeValue(@Nullable byte[] txWritePtr, @Nullable byte[] payload, boolean payloadCompressed) {
     // Non-transactional
     if (txWritePtr == null) {
       // For non-tx message, payload cannot be null
       Preconditions.checkArgument(payload != null, "Payload cannot be null for non-transactional message");
       byte[] result = new byte[1 + payload.length];
-      result[0] = EncodeType.NON_TRANSACTIONAL.getType();
+      result[0] = payloadCompressed ? EncodeType.COMPRESSED_NON_TRANSACTIONAL.getType()
+                                    : EncodeType.NON_TRANSACTIONAL.getType();
       Bytes.putBytes(result, 1, payload, 0, payload.length);
       return result;
     }
@@ -187,7 +192,8 @@ final class LevelDBMessageTable extends AbstractMessageTable {
     // Transactional
     if (payload != null) {
       byte[] result = new byte[1 + Bytes.SIZEOF_LONG + payload.length];
-      result[0] = EncodeType.TRANSACTIONAL.getType();
+      result[0] = payloadCompressed ? EncodeType.COMPRESSED_TRANSACTIONAL.getType()
+                                    : EncodeType.TRANSACTIONAL.getType();
       Bytes.putBytes(result, 1, txWritePtr, 0, txWritePtr.length);
       Bytes.putBytes(result, 1 + Bytes.SIZEOF_LONG, payload, 0, payload.length);
       return result;
@@ -202,17 +208,22 @@ final class LevelDBMessageTable extends AbstractMessageTable {
 
   private Map<String, byte[]> decodeValue(byte[] value) {
     Map<String, byte[]> data = new HashMap<>();
+    byte type = value[0];
 
-    if (value[0] == EncodeType.NON_TRANSACTIONAL.getType()) {
+    if (type == EncodeType.NON_TRANSACTIONAL.getType() || type == EncodeType.COMPRESSED_NON_TRANSACTIONAL.getType()) {
       data.put(PAYLOAD_COL, Arrays.copyOfRange(value, 1, value.length));
     } else {
       data.put(TX_COL, Arrays.copyOfRange(value, 1, 1 + Bytes.SIZEOF_LONG));
 
       // Only transactional type has payload, otherwise payload should be null.
-      if (value[0] == EncodeType.TRANSACTIONAL.getType()) {
+      if (type == EncodeType.TRANSACTIONAL.getType() || type == EncodeType.COMPRESSED_TRANSACTIONAL.getType()) {
         data.put(PAYLOAD_COL, Arrays.copyOfRange(value, 1 + Bytes.SIZEOF_LONG, value.length));
       }
     }
+    if (type == EncodeType.COMPRESSED_NON_TRANSACTIONAL.getType()
+      || type == EncodeType.COMPRESSED_TRANSACTIONAL.getType()) {
+      data.put(COMPRESSED_COL, Bytes.EMPTY_BYTE_ARRAY);
+    }
     return data;
   }
 
@@ -16,6 +16,7 @@
 
 package io.cdap.cdap.messaging.store.leveldb;
 
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.common.utils.DirUtils;
 import org.iq80.leveldb.Options;
 import org.iq80.leveldb.impl.Iq80DBFactory;
@@ -30,7 +31,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
 import javax.annotation.Nullable;
 
 /**
@@ -47,13 +50,28 @@ public class LevelDBPartitionManager implements Closeable {
   private final File topicDir;
   private final Options dbOptions;
   private final long partitionSizeMillis;
+  private final ExecutorService scanPrefetchExecutor;
+  private final int scanPrefetchBytes;
   private final ConcurrentNavigableMap<Long, LevelDBPartition> partitions;
   private final AtomicBoolean initialized;
 
   public LevelDBPartitionManager(File topicDir, Options dbOptions, long partitionSizeMillis) {
+    this(topicDir, dbOptions, partitionSizeMillis, null, 0);
+  }
+
+  /**
+   * Creates an instance that prefetches the next partition while scanning.
+   *
+   * @param scanPrefetchExecutor executor for prefetching partitions or {@code null} to disable prefetching
+   * @param scanPrefetchBytes maximum number of bytes to prefetch from the next partition during a scan
+   */
+  public LevelDBPartitionManager(File topicDir, Options dbOptions, long partitionSizeMillis,
+                                 @Nullable ExecutorService scanPrefetchExecutor, int scanPrefetchBytes) {
     this.topicDir = topicDir;
     this.dbOptions = dbOptions;
     this.partitionSizeMillis = partitionSizeMillis;
+    this.scanPrefetchExecutor = scanPrefetchExecutor;
+    this.scanPrefetchBytes = scanPrefetchBytes;
     this.partitions = new ConcurrentSkipListMap<>();
     this.initialized = new AtomicBoolean(false);
   }
@@ -113,8 +131,31 @@ public class LevelDBPartitionManager implements Closeable {
     if (initialized.compareAndSet(false, true)) {
       initPartitions();
     }
-    Long partitionStartTime = partitions.floorKey(startTime);
-    return partitionStartTime == null ? partitions.values() : partitions.tailMap(partitionStartTime, true).values();
+    Map.Entry<Long, LevelDBPartition> floorEntry = partitions.floorEntry(startTime);
+    if (floorEntry == null) {
+      return partitions.values();
+    }
+    // Skip the floor partition if it ends before the start time, which happens if there is a gap between partitions
+    return partitions.tailMap(floorEntry.getKey(), floorEntry.getValue().getEndTime() > startTime).values();
+  }
+
+  /**
+   * Scans rows in the given range across partitions for publish times equal to or greater than the given timestamp.
+   *
+   * @param startTime the smallest publish time of the rows to scan
+   * @param startRow the start row key, inclusive
+   * @param stopRow the stop row key, exclusive
+   * @param decodeFunction function to decode each row key and value
+   * @return a {@link CloseableIterator} of the decoded rows
+   */
+  public <T> CloseableIterator<T> scan(long startTime, byte[] startRow, byte[] stopRow,
+                                       BiFunction<byte[], byte[], T> decodeFunction) throws IOException {
+    Collection<LevelDBPartition> partitions = getPartitions(startTime);
+    if (partitions.isEmpty()) {
+      return CloseableIterator.empty();
+    }
+    return new PartitionedDBScanIterator<>(partitions.iterator(), startRow, stopRow, decodeFunction,
+                                           scanPrefetchExecutor, scanPrefetchBytes);
   }
 
   /**
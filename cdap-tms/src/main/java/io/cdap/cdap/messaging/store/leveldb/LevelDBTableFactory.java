@@ -50,8 +50,11 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -72,6 +75,8 @@ public final class LevelDBTableFactory implements TableFactory {
   private final ConcurrentMap<File, DB> levelDBs;
   private final ConcurrentMap<File, LevelDBPartitionManager> partitionedLevelDBs;
   private final long partitionSizeMillis;
+  private final ExecutorService scanPrefetchExecutor;
+  private final int scanPrefetchBytes;
 
   private LevelDBMetadataTable metadataTable;
 
@@ -98,6 +103,18 @@ public final class LevelDBTableFactory implements TableFactory {
     this.levelDBs = new ConcurrentHashMap<>();
     this.partitionedLevelDBs = new ConcurrentHashMap<>();
     this.partitionSizeMillis = cConf.getLong(Constants.MessagingSystem.LOCAL_DATA_PARTITION_SECONDS) * 1000;
+
+    int prefetchThreads = cConf.getInt(Constants.MessagingSystem.LOCAL_DATA_SCAN_PREFETCH_THREADS, 0);
+    this.scanPrefetchBytes = cConf.getInt(Constants.MessagingSystem.LOCAL_DATA_SCAN_PREFETCH_BYTES, 0);
+    if (prefetchThreads > 0 && scanPrefetchBytes > 0) {
+      ThreadPoolExecutor prefetchExecutor = new ThreadPoolExecutor(
+        prefetchThreads, prefetchThreads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+        Threads.createDaemonThreadFactory("leveldb-tms-scan-prefetch-%d"));
+      prefetchExecutor.allowCoreThreadTimeOut(true);
+      this.scanPrefetchExecutor = prefetchExecutor;
+    } else {
+      this.scanPrefetchExecutor = null;
+    }
   }
 
   @Override
@@ -199,6 +216,9 @@ public final class LevelDBTableFactory implements TableFactory {
     dbs.clear();
     partitionedLevelDBs.values().forEach(Closeables::closeQuietly);
     partitionedLevelDBs.clear();
+    if (scanPrefetchExecutor != null) {
+      scanPrefetchExecutor.shutdownNow();
+    }
   }
 
   @VisibleForTesting
@@ -221,7 +241,8 @@ public final class LevelDBTableFactory implements TableFactory {
         return partitionManager;
       }
 
-      partitionManager = new LevelDBPartitionManager(ensureDirExists(topicDir), dbOptions, partitionSizeMillis);
+      partitionManager = new LevelDBPartitionManager(ensureDirExists(topicDir), dbOptions, partitionSizeMillis,
+                                                     scanPrefetchExecutor, scanPrefetchBytes);
       partitionedLevelDBs.put(topicDir, partitionManager);
     }
 
@@ -16,17 +16,30 @@
 
 package io.cdap.cdap.messaging.store.leveldb;
 
+import com.google.common.util.concurrent.Futures;
 import io.cdap.cdap.api.dataset.lib.AbstractCloseableIterator;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.BiFunction;
+import javax.annotation.Nullable;
 
 /**
  * An iterator that scans over multiple partitions of a MessageTable.
  *
+ * If a prefetch executor is provided, while one partition is being consumed, the next partition will be opened and
+ * scanned ahead in the executor, up to the given number of bytes. This allows sequential consumption across
+ * partitions, such as catching up a subscriber that is far behind, not to be bounded by the time
+ * needed to open and read from each partition.
+ *
  * @param <T> type of object to scan
  */
 public class PartitionedDBScanIterator<T> extends AbstractCloseableIterator<T> {
@@ -34,18 +47,30 @@ public class PartitionedDBScanIterator<T> extends AbstractCloseableIterator<T> {
   private final byte[] startRow;
   private final byte[] stopRow;
   private final BiFunction<byte[], byte[], T> decodeFunction;
+  private final ExecutorService prefetchExecutor;
+  private final int prefetchBytes;
   private boolean closed;
   private CloseableIterator<Map.Entry<byte[], byte[]>> currentPartition;
+  private PartitionPrefetch nextPartition;
 
   public PartitionedDBScanIterator(Iterator<LevelDBPartition> partitionIter, byte[] startRow, byte[] stopRow,
                                    BiFunction<byte[], byte[], T> decodeFunction) throws IOException {
+    this(partitionIter, startRow, stopRow, decodeFunction, null, 0);
+  }
+
+  public PartitionedDBScanIterator(Iterator<LevelDBPartition> partitionIter, byte[] startRow, byte[] stopRow,
+                                   BiFunction<byte[], byte[], T> decodeFunction,
+                                   @Nullable ExecutorService prefetchExecutor, int prefetchBytes) throws IOException {
     this.partitionIter = partitionIter;
     this.startRow = startRow;
     this.stopRow = stopRow;
     this.decodeFunction = decodeFunction;
+    this.prefetchExecutor = prefetchBytes > 0 ? prefetchExecutor : null;
+    this.prefetchBytes = prefetchBytes;
     this.closed = false;
     this.currentPartition = partitionIter.hasNext() ?
       new DBScanIterator(partitionIter.next().getLevelDB(), startRow, stopRow) : CloseableIterator.empty();
+    prefetchNextPartition();
   }
 
   @Override
@@ -54,17 +79,19 @@ public class PartitionedDBScanIterator<T> extends AbstractCloseableIterator<T> {
       return endOfData();
     }
 
-    if (!currentPartition.hasNext()) {
-      while (partitionIter.hasNext()) {
-        try {
+    while (!currentPartition.hasNext() && (nextPartition != null || partitionIter.hasNext())) {
+      currentPartition.close();
+      try {
+        if (nextPartition != null) {
+          currentPartition = nextPartition.getIterator();
+          nextPartition = null;
+        } else {
           currentPartition = new DBScanIterator(partitionIter.next().getLevelDB(), startRow, stopRow);
-        } catch (IOException e) {
-          throw new RuntimeException(e);
-        }
-        if (currentPartition.hasNext()) {
-          break;
         }
+      } catch (IOException e) {
+        throw new RuntimeException(e);
       }
+      prefetchNextPartition();
     }
 
     if (!currentPartition.hasNext()) {
@@ -78,10 +105,118 @@ public class PartitionedDBScanIterator<T> extends AbstractCloseableIterator<T> {
   @Override
   public void close() {
     try {
+      if (nextPartition != null) {
+        nextPartition.cancel();
+        nextPartition = null;
+      }
       currentPartition.close();
     } finally {
       endOfData();
       closed = true;
     }
   }
+
+  /**
+   * Starts prefetching the next partition if prefetching is enabled.
+   */
+  private void prefetchNextPartition() {
+    if (prefetchExecutor == null || nextPartition != null || !partitionIter.hasNext()) {
+      return;
+    }
+    LevelDBPartition partition = partitionIter.next();
+    PartitionPrefetch prefetch = new PartitionPrefetch(partition);
+    try {
+      prefetch.start(prefetchExecutor);
+    } catch (RejectedExecutionException e) {
+      // The executor is shutting down, the partition will be read without prefetching
+    }
+    nextPartition = prefetch;
+  }
+
+  /**
+   * Holds rows prefetched from a partition in the background.
+   */
+  private final class PartitionPrefetch {
+
+    private final LevelDBPartition partition;
+    private final List<Map.Entry<byte[], byte[]>> rows;
+    private volatile boolean cancelled;
+    private boolean exhausted;
+    private Future<?> future;
+
+    PartitionPrefetch(LevelDBPartition partition) {
+      this.partition = partition;
+      this.rows = new ArrayList<>();
+    }
+
+    void start(ExecutorService executor) {
+      future = executor.submit(() -> {
+        int bytes = 0;
+        try (DBScanIterator iterator = new DBScanIterator(partition.getLevelDB(), startRow, stopRow)) {
+          while (!cancelled && bytes < prefetchBytes && iterator.hasNext()) {
+            Map.Entry<byte[], byte[]> row = iterator.next();
+            rows.add(row);
+            bytes += row.getKey().length + row.getValue().length;
+          }
+          exhausted = !cancelled && !iterator.hasNext();
+        }
+        return null;
+      });
+    }
+
+    void cancel() {
+      cancelled = true;
+      if (future != null) {
+        future.cancel(false);
+      }
+    }
+
+    /**
+     * Returns an iterator over all rows in the partition, starting with the prefetched ones and continues
+     * with scanning the partition after the last prefetched row.
+     */
+    CloseableIterator<Map.Entry<byte[], byte[]>> getIterator() throws IOException {
+      if (future == null) {
+        // Prefetch didn't start, hence scan the partition directly
+        return new DBScanIterator(partition.getLevelDB(), startRow, stopRow);
+      }
+      // Wait for the prefetch to complete. Exceptions are propagated to the caller.
+      Futures.getUnchecked(future);
+
+      Iterator<Map.Entry<byte[], byte[]>> prefetched = rows.iterator();
+      // The smallest key that is larger than the last prefetched key
+      byte[] resumeRow = rows.isEmpty() ? startRow : Arrays.copyOf(rows.get(rows.size() - 1).getKey(),
+                                                                   rows.get(rows.size() - 1).getKey().length + 1);
+      return new AbstractCloseableIterator<Map.Entry<byte[], byte[]>>() {
+
+        private CloseableIterator<Map.Entry<byte[], byte[]>> remaining;
+
+        @Override
+        protected Map.Entry<byte[], byte[]> computeNext() {
+          if (prefetched.hasNext()) {
+            return prefetched.next();
+          }
+          if (exhausted) {
+            return endOfData();
+          }
+          if (remaining == null) {
+            try {
+              remaining = new DBScanIterator(partition.getLevelDB(), resumeRow, stopRow);
+            } catch (IOException e) {
+              throw new RuntimeException(e);
+            }
+          }
+          return remaining.hasNext() ? remaining.next() : endOfData();
+        }
+
+        @Override
+        public void close() {
+          if (remaining != null) {
+            remaining.close();
+          }
+          endOfData();
+        }
+      };
+    }
+  }
 }
@@ -26,6 +26,7 @@ import io.cdap.cdap.messaging.store.MessageFilter;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
@@ -374,6 +375,111 @@ public class MessageCacheTest {
     }, 10, TimeUnit.SECONDS, 100, TimeUnit.MILLISECONDS);
   }
 
+  @Test
+  public void testSegments() {
+    // Use a small segment size so that entries span multiple segments
+    MessageCache<Integer> cache = new MessageCache<>(new IntComparator(), new UnitWeigher<Integer>(),
+                                                     new MessageCache.Limits(5, 7, 10), NOOP_METRICS, 3);
+    MessageFilter<Integer> filter = MessageFilter.alwaysAccept();
+
+    cache.addAll(Arrays.asList(2, 4, 6, 8, 10, 12, 14, 16).iterator());
+    Assert.assertEquals(3, cache.getSegmentCount());
+
+    // Scan with a start entry at a segment boundary
+    try (MessageCache.Scanner<Integer> scanner = cache.scan(6, true, 10, filter)) {
+      Assert.assertEquals(Integer.valueOf(2), scanner.getFirstInCache());
+      Assert.assertEquals(Arrays.asList(6, 8, 10, 12, 14, 16), Lists.newArrayList(scanner));
+    }
+
+    // The previous scan passed the reduce trigger, so the cache is reduced to the latest 5 entries on close.
+    // The first segment is dropped, while the second segment is partially retained.
+    Assert.assertEquals(2, cache.getSegmentCount());
+    Assert.assertEquals(5, cache.getCurrentWeight());
+    try (MessageCache.Scanner<Integer> scanner = cache.scan(0, true, 10, filter)) {
+      Assert.assertEquals(Integer.valueOf(8), scanner.getFirstInCache());
+      Assert.assertEquals(Arrays.asList(8, 10, 12, 14, 16), Lists.newArrayList(scanner));
+    }
+    try (MessageCache.Scanner<Integer> scanner = cache.scan(8, false, 10, filter)) {
+      Assert.assertEquals(Arrays.asList(10, 12, 14, 16), Lists.newArrayList(scanner));
+    }
+    try (MessageCache.Scanner<Integer> scanner = cache.scan(11, true, 2, filter)) {
+      Assert.assertEquals(Arrays.asList(12, 14), Lists.newArrayList(scanner));
+    }
+    try (MessageCache.Scanner<Integer> scanner = cache.scan(16, false, 10, filter)) {
+      Assert.assertFalse(scanner.hasNext());
+    }
+
+    // Clearing the cache allows adding smaller entries again
+    cache.clear();
+    Assert.assertEquals(0, cache.getCurrentWeight());
+    cache.addAll(Arrays.asList(1, 3).iterator());
+    try (MessageCache.Scanner<Integer> scanner = cache.scan(0, true, 10, filter)) {
+      Assert.assertEquals(Integer.valueOf(1), scanner.getFirstInCache());
+      Assert.assertEquals(Arrays.asList(1, 3), Lists.newArrayList(scanner));
+    }
+  }
+
+  @Test
+  public void testConcurrentScan() throws Exception {
+    // Scans running concurrently with the writer should always see a contiguous range of entries
+    final MessageCache<Integer> cache = new MessageCache<>(new IntComparator(), new UnitWeigher<Integer>(),
+                                                           new MessageCache.Limits(50, 70, 100), NOOP_METRICS, 16);
+    final int total = 20000;
+    final MessageFilter<Integer> filter = MessageFilter.alwaysAccept();
+    final BlockingQueue<Throwable> failures = new ArrayBlockingQueue<>(10);
+
+    Thread writer = new Thread() {
+      @Override
+      public void run() {
+        for (int i = 0; i < total; i += 10) {
+          List<Integer> entries = new ArrayList<>();
+          for (int j = i; j < i + 10; j++) {
+            entries.add(j);
+          }
+          cache.addAll(entries.iterator());
+        }
+      }
+    };
+
+    List<Thread> readers = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      Thread reader = new Thread() {
+        @Override
+        public void run() {
+          try {
+            int last = -1;
+            while (last < total - 1) {
+              try (MessageCache.Scanner<Integer> scanner = cache.scan(last, false, 20, filter)) {
+                Integer first = scanner.getFirstInCache();
+                Integer expected = first == null || first > last + 1 ? first : Integer.valueOf(last + 1);
+                while (scanner.hasNext()) {
+                  Integer entry = scanner.next();
+                  Assert.assertEquals(expected, entry);
+                  expected = entry + 1;
+                  last = entry;
+                }
+              }
+            }
+          } catch (Throwable t) {
+            failures.add(t);
+          }
+        }
+      };
+      readers.add(reader);
+    }
+
+    writer.start();
+    for (Thread reader : readers) {
+      reader.start();
+    }
+    writer.join(TimeUnit.SECONDS.toMillis(30));
+    for (Thread reader : readers) {
+      reader.join(TimeUnit.SECONDS.toMillis(30));
+    }
+    Assert.assertTrue(failures.toString(), failures.isEmpty());
+    Assert.assertTrue(cache.getCurrentWeight() <= 100);
+  }
+
 
   /**
    * A {@link Comparator} for {@link Integer}.
@@ -26,14 +26,19 @@ import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.api.messaging.TopicAlreadyExistsException;
 import io.cdap.cdap.api.messaging.TopicNotFoundException;
 import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.common.HttpExceptionHandler;
 import io.cdap.cdap.common.ServiceException;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.discovery.ResolvingDiscoverable;
+import io.cdap.cdap.common.discovery.URIScheme;
 import io.cdap.cdap.common.guice.ConfigModule;
 import io.cdap.cdap.common.guice.InMemoryDiscoveryModule;
 import io.cdap.cdap.common.guice.RemoteAuthenticatorModules;
+import io.cdap.cdap.common.internal.remote.NoOpInternalAuthenticator;
 import io.cdap.cdap.common.internal.remote.RemoteClientFactory;
 import io.cdap.cdap.common.metrics.NoOpMetricsCollectionService;
+import io.cdap.cdap.messaging.BatchPublishException;
 import io.cdap.cdap.messaging.MessagingService;
 import io.cdap.cdap.messaging.RollbackDetail;
 import io.cdap.cdap.messaging.StoreRequest;
@@ -48,8 +53,18 @@ import io.cdap.cdap.proto.id.TopicId;
 import io.cdap.cdap.security.auth.context.AuthenticationContextModules;
 import io.cdap.cdap.security.authorization.AuthorizationEnforcementModule;
 import io.cdap.cdap.security.spi.authorization.UnauthorizedException;
+import io.cdap.http.AbstractHandlerHook;
+import io.cdap.http.ChannelPipelineModifier;
+import io.cdap.http.HttpResponder;
+import io.cdap.http.NettyHttpService;
+import io.cdap.http.internal.HandlerInfo;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http.HttpContentDecompressor;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
 import org.apache.tephra.Transaction;
 import org.apache.tephra.TxConstants;
+import org.apache.twill.discovery.InMemoryDiscoveryService;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -68,6 +83,12 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -76,11 +97,13 @@ import java.util.stream.Collectors;
 @RunWith(Parameterized.class)
 public class MessagingHttpServiceTest {
 
-  @Parameterized.Parameters(name = "{index}: compressPayload = {0}")
+  @Parameterized.Parameters(name = "{index}: compressPayload = {0}, framedFetch = {1}")
   public static Collection<Object[]> parameters() {
     return Arrays.asList(new Object[][]{
-      {false},
-      {true},
+      {false, false},
+      {true, false},
+      {false, true},
+      {true, true},
     });
   }
 
@@ -88,12 +111,15 @@ public class MessagingHttpServiceTest {
   public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
 
   private final boolean compressPayload;
+  private final boolean framedFetch;
   private CConfiguration cConf;
+  private Injector injector;
   private MessagingHttpService httpService;
   private MessagingService client;
 
-  public MessagingHttpServiceTest(boolean compressPayload) {
+  public MessagingHttpServiceTest(boolean compressPayload, boolean framedFetch) {
     this.compressPayload = compressPayload;
+    this.framedFetch = framedFetch;
   }
 
   @Before
@@ -108,7 +134,7 @@ public class MessagingHttpServiceTest {
     cConf.setInt(Constants.MessagingSystem.HTTP_SERVER_MAX_REQUEST_SIZE_MB, 1);
     cConf.setBoolean(Constants.MessagingSystem.HTTP_COMPRESS_PAYLOAD, compressPayload);
 
-    Injector injector = Guice.createInjector(
+    injector = Guice.createInjector(
       new ConfigModule(cConf),
       RemoteAuthenticatorModules.getNoOpModule(),
       new InMemoryDiscoveryModule(),
@@ -125,7 +151,8 @@ public class MessagingHttpServiceTest {
 
     httpService = injector.getInstance(MessagingHttpService.class);
     httpService.startAndWait();
-    client = new ClientMessagingService(injector.getInstance(RemoteClientFactory.class), compressPayload);
+    client = new ClientMessagingService(injector.getInstance(RemoteClientFactory.class), compressPayload,
+                                        framedFetch);
   }
 
   @After
@@ -650,4 +677,230 @@ public class MessagingHttpServiceTest {
                           .map(RawMessage::getPayload)
                           .map(Bytes::toString).collect(Collectors.toList()));
   }
+
+  @Test
+  public void testBatchPublish() throws Exception {
+    NamespaceId nsId = new NamespaceId("ns1");
+    TopicId topic1 = nsId.topic("testBatchPublish1");
+    TopicId topic2 = nsId.topic("testBatchPublish2");
+    TopicId missingTopic = nsId.topic("testBatchPublishMissing");
+    TopicId otherNsTopic = new NamespaceId("ns2").topic("testBatchPublish");
+
+    client.createTopic(new TopicMetadata(topic1));
+    client.createTopic(new TopicMetadata(topic2));
+    client.createTopic(new TopicMetadata(otherNsTopic));
+
+    // Publish to multiple topics across namespaces. Requests to the same topic should be published in order.
+    client.batchPublish(Arrays.asList(StoreRequestBuilder.of(topic1).addPayload("a1").addPayload("a2").build(),
+                                      StoreRequestBuilder.of(topic2).addPayload("b1").build(),
+                                      StoreRequestBuilder.of(otherNsTopic).addPayload("c1").build(),
+                                      StoreRequestBuilder.of(topic1).addPayload("a3").build()));
+
+    // Publish with a missing topic should only fail that topic
+    try {
+      client.batchPublish(Arrays.asList(StoreRequestBuilder.of(topic2).addPayload("b2").build(),
+                                        StoreRequestBuilder.of(missingTopic).addPayload("x").build()));
+      Assert.fail("Expected BatchPublishException");
+    } catch (BatchPublishException e) {
+      Assert.assertEquals(Collections.singleton(missingTopic), e.getFailures().keySet());
+      Assert.assertTrue(e.getFailures().get(missingTopic) instanceof TopicNotFoundException);
+    }
+
+    Assert.assertEquals(Arrays.asList("a1", "a2", "a3"), fetchPayloads(topic1));
+    Assert.assertEquals(Arrays.asList("b1", "b2"), fetchPayloads(topic2));
+    Assert.assertEquals(Collections.singletonList("c1"), fetchPayloads(otherNsTopic));
+
+    // Transactional publish is not supported
+    try {
+      client.batchPublish(Collections.singletonList(StoreRequestBuilder.of(topic1).setTransaction(1L)
+                                                      .addPayload("t").build()));
+      Assert.fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    client.deleteTopic(topic1);
+    client.deleteTopic(topic2);
+    client.deleteTopic(otherNsTopic);
+  }
+
+  @Test
+  public void testBatchPublishFallback() throws Exception {
+    // Serve publish calls without the batch publish endpoint, like a server of an older version
+    AtomicInteger batchPublishCalls = new AtomicInteger();
+    NettyHttpService legacyService = NettyHttpService.builder("legacy-messaging")
+      .setHttpHandlers(new StoreHandler(cConf, injector.getInstance(MessagingService.class)))
+      .setExceptionHandler(new HttpExceptionHandler())
+      .setChannelPipelineModifier(new ChannelPipelineModifier() {
+        @Override
+        public void modify(ChannelPipeline pipeline) {
+          pipeline.addAfter("compressor", "decompressor", new HttpContentDecompressor());
+        }
+      })
+      .setHandlerHooks(Collections.singletonList(new AbstractHandlerHook() {
+        @Override
+        public boolean preCall(HttpRequest request, HttpResponder responder, HandlerInfo handlerInfo) {
+          if (!"batchPublish".equals(handlerInfo.getMethodName())) {
+            return true;
+          }
+          batchPublishCalls.incrementAndGet();
+          responder.sendStatus(HttpResponseStatus.NOT_FOUND);
+          return false;
+        }
+      }))
+      .build();
+    legacyService.start();
+    try {
+      InMemoryDiscoveryService discoveryService = new InMemoryDiscoveryService();
+      discoveryService.register(ResolvingDiscoverable.of(
+        URIScheme.HTTP.createDiscoverable(Constants.Service.MESSAGING_SERVICE, legacyService.getBindAddress())));
+      MessagingService legacyClient = new ClientMessagingService(
+        new RemoteClientFactory(discoveryService, new NoOpInternalAuthenticator()), compressPayload, framedFetch);
+
+      NamespaceId nsId = new NamespaceId("ns1");
+      TopicId topic1 = nsId.topic("testBatchPublishFallback1");
+      TopicId topic2 = nsId.topic("testBatchPublishFallback2");
+      TopicId missingTopic = nsId.topic("testBatchPublishFallbackMissing");
+      client.createTopic(new TopicMetadata(topic1));
+      client.createTopic(new TopicMetadata(topic2));
+
+      // Falls back to publish to each topic, which keeps the order of requests to the same topic
+      legacyClient.batchPublish(Arrays.asList(StoreRequestBuilder.of(topic1).addPayload("a1").build(),
+                                              StoreRequestBuilder.of(topic2).addPayload("b1").build(),
+                                              StoreRequestBuilder.of(topic1).addPayload("a2").build()));
+      Assert.assertEquals(1, batchPublishCalls.get());
+
+      // The client remembers that batch publish is not supported
+      try {
+        legacyClient.batchPublish(Arrays.asList(StoreRequestBuilder.of(missingTopic).addPayload("x").build(),
+                                                StoreRequestBuilder.of(topic2).addPayload("b2").build()));
+        Assert.fail("Expected BatchPublishException");
+      } catch (BatchPublishException e) {
+        Assert.assertEquals(Collections.singleton(missingTopic), e.getFailures().keySet());
+        Assert.assertTrue(e.getFailures().get(missingTopic) instanceof TopicNotFoundException);
+      }
+      Assert.assertEquals(1, batchPublishCalls.get());
+
+      Assert.assertEquals(Arrays.asList("a1", "a2"), fetchPayloads(topic1));
+      Assert.assertEquals(Arrays.asList("b1", "b2"), fetchPayloads(topic2));
+
+      client.deleteTopic(topic1);
+      client.deleteTopic(topic2);
+    } finally {
+      legacyService.stop();
+    }
+  }
+
+  @Test
+  public void testBatchPublishOrder() throws Exception {
+    NamespaceId nsId = new NamespaceId("ns1");
+    TopicId topic1 = nsId.topic("testBatchPublishOrder1");
+    TopicId topic2 = nsId.topic("testBatchPublishOrder2");
+    client.createTopic(new TopicMetadata(topic1));
+    client.createTopic(new TopicMetadata(topic2));
+
+    // Interleaved requests to the same topics should be published in the order of the requests
+    List<StoreRequest> requests = new ArrayList<>();
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      requests.add(StoreRequestBuilder.of(topic1).addPayload("a" + i).build());
+      requests.add(StoreRequestBuilder.of(topic2).addPayload("b" + i).build());
+      expected.add("a" + i);
+    }
+    injector.getInstance(MessagingService.class).batchPublish(requests);
+    Assert.assertEquals(expected, fetchPayloads(topic1));
+
+    client.deleteTopic(topic1);
+    client.deleteTopic(topic2);
+  }
+
+  private List<String> fetchPayloads(TopicId topicId) throws Exception {
+    List<String> payloads = new ArrayList<>();
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId).fetch()) {
+      iterator.forEachRemaining(message -> payloads.add(Bytes.toString(message.getPayload())));
+    }
+    return payloads;
+  }
+
+  @Test
+  public void testCompression() throws Exception {
+    TopicId topicId = new NamespaceId("ns1").topic("testCompression");
+
+    // Invalid compression codec should be rejected
+    try {
+      client.createTopic(new TopicMetadata(topicId, TopicMetadata.COMPRESSION_KEY, "unknown"));
+      Assert.fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+
+    client.createTopic(new TopicMetadata(topicId, TopicMetadata.COMPRESSION_KEY, "lz4"));
+    String largePayload = Strings.repeat("compressible payload ", 100);
+    client.publish(StoreRequestBuilder.of(topicId).addPayload("small").addPayload(largePayload).build());
+
+    // Changing the codec should not affect messages that were already published
+    client.updateTopic(new TopicMetadata(topicId, TopicMetadata.COMPRESSION_KEY, "snappy"));
+    client.publish(StoreRequestBuilder.of(topicId).addPayload(largePayload).build());
+    client.updateTopic(new TopicMetadata(topicId, TopicMetadata.COMPRESSION_KEY, "none"));
+    client.publish(StoreRequestBuilder.of(topicId).addPayload(largePayload).build());
+
+    Assert.assertEquals(Arrays.asList("small", largePayload, largePayload, largePayload), fetchPayloads(topicId));
+    client.deleteTopic(topicId);
+  }
+
+  @Test
+  public void testLongPoll() throws Exception {
+    TopicId topicId = new NamespaceId("ns1").topic("testLongPoll");
+    client.createTopic(new TopicMetadata(topicId));
+
+    // Fetch on an empty topic should wait until timeout and return nothing
+    long startTime = System.nanoTime();
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId)
+      .setWaitTime(500, TimeUnit.MILLISECONDS).fetch()) {
+      Assert.assertFalse(iterator.hasNext());
+    }
+    Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) >= 400);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      // A waiting fetch should return once there are messages published to the topic
+      Future<List<String>> future = executor.submit(() -> {
+        List<String> payloads = new ArrayList<>();
+        try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId)
+          .setWaitTime(30, TimeUnit.SECONDS).fetch()) {
+          iterator.forEachRemaining(message -> payloads.add(Bytes.toString(message.getPayload())));
+        }
+        return payloads;
+      });
+
+      TimeUnit.MILLISECONDS.sleep(200);
+      client.publish(StoreRequestBuilder.of(topicId).addPayload("m1").addPayload("m2").build());
+      Assert.assertEquals(Arrays.asList("m1", "m2"), future.get(10, TimeUnit.SECONDS));
+
+      // Fetch with messages available should return immediately
+      try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId)
+        .setWaitTime(30, TimeUnit.SECONDS).fetch()) {
+        Assert.assertEquals(2, Iterators.size(iterator));
+      }
+
+      // Deleting the topic should wake up the waiting fetch with TopicNotFoundException
+      Future<Boolean> deleteFuture = executor.submit(() -> {
+        try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId)
+          .setStartTime(System.currentTimeMillis() + 1000L).setWaitTime(30, TimeUnit.SECONDS).fetch()) {
+          return iterator.hasNext();
+        }
+      });
+
+      TimeUnit.MILLISECONDS.sleep(200);
+      client.deleteTopic(topicId);
+      try {
+        deleteFuture.get(10, TimeUnit.SECONDS);
+        Assert.fail("Expected TopicNotFoundException");
+      } catch (ExecutionException e) {
+        Assert.assertTrue(e.getCause() instanceof TopicNotFoundException);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 }
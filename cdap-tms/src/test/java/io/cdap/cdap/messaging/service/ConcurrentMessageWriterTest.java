@@ -21,7 +21,7 @@ import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.util.concurrent.Uninterruptibles;
 import io.cdap.cdap.api.common.Bytes;
-import io.cdap.cdap.api.metrics.MetricsCollector;
+import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.common.utils.TimeProvider;
 import io.cdap.cdap.messaging.StoreRequest;
 import io.cdap.cdap.messaging.TopicMetadata;
@@ -40,12 +40,14 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
 
 /**
@@ -154,7 +156,7 @@ public class ConcurrentMessageWriterTest {
     // before flushing.
     // This will make all requests batched together
     final CountDownLatch latch = new CountDownLatch(requestCount);
-    final ConcurrentMessageWriter writer = new ConcurrentMessageWriter(testWriter, new MetricsCollector() {
+    final ConcurrentMessageWriter writer = new ConcurrentMessageWriter(testWriter, new TestMetricsContext() {
       @Override
       public void increment(String metricName, long value) {
         if ("persist.requested".equals(metricName)) {
@@ -207,16 +209,56 @@ public class ConcurrentMessageWriterTest {
 
   @Test
   public void testConcurrentWrites() throws InterruptedException, BrokenBarrierException {
+    TestStoreRequestWriter testWriter = new TestStoreRequestWriter(new TimeProvider.IncrementalTimeProvider(), 50L);
+    testConcurrentWrites(testWriter, new ConcurrentMessageWriter(testWriter));
+  }
+
+  @Test
+  public void testGroupCommitConcurrentWrites() throws InterruptedException, BrokenBarrierException {
+    int maxBatchSize = 5;
+    AtomicLong maxObservedBatchSize = new AtomicLong();
+    TestStoreRequestWriter testWriter = new TestStoreRequestWriter(new TimeProvider.IncrementalTimeProvider(), 20L);
+    ConcurrentMessageWriter writer = new ConcurrentMessageWriter(testWriter, new TestMetricsContext() {
+      @Override
+      public void event(String metricName, long value) {
+        if ("persist.batch.size".equals(metricName)) {
+          maxObservedBatchSize.accumulateAndGet(value, Math::max);
+        }
+      }
+    }, true, maxBatchSize, 0L);
+
+    testConcurrentWrites(testWriter, writer);
+
+    // Batches must be bounded by the max batch size, and there should be batching
+    Assert.assertTrue(maxObservedBatchSize.get() <= maxBatchSize);
+    Assert.assertTrue(maxObservedBatchSize.get() > 1);
+  }
+
+  @Test
+  public void testGroupCommitLinger() throws IOException {
+    TopicId topicId = NamespaceId.DEFAULT.topic("t");
+    TopicMetadata metadata = new TopicMetadata(topicId, new HashMap<String, String>(), 1);
+
+    TestStoreRequestWriter testWriter = new TestStoreRequestWriter(new TimeProvider.IncrementalTimeProvider());
+    ConcurrentMessageWriter writer = new ConcurrentMessageWriter(testWriter, new TestMetricsContext(), true, 10, 1000L);
+
+    // A single publisher should still complete even though the batch never fills up
+    for (int i = 0; i < 3; i++) {
+      writer.persist(new TestStoreRequest(topicId, Arrays.asList("a", "b")), metadata);
+    }
+    Assert.assertEquals(6, testWriter.getMessages().get(topicId).size());
+    writer.close();
+  }
+
+  private void testConcurrentWrites(TestStoreRequestWriter testWriter,
+                                    ConcurrentMessageWriter writer) throws InterruptedException,
+                                                                           BrokenBarrierException {
     int payloadsPerRequest = 200;
     int threadCount = 20;
     final int requestPerThread = 20;
-    long writeLatencyMillis = 50L;
 
     final TopicId topicId = NamespaceId.DEFAULT.topic("t");
     final TopicMetadata metadata = new TopicMetadata(topicId, new HashMap<String, String>(), 1);
-    TestStoreRequestWriter testWriter = new TestStoreRequestWriter(new TimeProvider.IncrementalTimeProvider(),
-                                                                   writeLatencyMillis);
-    final ConcurrentMessageWriter writer = new ConcurrentMessageWriter(testWriter);
 
     final List<String> payload = new ArrayList<>(payloadsPerRequest);
     for (int i = 0; i < payloadsPerRequest; i++) {
@@ -268,6 +310,42 @@ public class ConcurrentMessageWriterTest {
     }
   }
 
+  /**
+   * A {@link MetricsContext} that ignores all metrics, for overriding the methods of interest in tests.
+   */
+  private static class TestMetricsContext implements MetricsContext {
+
+    @Override
+    public MetricsContext childContext(Map<String, String> tags) {
+      return this;
+    }
+
+    @Override
+    public MetricsContext childContext(String tagName, String tagValue) {
+      return this;
+    }
+
+    @Override
+    public Map<String, String> getTags() {
+      return new HashMap<>();
+    }
+
+    @Override
+    public void event(String metricName, long value) {
+      // no-op
+    }
+
+    @Override
+    public void increment(String metricName, long value) {
+      // no-op
+    }
+
+    @Override
+    public void gauge(String metricName, long value) {
+      // no-op
+    }
+  }
+
   /**
    * A {@link StoreRequestWriter} that turns all payloads to {@link RawMessage} and stores it in a List.
    */
@@ -16,6 +16,7 @@
 
 package io.cdap.cdap.messaging.store;
 
+import com.google.common.base.Strings;
 import com.google.common.base.Throwables;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableMap;
@@ -26,6 +27,7 @@ import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.messaging.PayloadCodec;
 import io.cdap.cdap.messaging.RollbackDetail;
 import io.cdap.cdap.messaging.TopicMetadata;
 import io.cdap.cdap.messaging.data.MessageId;
@@ -49,6 +51,8 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 /**
  * Base class for Message Table tests.
@@ -246,6 +250,43 @@ public abstract class MessageTableTest {
     }
   }
 
+  @Test
+  public void testCompressedPayload() throws Exception {
+    TopicId topicId = NamespaceId.DEFAULT.topic("testCompressedPayload");
+    TopicMetadata metadata = new TopicMetadata(topicId, DEFAULT_PROPERTY);
+
+    // Payloads stored with and without compression can co-exist in the same topic
+    byte[] payload = Bytes.toBytes(Strings.repeat("compressible payload ", 20));
+    try (MessageTable table = getMessageTable(metadata);
+         MetadataTable metadataTable = getMetadataTable()) {
+      metadataTable.createTopic(metadata);
+      table.store(Arrays.asList(new CompressedMessageEntry(topicId, 1L, 0, null, payload, PayloadCodec.SNAPPY),
+                                new CompressedMessageEntry(topicId, 1L, 1, null, payload, PayloadCodec.NONE),
+                                new CompressedMessageEntry(topicId, 1L, 2, 10L, payload, PayloadCodec.LZ4)).iterator());
+
+      List<MessageTable.Entry> entries = new ArrayList<>();
+      try (CloseableIterator<MessageTable.Entry> iterator = table.fetch(metadata, 0L, Integer.MAX_VALUE, null)) {
+        Iterators.addAll(entries, iterator);
+      }
+      Assert.assertEquals(3, entries.size());
+      Assert.assertEquals(Arrays.asList(true, false, true),
+                          entries.stream().map(MessageTable.Entry::isPayloadCompressed).collect(Collectors.toList()));
+      for (MessageTable.Entry entry : entries) {
+        Assert.assertArrayEquals(payload, entry.getPayload());
+        Assert.assertFalse(entry.isPayloadReference());
+      }
+      Assert.assertTrue(entries.get(0).getStoredPayload().length < payload.length);
+
+      // Rollback of the transactional message should retain the compressed payload
+      table.rollback(metadata, new TestRollbackDetail(10L, 1L, 2, 1L, 2));
+      try (CloseableIterator<MessageTable.Entry> iterator = table.fetch(metadata, 0L, Integer.MAX_VALUE, null)) {
+        MessageTable.Entry entry = Iterators.getLast(iterator);
+        Assert.assertTrue(entry.isPayloadCompressed());
+        Assert.assertArrayEquals(payload, entry.getPayload());
+      }
+    }
+  }
+
   @Test
   public void testConcurrentWrites() throws Exception {
     // Create two threads, each of them writes to a different topic with two events in one store call.
@@ -349,6 +390,31 @@ public abstract class MessageTableTest {
     return timestamp;
   }
 
+  /**
+   * A {@link TestMessageEntry} that provides the payload compressed with the given {@link PayloadCodec}.
+   */
+  private static final class CompressedMessageEntry extends TestMessageEntry {
+
+    private final byte[] storedPayload;
+
+    CompressedMessageEntry(TopicId topicId, long publishTimestamp, int sequenceId,
+                           @Nullable Long transactionWritePointer, byte[] payload, PayloadCodec codec) {
+      super(topicId, GENERATION, publishTimestamp, sequenceId, transactionWritePointer, payload);
+      this.storedPayload = codec.compress(payload);
+    }
+
+    @Override
+    public boolean isPayloadCompressed() {
+      return storedPayload != null;
+    }
+
+    @Nullable
+    @Override
+    public byte[] getStoredPayload() {
+      return storedPayload == null ? getPayload() : storedPayload;
+    }
+  }
+
   private static class TestRollbackDetail implements RollbackDetail {
 
     private final long txWritePtr;
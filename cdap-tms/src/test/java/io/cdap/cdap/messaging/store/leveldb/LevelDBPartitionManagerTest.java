@@ -16,18 +16,25 @@
 
 package io.cdap.cdap.messaging.store.leveldb;
 
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import org.iq80.leveldb.Options;
 import org.junit.Assert;
 import org.junit.ClassRule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 /**
@@ -204,6 +211,68 @@ public class LevelDBPartitionManagerTest {
     Assert.assertEquals(2000L, manager2.getPartitions(0).iterator().next().getEndTime());
   }
 
+  @Test
+  public void testGetPartitionsWithGap() throws IOException {
+    // create partitions [0,1000) and [2000,3000) with a gap in between
+    File topicDir = tmpFolder.newFolder();
+    Assert.assertTrue(LevelDBPartitionManager.getPartitionDir(topicDir, 0, 1000).mkdirs());
+    Assert.assertTrue(LevelDBPartitionManager.getPartitionDir(topicDir, 2000, 3000).mkdirs());
+    LevelDBPartitionManager partitionManager = new LevelDBPartitionManager(topicDir, DB_OPTIONS, 1000);
+
+    Map<Long, Long> expectedIntervals = new HashMap<>();
+    expectedIntervals.put(2000L, 3000L);
+    // the [0,1000) partition cannot contain anything published at or after 1000, hence should be skipped
+    Assert.assertEquals(expectedIntervals, convertToIntervals(partitionManager.getPartitions(1000)));
+    Assert.assertEquals(expectedIntervals, convertToIntervals(partitionManager.getPartitions(1500)));
+
+    expectedIntervals.put(0L, 1000L);
+    Assert.assertEquals(expectedIntervals, convertToIntervals(partitionManager.getPartitions(999)));
+    partitionManager.close();
+  }
+
+  @Test
+  public void testScan() throws IOException {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      // prefetch budget smaller than a partition, equal to a couple of rows, and larger than a partition
+      for (int prefetchBytes : new int[] { 0, 1, 20, 1024 * 1024 }) {
+        LevelDBPartitionManager partitionManager = new LevelDBPartitionManager(tmpFolder.newFolder(), DB_OPTIONS,
+                                                                               1000, executor, prefetchBytes);
+        // write 10 rows to each of the partitions [0,1000), [1000,2000) and [2000,3000)
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+          partitionManager.getOrCreatePartition(i / 10 * 1000).getLevelDB().put(Bytes.toBytes(i), Bytes.toBytes(i));
+          expected.add(i);
+        }
+
+        Assert.assertEquals(expected, scan(partitionManager, 0, 0, 30));
+        Assert.assertEquals(expected.subList(5, 25), scan(partitionManager, 0, 5, 25));
+        // scanning from 1000 should skip the first partition
+        Assert.assertEquals(expected.subList(10, 30), scan(partitionManager, 1000, 0, 30));
+
+        // closing before consuming everything should be fine
+        try (CloseableIterator<Integer> iterator = partitionManager.scan(0, Bytes.toBytes(0), Bytes.toBytes(30),
+                                                                         (key, value) -> Bytes.toInt(value))) {
+          Assert.assertEquals(0, (int) iterator.next());
+        }
+        partitionManager.close();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private List<Integer> scan(LevelDBPartitionManager partitionManager,
+                             long startTime, int startRow, int stopRow) throws IOException {
+    List<Integer> result = new ArrayList<>();
+    try (CloseableIterator<Integer> iterator = partitionManager.scan(startTime, Bytes.toBytes(startRow),
+                                                                     Bytes.toBytes(stopRow),
+                                                                     (key, value) -> Bytes.toInt(value))) {
+      iterator.forEachRemaining(result::add);
+    }
+    return result;
+  }
+
   private Map<Long, Long> convertToIntervals(Collection<LevelDBPartition> partitions) {
     return partitions.stream().collect(Collectors.toMap(LevelDBPartition::getStartTime, LevelDBPartition::getEndTime));
   }
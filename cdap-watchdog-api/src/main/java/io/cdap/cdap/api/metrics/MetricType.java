@@ -21,5 +21,10 @@ package io.cdap.cdap.api.metrics;
 public enum MetricType {
   COUNTER,
   GAUGE,
-  DISTRIBUTION
+  DISTRIBUTION,
+  /**
+   * A distribution with log-linear buckets of configurable precision. {@link MetricValue} carries histograms in the
+   * same form as {@link #DISTRIBUTION}, so this type never appears in the serialized form of a {@link MetricValue}.
+   */
+  HISTOGRAM
 }
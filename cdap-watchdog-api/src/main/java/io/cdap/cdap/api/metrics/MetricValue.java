@@ -26,7 +26,11 @@ public class MetricValue {
   private final MetricType type;
   private final long value;
 
-  // following fields to support distribution aka histogram/event metrics
+  // following fields to support distribution aka histogram/event metrics.
+  // Histograms are carried in the same fields as distributions, so that the serialized form of this class, which is
+  // generated by reflection and shared with processes of other versions, does not change. A histogram has the
+  // DISTRIBUTION type with the number of significant digits as the value, which is always zero for distributions,
+  // and its bucket indexes and counts interleaved in the bucketCounts.
   /**
    * Exponential rate at which bucket boundaries grow.
    * If X is the growth facotr, bucket boundaries will 0-X^0 (i.e. 1),
@@ -71,12 +75,43 @@ public class MetricValue {
     value = 0;
   }
 
+  /**
+   * Creates a {@link MetricType#HISTOGRAM} metric value.
+   *
+   * @param name name of the metric
+   * @param significantDigits number of significant decimal digits that the histogram buckets maintain
+   * @param bucketIndexes indexes of the buckets that have non zero counts, in ascending order
+   * @param bucketCounts counts of the buckets identified by the {@code bucketIndexes}
+   * @param sum sum of all the values
+   */
+  public MetricValue(String name, int significantDigits, int[] bucketIndexes, long[] bucketCounts, double sum) {
+    if (bucketIndexes == null || bucketCounts == null) {
+      throw new IllegalArgumentException("bucketIndexes and bucketCounts should not be null");
+    }
+    if (bucketIndexes.length != bucketCounts.length) {
+      throw new IllegalArgumentException("bucketIndexes and bucketCounts should have the same length");
+    }
+    if (significantDigits < 1) {
+      throw new IllegalArgumentException("significantDigits should be greater than 0");
+    }
+    this.name = name;
+    this.type = MetricType.DISTRIBUTION;
+    this.value = significantDigits;
+    this.bucketCounts = new long[bucketIndexes.length * 2];
+    for (int i = 0; i < bucketIndexes.length; i++) {
+      this.bucketCounts[i * 2] = bucketIndexes[i];
+      this.bucketCounts[i * 2 + 1] = bucketCounts[i];
+    }
+    this.sum = sum;
+    bucketMask = 0;
+  }
+
   public String getName() {
     return name;
   }
 
   public MetricType getType() {
-    return type;
+    return type == MetricType.DISTRIBUTION && value > 0 ? MetricType.HISTOGRAM : type;
   }
 
   public long getValue() {
@@ -88,12 +123,22 @@ public class MetricValue {
 
   @Override
   public String toString() {
-    if (type != MetricType.DISTRIBUTION) {
+    MetricType type = getType();
+    if (type == MetricType.COUNTER || type == MetricType.GAUGE) {
       return "MetricValue{" +
               "name='" + name + '\'' +
               ", type=" + type +
               ", value=" + value +
               '}';
+    } else if (type == MetricType.HISTOGRAM) {
+      return "MetricValue{" +
+              "name='" + name + '\'' +
+              ", type=" + type +
+              ", sum=" + sum +
+              ", significantDigits=" + getSignificantDigits() +
+              ", bucketIndexes=" + Arrays.toString(getBucketIndexes()) +
+              ", bucketCounts=" + Arrays.toString(getBucketCounts()) +
+              '}';
     } else {
       return "MetricValue{" +
               "name='" + name + '\'' +
@@ -109,8 +154,16 @@ public class MetricValue {
    * bucketCounts stores counts of buckets with non zero values.
    */
   public long[] getBucketCounts() {
+    MetricType type = getType();
+    if (type == MetricType.HISTOGRAM) {
+      long[] counts = new long[bucketCounts.length / 2];
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] = bucketCounts[i * 2 + 1];
+      }
+      return counts;
+    }
     if (type != MetricType.DISTRIBUTION) {
-      throw new IllegalStateException("getBucketCounts allowed only for Distribution Metric");
+      throw new IllegalStateException("getBucketCounts allowed only for Distribution or Histogram Metric");
     }
     return bucketCounts;
   }
@@ -120,7 +173,7 @@ public class MetricValue {
    * Helper function to publish the distribution metric to other systems such as Cloud Monitoring
    */
   public long[] getAllBucketCounts() {
-    if (type != MetricType.DISTRIBUTION) {
+    if (getType() != MetricType.DISTRIBUTION) {
       throw new IllegalStateException("getAllBucketCounts allowed only for Distribution Metric");
     }
 
@@ -150,7 +203,7 @@ public class MetricValue {
    * @return bucketmask
    */
   public long getBucketMask() {
-    if (type != MetricType.DISTRIBUTION) {
+    if (getType() != MetricType.DISTRIBUTION) {
       throw new IllegalStateException("getBucketMask allowed only for Distribution Metric");
     }
     return bucketMask;
@@ -161,8 +214,35 @@ public class MetricValue {
    */
   public double getSum() {
     if (type != MetricType.DISTRIBUTION) {
-      throw new IllegalStateException("getSum allowed only for Distribution Metric");
+      throw new IllegalStateException("getSum allowed only for Distribution or Histogram Metric");
     }
     return sum;
   }
+
+  /**
+   * @return number of significant decimal digits that the histogram buckets maintain
+   */
+  public int getSignificantDigits() {
+    if (getType() != MetricType.HISTOGRAM) {
+      throw new IllegalStateException("getSignificantDigits allowed only for Histogram Metric");
+    }
+    return (int) value;
+  }
+
+  /**
+   * Histogram buckets are sparse. The bucketIndexes stores the indexes of the buckets that have non-zero counts,
+   * in ascending order, with the count of each of them in the same position of {@link #getBucketCounts()}.
+   *
+   * @return indexes of the buckets with non-zero counts
+   */
+  public int[] getBucketIndexes() {
+    if (getType() != MetricType.HISTOGRAM) {
+      throw new IllegalStateException("getBucketIndexes allowed only for Histogram Metric");
+    }
+    int[] indexes = new int[bucketCounts.length / 2];
+    for (int i = 0; i < indexes.length; i++) {
+      indexes[i] = (int) bucketCounts[i * 2];
+    }
+    return indexes;
+  }
 }
@@ -19,9 +19,6 @@ package io.cdap.cdap.logging.appender.tms;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.hash.Hashing;
 import com.google.inject.Inject;
-import io.cdap.cdap.api.messaging.MessagePublisher;
-import io.cdap.cdap.api.messaging.MessagingContext;
-import io.cdap.cdap.api.messaging.TopicNotFoundException;
 import io.cdap.cdap.api.security.AccessException;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
@@ -31,9 +28,12 @@ import io.cdap.cdap.logging.appender.LogAppender;
 import io.cdap.cdap.logging.appender.LogMessage;
 import io.cdap.cdap.logging.appender.kafka.LogPartitionType;
 import io.cdap.cdap.logging.serialize.LoggingEventSerializer;
+import io.cdap.cdap.messaging.BatchPublishException;
 import io.cdap.cdap.messaging.MessagingService;
-import io.cdap.cdap.messaging.context.MultiThreadMessagingContext;
+import io.cdap.cdap.messaging.StoreRequest;
+import io.cdap.cdap.messaging.client.StoreRequestBuilder;
 import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.TopicId;
 
 import java.io.IOException;
 import java.util.AbstractMap;
@@ -42,6 +42,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -106,7 +107,7 @@ public class TMSLogAppender extends LogAppender {
     private final String topicPrefix;
     private final int numPartitions;
     private final LoggingEventSerializer loggingEventSerializer;
-    private final MessagingContext messagingContext;
+    private final MessagingService messagingService;
     private final LogPartitionType logPartitionType;
 
     private TMSLogPublisher(CConfiguration cConf, MessagingService messagingService) {
@@ -117,7 +118,7 @@ public class TMSLogAppender extends LogAppender {
       this.loggingEventSerializer = new LoggingEventSerializer();
       this.logPartitionType =
               LogPartitionType.valueOf(cConf.get(Constants.Logging.LOG_PUBLISH_PARTITION_KEY).toUpperCase());
-      this.messagingContext = new MultiThreadMessagingContext(messagingService);
+      this.messagingService = messagingService;
     }
 
     @Override
@@ -128,10 +129,7 @@ public class TMSLogAppender extends LogAppender {
     }
 
     @Override
-    protected void publish(List<Map.Entry<Integer, byte[]>> logMessages)
-      throws TopicNotFoundException, IOException, AccessException {
-      MessagePublisher directMessagePublisher = messagingContext.getDirectMessagePublisher();
-
+    protected void publish(List<Map.Entry<Integer, byte[]>> logMessages) throws IOException, AccessException {
       // Group the log messages by partition and then publish all messages to their respective partitions
       Map<Integer, List<byte[]>> partitionedMessages = new HashMap<>();
       for (Map.Entry<Integer, byte[]> logMessage : logMessages) {
@@ -139,12 +137,25 @@ public class TMSLogAppender extends LogAppender {
         messages.add(logMessage.getValue());
       }
 
+      // Publish to all partitions with one batch call
+      List<StoreRequest> requests = new ArrayList<>(partitionedMessages.size());
       for (Map.Entry<Integer, List<byte[]>> partition : partitionedMessages.entrySet()) {
-        directMessagePublisher.publish(NamespaceId.SYSTEM.getNamespace(),
-                                       topicPrefix + partition.getKey(), partition.getValue().iterator());
+        requests.add(StoreRequestBuilder.of(getTopicId(partition.getKey())).addPayloads(partition.getValue()).build());
+      }
+      try {
+        messagingService.batchPublish(requests);
+      } catch (BatchPublishException e) {
+        // Only retain messages of the failed partitions in the list, so that the retry won't publish duplicates
+        Set<TopicId> failedTopics = e.getFailures().keySet();
+        logMessages.removeIf(logMessage -> !failedTopics.contains(getTopicId(logMessage.getKey())));
+        throw e;
       }
     }
 
+    private TopicId getTopicId(int partition) {
+      return NamespaceId.SYSTEM.topic(topicPrefix + partition);
+    }
+
     @Override
     protected void logError(String errorMessage, Exception exception) {
       // Log using the status manager
@@ -15,9 +15,7 @@
  */
 package io.cdap.cdap.metrics.collect;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
@@ -36,6 +34,10 @@ import org.slf4j.LoggerFactory;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
@@ -43,6 +45,15 @@ import java.util.concurrent.TimeUnit;
 /**
  * Base class for {@link MetricsCollectionService} which collect metrics through a set of cached
  * {@link AggregatedMetricsEmitter}.
+ *
+ * There is one {@link MetricsContext} per unique set of tags, which holds the emitters of that context directly.
+ * Hence metrics operations on a {@link MetricsContext} only perform a lookup by the metric name, without
+ * allocating or hashing the tags.
+ *
+ * Contexts and emitters that are idle for a while are removed. A removed context never gets new emitters; metrics
+ * recorded through it are forwarded to the context that currently holds the same tags. A removed emitter is marked as
+ * retired, and an update that races with the removal hands the emitter back to its context to have the update
+ * emitted, hence no update is lost while removing.
  */
 public abstract class AggregatedMetricsCollectionService extends AbstractExecutionThreadService
                                                          implements MetricsCollectionService {
@@ -50,38 +61,32 @@ public abstract class AggregatedMetricsCollectionService extends AbstractExecuti
   private static final Logger LOG = LoggerFactory.getLogger(AggregatedMetricsCollectionService.class);
   private static final long CACHE_EXPIRE_MINUTES = 1;
 
-  private final LoadingCache<Map<String, String>, MetricsContext> collectors;
-  private final LoadingCache<Map<String, String>, LoadingCache<String, AggregatedMetricsEmitter>> emitters;
+  private static final long CACHE_EXPIRE_SECONDS = TimeUnit.MINUTES.toSeconds(CACHE_EXPIRE_MINUTES);
+
+  private final ConcurrentMap<Map<String, String>, MetricsContextImpl> collectors;
+  private final int histogramSignificantDigits;
   // maximum number of milliseconds to sleep between each publish
   private final long publishIntervalInMillis;
   private final CountDownLatch shutdownLatch;
 
   public AggregatedMetricsCollectionService(long publishIntervalInMillis) {
+    this(publishIntervalInMillis, 0);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param publishIntervalInMillis maximum number of milliseconds between each publish
+   * @param histogramSignificantDigits if positive, events are aggregated as {@link MetricType#HISTOGRAM} with the
+   *                                   given number of significant digits, otherwise as
+   *                                   {@link MetricType#DISTRIBUTION}
+   */
+  public AggregatedMetricsCollectionService(long publishIntervalInMillis, int histogramSignificantDigits) {
     // the longest sleep time will be 1 min
     this.publishIntervalInMillis = Math.min(publishIntervalInMillis, Constants.Metrics.PROCESS_INTERVAL_MILLIS);
     this.shutdownLatch = new CountDownLatch(1);
-    this.collectors = CacheBuilder.newBuilder()
-      .expireAfterAccess(CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES)
-      .build(createCollectorLoader());
-
-    this.emitters = CacheBuilder.newBuilder()
-      // NOTE : we don't need to have removalListener to  emit metrics, as we have expireAfterAccess set for a minute,
-      // emitters.get() is used to increment/gauge and that would reset the access time,
-      // and since runOneIteration() emits all the metrics for the scheduled duration (every 1 second)
-      // there wont be any loss of emitter entries.
-      .expireAfterAccess(CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES)
-      .build(new CacheLoader<Map<String, String>, LoadingCache<String, AggregatedMetricsEmitter>>() {
-        @Override
-        public LoadingCache<String, AggregatedMetricsEmitter> load(Map<String, String> tags) throws Exception {
-          return CacheBuilder.newBuilder().expireAfterAccess(CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES).
-            build(new CacheLoader<String, AggregatedMetricsEmitter>() {
-              @Override
-              public AggregatedMetricsEmitter load(String metricName) throws Exception {
-                return new AggregatedMetricsEmitter(metricName);
-              }
-            });
-        }
-      });
+    this.collectors = new ConcurrentHashMap<>();
+    this.histogramSignificantDigits = histogramSignificantDigits;
   }
 
   /**
@@ -123,7 +128,8 @@ public abstract class AggregatedMetricsCollectionService extends AbstractExecuti
     }
   }
 
-  private void publishMetrics(long currentTimeMillis) {
+  @VisibleForTesting
+  void publishMetrics(long currentTimeMillis) {
     long timestamp = TimeUnit.MILLISECONDS.toSeconds(currentTimeMillis);
 
     LOG.trace("Start log collection for timestamp {}", timestamp);
@@ -157,7 +163,8 @@ public abstract class AggregatedMetricsCollectionService extends AbstractExecuti
 
   @Override
   public final MetricsContext getContext(final Map<String, String> tags) {
-    return collectors.getUnchecked(tags);
+    MetricsContext context = collectors.get(tags);
+    return context == null ? collectors.computeIfAbsent(ImmutableMap.copyOf(tags), MetricsContextImpl::new) : context;
   }
 
   @Override
@@ -172,29 +179,45 @@ public abstract class AggregatedMetricsCollectionService extends AbstractExecuti
   }
 
   private Iterator<MetricValues> getMetrics(final long timestamp) {
-    // NOTE : emitters.asMap does not reset the access time in cache,
-    // so it's the preferred way to access the cache entries. as we access and emit metrics every second.
-    final Iterator<Map.Entry<Map<String, String>, LoadingCache<String, AggregatedMetricsEmitter>>> iterator =
-      emitters.asMap().entrySet().iterator();
+    final Iterator<MetricsContextImpl> iterator = collectors.values().iterator();
     return new AbstractIterator<MetricValues>() {
       @Override
       protected MetricValues computeNext() {
         while (iterator.hasNext()) {
-          Map.Entry<Map<String, String>, LoadingCache<String, AggregatedMetricsEmitter>> entry = iterator.next();
-          Map<String, AggregatedMetricsEmitter> metricEmitters = entry.getValue().asMap();
+          MetricsContextImpl context = iterator.next();
+          Map<String, AggregatedMetricsEmitter> metricEmitters = context.emitters;
           // +1 because we add extra metric about how many metric values did we emit in this context (see below)
           List<MetricValue> metricValues = Lists.newArrayListWithCapacity(metricEmitters.size() + 1);
-          for (Map.Entry<String, AggregatedMetricsEmitter> emitterEntry : metricEmitters.entrySet()) {
-            MetricValue metricValue = emitterEntry.getValue().emit();
-            // skip increment by 0
-            if (metricValue.getType() == MetricType.COUNTER && metricValue.getValue() == 0) {
-              continue;
+          Iterator<AggregatedMetricsEmitter> emitterIterator = metricEmitters.values().iterator();
+          while (emitterIterator.hasNext()) {
+            AggregatedMetricsEmitter emitter = emitterIterator.next();
+            MetricValue metricValue = emitter.emit();
+            if (!isEmpty(metricValue)) {
+              emitter.setLastEmitTime(timestamp);
+              metricValues.add(metricValue);
+            } else if (timestamp - emitter.getLastEmitTime() > CACHE_EXPIRE_SECONDS) {
+              // Remove emitters that have not been used for a while. It is retired before the removal and emitted
+              // below, such that updates that happened after the emit above are not lost.
+              emitter.retire();
+              emitterIterator.remove();
+              context.retiredEmitters.add(emitter);
             }
-            if (metricValue.getType() == MetricType.DISTRIBUTION && metricValue.getBucketCounts().length == 0) {
-              continue;
+          }
+
+          // Emit the updates that were made to emitters after they are retired
+          AggregatedMetricsEmitter retired = context.retiredEmitters.poll();
+          while (retired != null) {
+            MetricValue metricValue = retired.emit();
+            if (!isEmpty(metricValue)) {
+              metricValues.add(metricValue);
             }
+            retired = context.retiredEmitters.poll();
+          }
 
-            metricValues.add(metricValue);
+          if (metricEmitters.isEmpty()) {
+            removeIfIdle(context, timestamp);
+          } else {
+            context.lastActiveTime = timestamp;
           }
 
           if (metricValues.isEmpty()) {
@@ -206,45 +229,76 @@ public abstract class AggregatedMetricsCollectionService extends AbstractExecuti
           metricValues.add(new MetricValue("metrics.emitted.count", MetricType.COUNTER, metricValues.size() + 1));
 
           LOG.trace("Emit metric {}", metricValues);
-          return new MetricValues(entry.getKey(), timestamp, metricValues);
+          return new MetricValues(context.tags, timestamp, metricValues);
         }
         return endOfData();
       }
     };
   }
 
-  private CacheLoader<Map<String, String>, MetricsContext> createCollectorLoader() {
-    return new CacheLoader<Map<String, String>, MetricsContext>() {
-      @Override
-      public MetricsContext load(final Map<String, String> collectorKey) throws Exception {
-        return new MetricsContextImpl(collectorKey);
+  /**
+   * Returns {@code true} if the given {@link MetricValue} has nothing to publish.
+   */
+  private static boolean isEmpty(MetricValue metricValue) {
+    // skip increment by 0
+    return (metricValue.getType() == MetricType.COUNTER && metricValue.getValue() == 0)
+      || ((metricValue.getType() == MetricType.DISTRIBUTION || metricValue.getType() == MetricType.HISTOGRAM)
+      && metricValue.getBucketCounts().length == 0);
+  }
+
+  /**
+   * Removes the given {@link MetricsContextImpl} if it has no emitter for a while.
+   */
+  private void removeIfIdle(MetricsContextImpl context, long timestamp) {
+    if (timestamp - context.lastActiveTime <= CACHE_EXPIRE_SECONDS) {
+      return;
+    }
+    // Emitters are only added to a context that is not removed, which is checked while holding the same lock
+    synchronized (context) {
+      if (context.emitters.isEmpty() && context.retiredEmitters.isEmpty()) {
+        context.removed = true;
+        collectors.remove(context.tags, context);
       }
-    };
+    }
   }
 
   private final class MetricsContextImpl implements MetricsContext {
 
     private final Map<String, String> tags;
+    private final ConcurrentMap<String, AggregatedMetricsEmitter> emitters;
+    // Emitters that were updated after being retired, which are yet to be emitted
+    private final Queue<AggregatedMetricsEmitter> retiredEmitters;
+    // The last time in seconds that this context has emitters. Only accessed by the publishing thread.
+    private long lastActiveTime;
+    // Whether this context is removed from the collectors map. Guarded by this object.
+    private boolean removed;
 
     private MetricsContextImpl(final Map<String, String> tags) {
       this.tags = ImmutableMap.copyOf(tags);
+      this.emitters = new ConcurrentHashMap<>();
+      this.retiredEmitters = new ConcurrentLinkedQueue<>();
+      this.lastActiveTime = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
     }
 
     @Override
     public void increment(String metricName, long value) {
-      emitters.getUnchecked(tags).getUnchecked(metricName).increment(value);
+      AggregatedMetricsEmitter emitter = getEmitter(metricName);
+      emitter.increment(value);
+      checkRetired(emitter);
     }
 
     @Override
     public void gauge(String metricName, long value) {
-      emitters.getUnchecked(tags).getUnchecked(metricName).gauge(value);
+      AggregatedMetricsEmitter emitter = getEmitter(metricName);
+      emitter.gauge(value);
+      checkRetired(emitter);
     }
 
     @Override
     public MetricsContext childContext(String tagName, String tagValue) {
       ImmutableMap<String, String> allTags = ImmutableMap.<String, String>builder()
         .putAll(tags).put(tagName, tagValue).build();
-      return collectors.getUnchecked(allTags);
+      return getContext(allTags);
     }
 
     @Override
@@ -254,7 +308,9 @@ public abstract class AggregatedMetricsCollectionService extends AbstractExecuti
 
     @Override
     public void event(String metricName, long value) {
-      emitters.getUnchecked(tags).getUnchecked(metricName).event(value);
+      AggregatedMetricsEmitter emitter = getEmitter(metricName);
+      emitter.event(value);
+      checkRetired(emitter);
     }
 
     @Override
@@ -266,7 +322,39 @@ public abstract class AggregatedMetricsCollectionService extends AbstractExecuti
       Map<String, String> allTags = Maps.newHashMap();
       allTags.putAll(this.tags);
       allTags.putAll(tags);
-      return collectors.getUnchecked(allTags);
+      return getContext(allTags);
+    }
+
+    private AggregatedMetricsEmitter getEmitter(String metricName) {
+      AggregatedMetricsEmitter emitter = emitters.get(metricName);
+      if (emitter != null) {
+        return emitter;
+      }
+      synchronized (this) {
+        if (!removed) {
+          return emitters.computeIfAbsent(metricName,
+                                          name -> new AggregatedMetricsEmitter(name, histogramSignificantDigits));
+        }
+      }
+      // This context was removed due to inactivity. Use the context that is currently published for the same tags.
+      return ((MetricsContextImpl) getContext(tags)).getEmitter(metricName);
+    }
+
+    /**
+     * Hands the given emitter back to be emitted if it was retired, since the update that was just made to it could
+     * have happened after it was last emitted.
+     */
+    private void checkRetired(AggregatedMetricsEmitter emitter) {
+      if (!emitter.isRetired()) {
+        return;
+      }
+      synchronized (this) {
+        if (!removed) {
+          retiredEmitters.add(emitter);
+          return;
+        }
+      }
+      ((MetricsContextImpl) getContext(tags)).checkRetired(emitter);
     }
   }
 }
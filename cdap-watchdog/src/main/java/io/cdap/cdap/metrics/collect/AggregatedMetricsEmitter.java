@@ -20,63 +20,161 @@ import io.cdap.cdap.api.metrics.MetricValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import javax.annotation.concurrent.ThreadSafe;
+
 /**
  * {@link MetricsEmitter} that aggregates  values for a metric
  * during collection and emit the aggregated value when emit.
+ *
+ * This class is lock-free. Counter and distribution values are kept in {@link StripedCounter}, such that
+ * concurrent updates from many threads don't contend with each other and {@link #emit()} can take
+ * the aggregated value without losing concurrent updates.
  */
+@ThreadSafe
 final class AggregatedMetricsEmitter implements MetricsEmitter {
   private static final Logger LOG = LoggerFactory.getLogger(AggregatedMetricsEmitter.class);
+  private static final AtomicReferenceFieldUpdater<AggregatedMetricsEmitter, Distribution> DISTRIBUTION_UPDATER =
+    AtomicReferenceFieldUpdater.newUpdater(AggregatedMetricsEmitter.class, Distribution.class, "distribution");
+  private static final AtomicReferenceFieldUpdater<AggregatedMetricsEmitter, Histogram> HISTOGRAM_UPDATER =
+    AtomicReferenceFieldUpdater.newUpdater(AggregatedMetricsEmitter.class, Histogram.class, "histogram");
 
   private final String name;
-  private long value;
+  private final int histogramSignificantDigits;
+  private final StripedCounter value;
+  private final AtomicBoolean gaugeUpdated;
+
+  // The type of the last update. It is only written when the type changes to avoid cache line invalidation.
+  private volatile MetricType metricType = MetricType.COUNTER;
+  private volatile long gaugeValue;
+  private volatile Distribution distribution;
+  private volatile Histogram histogram;
+  // Set when the emitter is removed from its context, after which updates need to be handed back to be emitted
+  private volatile boolean retired;
 
-  private MetricType metricType = MetricType.COUNTER;
-  private Distribution distribution;
+  // The last time in seconds that this emitter emitted a value. Only accessed by the thread that calls emit().
+  private long lastEmitTime;
 
   AggregatedMetricsEmitter(String name) {
+    this(name, 0);
+  }
+
+  /**
+   * Creates an emitter.
+   *
+   * @param name name of the metric
+   * @param histogramSignificantDigits if positive, events are aggregated with a {@link Histogram} of the given
+   *                                   number of significant digits instead of a {@link Distribution}
+   */
+  AggregatedMetricsEmitter(String name, int histogramSignificantDigits) {
     if (name == null || name.isEmpty()) {
       LOG.warn("Creating emmitter with " + (name == null ? "null" : "empty") + " name, ");
     }
 
     this.name = name;
+    this.histogramSignificantDigits = histogramSignificantDigits;
+    this.value = new StripedCounter();
+    this.gaugeUpdated = new AtomicBoolean();
+    this.lastEmitTime = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
   }
 
-  public synchronized void increment(long incrementValue) {
-    this.value += incrementValue;
-    this.metricType = MetricType.COUNTER;
+  public void increment(long incrementValue) {
+    value.add(incrementValue);
+    setMetricType(MetricType.COUNTER);
   }
 
   @Override
-  public synchronized MetricValue emit() {
+  public MetricValue emit() {
+    MetricType metricType = this.metricType;
     if (metricType == MetricType.DISTRIBUTION) {
-      Distribution oldVal;
-      // TODO emit maybe made faster using CAS inside Distribution.
-      // https://cdap.atlassian.net/browse/CDAP-18792 has more context
-      oldVal = distribution;
-      distribution = null;
-      if (oldVal != null) {
-        LOG.trace("Emitting distribution metric: {}", oldVal.toString());
-        return oldVal.getMetricValue(name);
+      Distribution distribution = this.distribution;
+      if (distribution == null) {
+        return new Distribution().getMetricValue(name);
       }
-      return new Distribution().getMetricValue(name);
+      MetricValue metricValue = distribution.getMetricValueAndReset(name);
+      LOG.trace("Emitting distribution metric: {}", metricValue);
+      return metricValue;
+    }
+    if (metricType == MetricType.HISTOGRAM) {
+      MetricValue metricValue = histogram.getMetricValueAndReset(name);
+      LOG.trace("Emitting histogram metric: {}", metricValue);
+      return metricValue;
     }
 
-    MetricValue returnVal = new MetricValue(name, metricType, this.value);
-    this.value = 0;
-    this.metricType = MetricType.COUNTER;
-    return returnVal;
+    // Always take the counter value so that increments before a gauge won't be emitted later
+    long counterValue = value.getAndReset();
+    if (metricType == MetricType.GAUGE) {
+      // Only emit the gauge if it was updated since the last emit.
+      // The flag is reset before reading the value so that a concurrent update is never missed.
+      return gaugeUpdated.getAndSet(false)
+        ? new MetricValue(name, MetricType.GAUGE, gaugeValue)
+        : new MetricValue(name, MetricType.COUNTER, 0L);
+    }
+    return new MetricValue(name, MetricType.COUNTER, counterValue);
   }
 
-  public synchronized void gauge(long value) {
-    this.value = value;
-    this.metricType = MetricType.GAUGE;
+  public void gauge(long value) {
+    this.gaugeValue = value;
+    if (!gaugeUpdated.get()) {
+      gaugeUpdated.set(true);
+    }
+    setMetricType(MetricType.GAUGE);
   }
 
-  public synchronized void event(long value) {
+  public void event(long value) {
+    if (histogramSignificantDigits > 0) {
+      Histogram histogram = this.histogram;
+      if (histogram == null) {
+        HISTOGRAM_UPDATER.compareAndSet(this, null, new Histogram(histogramSignificantDigits));
+        histogram = this.histogram;
+      }
+      histogram.add(value);
+      setMetricType(MetricType.HISTOGRAM);
+      return;
+    }
+
+    Distribution distribution = this.distribution;
     if (distribution == null) {
-      distribution = new Distribution();
+      DISTRIBUTION_UPDATER.compareAndSet(this, null, new Distribution());
+      distribution = this.distribution;
     }
     distribution.add(value);
-    this.metricType = MetricType.DISTRIBUTION;
+    setMetricType(MetricType.DISTRIBUTION);
+  }
+
+  /**
+   * Returns the last time in seconds that this emitter emitted a value.
+   */
+  long getLastEmitTime() {
+    return lastEmitTime;
+  }
+
+  /**
+   * Sets the last time in seconds that this emitter emitted a value.
+   */
+  void setLastEmitTime(long lastEmitTime) {
+    this.lastEmitTime = lastEmitTime;
+  }
+
+  /**
+   * Marks this emitter as removed from its context.
+   */
+  void retire() {
+    retired = true;
+  }
+
+  /**
+   * Returns {@code true} if this emitter was removed from its context.
+   */
+  boolean isRetired() {
+    return retired;
+  }
+
+  private void setMetricType(MetricType metricType) {
+    if (this.metricType != metricType) {
+      this.metricType = metricType;
+    }
   }
 }
@@ -18,64 +18,43 @@ package io.cdap.cdap.metrics.collect;
 
 import io.cdap.cdap.api.metrics.MetricValue;
 
-import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.concurrent.ThreadSafe;
 
 /**
- * Class is not thread-safe. It is the caller's responsibility to ensure thread safety.
+ * A distribution of values with power of two buckets. This class is thread-safe and lock-free. Concurrent
+ * {@link #add(long)} calls on the same bucket are spread across cells of a {@link StripedCounter}.
  */
+@ThreadSafe
 public class Distribution {
     /**
-     * Trying to minimize memory usage for the buckets. Using a long[64 (i.e. ROWS*COLS)] will always store 64 numbers,
-     * most of them being 0. A HashMap is an alternative, but boxing overhed is high (roughly 10X) for
-     * each long.
+     * Trying to minimize memory usage for the buckets. Each bucket is a {@link StripedCounter}, which is only created
+     * when the bucket receives its first value. In the normal case, the range of values for a metric will probably
+     * within a 256X range i.e. max value <= min * 256, hence only a handful of counters will be created.
+     * Once created, a bucket counter is reused across resets, such that adding values in the steady state
+     * doesn't allocate.
      *
-     * A third alternative used is to increase array size till the highest bucket. But this involves
-     * repeatedly copying the array.
-     *
-     * The current approach strikes a balance by using an array of arrays. Ex. bucket 52 is stored in
-     * the 6th row, 5th column (6*8(i.e. ROWS) + 5th column). Initially all rows are null. The moment a bucket increases
-     * by 1, a long[8 (i.e. COLS)] is created for that row. When bucket 52 becomes non-zero, the 6th row is initialized
-     * to long[8 (i.e. COLS)] and the 5th column is increased to 1. If bucket 53 needs to be incremented, the row
-     * already exists. So the 6th column is incremented.
-     *
-     * In the worst case, this can take storage for 64 longs + 8(ROWS) row sreferences. But in the normal case,
-     * the range of values for a metric will probably within a 256X range i.e. max value <= min * 256. So at most
-     * two rows will have to be initialized, resulting in 8(COLS)*2 long number storage + 8(ROWS) object references.
-     */
-
-    /**
-     * ROWS is the number of rows in bucketCounts and COLS is the number of columns
-     * in bucketCounts. Note that ROWS*COLS MUST be less than or equal to 64 (Long.SIZE), since
-     * we are using a long bucketMask.
+     * NUM_BUCKETS MUST be less than or equal to 64 (Long.SIZE), since we are using a long bucketMask.
      */
-    private static final int ROWS = 8;
-    private static final int COLS = 8;
+    private static final int NUM_BUCKETS = Long.SIZE;
 
-    private final long[][] bucketCounts = new long[ROWS][];
+    private final AtomicReferenceArray<StripedCounter> bucketCounts = new AtomicReferenceArray<>(NUM_BUCKETS);
 
     /**
-     * If count is zero then this field must be zero. Mean can be easily calculated from sum and count.
+     * The sum is kept as a long, which is exact as long as the sum of values added between two resets doesn't
+     * overflow.
      */
-    private double sum;
-
-    private long count;
-
-    private int numBuckets;
+    private final StripedCounter sum = new StripedCounter();
 
     public void add(long value) {
         int bucket = findBucketNumber(value);
-        count += 1;
-        sum += value;
-
-        int i = getRow(bucket);
-        int j = getCol(bucket);
-        if (bucketCounts[i] == null) {
-            bucketCounts[i] = new long[COLS];
-        }
-        if (bucketCounts[i][j] == 0) {
-            numBuckets++;
+        StripedCounter counter = bucketCounts.get(bucket);
+        if (counter == null) {
+            bucketCounts.compareAndSet(bucket, null, new StripedCounter());
+            counter = bucketCounts.get(bucket);
         }
-        bucketCounts[i][j] += 1;
+        counter.add(1L);
+        sum.add(value);
     }
 
     private int findBucketNumber(long value) {
@@ -91,47 +70,51 @@ public class Distribution {
         return Math.min(Long.numberOfTrailingZeros(Long.highestOneBit(value)) + 2, Long.SIZE - 1);
     }
 
-    private int getRow(int bucket) {
-        // Hotspot will optimize this division
-        // https://stackoverflow.com/questions/1514949/quick-java-optimization-question
-        return bucket / COLS;
+    /**
+     * Returns a {@link MetricValue} that represents the current distribution.
+     */
+    public MetricValue getMetricValue(String metricName) {
+        return toMetricValue(metricName, false);
     }
 
-    private int getCol(int bucket) {
-        // Hotspot will optimize this modulo
-        // https://stackoverflow.com/questions/29844345/how-is-the-modulo-operator-implemented-in-the-hotspot-jvm
-        return bucket % COLS;
+    /**
+     * Returns a {@link MetricValue} that represents the current distribution and resets the distribution to empty.
+     * Values that are added concurrently with this call are either included in the returned {@link MetricValue}
+     * or remain in this distribution, hence they are never lost.
+     */
+    public MetricValue getMetricValueAndReset(String metricName) {
+        return toMetricValue(metricName, true);
     }
 
-    public MetricValue getMetricValue(String metricName) {
+    private MetricValue toMetricValue(String metricName, boolean reset) {
         long bucketMask = 0;
-        long[] bucketCountsArr = new long[numBuckets];
-        int bucketCountIndex = 0;
-        for (int row = 0; row < ROWS; row++) {
-            if (bucketCounts[row] == null) {
+        long[] counts = new long[NUM_BUCKETS];
+        int numBuckets = 0;
+        for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+            StripedCounter counter = bucketCounts.get(bucket);
+            if (counter == null) {
                 continue;
             }
-            for (int col = 0; col < COLS; col++) {
-                if (bucketCounts[row][col] > 0) {
-                    bucketMask |= 1L << row * COLS + col;
-                    bucketCountsArr[bucketCountIndex] = bucketCounts[row][col];
-                    bucketCountIndex++;
-                }
+            long count = reset ? counter.getAndReset() : counter.sum();
+            if (count > 0) {
+                bucketMask |= 1L << bucket;
+                counts[numBuckets++] = count;
             }
         }
-        return new MetricValue(metricName, bucketCountsArr, bucketMask, sum);
+        long[] bucketCountsArr = new long[numBuckets];
+        System.arraycopy(counts, 0, bucketCountsArr, 0, numBuckets);
+        double sumValue = reset ? sum.getAndReset() : sum.sum();
+        return new MetricValue(metricName, bucketCountsArr, bucketMask, sumValue);
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        sb.append(String.format("Distribution {count: %d, numBuckets: %d, sum: %f ",
-                count, numBuckets, sum));
-        for (int index = 0; index < ROWS; index++) {
-            if (bucketCounts[index] != null) {
-                sb.append(String.format("Row %d: %s ", index, Arrays.toString(bucketCounts[index])));
-            } else {
-                sb.append(String.format("%d: null ", index));
+        sb.append(String.format("Distribution {sum: %d ", sum.sum()));
+        for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+            StripedCounter counter = bucketCounts.get(bucket);
+            if (counter != null) {
+                sb.append(String.format("%d: %d ", bucket, counter.sum()));
             }
         }
         sb.append("}");
@@ -0,0 +1,178 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.metrics.collect;
+
+import io.cdap.cdap.api.metrics.MetricType;
+import io.cdap.cdap.api.metrics.MetricValue;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A histogram with log-linear buckets, similar to the HdrHistogram. Values are grouped into power of two buckets,
+ * with each of them divided linearly into sub-buckets, such that the value of each sub-bucket is accurate to the
+ * configured number of significant decimal digits. For example, with two significant digits, the relative error
+ * of any value is less than 1%, compared to up to 100% with the power of two buckets of {@link Distribution}.
+ *
+ * Each bucket is identified by an index, which can be converted back to the value range that the bucket covers
+ * with {@link #getLowestEquivalentValue(int, int)} and {@link #getHighestEquivalentValue(int, int)}.
+ * Negative values are counted as zero.
+ *
+ * This class is thread-safe and lock-free.
+ */
+@ThreadSafe
+public final class Histogram {
+
+  public static final int MIN_SIGNIFICANT_DIGITS = 1;
+  public static final int MAX_SIGNIFICANT_DIGITS = 3;
+
+  private final int significantDigits;
+  private final int subBucketHalfCountMagnitude;
+  private final int subBucketHalfCount;
+  private final long subBucketMask;
+  // Counts of each bucket, with the sub-buckets counts created lazily when the bucket receives its first value
+  private final AtomicReferenceArray<AtomicLongArray> counts;
+  private final StripedCounter sum;
+
+  public Histogram(int significantDigits) {
+    this.significantDigits = validateSignificantDigits(significantDigits);
+    this.subBucketHalfCountMagnitude = getSubBucketHalfCountMagnitude(significantDigits);
+    this.subBucketHalfCount = 1 << subBucketHalfCountMagnitude;
+    this.subBucketMask = (1L << (subBucketHalfCountMagnitude + 1)) - 1;
+    this.counts = new AtomicReferenceArray<>(getBucketIndex(Long.MAX_VALUE) + 1);
+    this.sum = new StripedCounter();
+  }
+
+  /**
+   * Returns the number of significant decimal digits maintained by this histogram.
+   */
+  public int getSignificantDigits() {
+    return significantDigits;
+  }
+
+  /**
+   * Adds a value to this histogram.
+   */
+  public void add(long value) {
+    long recordValue = Math.max(0L, value);
+    int bucketIndex = getBucketIndex(recordValue);
+    int subBucketIndex = (int) (recordValue >>> bucketIndex);
+
+    AtomicLongArray bucket = counts.get(bucketIndex);
+    if (bucket == null) {
+      // Only the first bucket uses the lower half of the sub-buckets
+      counts.compareAndSet(bucketIndex, null, new AtomicLongArray(bucketIndex == 0 ? subBucketHalfCount * 2
+                                                                                   : subBucketHalfCount));
+      bucket = counts.get(bucketIndex);
+    }
+    bucket.incrementAndGet(bucketIndex == 0 ? subBucketIndex : subBucketIndex - subBucketHalfCount);
+    sum.add(value);
+  }
+
+  /**
+   * Returns a {@link MetricValue} of type {@link MetricType#HISTOGRAM} that represents the current histogram
+   * and resets the histogram to empty. Values that are added concurrently with this call are either included in the
+   * returned {@link MetricValue} or remain in this histogram, hence they are never lost.
+   */
+  public MetricValue getMetricValueAndReset(String metricName) {
+    int size = 0;
+    int[] indexes = new int[16];
+    long[] bucketCounts = new long[16];
+
+    for (int bucketIndex = 0; bucketIndex < counts.length(); bucketIndex++) {
+      AtomicLongArray bucket = counts.get(bucketIndex);
+      if (bucket == null) {
+        continue;
+      }
+      int subBucketOffset = bucketIndex == 0 ? 0 : subBucketHalfCount;
+      for (int i = 0; i < bucket.length(); i++) {
+        if (bucket.get(i) == 0L) {
+          continue;
+        }
+        long count = bucket.getAndSet(i, 0L);
+        if (size == indexes.length) {
+          indexes = Arrays.copyOf(indexes, size * 2);
+          bucketCounts = Arrays.copyOf(bucketCounts, size * 2);
+        }
+        indexes[size] = getCountsIndex(bucketIndex, i + subBucketOffset);
+        bucketCounts[size] = count;
+        size++;
+      }
+    }
+
+    return new MetricValue(metricName, significantDigits, Arrays.copyOf(indexes, size),
+                           Arrays.copyOf(bucketCounts, size), sum.getAndReset());
+  }
+
+  /**
+   * Returns the lowest value that is counted in the bucket of the given index.
+   *
+   * @param significantDigits number of significant decimal digits of the histogram
+   * @param index the bucket index as returned by {@link MetricValue#getBucketIndexes()}
+   */
+  public static long getLowestEquivalentValue(int significantDigits, int index) {
+    int subBucketHalfCountMagnitude = getSubBucketHalfCountMagnitude(validateSignificantDigits(significantDigits));
+    int subBucketHalfCount = 1 << subBucketHalfCountMagnitude;
+    int bucketIndex = (index >> subBucketHalfCountMagnitude) - 1;
+    int subBucketIndex = (index & (subBucketHalfCount - 1)) + subBucketHalfCount;
+    if (bucketIndex < 0) {
+      subBucketIndex -= subBucketHalfCount;
+      bucketIndex = 0;
+    }
+    return (long) subBucketIndex << bucketIndex;
+  }
+
+  /**
+   * Returns the highest value that is counted in the bucket of the given index.
+   *
+   * @param significantDigits number of significant decimal digits of the histogram
+   * @param index the bucket index as returned by {@link MetricValue#getBucketIndexes()}
+   */
+  public static long getHighestEquivalentValue(int significantDigits, int index) {
+    int subBucketHalfCountMagnitude = getSubBucketHalfCountMagnitude(validateSignificantDigits(significantDigits));
+    int bucketIndex = Math.max(0, (index >> subBucketHalfCountMagnitude) - 1);
+    return getLowestEquivalentValue(significantDigits, index) + (1L << bucketIndex) - 1;
+  }
+
+  private int getBucketIndex(long value) {
+    // Smallest power of two that contains the value, counting from the size of the first bucket
+    int pow2Ceiling = Long.SIZE - Long.numberOfLeadingZeros(value | subBucketMask);
+    return pow2Ceiling - (subBucketHalfCountMagnitude + 1);
+  }
+
+  private int getCountsIndex(int bucketIndex, int subBucketIndex) {
+    return ((bucketIndex + 1) << subBucketHalfCountMagnitude) + (subBucketIndex - subBucketHalfCount);
+  }
+
+  private static int getSubBucketHalfCountMagnitude(int significantDigits) {
+    // The sub-bucket count needs to be large enough to distinguish values in [10^d, 2 * 10^d) with unit resolution
+    long largestValueWithSingleUnitResolution = 2 * (long) Math.pow(10, significantDigits);
+    int subBucketCountMagnitude = Long.SIZE - Long.numberOfLeadingZeros(largestValueWithSingleUnitResolution - 1);
+    return Math.max(subBucketCountMagnitude, 1) - 1;
+  }
+
+  private static int validateSignificantDigits(int significantDigits) {
+    if (significantDigits < MIN_SIGNIFICANT_DIGITS || significantDigits > MAX_SIGNIFICANT_DIGITS) {
+      throw new IllegalArgumentException(String.format("Significant digits must be between %d and %d, got %d",
+                                                       MIN_SIGNIFICANT_DIGITS, MAX_SIGNIFICANT_DIGITS,
+                                                       significantDigits));
+    }
+    return significantDigits;
+  }
+}
@@ -54,7 +54,8 @@ public final class LocalMetricsCollectionService extends AggregatedMetricsCollec
   @Inject
   LocalMetricsCollectionService(CConfiguration cConf, MetricStore metricStore,
                                 MetricsCleanUpService metricsCleanUpService) {
-    super(TimeUnit.SECONDS.toMillis(cConf.getInt(Constants.Metrics.METRICS_MINIMUM_RESOLUTION_SECONDS)));
+    super(TimeUnit.SECONDS.toMillis(cConf.getInt(Constants.Metrics.METRICS_MINIMUM_RESOLUTION_SECONDS)),
+          cConf.getInt(Constants.Metrics.HISTOGRAM_SIGNIFICANT_DIGITS, 0));
     this.cConf = cConf;
     this.metricStore = metricStore;
     this.metricsCleanUpService = metricsCleanUpService;
@@ -30,7 +30,9 @@ import io.cdap.cdap.common.io.DatumWriter;
 import io.cdap.cdap.common.io.Encoder;
 import io.cdap.cdap.common.service.RetryStrategies;
 import io.cdap.cdap.common.service.RetryStrategy;
+import io.cdap.cdap.messaging.BatchPublishException;
 import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.messaging.StoreRequest;
 import io.cdap.cdap.messaging.client.StoreRequestBuilder;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.TopicId;
@@ -41,12 +43,14 @@ import org.slf4j.LoggerFactory;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * An {@link AggregatedMetricsCollectionService} that uses TMS to publish {@link io.cdap.cdap.api.metrics.MetricValues}.
@@ -61,12 +65,14 @@ public class MessagingMetricsCollectionService extends AggregatedMetricsCollecti
   private final ByteArrayOutputStream encoderOutputStream;
   private final Encoder encoder;
   private final Map<Integer, TopicPayload> topicPayloads;
+  private final RetryStrategy retryStrategy;
 
   @Inject
   MessagingMetricsCollectionService(CConfiguration cConf,
                                     MessagingService messagingService,
                                     DatumWriter<MetricValues> recordWriter) {
-    super(TimeUnit.SECONDS.toMillis(cConf.getInt(Constants.Metrics.METRICS_MINIMUM_RESOLUTION_SECONDS)));
+    super(TimeUnit.SECONDS.toMillis(cConf.getInt(Constants.Metrics.METRICS_MINIMUM_RESOLUTION_SECONDS)),
+          cConf.getInt(Constants.Metrics.HISTOGRAM_SIGNIFICANT_DIGITS, 0));
 
     String topicPrefix = cConf.get(Constants.Metrics.TOPIC_PREFIX);
     int totalTopicNum = cConf.getInt(Constants.Metrics.MESSAGING_TOPIC_NUM);
@@ -79,10 +85,10 @@ public class MessagingMetricsCollectionService extends AggregatedMetricsCollecti
     this.encoderOutputStream = new ByteArrayOutputStream(1024);
     this.encoder = new BinaryEncoder(encoderOutputStream);
 
-    RetryStrategy retryStrategy = RetryStrategies.fromConfiguration(cConf, "system.metrics.");
+    this.retryStrategy = RetryStrategies.fromConfiguration(cConf, "system.metrics.");
     this.topicPayloads = new LinkedHashMap<>(totalTopicNum);
     for (int i = 0; i < totalTopicNum; i++) {
-      topicPayloads.put(i, new TopicPayload(NamespaceId.SYSTEM.topic(topicPrefix + i), retryStrategy));
+      topicPayloads.put(i, new TopicPayload(NamespaceId.SYSTEM.topic(topicPrefix + i)));
     }
   }
 
@@ -103,27 +109,95 @@ public class MessagingMetricsCollectionService extends AggregatedMetricsCollecti
     publishMetric(topicPayloads.values());
   }
 
-  private void publishMetric(Iterable<TopicPayload> topicPayloads) throws IOException, UnauthorizedException {
-    for (TopicPayload topicPayload : topicPayloads) {
-      topicPayload.publish(messagingService);
+  private void publishMetric(Collection<TopicPayload> topicPayloads) throws IOException, UnauthorizedException {
+    List<TopicPayload> pending = topicPayloads.stream().filter(p -> !p.isEmpty()).collect(Collectors.toList());
+
+    int failureCount = 0;
+    long startTime = -1L;
+    boolean interrupted = false;
+    while (!pending.isEmpty()) {
+      // Publish to all topics with one batch call. Payloads of topics that were published successfully are cleared,
+      // while those failed with retryable exceptions are retried together.
+      Map<TopicId, Exception> failures;
+      try {
+        // Clear the thread interrupt flag when doing the actual publish.
+        // Otherwise publish might get interrupted during shutdown, which has the thread interrupted
+        interrupted = Thread.interrupted();
+        messagingService.batchPublish(pending.stream().map(TopicPayload::toStoreRequest).collect(Collectors.toList()));
+        failures = Collections.emptyMap();
+      } catch (BatchPublishException e) {
+        failures = e.getFailures();
+      } catch (ServiceUnavailableException e) {
+        failures = pending.stream().collect(Collectors.toMap(p -> p.topicId, p -> e));
+      }
+
+      List<TopicPayload> retries = new ArrayList<>();
+      Exception retryFailure = null;
+      for (TopicPayload topicPayload : pending) {
+        Exception failure = failures.get(topicPayload.topicId);
+        if (failure == null) {
+          topicPayload.reset();
+        } else if (failure instanceof TopicNotFoundException || failure instanceof ServiceUnavailableException) {
+          // These exceptions are retryable due to TMS not completely started
+          retries.add(topicPayload);
+          retryFailure = failure;
+        } else {
+          throw new IOException(topicPayload.getFailureMessage(), failure);
+        }
+      }
+      if (retries.isEmpty()) {
+        break;
+      }
+
+      if (startTime < 0) {
+        startTime = System.currentTimeMillis();
+      }
+      long retryMillis = getRetryStrategy().nextRetry(++failureCount, startTime);
+      if (retryMillis < 0) {
+        throw new IOException("Failed to publish metrics to TMS and exceeded retry limit.", retryFailure);
+      }
+      LOG.debug("Failed to publish metrics to TMS due to {}. Will be retried in {} ms.",
+                retryFailure.getMessage(), retryMillis);
+      if (interrupted) {
+        LOG.warn("Retry of publish metrics interrupted. There will be loss of metrics.");
+        break;
+      }
+      try {
+        TimeUnit.MILLISECONDS.sleep(retryMillis);
+      } catch (InterruptedException e) {
+        // Something explicitly stopping this thread. Simply just break and reset the interrupt flag.
+        Thread.currentThread().interrupt();
+        break;
+      }
+      pending = retries;
+    }
+
+    if (interrupted) {
+      Thread.currentThread().interrupt();
     }
   }
 
+  private RetryStrategy getRetryStrategy() {
+    if (isRunning()) {
+      return retryStrategy;
+    }
+    // If failure happen during shutdown, use a retry strategy that only retry fixed number of times
+    return RetryStrategies.timeLimit(5, TimeUnit.SECONDS, RetryStrategies.fixDelay(200, TimeUnit.MILLISECONDS));
+  }
+
   /**
    * Private to carry payloads to be published to a topic.
    */
-  private final class TopicPayload {
+  private static final class TopicPayload {
     private final TopicId topicId;
     private final List<byte[]> payloads;
-    private final RetryStrategy retryStrategy;
     private int payloadSize;
     private int metricsCount;
     private Map<String, String> metricsTags;
 
 
-    private TopicPayload(TopicId topicId, RetryStrategy retryStrategy) {
+    private TopicPayload(TopicId topicId) {
       this.topicId = topicId;
-      this.retryStrategy = retryStrategy;
       this.payloads = new ArrayList<>();
       this.payloadSize = 0;
       this.metricsCount = 0;
@@ -138,59 +212,19 @@ public class MessagingMetricsCollectionService extends AggregatedMetricsCollecti
       payloads.add(payload);
     }
 
-    void publish(MessagingService messagingService) throws IOException, UnauthorizedException {
-      if (payloads.isEmpty()) {
-        return;
-      }
+    boolean isEmpty() {
+      return payloads.isEmpty();
+    }
 
-      int failureCount = 0;
-      long startTime = -1L;
-      boolean done = false;
-      boolean interrupted = false;
-      while (!done) {
-        try {
-          // Clear the thread interrupt flag when doing the actual publish.
-          // Otherwise publish might get interrupted during shutdown, which has the thread interrupted
-          interrupted = Thread.interrupted();
-          messagingService.publish(StoreRequestBuilder.of(topicId).addPayloads(payloads).build());
-          reset();
-          done = true;
-        } catch (TopicNotFoundException | ServiceUnavailableException e) {
-          // These exceptions are retryable due to TMS not completely started
-          if (startTime < 0) {
-            startTime = System.currentTimeMillis();
-          }
-          long retryMillis = getRetryStrategy().nextRetry(++failureCount, startTime);
-          if (retryMillis < 0) {
-            throw new IOException("Failed to publish metrics to TMS and exceeded retry limit.", e);
-          }
-          LOG.debug("Failed to publish metrics to TMS due to {}. Will be retried in {} ms.",
-                    e.getMessage(), retryMillis);
-          if (interrupted) {
-            LOG.warn("Retry of publish metrics interrupted. There will be loss of metrics.");
-            done = true;
-          } else {
-            try {
-              TimeUnit.MILLISECONDS.sleep(retryMillis);
-            } catch (InterruptedException e1) {
-              // Something explicitly stopping this thread. Simply just break and reset the interrupt flag.
-              Thread.currentThread().interrupt();
-              done = true;
-            }
-          }
-        } catch (IOException ioe) {
-          String exceptionMessage =
-            String.format("Exception while publishing metrics for tags: [%s] to topic '%s' " +
-                            "with %s metrics and %s bytes payload",
-                          MAP_JOINER.join(metricsTags == null ? Collections.emptyMap() : metricsTags),
-                          topicId.getTopic(), metricsCount, payloadSize);
-          throw new IOException(exceptionMessage, ioe);
-        }
-      }
+    StoreRequest toStoreRequest() {
+      return StoreRequestBuilder.of(topicId).addPayloads(payloads).build();
+    }
 
-      if (interrupted) {
-        Thread.currentThread().interrupt();
-      }
+    String getFailureMessage() {
+      return String.format("Exception while publishing metrics for tags: [%s] to topic '%s' " +
+                             "with %s metrics and %s bytes payload",
+                           MAP_JOINER.join(metricsTags == null ? Collections.emptyMap() : metricsTags),
+                           topicId.getTopic(), metricsCount, payloadSize);
     }
 
     private void reset() {
@@ -200,13 +234,5 @@ public class MessagingMetricsCollectionService extends AggregatedMetricsCollecti
       metricsCount = 0;
       metricsTags = null;
     }
-
-    private RetryStrategy getRetryStrategy() {
-      if (isRunning()) {
-        return retryStrategy;
-      }
-      // If failure happen during shutdown, use a retry strategy that only retry fixed number of times
-      return RetryStrategies.timeLimit(5, TimeUnit.SECONDS, RetryStrategies.fixDelay(200, TimeUnit.MILLISECONDS));
-    }
   }
 }
@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.metrics.collect;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A lock-free counter that spreads updates from different threads across multiple cells when there is contention,
+ * similar to {@link java.util.concurrent.atomic.LongAdder}. Unlike {@link java.util.concurrent.atomic.LongAdder},
+ * {@link #getAndReset()} atomically takes each cell, hence no concurrent update is lost between two resets.
+ */
+@ThreadSafe
+final class StripedCounter {
+
+  private static final AtomicReferenceFieldUpdater<StripedCounter, AtomicLongArray> CELLS_UPDATER =
+    AtomicReferenceFieldUpdater.newUpdater(StripedCounter.class, AtomicLongArray.class, "cells");
+
+  /**
+   * Number of cells, which is the smallest power of two that is no less than the number of processors.
+   */
+  private static final int NUM_CELLS = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()
+                                                                         * 2 - 1));
+
+  /**
+   * Each cell is padded to occupy a separate 64 bytes cache line to avoid false sharing between cells.
+   */
+  private static final int CELL_STRIDE = 8;
+
+  // The counter for the uncontended case
+  private final AtomicLong base = new AtomicLong();
+  // Cells are created when there is contention on the base. Once created, it is never released.
+  private volatile AtomicLongArray cells;
+
+  /**
+   * Adds the given value to the counter.
+   */
+  void add(long value) {
+    AtomicLongArray cells = this.cells;
+    if (cells == null) {
+      long current = base.get();
+      if (base.compareAndSet(current, current + value)) {
+        return;
+      }
+      // There is contention, switch to use the cells.
+      CELLS_UPDATER.compareAndSet(this, null, new AtomicLongArray(NUM_CELLS * CELL_STRIDE));
+      cells = this.cells;
+    }
+    cells.getAndAdd(getCellIndex(), value);
+  }
+
+  /**
+   * Returns the current sum of the counter.
+   */
+  long sum() {
+    long sum = base.get();
+    AtomicLongArray cells = this.cells;
+    if (cells != null) {
+      for (int i = 0; i < cells.length(); i += CELL_STRIDE) {
+        sum += cells.get(i);
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * Returns the current sum of the counter and resets the counter to zero. Updates that happen concurrently
+   * with this call are either included in the returned sum or remain in the counter.
+   */
+  long getAndReset() {
+    long sum = base.getAndSet(0L);
+    AtomicLongArray cells = this.cells;
+    if (cells != null) {
+      for (int i = 0; i < cells.length(); i += CELL_STRIDE) {
+        if (cells.get(i) != 0L) {
+          sum += cells.getAndSet(i, 0L);
+        }
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * Returns the index of the cell in the cells array for the current thread.
+   */
+  private static int getCellIndex() {
+    // Mix the thread id such that threads with sequential ids are spread across cells
+    long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+    return ((int) (id >>> 32) & (NUM_CELLS - 1)) * CELL_STRIDE;
+  }
+
+  @Override
+  public String toString() {
+    return Long.toString(sum());
+  }
+}
@@ -97,8 +97,15 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
   private final long metricsProcessIntervalMillis;
   private final List<ProcessMetricsThread> processMetricsThreads;
   private final String processMetricName;
+  private final String aggregationLagMetricName;
+  private final String aggregationInputMetricName;
+  private final String aggregationOutputMetricName;
+  private final String aggregationMergeRatioMetricName;
   private final String metricsPrefixForDelayMetrics;
   private final int instanceId;
+  // Metrics are merged in the aggregator for up to this number of milliseconds before being persisted
+  private final long aggregationWindowMillis;
+  private final MetricValuesAggregator aggregator;
   private long metricsProcessedCount;
   private AtomicLong lastPersistedTime;
   private MetricsConsumerMetaTable metaTable;
@@ -162,10 +169,16 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
     // the max sleep time will be 1 min
     this.metricsProcessIntervalMillis = resolveProcessingInterval(cConf, metricsWriter, metricsProcessIntervalMillis);
     this.processMetricName = String.format("metrics.%s.process.count", instanceId);
+    this.aggregationLagMetricName = metricsPrefixForDelayMetrics + ".aggregation.delay.ms";
+    this.aggregationInputMetricName = metricsPrefixForDelayMetrics + ".aggregation.input.count";
+    this.aggregationOutputMetricName = metricsPrefixForDelayMetrics + ".aggregation.output.count";
+    this.aggregationMergeRatioMetricName = metricsPrefixForDelayMetrics + ".aggregation.merge.ratio";
     this.metadataHandler = metadataHandler;
     this.metricsMetaKeyProvider = metricsMetaKeyProvider;
     this.instanceId = instanceId;
     this.limitWriteFrequency = shouldLimitWriteFrequency(metricsWriter, cConf);
+    this.aggregationWindowMillis = cConf.getLong(Constants.Metrics.PROCESSOR_AGGREGATION_WINDOW_MS);
+    this.aggregator = new MetricValuesAggregator(cConf.getInt(Constants.Metrics.METRICS_MINIMUM_RESOLUTION_SECONDS, 1));
   }
 
   private MetricsConsumerMetaTable getMetaTable() {
@@ -228,9 +241,9 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
       }
     }
 
-    // Persist metricsFromAllTopics and messageId's after all ProcessMetricsThread's complete.
+    // Persist metricsFromAllTopics, aggregated metrics and messageId's after all ProcessMetricsThread's complete.
     // No need to make a copy of metricsFromAllTopics and topicProcessMetaMap because no thread is writing to them
-    persistMetricsAndTopicProcessMeta(metricsFromAllTopics, metadataHandler.getCache());
+    persistMetricsAndTopicProcessMeta(metricsFromAllTopics, metadataHandler.getCache(), true);
   }
 
   private long resolveProcessingInterval(CConfiguration cConf, MetricsWriter metricsWriter, long defaultInterval) {
@@ -257,18 +270,29 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
   }
 
   /**
-   * Persist metrics from all topics into metric store and messageId's of the last persisted metrics of each topic into
-   * metrics meta table
+   * Merge metrics from all topics into the aggregator. If the aggregation window has passed, persist the aggregated
+   * metrics into metric store and messageId's of the last persisted metrics of each topic into metrics meta table.
+   * The messageId's are only persisted after all metrics up to them are persisted.
    *
    * @param metricValues        a deque of {@link MetricValues}
    * @param topicProcessMetaMap a map with each key {@link MetricsMetaKey} representing a key and {@link
    *                            TopicProcessMeta} which has info on messageId and processing stats
+   * @param flush               {@code true} to persist the aggregated metrics regardless of the aggregation window
    */
   private void persistMetricsAndTopicProcessMeta(Deque<MetricValues> metricValues,
-                                                 Map<MetricsMetaKey, TopicProcessMeta> topicProcessMetaMap) {
+                                                 Map<MetricsMetaKey, TopicProcessMeta> topicProcessMetaMap,
+                                                 boolean flush) {
     try {
-      if (!metricValues.isEmpty()) {
-        persistMetrics(metricValues);
+      aggregator.add(metricValues);
+      if (!aggregator.isEmpty()) {
+        if (!flush && !isAggregationCompleted()) {
+          return;
+        }
+        try {
+          persistMetrics();
+        } finally {
+          aggregator.reset();
+        }
       }
       metadataHandler.saveCache(topicProcessMetaMap);
     } catch (Exception e) {
@@ -276,15 +300,24 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
     }
   }
 
+  /**
+   * Returns whether the aggregated metrics should be persisted, which is when the aggregation window has passed
+   * since the first metrics were added, or when the aggregator has grown to the size of the queue.
+   */
+  private boolean isAggregationCompleted() {
+    return System.currentTimeMillis() - aggregator.getFirstAddTime() >= aggregationWindowMillis
+      || aggregator.getOutputCount() >= queueSize;
+  }
 
   /**
-   * Persist metrics into metric store
-   *
-   * @param metricValues a non-empty deque of {@link MetricValues}
+   * Persist metrics in the non-empty aggregator into metric store
    */
-  private void persistMetrics(Deque<MetricValues> metricValues) {
+  private void persistMetrics() {
     long now = System.currentTimeMillis();
-    long lastMetricTime = metricValues.peekLast().getTimestamp();
+    List<MetricValues> metricValues = aggregator.getMetricValues();
+    long lastMetricTime = metricValues.stream().mapToLong(MetricValues::getTimestamp).max().orElse(0L);
+    long inputCount = aggregator.getInputCount();
+    long outputCount = aggregator.getOutputCount();
     List<MetricValue> topicLevelDelays = new ArrayList<>();
 
     //write topic level delay metrics
@@ -297,15 +330,23 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
                                            MetricType.GAUGE, delay));
     }
     List<MetricValue> processorMetrics = new ArrayList<>(topicLevelDelays);
-    processorMetrics.add(new MetricValue(processMetricName, MetricType.COUNTER, metricValues.size()));
+    processorMetrics.add(new MetricValue(processMetricName, MetricType.COUNTER, aggregator.getMessageCount()));
+    // Aggregation lag is the time that the oldest metrics in this batch were held in the aggregator
+    processorMetrics.add(new MetricValue(aggregationLagMetricName, MetricType.GAUGE,
+                                         now - aggregator.getFirstAddTime()));
+    processorMetrics.add(new MetricValue(aggregationInputMetricName, MetricType.COUNTER, inputCount));
+    processorMetrics.add(new MetricValue(aggregationOutputMetricName, MetricType.COUNTER, outputCount));
+    processorMetrics.add(new MetricValue(aggregationMergeRatioMetricName, MetricType.GAUGE,
+                                         inputCount / Math.max(1L, outputCount)));
 
     long nowSeconds = TimeUnit.MILLISECONDS.toSeconds(now);
     metricValues.add(new MetricValues(metricsContextMap, nowSeconds, processorMetrics));
     metricsWriter.write(metricValues);
-    metricsProcessedCount += metricValues.size();
-    PROGRESS_LOG.debug("{}(+{}) metrics persisted with {}. Last metric's timestamp: {} (lag {} seconds)",
-                       metricsProcessedCount, metricValues.size(), metricsWriter.getID(),
-                       lastMetricTime, nowSeconds - lastMetricTime);
+    metricsProcessedCount += aggregator.getMessageCount();
+    PROGRESS_LOG.debug("{}(+{}) metrics persisted with {} after merging {} values into {}. "
+                         + "Last metric's timestamp: {} (lag {} seconds)",
+                       metricsProcessedCount, aggregator.getMessageCount(), metricsWriter.getID(),
+                       inputCount, outputCount, lastMetricTime, nowSeconds - lastMetricTime);
   }
 
   private class ProcessMetricsThread extends Thread {
@@ -463,9 +504,8 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
           metricsCopy.add(iterator.next());
           iterator.remove();
         }
-        // Persist the copy of metrics and MessageId's
-
-        persistMetricsAndTopicProcessMeta(metricsCopy, topicProcessMetaMapCopy);
+        // Merge the copy of metrics and persist them with MessageId's if the aggregation window has passed
+        persistMetricsAndTopicProcessMeta(metricsCopy, topicProcessMetaMapCopy, false);
       } catch (Exception e) {
         LOG.warn("Failed to persist metrics. Will be retried in next iteration.", e);
       } finally {
@@ -0,0 +1,303 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.metrics.process;
+
+import io.cdap.cdap.api.metrics.MetricType;
+import io.cdap.cdap.api.metrics.MetricValue;
+import io.cdap.cdap.api.metrics.MetricValues;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Merges {@link MetricValues} in memory before they are written by a {@link io.cdap.cdap.api.metrics.MetricsWriter}.
+ *
+ * Metric values with the same tags, the same timestamp rounded to the given resolution, the same name and
+ * the same type are merged into one. Counters are summed, gauges keep the last value, distributions and histograms
+ * are merged bucket by bucket. Since the tags determine the dimension values of every aggregation in the metrics cube,
+ * this merges exactly the facts that would otherwise be written as separate increments of the same cell.
+ */
+@NotThreadSafe
+final class MetricValuesAggregator {
+
+  private final int resolutionSeconds;
+  private final Map<GroupKey, Map<MeasureKey, Accumulator>> groups;
+  private long messageCount;
+  private long inputCount;
+  private long outputCount;
+  private long firstAddTime;
+
+  /**
+   * Creates a new instance.
+   *
+   * @param resolutionSeconds the resolution in seconds that timestamps are rounded down to before merging
+   */
+  MetricValuesAggregator(int resolutionSeconds) {
+    this.resolutionSeconds = Math.max(1, resolutionSeconds);
+    this.groups = new LinkedHashMap<>();
+  }
+
+  /**
+   * Adds all metric values to this aggregator.
+   */
+  void add(Collection<MetricValues> metricValues) {
+    if (metricValues.isEmpty()) {
+      return;
+    }
+    if (isEmpty()) {
+      firstAddTime = System.currentTimeMillis();
+    }
+    messageCount += metricValues.size();
+    for (MetricValues values : metricValues) {
+      long timestamp = values.getTimestamp() - values.getTimestamp() % resolutionSeconds;
+      Map<MeasureKey, Accumulator> measures = groups.computeIfAbsent(new GroupKey(values.getTags(), timestamp),
+                                                                     k -> new LinkedHashMap<>());
+      for (MetricValue value : values.getMetrics()) {
+        MeasureKey key = new MeasureKey(value);
+        Accumulator accumulator = measures.get(key);
+        if (accumulator == null) {
+          measures.put(key, new Accumulator(value));
+          outputCount++;
+        } else {
+          accumulator.merge(value);
+        }
+        inputCount++;
+      }
+    }
+  }
+
+  /**
+   * Returns {@code true} if nothing was added since the last {@link #reset()}.
+   */
+  boolean isEmpty() {
+    return groups.isEmpty();
+  }
+
+  /**
+   * Returns the number of {@link MetricValues} added to this aggregator.
+   */
+  long getMessageCount() {
+    return messageCount;
+  }
+
+  /**
+   * Returns the number of merged {@link MetricValue} in this aggregator.
+   */
+  long getOutputCount() {
+    return outputCount;
+  }
+
+  /**
+   * Returns the number of {@link MetricValue} added to this aggregator.
+   */
+  long getInputCount() {
+    return inputCount;
+  }
+
+  /**
+   * Returns the time in milliseconds when the first metric value was added since the last {@link #reset()},
+   * or {@code 0} if this aggregator is empty.
+   */
+  long getFirstAddTime() {
+    return isEmpty() ? 0L : firstAddTime;
+  }
+
+  /**
+   * Returns the merged metric values, ordered by the time each group of tags and timestamp was first added.
+   */
+  List<MetricValues> getMetricValues() {
+    List<MetricValues> result = new ArrayList<>(groups.size());
+    for (Map.Entry<GroupKey, Map<MeasureKey, Accumulator>> entry : groups.entrySet()) {
+      List<MetricValue> metrics = new ArrayList<>(entry.getValue().size());
+      for (Accumulator accumulator : entry.getValue().values()) {
+        metrics.add(accumulator.toMetricValue());
+      }
+      result.add(new MetricValues(entry.getKey().tags, entry.getKey().timestamp, metrics));
+    }
+    return result;
+  }
+
+  /**
+   * Removes everything from this aggregator.
+   */
+  void reset() {
+    groups.clear();
+    messageCount = 0L;
+    inputCount = 0L;
+    outputCount = 0L;
+    firstAddTime = 0L;
+  }
+
+  /**
+   * Key for grouping metric values by tags and rounded timestamp.
+   */
+  private static final class GroupKey {
+    private final Map<String, String> tags;
+    private final long timestamp;
+    private final int hashCode;
+
+    GroupKey(Map<String, String> tags, long timestamp) {
+      this.tags = tags;
+      this.timestamp = timestamp;
+      this.hashCode = Objects.hash(tags, timestamp);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      GroupKey that = (GroupKey) o;
+      return timestamp == that.timestamp && tags.equals(that.tags);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /**
+   * Key for merging metric values within a group. Histograms of different precisions are kept separately.
+   */
+  private static final class MeasureKey {
+    private final String name;
+    private final MetricType type;
+    private final int significantDigits;
+
+    MeasureKey(MetricValue value) {
+      this.name = value.getName();
+      this.type = value.getType();
+      this.significantDigits = type == MetricType.HISTOGRAM ? value.getSignificantDigits() : 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      MeasureKey that = (MeasureKey) o;
+      return type == that.type && significantDigits == that.significantDigits && name.equals(that.name);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(name, type, significantDigits);
+    }
+  }
+
+  /**
+   * Accumulates merged values of a metric. The first value is kept as is until there is a second one to merge with.
+   */
+  private static final class Accumulator {
+    private final String name;
+    private final MetricType type;
+    private final int significantDigits;
+    private MetricValue first;
+    private long value;
+    private double sum;
+    // Counts of all distribution buckets, or histogram bucket counts keyed by bucket index
+    private long[] distributionCounts;
+    private TreeMap<Integer, Long> histogramCounts;
+
+    Accumulator(MetricValue first) {
+      this.name = first.getName();
+      this.type = first.getType();
+      this.significantDigits = type == MetricType.HISTOGRAM ? first.getSignificantDigits() : 0;
+      this.first = first;
+    }
+
+    void merge(MetricValue other) {
+      if (first != null) {
+        MetricValue value = first;
+        first = null;
+        add(value);
+      }
+      add(other);
+    }
+
+    MetricValue toMetricValue() {
+      if (first != null) {
+        return first;
+      }
+      switch (type) {
+        case DISTRIBUTION:
+          long mask = 0L;
+          List<Long> counts = new ArrayList<>();
+          for (int i = 0; i < distributionCounts.length; i++) {
+            if (distributionCounts[i] != 0L) {
+              mask |= 1L << i;
+              counts.add(distributionCounts[i]);
+            }
+          }
+          return new MetricValue(name, counts.stream().mapToLong(Long::longValue).toArray(), mask, sum);
+        case HISTOGRAM:
+          int[] indexes = histogramCounts.keySet().stream().mapToInt(Integer::intValue).toArray();
+          long[] bucketCounts = histogramCounts.values().stream().mapToLong(Long::longValue).toArray();
+          return new MetricValue(name, significantDigits, indexes, bucketCounts, sum);
+        default:
+          return new MetricValue(name, type, value);
+      }
+    }
+
+    private void add(MetricValue other) {
+      switch (type) {
+        case COUNTER:
+          value += other.getValue();
+          break;
+        case GAUGE:
+          value = other.getValue();
+          break;
+        case DISTRIBUTION:
+          if (distributionCounts == null) {
+            distributionCounts = new long[MetricValue.NUM_FINITE_BUCKETS + 2];
+          }
+          long[] allCounts = other.getAllBucketCounts();
+          for (int i = 0; i < allCounts.length; i++) {
+            distributionCounts[i] += allCounts[i];
+          }
+          sum += other.getSum();
+          break;
+        case HISTOGRAM:
+          if (histogramCounts == null) {
+            histogramCounts = new TreeMap<>();
+          }
+          int[] indexes = other.getBucketIndexes();
+          long[] counts = other.getBucketCounts();
+          for (int i = 0; i < indexes.length; i++) {
+            histogramCounts.merge(indexes[i], counts[i], Long::sum);
+          }
+          sum += other.getSum();
+          break;
+        default:
+          throw new IllegalArgumentException("Unsupported metric type " + type);
+      }
+    }
+  }
+}
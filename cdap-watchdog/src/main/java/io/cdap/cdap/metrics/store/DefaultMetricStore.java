@@ -24,6 +24,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.inject.Inject;
+import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
 import io.cdap.cdap.api.dataset.lib.cube.Cube;
 import io.cdap.cdap.api.dataset.lib.cube.CubeDeleteQuery;
 import io.cdap.cdap.api.dataset.lib.cube.CubeExploreQuery;
@@ -62,9 +63,12 @@ import io.cdap.cdap.proto.id.TopicId;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
@@ -276,6 +280,10 @@ public class DefaultMetricStore implements MetricStore {
           // https://cdap.atlassian.net/browse/CDAP-18769
           continue;
         }
+        if (metric.getType() == MetricType.HISTOGRAM) {
+          HistogramMeasures.addMeasurements(measureName, metric, metrics);
+          continue;
+        }
         MeasureType type = metric.getType() == MetricType.COUNTER ? MeasureType.COUNTER : MeasureType.GAUGE;
         metrics.add(new Measurement(measureName, type, metric.getValue()));
       }
@@ -290,19 +298,67 @@ public class DefaultMetricStore implements MetricStore {
 
   @Override
   public Collection<MetricTimeSeries> query(MetricDataQuery query) {
-    Collection<TimeSeries> cubeResult = cube.get().query(buildCubeQuery(query));
+    // Separate out percentile queries on histograms
+    Map<String, AggregationFunction> metrics = new HashMap<>();
+    Map<String, Set<HistogramMeasures.Percentile>> percentiles = new HashMap<>();
+    for (Map.Entry<String, AggregationFunction> entry : query.getMetrics().entrySet()) {
+      HistogramMeasures.Percentile percentile = HistogramMeasures.Percentile.fromMeasureName(entry.getKey());
+      if (percentile == null) {
+        metrics.put(entry.getKey(), entry.getValue());
+      } else {
+        percentiles.computeIfAbsent(percentile.getHistogramMeasureName(entry.getKey()),
+                                    k -> EnumSet.noneOf(HistogramMeasures.Percentile.class)).add(percentile);
+      }
+    }
+
     List<MetricTimeSeries> result = Lists.newArrayList();
-    for (TimeSeries timeSeries : cubeResult) {
-      result.add(new MetricTimeSeries(timeSeries.getMeasureName(),
-                                      timeSeries.getDimensionValues(),
-                                      timeSeries.getTimeValues()));
+    for (Map.Entry<String, Set<HistogramMeasures.Percentile>> entry : percentiles.entrySet()) {
+      if (!queryPercentiles(query, entry.getKey(), entry.getValue(), result)) {
+        // Not a histogram, query it as a regular metric
+        entry.getValue().forEach(p -> metrics.put(p.getMeasureName(entry.getKey()), AggregationFunction.SUM));
+      }
+    }
+
+    if (!metrics.isEmpty()) {
+      Collection<TimeSeries> cubeResult = cube.get().query(buildCubeQuery(query, metrics));
+      for (TimeSeries timeSeries : cubeResult) {
+        result.add(new MetricTimeSeries(timeSeries.getMeasureName(),
+                                        timeSeries.getDimensionValues(),
+                                        timeSeries.getTimeValues()));
+      }
     }
     return result;
   }
 
-  private CubeQuery buildCubeQuery(MetricDataQuery query) {
+  /**
+   * Queries percentiles of a histogram metric by querying all of its bucket measures.
+   *
+   * @return {@code false} if there is no histogram of the given name
+   */
+  private boolean queryPercentiles(MetricDataQuery query, String histogramName,
+                                   Set<HistogramMeasures.Percentile> percentiles, List<MetricTimeSeries> result) {
+    List<DimensionValue> slice = new ArrayList<>();
+    query.getSliceByTags().forEach((name, value) -> slice.add(new DimensionValue(name, value)));
+    CubeExploreQuery exploreQuery = new CubeExploreQuery(query.getStartTs(), query.getEndTs(),
+                                                         query.getResolution(), -1, slice);
+    String prefix = HistogramMeasures.getBucketMeasurePrefix(histogramName);
+    Map<String, AggregationFunction> bucketMeasures = new HashMap<>();
+    for (String measureName : cube.get().findMeasureNames(exploreQuery)) {
+      if (measureName.startsWith(prefix)) {
+        bucketMeasures.put(measureName, AggregationFunction.SUM);
+      }
+    }
+    if (bucketMeasures.isEmpty()) {
+      return false;
+    }
+    Collection<TimeSeries> buckets = cube.get().query(buildCubeQuery(query, bucketMeasures));
+    result.addAll(HistogramMeasures.computePercentiles(buckets, histogramName, percentiles));
+    return true;
+  }
+
+  private CubeQuery buildCubeQuery(MetricDataQuery query, Map<String, AggregationFunction> metrics) {
     return new CubeQuery(null, query.getStartTs(), query.getEndTs(),
-                         query.getResolution(), query.getLimit(), query.getMetrics(),
+                         query.getResolution(), query.getLimit(), metrics,
                          query.getSliceByTags(), query.getGroupByTags(), query.getAggregationOption(),
                          query.getInterpolator());
   }
@@ -361,7 +417,19 @@ public class DefaultMetricStore implements MetricStore {
 
   @Override
   public Collection<String> findMetricNames(MetricSearchQuery query) {
-    return cube.get().findMeasureNames(buildCubeSearchQuery(query));
+    // Replace histogram bucket measures with the percentiles that can be queried
+    Set<String> result = new TreeSet<>();
+    for (String measureName : cube.get().findMeasureNames(buildCubeSearchQuery(query))) {
+      String histogramName = HistogramMeasures.getHistogramMeasureName(measureName);
+      if (histogramName == null) {
+        result.add(measureName);
+      } else {
+        for (HistogramMeasures.Percentile percentile : HistogramMeasures.Percentile.values()) {
+          result.add(percentile.getMeasureName(histogramName));
+        }
+      }
+    }
+    return result;
   }
 
   /**
@@ -0,0 +1,233 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.metrics.store;
+
+import io.cdap.cdap.api.dataset.lib.cube.MeasureType;
+import io.cdap.cdap.api.dataset.lib.cube.Measurement;
+import io.cdap.cdap.api.dataset.lib.cube.TimeSeries;
+import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
+import io.cdap.cdap.api.metrics.MetricTimeSeries;
+import io.cdap.cdap.api.metrics.MetricType;
+import io.cdap.cdap.api.metrics.MetricValue;
+import io.cdap.cdap.metrics.collect.Histogram;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+
+/**
+ * Helper for storing {@link MetricType#HISTOGRAM} metrics in the metrics cube and computing percentiles from them.
+ *
+ * Each non-empty bucket of a histogram is stored as a counter measure named
+ *
+ * <pre>
+ *   [measure name].hist.[significant digits].[bucket index]
+ * </pre>
+ *
+ * Since bucket counts are counters, histograms are merged by the cube aggregation the same way as other counters,
+ * across time as well as across aggregation groups. Percentiles are queried with measure names
+ * {@code [measure name].p50}, {@code .p90}, {@code .p99} and {@code .p999}.
+ */
+final class HistogramMeasures {
+
+  private static final String BUCKET_INFIX = ".hist.";
+
+  /**
+   * Percentiles supported by the query.
+   */
+  enum Percentile {
+    P50("p50", 50d),
+    P90("p90", 90d),
+    P99("p99", 99d),
+    P999("p999", 99.9d);
+
+    private final String suffix;
+    private final double percentile;
+
+    Percentile(String suffix, double percentile) {
+      this.suffix = "." + suffix;
+      this.percentile = percentile;
+    }
+
+    /**
+     * Returns the name of the percentile measure for the given histogram measure.
+     */
+    String getMeasureName(String histogramMeasureName) {
+      return histogramMeasureName + suffix;
+    }
+
+    /**
+     * Returns the {@link Percentile} that the given measure name ends with or {@code null} if there is none.
+     */
+    @Nullable
+    static Percentile fromMeasureName(String measureName) {
+      for (Percentile percentile : values()) {
+        if (measureName.endsWith(percentile.suffix) && measureName.length() > percentile.suffix.length()) {
+          return percentile;
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Returns the histogram measure name of the given percentile measure name.
+     */
+    String getHistogramMeasureName(String measureName) {
+      return measureName.substring(0, measureName.length() - suffix.length());
+    }
+  }
+
+  private HistogramMeasures() {
+    // no-op
+  }
+
+  /**
+   * Adds one counter {@link Measurement} for each non-empty bucket of the given histogram.
+   */
+  static void addMeasurements(String measureName, MetricValue histogram, List<Measurement> measurements) {
+    int[] indexes = histogram.getBucketIndexes();
+    long[] counts = histogram.getBucketCounts();
+    String prefix = getBucketMeasurePrefix(measureName) + histogram.getSignificantDigits() + ".";
+    for (int i = 0; i < indexes.length; i++) {
+      measurements.add(new Measurement(prefix + indexes[i], MeasureType.COUNTER, counts[i]));
+    }
+  }
+
+  /**
+   * Returns the prefix of all bucket measure names of the given histogram measure.
+   */
+  static String getBucketMeasurePrefix(String histogramMeasureName) {
+    return histogramMeasureName + BUCKET_INFIX;
+  }
+
+  /**
+   * Returns the histogram measure name if the given measure name is a bucket measure, or {@code null} otherwise.
+   */
+  @Nullable
+  static String getHistogramMeasureName(String measureName) {
+    int idx = measureName.lastIndexOf(BUCKET_INFIX);
+    if (idx <= 0 || parseBucket(measureName.substring(idx + BUCKET_INFIX.length())) == null) {
+      return null;
+    }
+    return measureName.substring(0, idx);
+  }
+
+  /**
+   * Computes percentiles from the results of querying bucket measures.
+   *
+   * @param bucketSeries results of querying the bucket measures of a histogram
+   * @param histogramMeasureName name of the histogram measure
+   * @param percentiles percentiles to compute
+   * @return one {@link MetricTimeSeries} for each percentile and each group of dimension values
+   */
+  static Collection<MetricTimeSeries> computePercentiles(Collection<TimeSeries> bucketSeries,
+                                                         String histogramMeasureName,
+                                                         Collection<Percentile> percentiles) {
+    String prefix = getBucketMeasurePrefix(histogramMeasureName);
+
+    // Dimension values -> timestamp -> highest value of bucket -> count
+    Map<Map<String, String>, TreeMap<Long, TreeMap<Long, Long>>> histograms = new HashMap<>();
+    for (TimeSeries series : bucketSeries) {
+      if (!series.getMeasureName().startsWith(prefix)) {
+        continue;
+      }
+      long[] bucket = parseBucket(series.getMeasureName().substring(prefix.length()));
+      if (bucket == null) {
+        continue;
+      }
+      long highestValue = Histogram.getHighestEquivalentValue((int) bucket[0], (int) bucket[1]);
+      TreeMap<Long, TreeMap<Long, Long>> timeBuckets = histograms.computeIfAbsent(series.getDimensionValues(),
+                                                                                  k -> new TreeMap<>());
+      for (TimeValue timeValue : series.getTimeValues()) {
+        timeBuckets.computeIfAbsent(timeValue.getTimestamp(), k -> new TreeMap<>())
+          .merge(highestValue, timeValue.getValue(), Long::sum);
+      }
+    }
+
+    List<MetricTimeSeries> result = new ArrayList<>();
+    for (Map.Entry<Map<String, String>, TreeMap<Long, TreeMap<Long, Long>>> entry : histograms.entrySet()) {
+      for (Percentile percentile : percentiles) {
+        List<TimeValue> timeValues = new ArrayList<>();
+        for (Map.Entry<Long, TreeMap<Long, Long>> timeBuckets : entry.getValue().entrySet()) {
+          Long value = getValueAtPercentile(timeBuckets.getValue(), percentile.percentile);
+          if (value != null) {
+            timeValues.add(new TimeValue(timeBuckets.getKey(), value));
+          }
+        }
+        if (!timeValues.isEmpty()) {
+          result.add(new MetricTimeSeries(percentile.getMeasureName(histogramMeasureName),
+                                          entry.getKey(), timeValues));
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the value at the given percentile, which is the highest value of the bucket that the percentile falls in.
+   *
+   * @param buckets map from the highest value of each bucket to the count of the bucket
+   * @param percentile the percentile between 0 and 100
+   * @return the value at the percentile or {@code null} if the histogram is empty
+   */
+  @Nullable
+  static Long getValueAtPercentile(TreeMap<Long, Long> buckets, double percentile) {
+    long total = 0;
+    for (long count : buckets.values()) {
+      total += count;
+    }
+    if (total <= 0) {
+      return null;
+    }
+    long target = Math.max(1L, (long) Math.ceil(percentile / 100d * total));
+    long accumulated = 0;
+    for (Map.Entry<Long, Long> bucket : buckets.entrySet()) {
+      accumulated += bucket.getValue();
+      if (accumulated >= target) {
+        return bucket.getKey();
+      }
+    }
+    return buckets.lastKey();
+  }
+
+  /**
+   * Parses the [significant digits].[bucket index] suffix of a bucket measure name.
+   *
+   * @return an array of significant digits and bucket index, or {@code null} if the suffix is not valid
+   */
+  @Nullable
+  private static long[] parseBucket(String suffix) {
+    int idx = suffix.indexOf('.');
+    if (idx <= 0) {
+      return null;
+    }
+    try {
+      int digits = Integer.parseInt(suffix.substring(0, idx));
+      int index = Integer.parseInt(suffix.substring(idx + 1));
+      if (digits < Histogram.MIN_SIGNIFICANT_DIGITS || digits > Histogram.MAX_SIGNIFICANT_DIGITS || index < 0) {
+        return null;
+      }
+      return new long[] { digits, index };
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+}
@@ -27,15 +27,21 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
@@ -250,6 +256,94 @@ public class AggregatedMetricsCollectionServiceTest {
     }
   }
 
+  @Test
+  public void testReuseRemovedContext() {
+    List<MetricValues> published = new ArrayList<>();
+    AggregatedMetricsCollectionService service = new AggregatedMetricsCollectionService(1000L) {
+      @Override
+      protected void publish(Iterator<MetricValues> metrics) {
+        Iterators.addAll(published, metrics);
+      }
+    };
+    Map<String, String> tags = ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE, NAMESPACE);
+
+    MetricsContext context = service.getContext(tags);
+    context.increment(METRIC, 1);
+    long now = System.currentTimeMillis();
+    service.publishMetrics(now);
+    Assert.assertEquals(1L, (long) getMetricValue(published.get(0).getMetrics(), METRIC));
+
+    // Nothing was emitted for longer than the expiry time, which removes the emitter and the context
+    published.clear();
+    service.publishMetrics(now + TimeUnit.MINUTES.toMillis(5));
+    Assert.assertTrue(published.isEmpty());
+
+    // Another caller gets a new context for the same tags, while the removed one is still being used
+    MetricsContext newContext = service.getContext(tags);
+    Assert.assertNotSame(context, newContext);
+    newContext.increment(METRIC, 2);
+    context.increment(METRIC, 3);
+    context.gauge(GAUGE_METRIC, 4);
+    service.publishMetrics(now + TimeUnit.MINUTES.toMillis(6));
+
+    Assert.assertEquals(1, published.size());
+    Assert.assertEquals(tags, published.get(0).getTags());
+    Assert.assertEquals(5L, (long) getMetricValue(published.get(0).getMetrics(), METRIC));
+    Assert.assertEquals(4L, (long) getMetricValue(published.get(0).getMetrics(), GAUGE_METRIC));
+  }
+
+  @Test
+  public void testConcurrentUpdatesWithRemoval() throws Exception {
+    AtomicLong publishedTotal = new AtomicLong();
+    AggregatedMetricsCollectionService service = new AggregatedMetricsCollectionService(1000L) {
+      @Override
+      protected void publish(Iterator<MetricValues> metrics) {
+        // An update to a retired emitter is published separately from the emitter that replaces it
+        while (metrics.hasNext()) {
+          for (MetricValue metricValue : metrics.next().getMetrics()) {
+            if (METRIC.equals(metricValue.getName())) {
+              publishedTotal.addAndGet(metricValue.getValue());
+            }
+          }
+        }
+      }
+    };
+
+    int numThreads = 4;
+    int numIncrements = 20000;
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < numThreads; i++) {
+        futures.add(executor.submit(() -> {
+          // Keep using the same context, which can be removed while it is in use
+          MetricsContext context = service.getContext(EMPTY_TAGS);
+          for (int j = 0; j < numIncrements; j++) {
+            context.increment(METRIC, 1);
+            if (j % 100 == 0) {
+              Thread.yield();
+            }
+          }
+        }));
+      }
+
+      // Each publish is far enough apart that every emitter and context without new values is removed
+      long timestamp = System.currentTimeMillis();
+      while (!futures.stream().allMatch(Future::isDone)) {
+        timestamp += TimeUnit.MINUTES.toMillis(2);
+        service.publishMetrics(timestamp);
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      service.publishMetrics(timestamp + TimeUnit.MINUTES.toMillis(2));
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Assert.assertEquals((long) numThreads * numIncrements, publishedTotal.get());
+  }
+
   private void verifyDistribtionMetricValues(BlockingQueue<MetricValues> published,
                                              int numMetrics, int numValuesInMetric) throws InterruptedException {
     long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
@@ -81,6 +81,83 @@ public class DistributionTest {
     verifyDistribution(distribution, 1L << 63, Long.MAX_VALUE, new long[]{1});
   }
 
+  @Test
+  public void testReset() {
+    Distribution distribution = new Distribution();
+    distribution.add(1);
+    distribution.add(2);
+    distribution.add(2);
+
+    MetricValue metricValue = distribution.getMetricValueAndReset(METRIC_NAME);
+    Assert.assertEquals(4 + 8, metricValue.getBucketMask());
+    Assert.assertEquals(5, metricValue.getSum(), TINY_DELTA);
+    Assert.assertArrayEquals(new long[]{1, 2}, metricValue.getBucketCounts());
+    verifyDistribution(distribution, 0, 0, new long[]{});
+
+    // the distribution should be reusable after reset
+    distribution.add(16);
+    verifyDistribution(distribution, 64, 16, new long[]{1});
+  }
+
+  @Test
+  public void testAggregatedCounterConcurrency() throws InterruptedException {
+    AggregatedMetricsEmitter emitter = new AggregatedMetricsEmitter("ignore");
+    AtomicBoolean end = new AtomicBoolean(false);
+    LongAdder totalAdds = new LongAdder();
+    LongAdder totalEmitCount = new LongAdder();
+
+    Thread emittingThread = new Thread(() -> {
+      for (int i = 0; i < 20; i++) {
+        try {
+          Thread.sleep(100);
+        } catch (InterruptedException e) {
+          // ignore
+        }
+        totalEmitCount.add(emitter.emit().getValue());
+      }
+      end.set(true);
+    });
+
+    Runnable runnable = () -> {
+      while (!end.get()) {
+        emitter.increment(2);
+        totalAdds.add(2);
+      }
+    };
+
+    Thread[] addingThreads = new Thread[4];
+    for (int i = 0; i < addingThreads.length; i++) {
+      addingThreads[i] = new Thread(runnable);
+      addingThreads[i].start();
+    }
+    emittingThread.start();
+
+    emittingThread.join();
+    for (Thread thread : addingThreads) {
+      thread.join();
+    }
+
+    // final emit
+    totalEmitCount.add(emitter.emit().getValue());
+    Assert.assertEquals(totalAdds.longValue(), totalEmitCount.longValue());
+  }
+
+  @Test
+  public void testAggregatedGauge() {
+    AggregatedMetricsEmitter emitter = new AggregatedMetricsEmitter("gauge");
+    emitter.gauge(10);
+    emitter.gauge(5);
+
+    MetricValue metricValue = emitter.emit();
+    Assert.assertEquals(MetricType.GAUGE, metricValue.getType());
+    Assert.assertEquals(5, metricValue.getValue());
+
+    // no gauge update since last emit, should emit a zero counter, which is not published
+    metricValue = emitter.emit();
+    Assert.assertEquals(MetricType.COUNTER, metricValue.getType());
+    Assert.assertEquals(0, metricValue.getValue());
+  }
+
   // TODO mark as slow test
   @Test
   public void testAggregatedEmitterConcurrency() throws InterruptedException {
@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.metrics.collect;
+
+import io.cdap.cdap.api.metrics.MetricType;
+import io.cdap.cdap.api.metrics.MetricValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Unit tests for {@link Histogram}.
+ */
+public class HistogramTest {
+
+  private static final String METRIC_NAME = "test_histogram";
+
+  @Test
+  public void testPrecision() {
+    for (int digits = Histogram.MIN_SIGNIFICANT_DIGITS; digits <= Histogram.MAX_SIGNIFICANT_DIGITS; digits++) {
+      double maxError = Math.pow(10, -digits);
+      for (long value : new long[] { 0, 1, 7, 100, 1023, 1024, 123456, 987654321L, Long.MAX_VALUE / 3 }) {
+        Histogram histogram = new Histogram(digits);
+        histogram.add(value);
+        MetricValue metricValue = histogram.getMetricValueAndReset(METRIC_NAME);
+
+        Assert.assertEquals(MetricType.HISTOGRAM, metricValue.getType());
+        Assert.assertEquals(digits, metricValue.getSignificantDigits());
+        Assert.assertArrayEquals(new long[] { 1 }, metricValue.getBucketCounts());
+
+        int index = metricValue.getBucketIndexes()[0];
+        long lowest = Histogram.getLowestEquivalentValue(digits, index);
+        long highest = Histogram.getHighestEquivalentValue(digits, index);
+        Assert.assertTrue(lowest <= value && value <= highest);
+        Assert.assertTrue("Bucket [" + lowest + ", " + highest + "] is too wide for value " + value,
+                          highest - lowest <= Math.max(0, value * maxError));
+      }
+    }
+  }
+
+  @Test
+  public void testBuckets() {
+    Histogram histogram = new Histogram(2);
+    // Values smaller than 256 are counted exactly
+    histogram.add(-5);
+    histogram.add(0);
+    histogram.add(3);
+    histogram.add(3);
+    histogram.add(255);
+    // 256 and 257 fall into the same bucket
+    histogram.add(256);
+    histogram.add(257);
+
+    MetricValue metricValue = histogram.getMetricValueAndReset(METRIC_NAME);
+    Assert.assertEquals(-5 + 3 + 3 + 255 + 256 + 257, metricValue.getSum(), 0.0001d);
+    Assert.assertArrayEquals(new long[] { 2, 2, 1, 2 }, metricValue.getBucketCounts());
+
+    int[] indexes = metricValue.getBucketIndexes();
+    long[] lowestValues = Arrays.stream(indexes).mapToLong(i -> Histogram.getLowestEquivalentValue(2, i)).toArray();
+    Assert.assertArrayEquals(new long[] { 0, 3, 255, 256 }, lowestValues);
+    Assert.assertEquals(257, Histogram.getHighestEquivalentValue(2, indexes[3]));
+
+    // Reset should leave the histogram empty
+    metricValue = histogram.getMetricValueAndReset(METRIC_NAME);
+    Assert.assertEquals(0, metricValue.getBucketCounts().length);
+    Assert.assertEquals(0, metricValue.getBucketIndexes().length);
+    Assert.assertEquals(0d, metricValue.getSum(), 0.0001d);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidDigits() {
+    new Histogram(Histogram.MAX_SIGNIFICANT_DIGITS + 1);
+  }
+
+  @Test
+  public void testEmitter() {
+    AggregatedMetricsEmitter emitter = new AggregatedMetricsEmitter(METRIC_NAME, 2);
+    for (int i = 1; i <= 1000; i++) {
+      emitter.event(i);
+    }
+    MetricValue metricValue = emitter.emit();
+    Assert.assertEquals(MetricType.HISTOGRAM, metricValue.getType());
+    Assert.assertEquals(1000, Arrays.stream(metricValue.getBucketCounts()).sum());
+    Assert.assertEquals(500500d, metricValue.getSum(), 0.0001d);
+
+    metricValue = emitter.emit();
+    Assert.assertEquals(MetricType.HISTOGRAM, metricValue.getType());
+    Assert.assertEquals(0, metricValue.getBucketCounts().length);
+  }
+}
@@ -23,13 +23,16 @@ import com.google.inject.Module;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.api.messaging.TopicNotFoundException;
+import io.cdap.cdap.api.metrics.MetricType;
 import io.cdap.cdap.api.metrics.MetricValue;
 import io.cdap.cdap.api.metrics.MetricValues;
 import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.io.BinaryDecoder;
 import io.cdap.cdap.internal.io.ReflectionDatumReader;
+import io.cdap.cdap.internal.io.ReflectionSchemaGenerator;
 import io.cdap.cdap.messaging.data.RawMessage;
 import io.cdap.cdap.metrics.MetricsTestBase;
 import io.cdap.cdap.proto.id.NamespaceId;
@@ -42,6 +45,8 @@ import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -78,6 +83,55 @@ public class MessagingMetricsCollectionServiceTest extends MetricsTestBase {
     assertMetricsFromMessaging(schema, recordReader, expected);
   }
 
+  @Test
+  public void testHistogramPublish() throws Exception {
+    // histograms are carried in the distribution fields, so the record shared with other versions must not change
+    List<String> fieldNames = new ArrayList<>();
+    for (Schema.Field field : new ReflectionSchemaGenerator().generate(MetricValue.class).getFields()) {
+      fieldNames.add(field.getName());
+    }
+    Assert.assertEquals(Arrays.asList("bucketCounts", "bucketMask", "name", "sum", "type", "value"), fieldNames);
+
+    CConfiguration histogramConf = CConfiguration.create();
+    histogramConf.setInt(Constants.Metrics.HISTOGRAM_SIGNIFICANT_DIGITS, 2);
+    MetricsCollectionService collectionService = new MessagingMetricsCollectionService(histogramConf,
+                                                                                       messagingService,
+                                                                                       recordWriter);
+    collectionService.startAndWait();
+    MetricsContext context = collectionService.getContext(ImmutableMap.of("tag", "histogram"));
+    context.event("latency", 5);
+    context.event("latency", 5);
+    context.event("latency", 1000);
+    collectionService.stopAndWait();
+
+    ReflectionDatumReader<MetricValues> recordReader = new ReflectionDatumReader<>(schema, metricValueType);
+    MetricValue histogram = null;
+    for (int i = 0; i < cConf.getInt(Constants.Metrics.MESSAGING_TOPIC_NUM); i++) {
+      TopicId topicId = NamespaceId.SYSTEM.topic(TOPIC_PREFIX + i);
+      try (CloseableIterator<RawMessage> iterator = messagingService.prepareFetch(topicId).fetch()) {
+        while (iterator.hasNext()) {
+          MetricValues metricsRecord = recordReader.read(
+            new BinaryDecoder(new ByteArrayInputStream(iterator.next().getPayload())), schema);
+          if (!"histogram".equals(metricsRecord.getTags().get("tag"))) {
+            continue;
+          }
+          for (MetricValue metricValue : metricsRecord.getMetrics()) {
+            if ("latency".equals(metricValue.getName())) {
+              histogram = metricValue;
+            }
+          }
+        }
+      }
+    }
+
+    Assert.assertNotNull(histogram);
+    Assert.assertEquals(MetricType.HISTOGRAM, histogram.getType());
+    Assert.assertEquals(2, histogram.getSignificantDigits());
+    Assert.assertEquals(2, histogram.getBucketIndexes().length);
+    Assert.assertArrayEquals(new long[] {2, 1}, histogram.getBucketCounts());
+    Assert.assertEquals(1010d, histogram.getSum(), 0d);
+  }
+
   private void assertMetricsFromMessaging(final Schema schema,
                                           ReflectionDatumReader recordReader,
                                           Table<String, String, Long> expected) throws TopicNotFoundException {
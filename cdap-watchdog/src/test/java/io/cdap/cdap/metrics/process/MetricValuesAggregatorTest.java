@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.metrics.process;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.metrics.MetricType;
+import io.cdap.cdap.api.metrics.MetricValue;
+import io.cdap.cdap.api.metrics.MetricValues;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link MetricValuesAggregator}.
+ */
+public class MetricValuesAggregatorTest {
+
+  private static final Map<String, String> TAGS_1 = ImmutableMap.of("ns", "ns1", "app", "app1");
+  private static final Map<String, String> TAGS_2 = ImmutableMap.of("ns", "ns1", "app", "app2");
+
+  @Test
+  public void testMerge() {
+    MetricValuesAggregator aggregator = new MetricValuesAggregator(60);
+    Assert.assertTrue(aggregator.isEmpty());
+
+    List<MetricValues> input = new ArrayList<>();
+    // 120 seconds of metrics emitted every second for two contexts
+    for (int ts = 0; ts < 120; ts++) {
+      for (Map<String, String> tags : ImmutableList.of(TAGS_1, TAGS_2)) {
+        input.add(new MetricValues(tags, ts, ImmutableList.of(
+          new MetricValue("count", MetricType.COUNTER, 1),
+          new MetricValue("gauge", MetricType.GAUGE, ts),
+          new MetricValue("dist", new long[] { 1L }, 1L << 2, 2d),
+          new MetricValue("hist", 2, new int[] { 3, ts + 10 }, new long[] { 1L, 2L }, 3d)
+        )));
+      }
+    }
+    aggregator.add(input.subList(0, 100));
+    aggregator.add(input.subList(100, input.size()));
+
+    Assert.assertEquals(input.size(), aggregator.getMessageCount());
+    Assert.assertEquals(input.size() * 4, aggregator.getInputCount());
+    // Two contexts, two 60 seconds buckets and four metrics
+    Assert.assertEquals(2 * 2 * 4, aggregator.getOutputCount());
+    Assert.assertTrue(aggregator.getFirstAddTime() > 0);
+
+    List<MetricValues> output = aggregator.getMetricValues();
+    Assert.assertEquals(4, output.size());
+    for (MetricValues values : output) {
+      Assert.assertTrue(values.getTimestamp() == 0 || values.getTimestamp() == 60);
+      Map<String, MetricValue> metrics = new HashMap<>();
+      values.getMetrics().forEach(v -> metrics.put(v.getName(), v));
+
+      Assert.assertEquals(60L, metrics.get("count").getValue());
+      Assert.assertEquals(values.getTimestamp() + 59, metrics.get("gauge").getValue());
+
+      MetricValue dist = metrics.get("dist");
+      Assert.assertEquals(MetricType.DISTRIBUTION, dist.getType());
+      Assert.assertEquals(1L << 2, dist.getBucketMask());
+      Assert.assertArrayEquals(new long[] { 60L }, dist.getBucketCounts());
+      Assert.assertEquals(120d, dist.getSum(), 0.0001d);
+
+      MetricValue hist = metrics.get("hist");
+      Assert.assertEquals(MetricType.HISTOGRAM, hist.getType());
+      Assert.assertEquals(2, hist.getSignificantDigits());
+      Assert.assertEquals(61, hist.getBucketIndexes().length);
+      Assert.assertEquals(3, hist.getBucketIndexes()[0]);
+      Assert.assertEquals(60L, hist.getBucketCounts()[0]);
+      Assert.assertEquals(2L, hist.getBucketCounts()[1]);
+      Assert.assertEquals(180d, hist.getSum(), 0.0001d);
+    }
+
+    aggregator.reset();
+    Assert.assertTrue(aggregator.isEmpty());
+    Assert.assertEquals(0L, aggregator.getInputCount());
+    Assert.assertEquals(0L, aggregator.getOutputCount());
+    Assert.assertEquals(0L, aggregator.getFirstAddTime());
+    Assert.assertTrue(aggregator.getMetricValues().isEmpty());
+  }
+
+  @Test
+  public void testNoMerge() {
+    MetricValuesAggregator aggregator = new MetricValuesAggregator(1);
+    MetricValue counter = new MetricValue("count", MetricType.COUNTER, 5);
+    MetricValue gauge = new MetricValue("count", MetricType.GAUGE, 10);
+    aggregator.add(ImmutableList.of(new MetricValues(TAGS_1, 10, ImmutableList.of(counter, gauge)),
+                                    new MetricValues(TAGS_1, 11, Collections.singletonList(counter))));
+
+    // Different timestamps and different types are not merged
+    Assert.assertEquals(3, aggregator.getOutputCount());
+    List<MetricValues> output = aggregator.getMetricValues();
+    Assert.assertEquals(2, output.size());
+    Assert.assertEquals(10L, output.get(0).getTimestamp());
+    Assert.assertEquals(ImmutableList.of(counter, gauge), ImmutableList.copyOf(output.get(0).getMetrics()));
+    Assert.assertEquals(11L, output.get(1).getTimestamp());
+    Assert.assertSame(counter, output.get(1).getMetrics().iterator().next());
+  }
+}
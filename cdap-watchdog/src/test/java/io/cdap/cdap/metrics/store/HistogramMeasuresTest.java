@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.metrics.store;
+
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.dataset.lib.cube.MeasureType;
+import io.cdap.cdap.api.dataset.lib.cube.Measurement;
+import io.cdap.cdap.api.dataset.lib.cube.TimeSeries;
+import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
+import io.cdap.cdap.api.metrics.MetricTimeSeries;
+import io.cdap.cdap.api.metrics.MetricValue;
+import io.cdap.cdap.metrics.collect.Histogram;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Unit tests for {@link HistogramMeasures}.
+ */
+public class HistogramMeasuresTest {
+
+  private static final String MEASURE_NAME = "system.request.latency";
+
+  @Test
+  public void testMeasureNames() {
+    Assert.assertEquals(HistogramMeasures.Percentile.P99,
+                        HistogramMeasures.Percentile.fromMeasureName(MEASURE_NAME + ".p99"));
+    Assert.assertEquals(HistogramMeasures.Percentile.P999,
+                        HistogramMeasures.Percentile.fromMeasureName(MEASURE_NAME + ".p999"));
+    Assert.assertNull(HistogramMeasures.Percentile.fromMeasureName(MEASURE_NAME));
+    Assert.assertNull(HistogramMeasures.Percentile.fromMeasureName(".p50"));
+
+    Assert.assertEquals(MEASURE_NAME, HistogramMeasures.getHistogramMeasureName(MEASURE_NAME + ".hist.2.300"));
+    Assert.assertNull(HistogramMeasures.getHistogramMeasureName(MEASURE_NAME));
+    Assert.assertNull(HistogramMeasures.getHistogramMeasureName(MEASURE_NAME + ".hist.9.300"));
+    Assert.assertNull(HistogramMeasures.getHistogramMeasureName(MEASURE_NAME + ".hist.x"));
+  }
+
+  @Test
+  public void testPercentiles() {
+    // Two sources, each with values 1 to 1000, which should be merged by the cube aggregation
+    List<Measurement> measurements = new ArrayList<>();
+    for (int source = 0; source < 2; source++) {
+      Histogram histogram = new Histogram(2);
+      for (int i = 1; i <= 1000; i++) {
+        histogram.add(i);
+      }
+      MetricValue metricValue = histogram.getMetricValueAndReset("request.latency");
+      HistogramMeasures.addMeasurements(MEASURE_NAME, metricValue, measurements);
+    }
+    Assert.assertTrue(measurements.stream().allMatch(m -> m.getType() == MeasureType.COUNTER));
+
+    // Simulate the aggregation by the cube, which sums up counters of the same measure
+    Map<String, Long> aggregated = new HashMap<>();
+    measurements.forEach(m -> aggregated.merge(m.getName(), m.getValue(), Long::sum));
+    Map<String, String> dimensions = ImmutableMap.of("ns", "default");
+    List<TimeSeries> bucketSeries = aggregated.entrySet().stream()
+      .map(e -> new TimeSeries(e.getKey(), dimensions, Collections.singletonList(new TimeValue(10L, e.getValue()))))
+      .collect(Collectors.toList());
+
+    Collection<MetricTimeSeries> result =
+      HistogramMeasures.computePercentiles(bucketSeries, MEASURE_NAME,
+                                           EnumSet.allOf(HistogramMeasures.Percentile.class));
+    Map<String, Long> percentiles = result.stream()
+      .peek(series -> Assert.assertEquals(dimensions, series.getTagValues()))
+      .collect(Collectors.toMap(MetricTimeSeries::getMetricName,
+                                series -> series.getTimeValues().get(0).getValue()));
+
+    // With two significant digits, each value is accurate within 1%
+    assertWithin(500, percentiles.get(MEASURE_NAME + ".p50"));
+    assertWithin(900, percentiles.get(MEASURE_NAME + ".p90"));
+    assertWithin(990, percentiles.get(MEASURE_NAME + ".p99"));
+    assertWithin(999, percentiles.get(MEASURE_NAME + ".p999"));
+  }
+
+  private void assertWithin(long expected, Long actual) {
+    Assert.assertNotNull(actual);
+    Assert.assertTrue("Expected " + expected + ", got " + actual, Math.abs(expected - actual) <= expected / 100);
+  }
+}